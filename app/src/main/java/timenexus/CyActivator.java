@@ -3,6 +3,9 @@ package timenexus;
 import java.util.Properties;
 
 import org.cytoscape.application.swing.CytoPanelComponent;
+import org.cytoscape.model.events.AddedNodesListener;
+import org.cytoscape.model.events.NetworkAboutToBeDestroyedListener;
+import org.cytoscape.model.events.RemovedNodesListener;
 import org.cytoscape.model.events.RowsSetListener;
 import org.cytoscape.service.util.AbstractCyActivator;
 import org.cytoscape.work.ServiceProperties;
@@ -10,9 +13,12 @@ import org.cytoscape.work.TaskFactory;
 import org.osgi.framework.BundleContext;
 
 import timenexus.extraction.TimeNexusExtractorPanel;
+import timenexus.listeners.MlnNodeLayerIndexListener;
 import timenexus.listeners.MlnUpdateEdgeDirectionListener;
 import timenexus.temporalnetwork.CopyFlattenedNetworkPanel;
 import timenexus.temporalnetwork.MlnBuildFromFlatNetworkPanel;
+import timenexus.temporalnetwork.OpenMlnSnapshotPanel;
+import timenexus.temporalnetwork.SaveMlnSnapshotPanel;
 import timenexus.temporalnetwork.TimeNexusConverterPanel;
 import timenexus.utils.RegisterTask;
 import timenexus.utils.ServiceProvider;
@@ -58,6 +64,20 @@ public class CyActivator extends AbstractCyActivator {
 					ServiceProperties.TITLE, "Build MLN from flattened network",
 					ServiceProperties.MENU_GRAVITY, "3.0" ) );
 		
+		//		SAVE MULTILAYER NETWORK INTO SNAPSHOT
+		registerService( context, new RegisterTask<SaveMlnSnapshotPanel>(SaveMlnSnapshotPanel.class),
+				TaskFactory.class, ezProps(
+						ServiceProperties.PREFERRED_MENU, "Apps.TimeNexus",
+					ServiceProperties.TITLE, "Save MLN snapshot",
+					ServiceProperties.MENU_GRAVITY, "4.0" ) );
+		
+		//		OPEN MULTILAYER NETWORK FROM SNAPSHOT
+		registerService( context, new RegisterTask<OpenMlnSnapshotPanel>(OpenMlnSnapshotPanel.class),
+				TaskFactory.class, ezProps(
+						ServiceProperties.PREFERRED_MENU, "Apps.TimeNexus",
+					ServiceProperties.TITLE, "Open MLN snapshot",
+					ServiceProperties.MENU_GRAVITY, "5.0" ) );
+		
 		/**** PANELS ****/
 		
 		//		REGISTER VIEWER PANEL
@@ -72,6 +92,14 @@ public class CyActivator extends AbstractCyActivator {
 		//		EDGE DIRECTION CHANGE LISTENER
 		
 		registerService( context, new MlnUpdateEdgeDirectionListener(), RowsSetListener.class, new Properties() );
+		
+		//		NODE-LAYER INDEX LISTENER
+		
+		MlnNodeLayerIndexListener nodeLayerIndexListener = new MlnNodeLayerIndexListener();
+		registerService( context, nodeLayerIndexListener, AddedNodesListener.class, new Properties() );
+		registerService( context, nodeLayerIndexListener, RemovedNodesListener.class, new Properties() );
+		registerService( context, nodeLayerIndexListener, NetworkAboutToBeDestroyedListener.class, new Properties() );
+		registerService( context, nodeLayerIndexListener, RowsSetListener.class, new Properties() );
 	}
 	
 	/*
@@ -5,14 +5,19 @@ import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
@@ -37,6 +42,7 @@ import org.cytoscape.work.TaskMonitor;
 
 import timenexus.extraction.ExtractionMethod;
 import timenexus.extraction.ExtractionMethod.MlnExtractionException;
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
 import timenexus.temporalnetwork.MlnBuilder;
 import timenexus.utils.HttpRequestToAPI;
 import timenexus.utils.Print;
@@ -74,6 +80,10 @@ public class AnatCaller implements AppCaller {
 	int timeOutInSeconds = 999999999;
 	// if the network contains multi-edges which are forbidden
 	boolean networkHasMultiEdges = false;
+	// values of the swept parameters, which replace the values of the form elements
+	Map<String, Object> sweptValues = new HashMap<String, Object>();
+	// if the networks were corrected before the call (see normalizeNetwork())
+	boolean isNetworkNormalized = false;
 	
 	/*_______________________________________
 	 * 
@@ -149,6 +159,34 @@ public class AnatCaller implements AppCaller {
 		addStringQueryColNames( flattenedNet, queryStringColNames, layers );
 	}
 	
+	/*
+	 * Copy an app caller, with other values for the swept parameters.
+	 */
+	private AnatCaller( AnatCaller caller, Map<String, Object> sweptValues ) {
+		algoRadioGroup = caller.algoRadioGroup;
+		subAlgoRadioGroup = caller.subAlgoRadioGroup;
+		alpha = caller.alpha;
+		ignoreWeight = caller.ignoreWeight;
+		weightColName = caller.weightColName;
+		edgePenalty = caller.edgePenalty;
+		margin = caller.margin;
+		enableNodePenalty = caller.enableNodePenalty;
+		curvature = caller.curvature;
+		dominance = caller.dominance;
+		completion = caller.completion;
+		propagate = caller.propagate;
+		degree = caller.degree;
+		granularity = caller.granularity;
+		queryBooleanColNames = caller.queryBooleanColNames;
+		queryStringColNames = caller.queryStringColNames;
+		displayNodePenaltyParam = caller.displayNodePenaltyParam;
+		timeOutInSeconds = caller.timeOutInSeconds;
+		networkHasMultiEdges = caller.networkHasMultiEdges;
+		this.sweptValues.putAll( caller.sweptValues );
+		this.sweptValues.putAll( sweptValues );
+		isNetworkNormalized = true;
+	}
+	
 	@Override
 	public void addParametersToPanel(JComponent comp, List<Integer> layers) {
 		//		Create boxes
@@ -381,6 +419,45 @@ public class AnatCaller implements AppCaller {
 		if ( algo.equals("Shortest") ) return queryStringColNames;
 		else return queryBooleanColNames;
 	}
+	
+	/*
+	 * Get the values of the parameters changing the subnetwork inferred by the Anat Server.
+	 */
+	@Override
+	public Map<String, Object> getParameterValues() {
+		Map<String, Object> values = new HashMap<String, Object>( getSweepParameters() );
+		values.put( "algorithm", algoRadioGroup.getSelection().getActionCommand() );
+		values.put( "subAlgorithm", subAlgoRadioGroup.getSelection().getActionCommand() );
+		values.put( "ignoreWeight", ignoreWeight.isSelected() );
+		values.put( "weightColName", weightColName.getSelectedItem() );
+		values.put( "enableNodePenalty", enableNodePenalty.isSelected() );
+		values.put( "curvature", curvature.getValue() );
+		values.put( "dominance", dominance.getValue() );
+		values.put( "completion", completion.isSelected() );
+		values.put( "propagate", propagate.isSelected() );
+		values.put( "degree", degree.getValue() );
+		values.put( "granularity", granularity.getValue() );
+		// the network is corrected before the call
+		values.put( "networkHasMultiEdges", networkHasMultiEdges );
+		return values;
+	}
+	
+	/*
+	 * The balance between global and local criteria, the edge penalty and the margin can be swept.
+	 */
+	@Override
+	public Map<String, Object> getSweepParameters() {
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+		values.put( "alpha", sweptValues.getOrDefault( "alpha", alpha.getValue() ) );
+		values.put( "edgePenalty", sweptValues.getOrDefault( "edgePenalty", edgePenalty.getValue() ) );
+		values.put( "margin", sweptValues.getOrDefault( "margin", margin.getValue() ) );
+		return values;
+	}
+	
+	@Override
+	public AppCaller withParameterValues( Map<String, Object> values ) {
+		return new AnatCaller( this, values );
+	}
 
 
 	/*_______________________________________
@@ -503,143 +580,278 @@ public class AnatCaller implements AppCaller {
 	public ExtractedNetwork call( CyNetwork network, Map<String, String> querySources, Map<String, String> queryTargets,
 			TaskMonitor taskMonitor, ExtractionMethod method )
 			throws MlnAppCallerException, MlnExtractionException {
+		return AppCaller.waitForResult( callAsync( network, querySources, queryTargets, taskMonitor, method ), method );
+	}
+	
+	/*
+	 * The network is read directly from the flattened network, unless its multi-edges have to be aggregated.
+	 */
+	@Override
+	public boolean isProjectionSupported( FlattenedNetworkProjection network ) { return ! networkHasMultiEdges; }
+	
+	/*
+	 * Extract subnetwork using Anat Server, from a view of the flattened network.
+	 * @see call( CyNetwork, Map, Map, TaskMonitor, ExtractionMethod )
+	 */
+	@Override
+	public ExtractedNetwork call( FlattenedNetworkProjection network, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method )
+			throws MlnAppCallerException, MlnExtractionException {
+		return AppCaller.waitForResult( callAsync( network, querySources, queryTargets, taskMonitor, method ), method );
+	}
+	
+	/*
+	 * The requests are sent to Anat Server without waiting for their responses.
+	 */
+	@Override
+	public boolean isCallAsync() { return true; }
+	
+	/*
+	 * Extract subnetwork using Anat Server, without waiting for the response.
+	 * @see call( CyNetwork, Map, Map, TaskMonitor, ExtractionMethod )
+	 */
+	@Override
+	public CompletableFuture<ExtractedNetwork> callAsync( CyNetwork network, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method ) {
 		//		Correct the multi-layer network
-		if ( networkHasMultiEdges && ! method.isCancelled() ) {
-			taskMonitor.setStatusMessage("Aggregating multi-edges...");
-			EdgeManagement.aggregateMixedMultiEdges( network, method );
+		try {
+			// (from the thread changing the networks, as several calls can run at the same time)
+			if ( ! isNetworkNormalized ) method.runOnModelThread( () -> {
+				normalizeNetwork( network, taskMonitor, method );
+				return null;
+			} );
+		} catch ( MlnExtractionException | RuntimeException err ) {
+			return CompletableFuture.failedFuture( err );
+		}
+		return sendAsync( new FlattenedNetworkProjection( network ), querySources, queryTargets, taskMonitor, method );
+	}
+	
+	/*
+	 * Extract subnetwork using Anat Server from a view of the flattened network, without waiting for the response.
+	 * The view is copied to aggregate its multi-edges if needed (see isProjectionSupported()).
+	 * @see call( CyNetwork, Map, Map, TaskMonitor, ExtractionMethod )
+	 */
+	@Override
+	public CompletableFuture<ExtractedNetwork> callAsync( FlattenedNetworkProjection network, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method ) {
+		if ( ! isProjectionSupported( network ) ) return callAsyncOnCopy( network, querySources, queryTargets, taskMonitor, method );
+		return sendAsync( network, querySources, queryTargets, taskMonitor, method );
+	}
+	
+	/*
+	 * Send a view of a network which was corrected for Anat Server, without waiting for the response.
+	 * @see call( CyNetwork, Map, Map, TaskMonitor, ExtractionMethod )
+	 */
+	private CompletableFuture<ExtractedNetwork> sendAsync( FlattenedNetworkProjection network, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method ) {
+		try {
+			//		Get the algorithm which has to be used
+			String algo = algoRadioGroup.getSelection().getActionCommand();
+		
+			//		Get elements from the network
+			taskMonitor.setStatusMessage("Preparing data to send...");
+			// Nodes
+			List<String> nodes = new ArrayList<String>();
+			List<Double> nodeWeights = new ArrayList<Double>();
+			for ( CyNode node : network.getNodeList() ) {
+				nodes.add( network.getRow(node).get(CyNetwork.NAME, String.class) );
+				nodeWeights.add( network.getRow(node).get(MlnBuilder.WEIGHT, Double.class) );
+			}
+			// Edges
+			List<List<String>> edges = new ArrayList<List<String>>();
+			List<Double> edgeWeights = new ArrayList<Double>();
+			List<Boolean> directions = new ArrayList<Boolean>();
+			for ( CyEdge edge : network.getEdgeList() ) {
+				List<String> e = new ArrayList<String>();
+				e.add( network.getRow( edge.getSource() ).get( CyNetwork.NAME, String.class ) ); // add the source of the edge
+				e.add( network.getRow( edge.getTarget() ).get( CyNetwork.NAME, String.class ) ); // add the target of the edge
+				edges.add(e); // add the edge to the list
+				edgeWeights.add( network.getRow(edge).get(MlnBuilder.WEIGHT, Double.class) ); // add the direction of the edge
+				directions.add( network.getRow(edge).get(MlnBuilder.DIRECTION, Boolean.class) ); // add the weight of the edge
+			}
+		
+			//		Check whether the queries are defined
+			// Query source nodes need to be defined only for anchored networks
+			List<String> nullParams = new ArrayList<String>();
+			if ( querySources.isEmpty() ) nullParams.add("Query-source nodes");
+			if ( queryTargets.isEmpty() && algo.equals("Anchored") ) nullParams.add("Query-target nodes");
+			if ( ! nullParams.isEmpty() )
+				throw new MlnAppCallerException( "Connection to Anat Server was aborted as some parameters are null:\n"
+						+ Arrays.toString( nullParams.toArray() ),
+						"Connection to Anat Server aborted", JOptionPane.ERROR_MESSAGE );
+		
+			//		Send the requests
+			AnatSoap soap = null;
+			// Create the query objects
+			List<String> nodesSet = new ArrayList<String>(querySources.keySet());
+				nodesSet.addAll( queryTargets.keySet() );
+			Map<String, String> extremityPathNodes = new HashMap<String, String>(querySources);
+				extremityPathNodes.putAll(queryTargets);
+			// Create the requests
+			try {
+				if ( algo.equals("Anchored") )
+					soap = getAnchoredSoap(nodes, edges, nodeWeights, edgeWeights, directions,
+							new ArrayList<String>(querySources.keySet()),
+							new ArrayList<String>(queryTargets.keySet()) );
+				else if ( algo.equals("General") )
+					soap = getGeneralSoap(nodes, edges, nodeWeights, edgeWeights, directions, nodesSet);
+				else if ( algo.equals("Local") )
+					soap = getLocalSoap(nodes, edges, nodeWeights, edgeWeights, directions, nodesSet);
+				else if ( algo.equals("Shortest") )
+					soap = getShortestSoap(nodes, edges, nodeWeights, edgeWeights, directions, extremityPathNodes);
+			} catch (JAXBException e) {
+				throw new MlnAppCallerException("Impossible to create a request from the parameters.",
+						"Anat request error", JOptionPane.ERROR_MESSAGE, e);
+			}
+			method.checkCancelling();
+			return new AnatRequest( soap, taskMonitor, method ).start();
+		} catch ( MlnAppCallerException | MlnExtractionException | RuntimeException err ) {
+			return CompletableFuture.failedFuture( err );
 		}
+	}
+	
+	/*
+	 * Requests of a call to the Anat Server: the network is sent, then the results are polled until they are ready.
+	 * The requests are sent without blocking any thread, and the call can be cancelled between or during the requests.
+	 */
+	private class AnatRequest {
 		
-		//		Get the algorithm which has to be used
-		String algo = algoRadioGroup.getSelection().getActionCommand();
+		private final AnatSoap soap;
+		private final TaskMonitor taskMonitor;
+		private final ExtractionMethod method;
+		// Network extracted by the call
+		private final CompletableFuture<ExtractedNetwork> extractedNetwork = new CompletableFuture<ExtractedNetwork>();
+		// Running request
+		private volatile CompletableFuture<?> request;
 		
-		//		Get elements from the network
-		taskMonitor.setStatusMessage("Preparing data to send...");
-		// Nodes
-		List<String> nodes = new ArrayList<String>();
-		List<Double> nodeWeights = new ArrayList<Double>();
-		for ( CyNode node : network.getNodeList() ) {
-			nodes.add( network.getRow(node).get(CyNetwork.NAME, String.class) );
-			nodeWeights.add( network.getRow(node).get(MlnBuilder.WEIGHT, Double.class) );
+		private AnatRequest( AnatSoap soap, TaskMonitor taskMonitor, ExtractionMethod method ) {
+			this.soap = soap;
+			this.taskMonitor = taskMonitor;
+			this.method = method;
 		}
-		// Edges
-		List<List<String>> edges = new ArrayList<List<String>>();
-		List<Double> edgeWeights = new ArrayList<Double>();
-		List<Boolean> directions = new ArrayList<Boolean>();
-		for ( CyEdge edge : network.getEdgeList() ) {
-			List<String> e = new ArrayList<String>();
-			e.add( network.getRow( edge.getSource() ).get( CyNetwork.NAME, String.class ) ); // add the source of the edge
-			e.add( network.getRow( edge.getTarget() ).get( CyNetwork.NAME, String.class ) ); // add the target of the edge
-			edges.add(e); // add the edge to the list
-			edgeWeights.add( network.getRow(edge).get(MlnBuilder.WEIGHT, Double.class) ); // add the direction of the edge
-			directions.add( network.getRow(edge).get(MlnBuilder.DIRECTION, Boolean.class) ); // add the weight of the edge
+		
+		/*
+		 * Send the network.
+		 * @return the extracted network, which can be cancelled to abort the running request
+		 */
+		private CompletableFuture<ExtractedNetwork> start() {
+			extractedNetwork.whenComplete( (network, err) -> {
+				if ( request != null ) request.cancel( true );
+			} );
+			taskMonitor.setStatusMessage("Sending data to the Anat Server...");
+			try {
+				CompletableFuture<HttpResponse<String>> networkRequest = HttpRequestToAPI.sendSOAPAsync( soap.getAnatServerURL(),
+						soap.getRequestForNetwork(), soap.getSoapAction(), BodyHandlers.ofString() );
+				networkRequest.whenComplete( (response, err) -> soap.closeRequests() );
+				receive( networkRequest, this::receiveNetworkResponse );
+			} catch ( URISyntaxException err ) {
+				fail( err );
+			}
+			return extractedNetwork;
 		}
 		
-		//		Check whether the queries are defined
-		// Query source nodes need to be defined only for anchored networks
-		List<String> nullParams = new ArrayList<String>();
-		if ( querySources.isEmpty() ) nullParams.add("Query-source nodes");
-		if ( queryTargets.isEmpty() && algo.equals("Anchored") ) nullParams.add("Query-target nodes");
-		if ( ! nullParams.isEmpty() )
-			throw new MlnAppCallerException( "Connection to Anat Server was aborted as some parameters are null:\n"
-					+ Arrays.toString( nullParams.toArray() ),
-					"Connection to Anat Server aborted", JOptionPane.ERROR_MESSAGE );
+		/*
+		 * Process the response to a request, unless the call was cancelled.
+		 * @param running request
+		 * @param processing of the response
+		 */
+		private <T> void receive( CompletableFuture<HttpResponse<T>> request, ResponseProcessing<T> processing ) {
+			this.request = request;
+			if ( method.isCancelled() ) extractedNetwork.cancel( true );
+			if ( extractedNetwork.isDone() ) {
+				request.cancel( true );
+				return;
+			}
+			request.whenComplete( (response, err) -> {
+				if ( extractedNetwork.isDone() ) return;
+				try {
+					if ( err != null ) fail( AppCaller.getFailureCause( err ) );
+					else processing.process( response );
+				} catch ( MlnAppCallerException | IOException | RuntimeException e ) {
+					fail( e );
+				}
+			} );
+		}
 		
-		//		Send the requests
-		AnatSoap soap = null;
-		// Create the query objects
-		List<String> nodesSet = new ArrayList<String>(querySources.keySet());
-			nodesSet.addAll( queryTargets.keySet() );
-		Map<String, String> extremityPathNodes = new HashMap<String, String>(querySources);
-			extremityPathNodes.putAll(queryTargets);
-		// Create the requests
-		try {
-			if ( algo.equals("Anchored") )
-				soap = getAnchoredSoap(nodes, edges, nodeWeights, edgeWeights, directions,
-						new ArrayList<String>(querySources.keySet()),
-						new ArrayList<String>(queryTargets.keySet()) );
-			else if ( algo.equals("General") )
-				soap = getGeneralSoap(nodes, edges, nodeWeights, edgeWeights, directions, nodesSet);
-			else if ( algo.equals("Local") )
-				soap = getLocalSoap(nodes, edges, nodeWeights, edgeWeights, directions, nodesSet);
-			else if ( algo.equals("Shortest") )
-				soap = getShortestSoap(nodes, edges, nodeWeights, edgeWeights, directions, extremityPathNodes);
-		} catch (JAXBException e) {
-			throw new MlnAppCallerException("Impossible to create a request from the parameters.",
-					"Anat request error", JOptionPane.ERROR_MESSAGE, e);
+		/*
+		 * Wait for the results once the network was received (see AnatPollingScheduler).
+		 */
+		private void receiveNetworkResponse( HttpResponse<String> response ) throws MlnAppCallerException {
+			if ( response.statusCode() != 200 ) throwResponseError( response.statusCode(), response.body() );
+			receive( AnatPollingScheduler.poll( soap, timeOutInSeconds, taskMonitor ), this::receiveResults );
 		}
-		// Send the requests
-		try {
-			method.checkCancelling();
-			taskMonitor.setStatusMessage("Sending data to the Anat Server...");
-			// Send the network
-			HttpResponse<String> responseNetworkRequest = HttpRequestToAPI.sendSOAP(
-					soap.getAnatServerURL(),
-					soap.getXmlRequestForNetwork(),
-					soap.getSoapAction()
-					);
-			int responseStatus = responseNetworkRequest.statusCode();
-			String responseBody = responseNetworkRequest.body();
-			//Print.out(soap.getXmlRequestForNetwork());
-			/*Print.out(responseBody);*/
-			// Get the results
-			if ( responseStatus == 200 ) {
-				boolean successParsing = false;
-				int sleepTime = 1000, sleepTimeCumulated = 0, s = 0;
-				//Print.out("---");
-				//Print.out(soap.getID());
-				while ( responseStatus == 200 && ! successParsing && s <= timeOutInSeconds ) {
-					method.checkCancelling();
-					taskMonitor.setStatusMessage("Waiting for the Anat Server to process the network ("+s+"s)...");
-					HttpResponse<String> responseResultRequest = HttpRequestToAPI.sendSOAP(
-							soap.getAnatServerURL(),
-							soap.getXmlRequestForResults(),
-							soap.getSoapActionResults()
-							);
-					responseStatus = responseResultRequest.statusCode();
-					responseBody = responseResultRequest.body();
-					//Print.out(responseBody);
-					successParsing = soap.parseAnatResponse(responseBody);
-					// sleep 1s if the request is good but there are no results
-					if ( responseStatus == 200 && ! successParsing  ) Thread.sleep( sleepTime );
-					sleepTimeCumulated += sleepTime;
-					//Print.out(sleepTimeCumulated);
-					sleepTime = sleepTimeCumulated < 60000 ? 1000 : 10000;
-					s = sleepTimeCumulated / 1000;
+		
+		/*
+		 * Get the network from the results, which were parsed as they were received.
+		 */
+		private void receiveResults( HttpResponse<InputStream> response ) throws MlnAppCallerException, IOException {
+			if ( response.statusCode() != 200 ) {
+				try ( InputStream body = response.body() ) {
+					throwResponseError( response.statusCode(), new String( body.readAllBytes(), StandardCharsets.UTF_8 ) );
 				}
-				// Throw error if unsuccessful parsing
-				if ( ! successParsing && sleepTime >= timeOutInSeconds )
-					throw new MlnAppCallerException( "Anat Server took too much time to send back a subnetwork. Extraction was aborted.",
-							"Aborted extraction", JOptionPane.ERROR_MESSAGE );
-				else if ( ! successParsing )
-					throw new MlnAppCallerException( "Anat Server response could not be parsed into a subnetwork. Extraction was aborted.",
-							"Aborted extraction", JOptionPane.ERROR_MESSAGE );
-				// Display warnings and errors from the AnatServer
-				if ( successParsing && soap.getWarnings() != null && ! soap.getWarnings().isEmpty() )
-					Print.messageDialog("Warnings from Anat Server",
-							String.join("\n", soap.getWarnings()), JOptionPane.WARNING_MESSAGE);
-				if ( successParsing && soap.getErrors() != null && ! soap.getErrors().isEmpty() )
-					Print.messageDialog("Errors from Anat Server",
-							String.join("\n", soap.getErrors()), JOptionPane.ERROR_MESSAGE);
 			}
+			// Display warnings and errors from the AnatServer
+			if ( soap.getWarnings() != null && ! soap.getWarnings().isEmpty() )
+				Print.messageDialog("Warnings from Anat Server",
+						String.join("\n", soap.getWarnings()), JOptionPane.WARNING_MESSAGE);
+			if ( soap.getErrors() != null && ! soap.getErrors().isEmpty() )
+				Print.messageDialog("Errors from Anat Server",
+						String.join("\n", soap.getErrors()), JOptionPane.ERROR_MESSAGE);
+			extractedNetwork.complete( parseAnatData( soap ) );
+		}
+		
+		/*
+		 * Throw the error returned by the Anat Server.
+		 */
+		private void throwResponseError( int statusCode, String body ) throws MlnAppCallerException {
 			// Connection not found
-			if ( responseStatus == 404 )
+			if ( statusCode == 404 )
 				throw new MlnAppCallerException( "404 error. Connection could not be established with the Anat Server.",
 						"Anat Server not found", JOptionPane.ERROR_MESSAGE );
 			// Other errors
-			else if ( responseStatus != 200 ) {
-				String[] faultString = responseBody.split("faultstring");
-				throw new MlnAppCallerException( "HTTP status code: " + responseStatus + "\n"
-						+ ( faultString.length > 2
-								? Arrays.toString( Arrays.copyOfRange(faultString, 1, faultString.length - 1) )
-								: responseBody ),
-						"Error from Anat Server", JOptionPane.ERROR_MESSAGE );
+			String[] faultString = body.split("faultstring");
+			throw new MlnAppCallerException( "HTTP status code: " + statusCode + "\n"
+					+ ( faultString.length > 2
+							? Arrays.toString( Arrays.copyOfRange(faultString, 1, faultString.length - 1) )
+							: body ),
+					"Error from Anat Server", JOptionPane.ERROR_MESSAGE );
+		}
+		
+		/*
+		 * Stop the call after an error.
+		 * The connection and parsing errors are only printed, and the network is parsed from what was received.
+		 */
+		private void fail( Throwable err ) {
+			if ( err instanceof MlnAppCallerException || err instanceof RuntimeException ) {
+				extractedNetwork.completeExceptionally( err );
+				return;
 			}
-
-		} catch (JAXBException | URISyntaxException | IOException | InterruptedException err) {
-			Print.error(err);
+			Print.error( err );
+			try {
+				extractedNetwork.complete( parseAnatData( soap ) );
+			} catch ( MlnAppCallerException | RuntimeException e ) {
+				extractedNetwork.completeExceptionally( e );
+			}
+		}
+	}
+	
+	/*
+	 * Processing of the response to a request.
+	 */
+	private interface ResponseProcessing<T> {
+		public void process( HttpResponse<T> response ) throws MlnAppCallerException, IOException;
+	}
+	
+	/*
+	 * Aggregate the multi-edges of the network, as Anat cannot process them.
+	 */
+	@Override
+	public void normalizeNetwork( CyNetwork network, TaskMonitor taskMonitor, ExtractionMethod method )
+			throws MlnExtractionException {
+		if ( networkHasMultiEdges && ! method.isCancelled() ) {
+			taskMonitor.setStatusMessage("Aggregating multi-edges...");
+			EdgeManagement.aggregateMixedMultiEdges( network, method );
 		}
-		// Return the network
-		return parseAnatData( soap );
 	}
 	
 	/*
@@ -658,11 +870,11 @@ public class AnatCaller implements AppCaller {
 				querySources,
 				queryTargets,
 				subAlgoRadioGroup.getSelection().getActionCommand().equals("Approximate"),
-				(Integer) edgePenalty.getValue(),
-				(Integer) margin.getValue(),
+				(Integer) getSweepParameters().get("edgePenalty"),
+				(Integer) getSweepParameters().get("margin"),
 				enableNodePenalty.isSelected() ? (Integer) curvature.getValue() : null,
 				enableNodePenalty.isSelected() ? (Integer) dominance.getValue() : null,
-				(Double) alpha.getValue(),
+				(Double) getSweepParameters().get("alpha"),
 				completion.isSelected(),
 				false, // predictTF
 				propagate.isSelected(),
@@ -684,8 +896,8 @@ public class AnatCaller implements AppCaller {
 				edgeWeights,
 				0.5, // defaultConfidence for nodes
 				nodesSet,
-				(Integer) edgePenalty.getValue(),
-				(Integer) margin.getValue(),
+				(Integer) getSweepParameters().get("edgePenalty"),
+				(Integer) getSweepParameters().get("margin"),
 				(Integer) granularity.getValue(),
 				null); //homogeneousWeight
 	}
@@ -721,8 +933,8 @@ public class AnatCaller implements AppCaller {
 				edgeWeights,
 				0.5, // defaultConfidence for nodes
 				extremityPathNodes,
-				(Integer) edgePenalty.getValue(),
-				(Integer) margin.getValue(),
+				(Integer) getSweepParameters().get("edgePenalty"),
+				(Integer) getSweepParameters().get("margin"),
 				enableNodePenalty.isSelected() ? (Integer) curvature.getValue() : null,
 				enableNodePenalty.isSelected() ? (Integer) dominance.getValue() : null,
 				null); //homogeneousWeight
@@ -0,0 +1,212 @@
+package timenexus.apps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JOptionPane;
+import javax.xml.bind.JAXBException;
+
+import org.cytoscape.work.TaskMonitor;
+
+import timenexus.apps.AppCaller.MlnAppCallerException;
+import timenexus.utils.HttpRequestToAPI;
+
+/*
+ * Poll the Anat Server for the results of all the networks it is processing.
+ *
+ * The jobs are identified by their session ID (see AnatSoap.getID()) and are polled by a single timer:
+ * 	- each job is polled 1s after its network was sent, then its delay between two polls grows by 50% each time
+ * 	  its results are not ready, up to 10s;
+ * 	- at most maxPollsPerSecond polls are sent per second for all the jobs, the most overdue jobs being polled first;
+ * 	- a job is not polled again while its previous poll is running.
+ * The timer runs only while there are jobs to poll.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+class AnatPollingScheduler {
+
+	// Delay before the first poll of a job, in milliseconds
+	private static final long MIN_DELAY = 1000;
+	// Longest delay between two polls of a job, in milliseconds
+	private static final long MAX_DELAY = 10000;
+	// Factor of the delay each time the results of a job are not ready
+	private static final double BACKOFF_FACTOR = 1.5;
+	// Period of the timer, in milliseconds
+	private static final long TICK = 100;
+
+	// Maximal number of polls sent per second for all the jobs
+	private static int maxPollsPerSecond = 10;
+	// Jobs waiting for their results (key: session ID)
+	private static final Map<UUID, Job> jobs = new LinkedHashMap<UUID, Job>();
+	// Times of the polls sent during the last second
+	private static final Queue<Long> pollTimes = new ArrayDeque<Long>();
+	private static ScheduledExecutorService timer;
+	private static ScheduledFuture<?> ticking;
+
+	private AnatPollingScheduler() {}
+
+	/*
+	 * Poll the results of a network which was sent to the Anat Server, until they are parsed into the AnatSoap object.
+	 * @param AnatSoap object of the network
+	 * @param maximal time to wait for the results, in seconds
+	 * @param task monitor of the extraction method
+	 * @return the response from which the results were parsed, or the response with an HTTP error (whose body has to be read).
+	 * It can be cancelled to stop polling.
+	 */
+	static CompletableFuture<HttpResponse<InputStream>> poll( AnatSoap soap, long timeOutInSeconds, TaskMonitor taskMonitor ) {
+		Job job = new Job( soap, timeOutInSeconds, taskMonitor );
+		synchronized ( AnatPollingScheduler.class ) {
+			jobs.put( soap.getID(), job );
+			if ( timer == null ) timer = Executors.newSingleThreadScheduledExecutor( runnable -> {
+				Thread thread = new Thread( runnable, "TimeNexus Anat polling" );
+				thread.setDaemon(true);
+				return thread;
+			} );
+			if ( ticking == null ) ticking = timer.scheduleWithFixedDelay( AnatPollingScheduler::tick, TICK, TICK, TimeUnit.MILLISECONDS );
+		}
+		// Stop polling once the job is done or cancelled
+		job.response.whenComplete( (response, err) -> {
+			CompletableFuture<HttpResponse<InputStream>> request;
+			synchronized ( AnatPollingScheduler.class ) {
+				jobs.remove( soap.getID() );
+				request = job.request;
+			}
+			if ( request != null ) request.cancel( true );
+		} );
+		return job.response;
+	}
+
+	/*
+	 * Poll the jobs which have to be polled, as long as the rate of the polls allows it.
+	 */
+	private static synchronized void tick() {
+		if ( jobs.isEmpty() ) {
+			ticking.cancel( false );
+			ticking = null;
+			return;
+		}
+		long now = System.currentTimeMillis();
+		while ( ! pollTimes.isEmpty() && pollTimes.peek() <= now - 1000 ) pollTimes.poll();
+		// Jobs to poll, from the most overdue
+		List<Job> dueJobs = new ArrayList<Job>();
+		for ( Job job : jobs.values() )
+			if ( job.request == null && job.nextPoll <= now ) dueJobs.add( job );
+		dueJobs.sort( Comparator.comparingLong( (Job job) -> job.nextPoll ) );
+		for ( Job job : dueJobs ) {
+			if ( pollTimes.size() >= maxPollsPerSecond ) break;
+			pollTimes.add( now );
+			send( job, now );
+		}
+	}
+
+	/*
+	 * Send a request for the results of a job.
+	 */
+	private static void send( Job job, long now ) {
+		job.taskMonitor.setStatusMessage("Waiting for the Anat Server to process the network ("
+				+ ( now - job.startTime ) / 1000 +"s)...");
+		try {
+			// The poll does not change the job, so it is sent again if the connection is lost
+			job.request = HttpRequestToAPI.sendSOAPAsync( job.soap.getAnatServerURL(),
+					BodyPublishers.ofString( job.soap.getXmlRequestForResults() ), job.soap.getSoapActionResults(),
+					BodyHandlers.ofInputStream(), true );
+		} catch ( URISyntaxException err ) {
+			job.response.completeExceptionally( err );
+			return;
+		}
+		job.request.whenComplete( (response, err) -> receive( job, response, err ) );
+	}
+
+	/*
+	 * Parse the results of a job, or schedule its next poll if they are not ready.
+	 */
+	private static void receive( Job job, HttpResponse<InputStream> response, Throwable err ) {
+		if ( job.response.isDone() ) return;
+		try {
+			if ( err != null ) job.response.completeExceptionally( AppCaller.getFailureCause( err ) );
+			else if ( response.statusCode() != 200 || parse( job.soap, response ) ) job.response.complete( response );
+			else {
+				synchronized ( AnatPollingScheduler.class ) {
+					job.request = null;
+					job.delay = getNextDelay( job.delay );
+					job.nextPoll = System.currentTimeMillis() + job.delay;
+				}
+				if ( job.nextPoll > job.deadline )
+					throw new MlnAppCallerException( "Anat Server took too much time to send back a subnetwork. Extraction was aborted.",
+							"Aborted extraction", JOptionPane.ERROR_MESSAGE );
+			}
+		} catch ( MlnAppCallerException | JAXBException | IOException | RuntimeException e ) {
+			job.response.completeExceptionally( e );
+		}
+	}
+
+	/*
+	 * @param delay before the last poll of a job, in milliseconds
+	 * @return delay before the next poll, grown by 50% up to 10s
+	 */
+	static long getNextDelay( long delay ) {
+		return Math.min( MAX_DELAY, (long) ( delay * BACKOFF_FACTOR ) );
+	}
+
+	/*
+	 * Parse the results as they are received.
+	 * @return true if the results are ready
+	 */
+	private static boolean parse( AnatSoap soap, HttpResponse<InputStream> response ) throws JAXBException, IOException {
+		try ( InputStream body = response.body() ) {
+			return soap.parseAnatResponse( body );
+		}
+	}
+
+	public static synchronized int getMaxPollsPerSecond() {
+		return maxPollsPerSecond;
+	}
+
+	public static synchronized void setMaxPollsPerSecond( int maxPollsPerSecond ) {
+		AnatPollingScheduler.maxPollsPerSecond = Math.max( 1, maxPollsPerSecond );
+	}
+
+	/*
+	 * Network processed by the Anat Server.
+	 */
+	private static class Job {
+
+		private final AnatSoap soap;
+		private final TaskMonitor taskMonitor;
+		private final CompletableFuture<HttpResponse<InputStream>> response = new CompletableFuture<HttpResponse<InputStream>>();
+		// Time when the polling started, and time after which the job is aborted
+		private final long startTime;
+		private final long deadline;
+		// Delay before the next poll, and time of the next poll
+		private long delay = MIN_DELAY;
+		private long nextPoll;
+		// Running poll, or null
+		private volatile CompletableFuture<HttpResponse<InputStream>> request;
+
+		private Job( AnatSoap soap, long timeOutInSeconds, TaskMonitor taskMonitor ) {
+			this.soap = soap;
+			this.taskMonitor = taskMonitor;
+			startTime = System.currentTimeMillis();
+			deadline = startTime + Math.min( timeOutInSeconds, Long.MAX_VALUE / 2000 ) * 1000;
+			nextPoll = startTime + delay;
+		}
+	}
+
+}
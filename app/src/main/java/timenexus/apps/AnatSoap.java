@@ -1,17 +1,30 @@
 package timenexus.apps;
 
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 import javax.swing.JOptionPane;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -21,8 +34,14 @@ import javax.xml.bind.annotation.XmlElements;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlValue;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
 
 import timenexus.apps.AppCaller.MlnAppCallerException;
+import timenexus.utils.Print;
 
 /*
  * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
@@ -35,13 +54,36 @@ public class AnatSoap {
 	private UUID sessionId = UUID.randomUUID();
 	// SOAP action
 	String soapAction;
-	// String containing the XML request to process a network
-	private String xmlRequestNetwork;
+	// SOAP request to process a network, which is written only when it is sent
+	private Envelope requestNetwork;
 	// String containing the XML request to get the results
 	private String xmlRequestResults;
 	// JAXB object containg the network graph within SOAP response from AnatApp
 	private NetworkGraph networkGraphResponse;
 	
+	// Contexts of the requests and of the responses, created on the first use
+	private static JAXBContext requestContext;
+	private static JAXBContext responseContext;
+	// Marshallers and unmarshallers which are not used
+	private static final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<Marshaller>();
+	private static final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<Unmarshaller>();
+	// Reader of the responses
+	private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+	static {
+		XML_INPUT_FACTORY.setProperty( XMLInputFactory.IS_NAMESPACE_AWARE, true );
+		XML_INPUT_FACTORY.setProperty( XMLInputFactory.SUPPORT_DTD, false );
+	}
+	// Threads writing the requests as they are sent
+	private static final ExecutorService REQUEST_WRITER = Executors.newCachedThreadPool( runnable -> {
+		Thread thread = new Thread( runnable, "TimeNexus Anat request" );
+		thread.setDaemon(true);
+		return thread;
+	} );
+	// Size of the buffer between the writing and the sending of a request
+	private static final int PIPE_SIZE = 64 * 1024;
+	// Streams of the requests which are being written
+	private final Queue<InputStream> openedRequests = new ConcurrentLinkedQueue<InputStream>();
+	
 	/*
 	 * Create request from network to the server for "anchored" networks.
 	 * @param network name
@@ -76,7 +118,7 @@ public class AnatSoap {
 	    		anchors, terminals, sessionId, approximateAlgo,
 	    		edgePenalty, margin, curvature, dominance, alpha,
 				completion, predictTF, propagate, terminalsToAnchors, homogeneousWeight );
-		xmlRequestNetwork = marshal( envelope );
+		requestNetwork = envelope;
 		xmlRequestResults = marshal( new Envelope( sessionId ) );
 		soapAction = "calculateExplanatorySubNetwork";
 	}
@@ -109,7 +151,7 @@ public class AnatSoap {
 	    		defaultConfidence,
 	    		extremityNodesSet, sessionId,
 	    		edgePenalty, margin, curvature, dominance, homogeneousWeight );
-		xmlRequestNetwork = marshal( envelope );
+		requestNetwork = envelope;
 		xmlRequestResults = marshal( new Envelope( sessionId ) );
 		soapAction = "calculateShortestPathsSubNetwork";
 	}
@@ -137,7 +179,7 @@ public class AnatSoap {
 	    		defaultConfidence,
 	    		nodesSet, sessionId,
 	    		degree );
-		xmlRequestNetwork = marshal( envelope );
+		requestNetwork = envelope;
 		xmlRequestResults = marshal( new Envelope( sessionId ) );
 		soapAction = "calculateNeighboursSubNetwork";
 	}
@@ -167,7 +209,7 @@ public class AnatSoap {
 		Envelope envelope = new Envelope( networkName, nodesData, edgesData, defaultConfidence,
 				nodesSet, sessionId,
 	    		edgePenalty, margin, granularity, homogeneousWeight );
-		xmlRequestNetwork = marshal( envelope );
+		requestNetwork = envelope;
 		xmlRequestResults = marshal( new Envelope( sessionId ) );
 		soapAction = "calculateProjectionSubNetwork";
 	}
@@ -209,20 +251,87 @@ public class AnatSoap {
 	}
 	
 	/*
-	 * Marshal JAXB object.
+	 * Get the context of the requests, which is created once as it is thread-safe.
+	 */
+	private static synchronized JAXBContext getRequestContext() throws JAXBException {
+		if ( requestContext == null ) requestContext = JAXBContext.newInstance(Envelope.class);
+		return requestContext;
+	}
+	
+	/*
+	 * Get the context of the responses.
 	 */
-	private String marshal( Envelope envelope ) throws JAXBException {
-		// Create marshaller
-		JAXBContext context = JAXBContext.newInstance(Envelope.class);
-		Marshaller m = context.createMarshaller();
-		// Set properties
-		m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-		m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE); // remove the header with "standalone=true"
-		m.setProperty("com.sun.xml.bind.xmlHeaders", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-		// Marshal 
-		StringWriter sw = new StringWriter();
-	    m.marshal( envelope, sw );
-	    return sw.toString();
+	private static synchronized JAXBContext getResponseContext() throws JAXBException {
+		if ( responseContext == null ) responseContext = JAXBContext.newInstance(EnvelopeResponse.class);
+		return responseContext;
+	}
+	
+	/*
+	 * Marshal JAXB object into a stream.
+	 * A marshaller can be used by one thread at a time, so the marshallers are taken from a pool.
+	 */
+	private static void marshal( Envelope envelope, OutputStream out ) throws JAXBException {
+		Marshaller m = marshallers.poll();
+		if ( m == null ) {
+			// Create marshaller
+			m = getRequestContext().createMarshaller();
+			// Set properties
+			m.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE); // remove the header with "standalone=true"
+			m.setProperty("com.sun.xml.bind.xmlHeaders", "<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		}
+		// Marshal
+		try {
+			m.marshal( envelope, out );
+		} finally {
+			marshallers.add( m );
+		}
+	}
+	
+	/*
+	 * Marshal JAXB object into a string.
+	 */
+	private static String marshal( Envelope envelope ) throws JAXBException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		marshal( envelope, out );
+		return new String( out.toByteArray(), StandardCharsets.UTF_8 );
+	}
+	
+	/*
+	 * Get a stream of the request, in which the request is written by another thread as it is read.
+	 */
+	private InputStream openRequest( Envelope envelope ) {
+		PipedInputStream in = new PipedInputStream( PIPE_SIZE );
+		PipedOutputStream out;
+		try {
+			out = new PipedOutputStream( in );
+		} catch ( IOException err ) {
+			throw new UncheckedIOException( err );
+		}
+		openedRequests.add( in );
+		REQUEST_WRITER.execute( () -> {
+			try ( OutputStream o = out ) {
+				marshal( envelope, o );
+			} catch ( JAXBException | IOException err ) {
+				// The request is truncated, so the server returns an error (unless the request was closed on purpose)
+				if ( openedRequests.contains( in ) ) Print.error( err );
+			} finally {
+				openedRequests.remove( in );
+			}
+		} );
+		return in;
+	}
+	
+	/*
+	 * Close the streams of the requests which are still being written, once the request was sent or aborted.
+	 * The HTTP client does not close them when a request is aborted, so their writing threads would wait forever.
+	 */
+	public void closeRequests() {
+		InputStream in;
+		while ( ( in = openedRequests.poll() ) != null ) {
+			try {
+				in.close();
+			} catch ( IOException err ) {}
+		}
 	}
 	
 	/*
@@ -234,9 +343,10 @@ public class AnatSoap {
 	
 	/*
 	 * Get the XML request to process the network.
+	 * The request is written as it is sent (and written again if it is sent again), so that it is never held in memory.
 	 */
-	public String getXmlRequestForNetwork() {
-		return xmlRequestNetwork;
+	public BodyPublisher getRequestForNetwork() {
+		return BodyPublishers.ofInputStream( () -> openRequest( requestNetwork ) );
 	}
 	
 	/*
@@ -247,24 +357,59 @@ public class AnatSoap {
 	}
 	
 	/*
-	 * Unmarshal XML response from Anat SOAP webservice.
+	 * Unmarshal XML response from Anat SOAP webservice, as it is received.
+	 * The namespaces of the elements are ignored.
 	 * @param XML response
 	 * @return true if parsing was successfull, false otherwise
 	 */
-	public boolean parseAnatResponse(String xml) throws JAXBException {
-		// Remove namespace from the string
-		xml = xml.replace("<S:", "<");
-		xml = xml.replace("</S:", "</");
-		xml = xml.replace("<ns2:", "<");
-		xml = xml.replace("</ns2:", "</");
-		// Create unmarshaller
-		JAXBContext jaxbContext = JAXBContext.newInstance(EnvelopeResponse.class);
-		Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-		// Parse the XML
-		EnvelopeResponse response = (EnvelopeResponse) unmarshaller.unmarshal( new StringReader(xml) );
-		// Return the object
-		networkGraphResponse = response.getBodyParseResponse().getNetworkGraph();
-		return ! isEmptyNetworkReponse();
+	public boolean parseAnatResponse( InputStream xml ) throws JAXBException {
+		Unmarshaller unmarshaller = unmarshallers.poll();
+		if ( unmarshaller == null ) unmarshaller = getResponseContext().createUnmarshaller();
+		XMLStreamReader reader = null;
+		try {
+			reader = createResponseReader( xml );
+			// Parse the XML
+			EnvelopeResponse response = (EnvelopeResponse) unmarshaller.unmarshal( reader );
+			// Return the object
+			networkGraphResponse = response.getBodyParseResponse().getNetworkGraph();
+			return ! isEmptyNetworkReponse();
+		} catch ( XMLStreamException err ) {
+			throw new UnmarshalException( err );
+		} finally {
+			unmarshallers.add( unmarshaller );
+			try {
+				if ( reader != null ) reader.close();
+			} catch ( XMLStreamException err ) {
+				// The response was read
+			}
+		}
+	}
+	
+	/*
+	 * @param XML response
+	 * @return reader of the response, without the namespaces of the elements
+	 */
+	static XMLStreamReader createResponseReader( InputStream xml ) throws XMLStreamException {
+		return new NamespaceIgnoringReader( XML_INPUT_FACTORY.createXMLStreamReader( xml ) );
+	}
+	
+	/*
+	 * View of a namespace-aware reader without the namespaces of the elements, e.g. "S:Envelope" is read as "Envelope".
+	 */
+	private static class NamespaceIgnoringReader extends StreamReaderDelegate {
+		
+		private NamespaceIgnoringReader( XMLStreamReader reader ) {
+			super( reader );
+		}
+		
+		@Override
+		public String getNamespaceURI() { return ""; }
+		
+		@Override
+		public String getPrefix() { return ""; }
+		
+		@Override
+		public QName getName() { return new QName( getLocalName() ); }
 	}
 	
 	/*
@@ -2,11 +2,17 @@ package timenexus.apps;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JOptionPane;
 
 import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyNetwork;
@@ -15,6 +21,7 @@ import org.cytoscape.work.TaskMonitor;
 
 import timenexus.extraction.ExtractionMethod;
 import timenexus.extraction.ExtractionMethod.MlnExtractionException;
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
 import timenexus.utils.MlnException;
 
 /*
@@ -75,7 +82,69 @@ public interface AppCaller {
 	 * Get class variable of column names containing query nodes.
 	 */
 	public HashMap<Integer, JComboBox<String>> getQueryColNames();
-	
+
+	/*
+	 * Get the values of all the parameters which change the result of a call, such as the results can be reused
+	 * for identical calls (see AppResultCache).
+	 * @return map of parameter values, or null if the results should not be reused
+	 */
+	public default Map<String, Object> getParameterValues() { return null; }
+
+	/*
+	 * Get the parameters whose values can be swept (see SweepExtractionMethod).
+	 * @return map of the parameter names and their current values, in display order
+	 */
+	public default Map<String, Object> getSweepParameters() { return new LinkedHashMap<String, Object>(); }
+
+	/*
+	 * Correct a network as expected by the app before a call.
+	 * By default, the correction is done by call().
+	 * @param network to extract
+	 * @param task monitor of the extraction method
+	 * @param if true, the task is cancelled
+	 */
+	public default void normalizeNetwork( CyNetwork network, TaskMonitor taskMonitor, ExtractionMethod method )
+			throws MlnExtractionException {}
+
+	/*
+	 * Get a copy of the app caller with other values for some of the swept parameters.
+	 * The copy calls the app on networks which were already corrected with normalizeNetwork(),
+	 * so that a network can be shared by several copies.
+	 * By default, the app has no parameter to sweep (see getSweepParameters()), so the app caller itself is returned.
+	 * @param values of the parameters (key: name from getSweepParameters())
+	 * @return the copy
+	 */
+	public default AppCaller withParameterValues( Map<String, Object> values ) { return this; }
+
+	/*
+	 * Check if the app can read a view of the flattened network, instead of a copy registered into Cytoscape
+	 * (see call( FlattenedNetworkProjection, ... )). Such a view cannot be corrected by normalizeNetwork().
+	 * @param view of the network to extract
+	 * @return true if the network does not need to be copied
+	 */
+	public default boolean isProjectionSupported( FlattenedNetworkProjection network ) { return false; }
+
+	/*
+	 * Send data to the app from a view of the flattened network and get back the response.
+	 * By default, the view is copied into a temporary network, which is given to call( CyNetwork, ... ) then destroyed.
+	 * @param view of the network to extract
+	 * @param query-source node
+	 * @param query-target node
+	 * @param task monitor of the extraction method
+	 * @param if true, the task is cancelled
+	 * @return the extracted network
+	 */
+	public default ExtractedNetwork call( FlattenedNetworkProjection network, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method )
+			throws MlnAppCallerException, MlnExtractionException {
+		CyNetwork copy = method.createTemporaryNetwork( network );
+		try {
+			return call( copy, querySources, queryTargets, taskMonitor, method );
+		} finally {
+			method.destroyTemporaryNetwork( copy );
+		}
+	}
+
 	/*
 	 * Send data to the app and get back the response.
 	 * @param network to extract
@@ -89,6 +158,108 @@ public interface AppCaller {
 			TaskMonitor taskMonitor, ExtractionMethod method )
 			throws MlnAppCallerException, MlnExtractionException;
 	
+	/*
+	 * Check if callAsync() returns without waiting for the app, so that many calls can run at the same time
+	 * from a few threads. Otherwise, callAsync() does the call before returning.
+	 */
+	public default boolean isCallAsync() { return false; }
+	
+	/*
+	 * Send data to the app from a view of the flattened network, without waiting for the response.
+	 * By default, the view is given to callAsyncOnCopy() if the app cannot read it (see isProjectionSupported()),
+	 * otherwise the call is done by call() before returning.
+	 * @see call( FlattenedNetworkProjection, Map, Map, TaskMonitor, ExtractionMethod )
+	 * @return the extracted network, which can be cancelled to abort the call
+	 */
+	public default CompletableFuture<ExtractedNetwork> callAsync( FlattenedNetworkProjection network, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method ) {
+		if ( ! isProjectionSupported( network ) ) return callAsyncOnCopy( network, querySources, queryTargets, taskMonitor, method );
+		try {
+			return CompletableFuture.completedFuture( call( network, querySources, queryTargets, taskMonitor, method ) );
+		} catch ( MlnAppCallerException | MlnExtractionException | RuntimeException err ) {
+			return CompletableFuture.failedFuture( err );
+		}
+	}
+	
+	/*
+	 * Send data to the app from a temporary copy of a view of the flattened network, without waiting for the response.
+	 * The copy is given to callAsync( CyNetwork, ... ), and it is destroyed once the call is done.
+	 * @see call( FlattenedNetworkProjection, Map, Map, TaskMonitor, ExtractionMethod )
+	 * @return the extracted network, which can be cancelled to abort the call
+	 */
+	public default CompletableFuture<ExtractedNetwork> callAsyncOnCopy( FlattenedNetworkProjection network,
+			Map<String, String> querySources, Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method ) {
+		CyNetwork copy;
+		CompletableFuture<ExtractedNetwork> extractedNetwork;
+		try {
+			copy = method.createTemporaryNetwork( network );
+		} catch ( MlnExtractionException | RuntimeException err ) {
+			return CompletableFuture.failedFuture( err );
+		}
+		try {
+			extractedNetwork = callAsync( copy, querySources, queryTargets, taskMonitor, method );
+		} catch ( RuntimeException err ) {
+			method.destroyTemporaryNetwork( copy );
+			return CompletableFuture.failedFuture( err );
+		}
+		extractedNetwork.whenComplete( (result, err) -> method.destroyTemporaryNetwork( copy ) );
+		return extractedNetwork;
+	}
+	
+	/*
+	 * Send data to the app, without waiting for the response.
+	 * By default, the call is done by call() before returning.
+	 * @see call( CyNetwork, Map, Map, TaskMonitor, ExtractionMethod )
+	 * @return the extracted network, which can be cancelled to abort the call
+	 */
+	public default CompletableFuture<ExtractedNetwork> callAsync( CyNetwork network, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method ) {
+		try {
+			return CompletableFuture.completedFuture( call( network, querySources, queryTargets, taskMonitor, method ) );
+		} catch ( MlnAppCallerException | MlnExtractionException | RuntimeException err ) {
+			return CompletableFuture.failedFuture( err );
+		}
+	}
+	
+	/*
+	 * Wait for the network extracted by an asynchronous call.
+	 * @param network returned by callAsync()
+	 * @param extraction method, which is cancelled if the thread is interrupted
+	 * @return the extracted network
+	 */
+	public static ExtractedNetwork waitForResult( CompletableFuture<ExtractedNetwork> extractedNetwork, ExtractionMethod method )
+			throws MlnAppCallerException, MlnExtractionException {
+		try {
+			return extractedNetwork.get();
+		} catch ( InterruptedException err ) {
+			extractedNetwork.cancel( true );
+			method.cancel();
+			Thread.currentThread().interrupt();
+		} catch ( CancellationException err ) {
+			// Cancelled by the extraction method
+		} catch ( ExecutionException err ) {
+			Throwable cause = getFailureCause( err );
+			if ( cause instanceof MlnAppCallerException ) throw (MlnAppCallerException) cause;
+			else if ( cause instanceof MlnExtractionException ) throw (MlnExtractionException) cause;
+			else if ( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+			else if ( cause instanceof Error ) throw (Error) cause;
+			else throw new MlnAppCallerException( "The extracting app failed:\n" + cause.getMessage(),
+					"Extraction failure", JOptionPane.ERROR_MESSAGE, cause );
+		}
+		method.checkCancelling();
+		throw new MlnExtractionException("The extraction was cancelled",
+				"Extraction cancelled", JOptionPane.ERROR_MESSAGE);
+	}
+	
+	/*
+	 * @return the error thrown by an asynchronous call, without the exceptions wrapping it
+	 */
+	public static Throwable getFailureCause( Throwable err ) {
+		while ( ( err instanceof CompletionException || err instanceof ExecutionException ) && err.getCause() != null )
+			err = err.getCause();
+		return err;
+	}
+	
 	/*
 	 * Check if the multi-layer network can be processed by the app.
 	 * @param the flattened network
@@ -0,0 +1,311 @@
+package timenexus.apps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
+import timenexus.temporalnetwork.MlnBuilder;
+import timenexus.utils.Fingerprint;
+import timenexus.utils.Print;
+
+/*
+ * Cache of the networks extracted by the apps, so that identical calls are not sent again to the apps.
+ *
+ * The key of a call is a SHA-256 hash of the app, of its parameters, of the queries and of the network to extract
+ * (node names and weights, edges with their weights and directions), which are sorted so that the key
+ * does not depend on the order of the elements or on the SUIDs.
+ * The extracted networks are kept in memory up to a maximal size (estimated), the least recently used ones being removed first.
+ * They can also be written into a directory, so that they are kept between sessions.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public final class AppResultCache {
+
+	// Directory used by default to keep the extracted networks on disk
+	public static final File DEFAULT_DIRECTORY = new File( System.getProperty("user.home"),
+			"CytoscapeConfiguration" + File.separator + "app-data" + File.separator + "TimeNexus" + File.separator + "app-results" );
+	// File format
+	private static final int MAGIC = 0x544E5243; // "TNRC"
+	private static final int VERSION = 1;
+	private static final String FILE_EXTENSION = ".tnr";
+
+	// Extracted networks (key: hash of the call), in the order of their last use
+	private static final LinkedHashMap<String, CachedNetwork> cachedNetworks = new LinkedHashMap<String, CachedNetwork>( 16, 0.75f, true );
+	// Estimated size of the extracted networks in memory (bytes)
+	private static long memorySize = 0;
+	private static long maxMemorySize = 64L * 1024 * 1024;
+	// Directory where the extracted networks are written (null: only in memory)
+	private static File directory = null;
+
+	private AppResultCache(){ throw new RuntimeException(); }
+
+	/*_______________________________________
+	 *
+	 *			KEYS
+	 *_______________________________________
+	 */
+
+	/*
+	 * Get the key of a call.
+	 * @param app to call
+	 * @param view of the network to extract
+	 * @param query-source nodes
+	 * @param query-target nodes
+	 * @return the key, or null if the results of the app should not be reused
+	 */
+	public static String getKey( AppCaller app, FlattenedNetworkProjection network, Map<String, String> querySources, Map<String, String> queryTargets ) {
+		Map<String, Object> parameters = app.getParameterValues();
+		if ( parameters == null ) return null;
+		Fingerprint key = Fingerprint.create();
+		if ( key == null ) return null;
+		// App and parameters
+		key.add( app.toString() );
+		for ( Map.Entry<String, Object> param : new TreeMap<String, Object>( parameters ).entrySet() )
+			key.add( param.getKey() + "=" + param.getValue() );
+		// Queries
+		key.add( "sources" );
+		for ( Map.Entry<String, String> query : new TreeMap<String, String>( querySources ).entrySet() )
+			key.add( query.getKey() + "\t" + query.getValue() );
+		key.add( "targets" );
+		for ( Map.Entry<String, String> query : new TreeMap<String, String>( queryTargets ).entrySet() )
+			key.add( query.getKey() + "\t" + query.getValue() );
+		// Nodes
+		List<String> nodes = new ArrayList<String>();
+		for ( CyNode node : network.getNodeList() ) {
+			CyRow row = network.getRow(node);
+			nodes.add( row.get( CyNetwork.NAME, String.class ) + "\t" + row.get( MlnBuilder.WEIGHT, Double.class ) );
+		}
+		key.addSorted( "nodes", nodes );
+		// Edges
+		List<String> edges = new ArrayList<String>();
+		for ( CyEdge edge : network.getEdgeList() ) {
+			CyRow row = network.getRow(edge);
+			edges.add( network.getRow( edge.getSource() ).get( CyNetwork.NAME, String.class )
+					+ "\t" + network.getRow( edge.getTarget() ).get( CyNetwork.NAME, String.class )
+					+ "\t" + row.get( MlnBuilder.WEIGHT, Double.class )
+					+ "\t" + row.get( MlnBuilder.DIRECTION, Boolean.class )
+					+ "\t" + edge.isDirected() );
+		}
+		key.addSorted( "edges", edges );
+		// Hexadecimal key
+		return key.toHex();
+	}
+
+	/*_______________________________________
+	 *
+	 *			CACHE
+	 *_______________________________________
+	 */
+
+	/*
+	 * Get the extracted network of a call, from the memory or from the directory.
+	 * @param key of the call
+	 * @return the extracted network, or null if the call is unknown
+	 */
+	public static ExtractedNetwork get( String key ) {
+		File dir;
+		synchronized ( AppResultCache.class ) {
+			CachedNetwork cached = cachedNetworks.get(key);
+			if ( cached != null ) return cached.network;
+			dir = directory;
+		}
+		if ( dir == null ) return null;
+		File file = new File( dir, key + FILE_EXTENSION );
+		if ( ! file.isFile() ) return null;
+		try {
+			ExtractedNetwork network = read( file );
+			putInMemory( key, network );
+			return network;
+		} catch (IOException | RuntimeException err) {
+			// Unreadable file: the call will be sent again to the app
+			Print.error(err);
+			file.delete();
+			return null;
+		}
+	}
+
+	/*
+	 * Keep the extracted network of a call.
+	 * Empty networks are not kept, as the apps can return them after a failure they only reported.
+	 * @param key of the call
+	 * @param extracted network
+	 */
+	public static void put( String key, ExtractedNetwork network ) {
+		if ( network == null || network.getNodeNames() == null || network.getNodeNames().isEmpty() ) return;
+		putInMemory( key, network );
+		File dir;
+		synchronized ( AppResultCache.class ) { dir = directory; }
+		if ( dir != null ) {
+			try {
+				write( network, dir, key );
+			} catch (IOException | RuntimeException err) {
+				Print.error(err);
+			}
+		}
+	}
+
+	/*
+	 * Remove all the extracted networks, from the memory and from the directory.
+	 */
+	public static void clear() {
+		File dir;
+		synchronized ( AppResultCache.class ) {
+			cachedNetworks.clear();
+			memorySize = 0;
+			dir = directory;
+		}
+		if ( dir != null && dir.isDirectory() ) {
+			for ( File file : dir.listFiles() )
+				if ( file.getName().endsWith( FILE_EXTENSION ) ) file.delete();
+		}
+	}
+
+	/*
+	 * Keep an extracted network in memory, and remove the least recently used ones if the memory is full.
+	 */
+	private static synchronized void putInMemory( String key, ExtractedNetwork network ) {
+		long size = estimateSize( network );
+		if ( size > maxMemorySize ) return;
+		CachedNetwork previous = cachedNetworks.put( key, new CachedNetwork( network, size ) );
+		if ( previous != null ) memorySize -= previous.size;
+		memorySize += size;
+		evict();
+	}
+
+	/*
+	 * Remove the least recently used extracted networks until the memory is not full.
+	 */
+	private static synchronized void evict() {
+		Iterator<CachedNetwork> it = cachedNetworks.values().iterator();
+		while ( memorySize > maxMemorySize && it.hasNext() ) {
+			memorySize -= it.next().size;
+			it.remove();
+		}
+	}
+
+	/*
+	 * Estimate the size in memory of an extracted network (bytes).
+	 */
+	private static long estimateSize( ExtractedNetwork network ) {
+		long size = 64 + estimateSize( network.getNodeNames() ) + estimateSize( network.getEdges() );
+		for ( String attrName : network.getNodeAttributeNames() )
+			size += estimateSize( attrName ) + estimateSize( network.getNodeAttributeValues( attrName ) );
+		for ( String attrName : network.getEdgeAttributeNames() )
+			size += estimateSize( attrName ) + estimateSize( network.getEdgeAttributeValues( attrName ) );
+		return size;
+	}
+
+	/*
+	 * Estimate the size in memory of a value (bytes).
+	 */
+	private static long estimateSize( Object value ) {
+		if ( value == null ) return 8;
+		if ( value instanceof String ) return 48 + 2 * ((String) value).length();
+		if ( value instanceof List ) {
+			long size = 24 + 8 * ((List<?>) value).size();
+			for ( Object element : (List<?>) value ) size += estimateSize( element );
+			return size;
+		}
+		return 24;
+	}
+
+	/*_______________________________________
+	 *
+	 *			FILES
+	 *_______________________________________
+	 */
+
+	/*
+	 * Write an extracted network into a file of the directory.
+	 * The file is written next to its final location, then moved, so that a file which is being written is never read.
+	 */
+	private static void write( ExtractedNetwork network, File dir, String key ) throws IOException {
+		Files.createDirectories( dir.toPath() );
+		File tmpFile = File.createTempFile( key, ".tmp", dir );
+		try {
+			try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tmpFile ) ) ) ) {
+				out.writeInt( MAGIC );
+				out.writeInt( VERSION );
+				network.write( out );
+			}
+			Files.move( tmpFile.toPath(), new File( dir, key + FILE_EXTENSION ).toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		} finally {
+			tmpFile.delete();
+		}
+	}
+
+	/*
+	 * Read an extracted network from a file.
+	 */
+	private static ExtractedNetwork read( File file ) throws IOException {
+		try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) ) ) {
+			if ( in.readInt() != MAGIC || in.readInt() != VERSION )
+				throw new IOException( "The file " + file + " is not a TimeNexus result of this version." );
+			return ExtractedNetwork.read( in );
+		}
+	}
+
+	/*_______________________________________
+	 *
+	 *			SETTERS/GETTERS
+	 *_______________________________________
+	 */
+
+	/*
+	 * @return maximal size of the extracted networks kept in memory (bytes)
+	 */
+	public static synchronized long getMaxMemorySize() { return maxMemorySize; }
+
+	/*
+	 * @param maximal size of the extracted networks kept in memory (bytes)
+	 */
+	public static synchronized void setMaxMemorySize( long maxMemorySize ) {
+		AppResultCache.maxMemorySize = Math.max( 0, maxMemorySize );
+		evict();
+	}
+
+	/*
+	 * @return directory where the extracted networks are written, or null if they are only kept in memory
+	 */
+	public static synchronized File getDirectory() { return directory; }
+
+	/*
+	 * @param directory where the extracted networks are written, or null to keep them only in memory
+	 */
+	public static synchronized void setDirectory( File directory ) { AppResultCache.directory = directory; }
+
+	/*
+	 * Extracted network kept in memory, with its estimated size.
+	 */
+	private static class CachedNetwork {
+
+		final ExtractedNetwork network;
+		final long size;
+
+		CachedNetwork( ExtractedNetwork network, long size ) {
+			this.network = network;
+			this.size = size;
+		}
+	}
+
+}
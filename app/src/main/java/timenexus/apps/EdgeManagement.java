@@ -1,8 +1,10 @@
 package timenexus.apps;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.cytoscape.model.CyColumn;
@@ -148,13 +150,16 @@ public class EdgeManagement {
 	
 	/*
 	 * Check if the network has multi-edges, regarless the direction of the edges.
+	 * The pairs of nodes are read from the edges only, as the highest SUIDs linked to each lowest SUID.
 	 */
 	public static boolean isNetworkHasMultiEdges( CyNetwork net ) {
-		for ( CyNode node : net.getNodeList() ) { 
-			List<CyEdge> adjacentEdges = net.getAdjacentEdgeList(node, CyEdge.Type.ANY); 
-			Set<CyNode> neighbors = new HashSet<CyNode>( net.getNeighborList(node, CyEdge.Type.ANY) );
-			// Test if the node has multi-edges (more edges than neighbors)
-			if ( neighbors.size() < adjacentEdges.size() ) return true;
+		Map<Long, Set<Long>> nodePairs = new HashMap<Long, Set<Long>>();
+		for ( CyEdge edge : net.getEdgeList() ) {
+			long source = edge.getSource().getSUID();
+			long target = edge.getTarget().getSUID();
+			// Test if the pair of nodes was already linked by another edge
+			Set<Long> linkedNodes = nodePairs.computeIfAbsent( Math.min( source, target ), suid -> new HashSet<Long>() );
+			if ( ! linkedNodes.add( Math.max( source, target ) ) ) return true;
 		}
 		return false;
 	}
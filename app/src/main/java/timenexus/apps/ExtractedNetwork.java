@@ -1,5 +1,8 @@
 package timenexus.apps;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -14,6 +17,9 @@ import java.util.Map;
  */
 public class ExtractedNetwork{
 	
+	// Value tags of the stream format (see write())
+	private static final byte NULL = 0, STRING = 1, DOUBLE = 2, INTEGER = 3, LONG = 4, BOOLEAN = 5;
+	
 	private List<String> nodeNames;
 	private List<List<String>> edges;
 	// attributes (key: name of the attribute, value: content)
@@ -113,6 +119,20 @@ public class ExtractedNetwork{
 		return edgeAttributes.get(attributeName).getType();
 	}
 	
+	/*
+	 * @return true if each node has a list of values for the attribute
+	 */
+	public boolean isNodeListAttribute( String attributeName ){
+		return nodeAttributes.get(attributeName).isList();
+	}
+
+	/*
+	 * @return true if each edge has a list of values for the attribute
+	 */
+	public boolean isEdgeListAttribute( String attributeName ){
+		return edgeAttributes.get(attributeName).isList();
+	}
+
 	/*
 	 * Get values of a given node attribute
 	 */
@@ -131,6 +151,129 @@ public class ExtractedNetwork{
 		else return attr.getValues( attr.getType() );
 	}
 	
+	/*
+	 * Write the extracted network into a stream: its nodes, its edges and its attributes.
+	 * The stream is read by AppResultCache and ExtractionCheckpoint.
+	 * @param output stream
+	 */
+	public void write( DataOutputStream out ) throws IOException {
+		writeValue( out, getNodeNames() );
+		writeValue( out, getEdges() );
+		out.writeInt( getNodeAttributeNames().size() );
+		for ( String attrName : getNodeAttributeNames() )
+			writeAttribute( out, attrName, getNodeAttributeType( attrName ),
+					isNodeListAttribute( attrName ), getNodeAttributeValues( attrName ) );
+		out.writeInt( getEdgeAttributeNames().size() );
+		for ( String attrName : getEdgeAttributeNames() )
+			writeAttribute( out, attrName, getEdgeAttributeType( attrName ),
+					isEdgeListAttribute( attrName ), getEdgeAttributeValues( attrName ) );
+	}
+	
+	/*
+	 * Read an extracted network from a stream (see write()).
+	 * @param input stream
+	 * @return the extracted network
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static ExtractedNetwork read( DataInputStream in ) throws IOException {
+		ExtractedNetwork network = new ExtractedNetwork( (List<String>) readValue( in ), (List<List<String>>) readValue( in ) );
+		for ( int i = in.readInt(); i > 0; i-- ) {
+			String attrName = in.readUTF();
+			Class type = getType( in.readByte() );
+			boolean isList = in.readBoolean();
+			List values = (List) readValue( in );
+			if ( isList ) network.addNodeListAttributes( attrName, values, type );
+			else network.addNodeAttributes( attrName, values, type );
+		}
+		for ( int i = in.readInt(); i > 0; i-- ) {
+			String attrName = in.readUTF();
+			Class type = getType( in.readByte() );
+			boolean isList = in.readBoolean();
+			List values = (List) readValue( in );
+			if ( isList ) network.addEdgeListAttributes( attrName, values, type );
+			else network.addEdgeAttributes( attrName, values, type );
+		}
+		return network;
+	}
+	
+	/*
+	 * Write an attribute: its name, the tag of its type, if it is a list attribute, and its values.
+	 */
+	private static void writeAttribute( DataOutputStream out, String attrName, Class<?> type, boolean isList, List<?> values )
+			throws IOException {
+		out.writeUTF( attrName );
+		out.writeByte( getTag( type ) );
+		out.writeBoolean( isList );
+		writeValue( out, values );
+	}
+	
+	/*
+	 * Write a tagged value, which can be a list of values.
+	 */
+	private static void writeValue( DataOutputStream out, Object value ) throws IOException {
+		if ( value == null ) out.writeByte( NULL );
+		else if ( value instanceof List ) {
+			out.writeByte( -1 );
+			out.writeInt( ((List<?>) value).size() );
+			for ( Object element : (List<?>) value ) writeValue( out, element );
+		} else {
+			byte tag = getTag( value.getClass() );
+			out.writeByte( tag );
+			if ( tag == STRING ) out.writeUTF( (String) value );
+			else if ( tag == DOUBLE ) out.writeDouble( (Double) value );
+			else if ( tag == INTEGER ) out.writeInt( (Integer) value );
+			else if ( tag == LONG ) out.writeLong( (Long) value );
+			else if ( tag == BOOLEAN ) out.writeBoolean( (Boolean) value );
+		}
+	}
+	
+	/*
+	 * Read a tagged value.
+	 */
+	private static Object readValue( DataInputStream in ) throws IOException {
+		byte tag = in.readByte();
+		switch ( tag ) {
+			case -1:
+				int size = in.readInt();
+				List<Object> list = new ArrayList<Object>( size );
+				for ( int i = 0; i < size; i++ ) list.add( readValue( in ) );
+				return list;
+			case NULL: return null;
+			case STRING: return in.readUTF();
+			case DOUBLE: return in.readDouble();
+			case INTEGER: return in.readInt();
+			case LONG: return in.readLong();
+			case BOOLEAN: return in.readBoolean();
+			default: throw new IOException( "Unknown value tag: " + tag );
+		}
+	}
+	
+	/*
+	 * @return the tag of a type
+	 */
+	private static byte getTag( Class<?> type ) throws IOException {
+		if ( type == String.class ) return STRING;
+		else if ( type == Double.class ) return DOUBLE;
+		else if ( type == Integer.class ) return INTEGER;
+		else if ( type == Long.class ) return LONG;
+		else if ( type == Boolean.class ) return BOOLEAN;
+		else throw new IOException( "The type " + type.getName() + " cannot be written into a TimeNexus result." );
+	}
+	
+	/*
+	 * @return the type of a tag
+	 */
+	private static Class<?> getType( byte tag ) throws IOException {
+		switch ( tag ) {
+			case STRING: return String.class;
+			case DOUBLE: return Double.class;
+			case INTEGER: return Integer.class;
+			case LONG: return Long.class;
+			case BOOLEAN: return Boolean.class;
+			default: throw new IOException( "Unknown type tag: " + tag );
+		}
+	}
+	
 	/*
 	 * Interface to manage multiple types of attributes.
 	 */
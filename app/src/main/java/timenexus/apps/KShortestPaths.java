@@ -0,0 +1,276 @@
+package timenexus.apps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import timenexus.extraction.ExtractionMethod;
+import timenexus.extraction.ExtractionMethod.MlnExtractionException;
+
+/*
+ * Yen's k-shortest simple paths from a set of sources to a set of targets, within a directed graph with non-negative costs.
+ *
+ * As done by PathLinker, the sources are linked to a super-source and the targets to a super-target with arcs of cost 0,
+ * so that the k paths are searched once for all the sources and targets.
+ * Each target is represented by a copy linked to the super-target, which has the arcs coming into the target:
+ * a path thus has at least one arc, even if its first node is also a target.
+ * The paths going through a node twice (through a target and its copy) are skipped.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+class KShortestPaths {
+
+	// Tolerance when comparing the costs of tied paths
+	private static final double COST_TOLERANCE = 1e-9;
+
+	private final int nbNodes;
+	private final int[] arcSources;
+	private final int[] arcTargets;
+	private final double[] arcCosts;
+
+	/*
+	 * @param number of nodes, which are numbered from 0
+	 * @param source nodes of the arcs
+	 * @param target nodes of the arcs
+	 * @param non-negative costs of the arcs (there should be one arc at most from a node to another)
+	 */
+	public KShortestPaths( int nbNodes, int[] arcSources, int[] arcTargets, double[] arcCosts ) {
+		this.nbNodes = nbNodes;
+		this.arcSources = arcSources;
+		this.arcTargets = arcTargets;
+		this.arcCosts = arcCosts;
+	}
+
+	/*
+	 * Find the k shortest simple paths from the sources to the targets.
+	 * @param source nodes
+	 * @param target nodes
+	 * @param number of paths
+	 * @param if true, the paths having the same cost as the k-th path are also returned
+	 * @param if false, the paths cannot go through a source or a target other than their first and last nodes
+	 * @param extraction method to get any canceling command
+	 * @return the paths, from the shortest to the longest
+	 */
+	public List<Path> find( int[] sources, int[] targets, int k, boolean includeTiedPaths, boolean allowSourcesTargetsInPaths,
+			ExtractionMethod method ) throws MlnExtractionException {
+		Graph graph = new Graph( sources, targets, allowSourcesTargetsInPaths );
+		List<Path> paths = new ArrayList<Path>();
+		// Shortest path
+		Path last = graph.getShortestPath( new int[] { graph.superSource }, 0, new boolean[graph.size], new HashSet<Long>() );
+		if ( last == null || k < 1 ) return paths;
+		// Paths from which the next ones deviate, and candidates for the next paths
+		List<int[]> foundPaths = new ArrayList<int[]>();
+		PriorityQueue<Path> candidates = new PriorityQueue<Path>( Comparator.comparingDouble( (Path p) -> p.cost )
+				.thenComparing( p -> p.nodes, Arrays::compare ) );
+		Set<List<Integer>> seenPaths = new HashSet<List<Integer>>();
+		seenPaths.add( toList( last.nodes ) );
+		while ( true ) {
+			method.checkCancelling();
+			foundPaths.add( last.nodes );
+			// Keep the path if it does not go twice through a node
+			Path path = graph.toPath( last );
+			if ( path != null ) paths.add( path );
+			if ( paths.size() >= k && ! includeTiedPaths ) break;
+			// Deviate from the last path at each of its nodes
+			for ( int i = 0; i < last.nodes.length - 1; i++ ) {
+				int[] rootPath = Arrays.copyOf( last.nodes, i + 1 );
+				// Remove the arcs going out of the root path in the paths which were already found
+				Set<Long> removedArcs = new HashSet<Long>();
+				for ( int[] foundPath : foundPaths )
+					if ( foundPath.length > i + 1 && Arrays.equals( foundPath, 0, i + 1, rootPath, 0, i + 1 ) )
+						removedArcs.add( getArcKey( foundPath[i], foundPath[i+1] ) );
+				// Remove the nodes of the root path
+				boolean[] removedNodes = new boolean[graph.size];
+				for ( int j = 0; j < i; j++ ) removedNodes[ rootPath[j] ] = true;
+				Path spurPath = graph.getShortestPath( rootPath, graph.getCost( rootPath ), removedNodes, removedArcs );
+				if ( spurPath != null && seenPaths.add( toList( spurPath.nodes ) ) ) candidates.add( spurPath );
+			}
+			// Next path
+			Path next = candidates.poll();
+			if ( next == null ) break;
+			if ( paths.size() >= k && next.cost > paths.get( k - 1 ).cost + COST_TOLERANCE ) break;
+			last = next;
+		}
+		return paths;
+	}
+
+	private static List<Integer> toList( int[] nodes ) {
+		List<Integer> list = new ArrayList<Integer>( nodes.length );
+		for ( int node : nodes ) list.add( node );
+		return list;
+	}
+
+	private static long getArcKey( int source, int target ) {
+		return ( (long) source << 32 ) | target;
+	}
+
+	/*
+	 * Path and its cost.
+	 */
+	public static class Path {
+
+		private final int[] nodes;
+		private final double cost;
+
+		private Path( int[] nodes, double cost ) {
+			this.nodes = nodes;
+			this.cost = cost;
+		}
+
+		/*
+		 * @return nodes of the path, from its source to its target
+		 */
+		public int[] getNodes() { return nodes; }
+
+		/*
+		 * @return sum of the costs of the arcs of the path
+		 */
+		public double getCost() { return cost; }
+	}
+
+	/*
+	 * Graph with the super-source, the super-target and the copies of the targets.
+	 * Its nodes are: the nodes of the graph, the copies of the targets, the super-source and the super-target.
+	 */
+	private class Graph {
+
+		private final int[] targets;
+		private final int superSource;
+		private final int superTarget;
+		private final int size;
+		// Arcs going out of each node (the arcs of node n are between offsets[n] and offsets[n+1])
+		private final int[] offsets;
+		private final int[] heads;
+		private final double[] costs;
+
+		private Graph( int[] sources, int[] targets, boolean allowSourcesTargetsInPaths ) {
+			this.targets = targets;
+			superSource = nbNodes + targets.length;
+			superTarget = superSource + 1;
+			size = superTarget + 1;
+			boolean[] isSource = new boolean[nbNodes];
+			for ( int source : sources ) isSource[source] = true;
+			// Copies of each target
+			List<List<Integer>> targetCopies = new ArrayList<List<Integer>>();
+			for ( int n = 0; n < nbNodes; n++ ) targetCopies.add( null );
+			for ( int t = 0; t < targets.length; t++ ) {
+				if ( targetCopies.get( targets[t] ) == null ) targetCopies.set( targets[t], new ArrayList<Integer>() );
+				targetCopies.get( targets[t] ).add( nbNodes + t );
+			}
+			// Arcs of the graph, with the arcs into the copies of the targets
+			List<int[]> arcs = new ArrayList<int[]>();
+			List<Double> arcCostList = new ArrayList<Double>();
+			for ( int a = 0; a < arcSources.length; a++ ) {
+				int source = arcSources[a];
+				int target = arcTargets[a];
+				// If the sources and targets are not allowed within the paths,
+				// the arcs going into the sources and the arcs going out of the targets are removed
+				if ( ! allowSourcesTargetsInPaths && ( isSource[target] || targetCopies.get( source ) != null ) ) continue;
+				arcs.add( new int[] { source, target } );
+				arcCostList.add( arcCosts[a] );
+				if ( targetCopies.get( target ) != null ) {
+					for ( int copy : targetCopies.get( target ) ) {
+						arcs.add( new int[] { source, copy } );
+						arcCostList.add( arcCosts[a] );
+					}
+				}
+			}
+			for ( int source : new HashSet<Integer>( toList( sources ) ) ) {
+				arcs.add( new int[] { superSource, source } );
+				arcCostList.add( 0. );
+			}
+			for ( int t = 0; t < targets.length; t++ ) {
+				arcs.add( new int[] { nbNodes + t, superTarget } );
+				arcCostList.add( 0. );
+			}
+			// Sort the arcs by source node
+			offsets = new int[size + 1];
+			for ( int[] arc : arcs ) offsets[ arc[0] + 1 ]++;
+			for ( int n = 0; n < size; n++ ) offsets[n+1] += offsets[n];
+			heads = new int[ arcs.size() ];
+			costs = new double[ arcs.size() ];
+			int[] next = Arrays.copyOf( offsets, size );
+			for ( int a = 0; a < arcs.size(); a++ ) {
+				int position = next[ arcs.get(a)[0] ]++;
+				heads[position] = arcs.get(a)[1];
+				costs[position] = arcCostList.get(a);
+			}
+		}
+
+		/*
+		 * @return cost of the arcs of a path
+		 */
+		private double getCost( int[] path ) {
+			double cost = 0;
+			for ( int i = 0; i < path.length - 1; i++ ) {
+				for ( int a = offsets[ path[i] ]; a < offsets[ path[i] + 1 ]; a++ ) {
+					if ( heads[a] == path[i+1] ) {
+						cost += costs[a];
+						break;
+					}
+				}
+			}
+			return cost;
+		}
+
+		/*
+		 * Dijkstra's shortest path from the last node of a root path to the super-target.
+		 * @param root path
+		 * @param cost of the root path
+		 * @param nodes which cannot be used
+		 * @param arcs which cannot be used
+		 * @return the root path followed by the shortest path, or null if the super-target cannot be reached
+		 */
+		private Path getShortestPath( int[] rootPath, double rootCost, boolean[] removedNodes, Set<Long> removedArcs ) {
+			int start = rootPath[ rootPath.length - 1 ];
+			double[] distances = new double[size];
+			Arrays.fill( distances, Double.POSITIVE_INFINITY );
+			int[] previous = new int[size];
+			boolean[] isDone = new boolean[size];
+			PriorityQueue<double[]> queue = new PriorityQueue<double[]>( Comparator.comparingDouble( (double[] d) -> d[0] ) );
+			distances[start] = 0;
+			previous[start] = -1;
+			queue.add( new double[] { 0, start } );
+			while ( ! queue.isEmpty() ) {
+				int node = (int) queue.poll()[1];
+				if ( isDone[node] ) continue;
+				isDone[node] = true;
+				if ( node == superTarget ) break;
+				for ( int a = offsets[node]; a < offsets[node + 1]; a++ ) {
+					int head = heads[a];
+					if ( isDone[head] || removedNodes[head] || removedArcs.contains( getArcKey( node, head ) ) ) continue;
+					double distance = distances[node] + costs[a];
+					if ( distance < distances[head] ) {
+						distances[head] = distance;
+						previous[head] = node;
+						queue.add( new double[] { distance, head } );
+					}
+				}
+			}
+			if ( ! isDone[superTarget] ) return null;
+			// Path from the super-target back to the start
+			List<Integer> spurPath = new ArrayList<Integer>();
+			for ( int node = superTarget; node != start; node = previous[node] ) spurPath.add( node );
+			int[] nodes = Arrays.copyOf( rootPath, rootPath.length + spurPath.size() );
+			for ( int i = 0; i < spurPath.size(); i++ ) nodes[ rootPath.length + i ] = spurPath.get( spurPath.size() - 1 - i );
+			return new Path( nodes, rootCost + distances[superTarget] );
+		}
+
+		/*
+		 * Convert a path of this graph into a path of the nodes of the original graph.
+		 * @return the path, or null if it goes twice through a node
+		 */
+		private Path toPath( Path path ) {
+			// Remove the super-source and the super-target, and replace the copy of the target
+			int[] nodes = Arrays.copyOfRange( path.nodes, 1, path.nodes.length - 1 );
+			nodes[ nodes.length - 1 ] = targets[ nodes[ nodes.length - 1 ] - nbNodes ];
+			Set<Integer> visited = new HashSet<Integer>();
+			for ( int node : nodes ) if ( ! visited.add( node ) ) return null;
+			return new Path( nodes, path.cost );
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package timenexus.apps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.swing.JOptionPane;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.cytoscape.work.TaskMonitor;
+
+import timenexus.apps.KShortestPaths.Path;
+import timenexus.extraction.ExtractionMethod;
+import timenexus.extraction.ExtractionMethod.MlnExtractionException;
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
+import timenexus.temporalnetwork.MlnBuilder;
+
+/*
+ * k-shortest paths computed within TimeNexus, with the same parameters and results as PathLinker.
+ *
+ * The paths are searched directly over the view of the flattened network (see KShortestPaths),
+ * so that neither the PathLinker app nor a copy of the network is needed, and several calls can run at the same time.
+ * The network is not corrected before the call: the edges are read as directed or undirected according to the parameters,
+ * and the multi-edges going from a node to another are merged with their mean weight, as done by EdgeManagement.
+ *
+ * The cost of an edge depends on the type of the edge weights:
+ * 	- PROBABILITIES: -log( weight / edge penalty ), and the score of a path is the product of its edge weights
+ * 	(the weights should be within ]0,1] and the edge penalty at least 1, so that the costs are not negative);
+ * 	- ADDITIVE: weight + edge penalty, and the score of a path is the sum of its edge costs;
+ * 	- UNWEIGHTED: 1, and the score of a path is its number of edges.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class KShortestPathsCaller extends PathlinkerCaller {
+
+	// Lowest probability, so that the cost of an edge is finite
+	private static final double MIN_PROBABILITY = 1e-9;
+
+	public KShortestPathsCaller( CySubNetwork flattenedNet, List<Integer> layers ) {
+		super( flattenedNet, layers );
+	}
+
+	/*
+	 * Copy an app caller, with other values for the swept parameters.
+	 */
+	private KShortestPathsCaller( KShortestPathsCaller caller, Map<String, Object> sweptValues ) {
+		super( caller, sweptValues );
+	}
+
+	@Override
+	protected boolean isCyRestUsed() { return false; }
+
+	@Override
+	public AppCaller withParameterValues( Map<String, Object> values ) {
+		return new KShortestPathsCaller( this, values );
+	}
+
+	/*
+	 * The directions and the multi-edges are managed during the call, so any network can be processed.
+	 */
+	@Override
+	public String checkNetwork( CyNetwork flattenedNet ) { return null; }
+
+	/*
+	 * The network does not need to be corrected.
+	 */
+	@Override
+	public void normalizeNetwork( CyNetwork networkToExtract, TaskMonitor taskMonitor, ExtractionMethod method ) {}
+
+	@Override
+	public boolean isProjectionSupported( FlattenedNetworkProjection network ) { return true; }
+
+	/*
+	 * The paths are searched by the calling thread, as for any app which is not called through a request.
+	 */
+	@Override
+	public boolean isCallAsync() { return false; }
+
+	@Override
+	public CompletableFuture<ExtractedNetwork> callAsync( CyNetwork networkToExtract, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method ) {
+		return callAsync( new FlattenedNetworkProjection( networkToExtract ), querySources, queryTargets, taskMonitor, method );
+	}
+
+	@Override
+	public ExtractedNetwork call( CyNetwork networkToExtract, Map<String, String> querySources, Map<String, String> queryTargets,
+			TaskMonitor taskMonitor, ExtractionMethod method )
+			throws MlnAppCallerException, MlnExtractionException {
+		return call( new FlattenedNetworkProjection( networkToExtract ), querySources, queryTargets, taskMonitor, method );
+	}
+
+	/*
+	 * Extract the k shortest paths going from the query-source nodes to the query-target nodes.
+	 * @param view of the network to extract
+	 * @param query-source node
+	 * @param query-target node
+	 * @param task monitor of the extraction method
+	 * @param if true, the task is cancelled
+	 * @return the nodes and edges of the paths, with the scores and ranks of the paths going through each edge
+	 */
+	@Override
+	public ExtractedNetwork call( FlattenedNetworkProjection networkToExtract, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method )
+			throws MlnAppCallerException, MlnExtractionException {
+		taskMonitor.setStatusMessage("Searching the k shortest paths...");
+		//		Get the parameters
+		Map<String, Object> parameters = getSweepParameters();
+		int k = ( (Number) parameters.get("k") ).intValue();
+		double edgePenalty = ( (Number) parameters.get("edgePenalty") ).doubleValue();
+		String edgeWeightType = (String) weightType.getSelectedItem();
+		boolean isNetworkDirected = checkNetworkIsDirected.isSelected();
+
+		//		Index the nodes
+		List<CyNode> nodes = networkToExtract.getNodeList();
+		Map<CyNode, Integer> nodeIndexes = new HashMap<CyNode, Integer>();
+		Map<String, Integer> nodeNameIndexes = new HashMap<String, Integer>();
+		String[] nodeNames = new String[ nodes.size() ];
+		for ( int n = 0; n < nodes.size(); n++ ) {
+			nodeNames[n] = networkToExtract.getRow( nodes.get(n) ).get( CyNetwork.NAME, String.class );
+			nodeIndexes.put( nodes.get(n), n );
+			nodeNameIndexes.put( nodeNames[n], n );
+		}
+		int[] sources = getNodeIndexes( querySources, nodeNameIndexes );
+		int[] targets = getNodeIndexes( queryTargets, nodeNameIndexes );
+		if ( sources.length == 0 || targets.length == 0 )
+			throw new MlnAppCallerException( "The k shortest paths cannot be searched without query-source and query-target nodes.",
+					"k-shortest paths aborted", JOptionPane.ERROR_MESSAGE );
+		if ( edgeWeightType.equals("PROBABILITIES") && ! ( edgePenalty >= 1 ) )
+			throw new MlnAppCallerException( "The edge penalty cannot be lower than 1 with probabilities as edge weights.",
+					"k-shortest paths aborted", JOptionPane.ERROR_MESSAGE );
+
+		//		Get the arcs, from the mean weight of the edges going from a node to another
+		Map<Long, double[]> arcWeights = new LinkedHashMap<Long, double[]>();
+		for ( CyEdge edge : networkToExtract.getEdgeList() ) {
+			int source = nodeIndexes.get( edge.getSource() );
+			int target = nodeIndexes.get( edge.getTarget() );
+			if ( source == target ) continue;
+			CyRow row = networkToExtract.getRow( edge );
+			Double weight = row.get( MlnBuilder.WEIGHT, Double.class );
+			if ( weight == null && ! edgeWeightType.equals("UNWEIGHTED") )
+				throw new MlnAppCallerException( "The edge " + nodeNames[source] + " - " + nodeNames[target] + " has no weight.",
+						"k-shortest paths aborted", JOptionPane.ERROR_MESSAGE );
+			if ( edgeWeightType.equals("PROBABILITIES") && ! ( weight > 0 && weight <= 1 ) )
+				throw new MlnAppCallerException( "The weight " + weight + " of the edge " + nodeNames[source] + " - " + nodeNames[target]
+						+ " is not a probability within ]0,1].", "k-shortest paths aborted", JOptionPane.ERROR_MESSAGE );
+			Boolean isEdgeDirected = row.get( MlnBuilder.DIRECTION, Boolean.class );
+			addArcWeight( arcWeights, source, target, weight );
+			if ( ! isNetworkDirected || isEdgeDirected == null || ! isEdgeDirected ) addArcWeight( arcWeights, target, source, weight );
+		}
+		int[] arcSources = new int[ arcWeights.size() ];
+		int[] arcTargets = new int[ arcWeights.size() ];
+		double[] arcCosts = new double[ arcWeights.size() ];
+		int a = 0;
+		for ( Map.Entry<Long, double[]> arc : arcWeights.entrySet() ) {
+			arcSources[a] = (int) ( arc.getKey() >>> 32 );
+			arcTargets[a] = (int) (long) arc.getKey();
+			double weight = arc.getValue()[0] / arc.getValue()[1];
+			if ( edgeWeightType.equals("PROBABILITIES") )
+				// the cost is not negative, as the weight is not greater than 1 and the edge penalty not lower than 1
+				arcCosts[a] = - Math.log( Math.max( MIN_PROBABILITY, weight / edgePenalty ) );
+			else if ( edgeWeightType.equals("ADDITIVE") ) {
+				if ( weight + edgePenalty < 0 )
+					throw new MlnAppCallerException( "The additive edge weights cannot be negative.",
+							"k-shortest paths aborted", JOptionPane.ERROR_MESSAGE );
+				arcCosts[a] = weight + edgePenalty;
+			} else arcCosts[a] = 1;
+			a++;
+		}
+
+		//		Search the paths
+		List<Path> paths = new KShortestPaths( nodes.size(), arcSources, arcTargets, arcCosts )
+				.find( sources, targets, k, checkTiedPaths.isSelected(), checkInPath.isSelected(), method );
+
+		//		Return the paths with their scores and ranks
+		List<List<String>> pathNodes = new ArrayList<List<String>>();
+		List<Double> scores = new ArrayList<Double>();
+		List<Integer> ranks = new ArrayList<Integer>();
+		for ( int i = 0; i < paths.size(); i++ ) {
+			List<String> names = new ArrayList<String>();
+			for ( int node : paths.get(i).getNodes() ) names.add( nodeNames[node] );
+			pathNodes.add( names );
+			double cost = paths.get(i).getCost();
+			scores.add( edgeWeightType.equals("PROBABILITIES") ? Math.exp( - cost ) : cost );
+			ranks.add( i + 1 );
+		}
+		return createExtractedNetwork( pathNodes, scores, ranks );
+	}
+
+	/*
+	 * @return indexes of the query nodes which are within the network
+	 */
+	private static int[] getNodeIndexes( Map<String, String> queryNodes, Map<String, Integer> nodeNameIndexes ) {
+		return queryNodes.keySet().stream().filter( nodeNameIndexes::containsKey ).mapToInt( nodeNameIndexes::get ).toArray();
+	}
+
+	/*
+	 * Add the weight of an edge to the arc going from a node to another.
+	 * @param sum of the weights and number of edges of each arc (key: source index, then target index)
+	 */
+	private static void addArcWeight( Map<Long, double[]> arcWeights, int source, int target, Double weight ) {
+		double[] arcWeight = arcWeights.computeIfAbsent( ( (long) source << 32 ) | target, key -> new double[2] );
+		if ( weight != null ) arcWeight[0] += weight;
+		arcWeight[1]++;
+	}
+
+	@Override
+	public String toString() { return "k-shortest paths"; }
+
+}
@@ -2,7 +2,6 @@ package timenexus.apps;
 
 import java.awt.Component;
 import java.awt.Dimension;
-import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.http.HttpResponse;
 import java.text.NumberFormat;
@@ -10,9 +9,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -61,6 +63,11 @@ public class PathlinkerCaller implements AppCaller {
 	boolean networkHasWrongDirections = false;
 	// if the network contains multi-edges which are forbidden
 	boolean networkHasMultiEdges = false;
+	
+	// values of the swept parameters, which replace the values of the form elements
+	Map<String, Object> sweptValues = new HashMap<String, Object>();
+	// if the networks were corrected before the call (see normalizeNetwork())
+	boolean isNetworkNormalized = false;
 
 	/*_______________________________________
 	 * 
@@ -112,6 +119,27 @@ public class PathlinkerCaller implements AppCaller {
 		addBooleanQueryColNames( flattenedNet, queryColNames, layers );
 	}
 	
+	/*
+	 * Copy an app caller, with other values for the swept parameters.
+	 */
+	protected PathlinkerCaller( PathlinkerCaller caller, Map<String, Object> sweptValues ) {
+		numberK = caller.numberK;
+		edgePenaltyField = caller.edgePenaltyField;
+		weightType = caller.weightType;
+		weightColName = caller.weightColName;
+		checkNetworkIsDirected = caller.checkNetworkIsDirected;
+		checkInPath = caller.checkInPath;
+		checkTiedPaths = caller.checkTiedPaths;
+		cyrestPortField = caller.cyrestPortField;
+		queryColNames = caller.queryColNames;
+		skipSubnetworkGeneration = caller.skipSubnetworkGeneration;
+		networkHasWrongDirections = caller.networkHasWrongDirections;
+		networkHasMultiEdges = caller.networkHasMultiEdges;
+		this.sweptValues.putAll( caller.sweptValues );
+		this.sweptValues.putAll( sweptValues );
+		isNetworkNormalized = true;
+	}
+	
 	/*
 	 * Add form elements setting pathlinker parameters to a java component.
 	 */
@@ -192,10 +220,15 @@ public class PathlinkerCaller implements AppCaller {
 		comp.add(treatNetworkAsUndirected);
 		comp.add(allowSourcesTargetsInPaths);
 		comp.add(includeTiedPaths);
-		comp.add(cyrestPort);
+		if ( isCyRestUsed() ) comp.add(cyrestPort);
 		comp.add(selectQueryCols);
 	}
 	
+	/*
+	 * @return true if the app is called through its CyRest interface
+	 */
+	protected boolean isCyRestUsed() { return true; }
+	
 	/*
 	 * Set maximum height to standard values.
 	 */
@@ -211,6 +244,39 @@ public class PathlinkerCaller implements AppCaller {
 		return queryColNames;
 	}
 	
+	/*
+	 * Get the values of the parameters changing the paths found by PathLinker.
+	 */
+	@Override
+	public Map<String, Object> getParameterValues(){
+		Map<String, Object> values = new HashMap<String, Object>( getSweepParameters() );
+		values.put( "edgeWeightType", weightType.getSelectedItem() );
+		values.put( "edgeWeightColumnName", weightColName.getSelectedItem() );
+		values.put( "isNetworkDirected", checkNetworkIsDirected.isSelected() );
+		values.put( "allowSourcesTargetsInPaths", checkInPath.isSelected() );
+		values.put( "includeTiedPaths", checkTiedPaths.isSelected() );
+		// the network is corrected before the call
+		values.put( "networkHasWrongDirections", networkHasWrongDirections );
+		values.put( "networkHasMultiEdges", networkHasMultiEdges );
+		return values;
+	}
+	
+	/*
+	 * The number of paths and the edge penalty can be swept.
+	 */
+	@Override
+	public Map<String, Object> getSweepParameters(){
+		Map<String, Object> values = new LinkedHashMap<String, Object>();
+		values.put( "k", sweptValues.getOrDefault( "k", numberK.getValue() ) );
+		values.put( "edgePenalty", sweptValues.getOrDefault( "edgePenalty", edgePenaltyField.getValue() ) );
+		return values;
+	}
+	
+	@Override
+	public AppCaller withParameterValues( Map<String, Object> values ) {
+		return new PathlinkerCaller( this, values );
+	}
+	
 	/*_______________________________________
 	 * 
 	 *			CHECK NETWORK
@@ -291,18 +357,110 @@ public class PathlinkerCaller implements AppCaller {
 	public ExtractedNetwork call( CyNetwork networkToExtract, Map<String, String> querySources, Map<String, String> queryTargets,
 			TaskMonitor taskMonitor, ExtractionMethod method )
 			throws MlnAppCallerException, MlnExtractionException {
-		
-		//		Check if query-node names contain spaces
-		for (String node : querySources.keySet()) {
-			if ( node.contains(" ") ) throw new MlnAppCallerException( "PathLinker does not allow spaces within query-node names.",
-					"PathLinker extraction failed", JOptionPane.ERROR_MESSAGE );
-		}
-		for (String node : queryTargets.keySet()) {
-			if ( node.contains(" ") ) throw new MlnAppCallerException( "PathLinker does not allow spaces within query-node names.",
-					"PathLinker extraction failed", JOptionPane.ERROR_MESSAGE );
+		return AppCaller.waitForResult( callAsync( networkToExtract, querySources, queryTargets, taskMonitor, method ), method );
+	}
+	
+	/*
+	 * The request is sent to PathLinker without waiting for its response.
+	 */
+	@Override
+	public boolean isCallAsync() { return true; }
+	
+	/*
+	 * Extract subnetwork using PathLinker, without waiting for the response.
+	 * @see call( CyNetwork, Map, Map, TaskMonitor, ExtractionMethod )
+	 */
+	@Override
+	public CompletableFuture<ExtractedNetwork> callAsync( CyNetwork networkToExtract, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor, ExtractionMethod method ) {
+		try {
+			//		Check if query-node names contain spaces
+			for (String node : querySources.keySet()) {
+				if ( node.contains(" ") ) throw new MlnAppCallerException( "PathLinker does not allow spaces within query-node names.",
+						"PathLinker extraction failed", JOptionPane.ERROR_MESSAGE );
+			}
+			for (String node : queryTargets.keySet()) {
+				if ( node.contains(" ") ) throw new MlnAppCallerException( "PathLinker does not allow spaces within query-node names.",
+						"PathLinker extraction failed", JOptionPane.ERROR_MESSAGE );
+			}
+			
+			//		Correct the multi-layer network
+			// (from the thread changing the networks, as several calls can run at the same time)
+			if ( ! isNetworkNormalized ) method.runOnModelThread( () -> {
+				normalizeNetwork( networkToExtract, taskMonitor, method );
+				return null;
+			} );
+			
+			//		Prepare data
+			// Build the URL
+			Long suid = networkToExtract.getRow( networkToExtract ).get( CyNetwork.SUID, Long.class );
+			String url = "http://localhost:1234/pathlinker/v1/" + suid + "/run";
+			// Parse sources and targets
+			String sources = String.join(" ", querySources.keySet());
+			String targets = String.join(" ", queryTargets.keySet());
+			// Build the data to send
+			JSONObject json = new JSONObject( getParameters( sources, targets ) );
+			
+			//		Send data
+			method.checkCancelling();
+			taskMonitor.setStatusMessage("Waiting for the PathLinker app to process data...");
+			CompletableFuture<HttpResponse<String>> request = HttpRequestToAPI.sendJSONAsync(url, json);
+			CompletableFuture<ExtractedNetwork> extractedNetwork = request.handle( (response, err) -> {
+				try {
+					if ( err != null )
+						throw new MlnAppCallerException( "Connection to the PathLinker CyRest interface failed",
+								"Connection error to PathLinker", JOptionPane.ERROR_MESSAGE, AppCaller.getFailureCause( err ) );
+					return parsePathlinkerResponse( response );
+				} catch ( MlnAppCallerException e ) {
+					throw new CompletionException( e );
+				}
+			} );
+			// Abort the request if the call is cancelled
+			extractedNetwork.whenComplete( (network, err) -> request.cancel( true ) );
+			return extractedNetwork;
+		} catch ( MlnAppCallerException | MlnExtractionException | RuntimeException err ) {
+			return CompletableFuture.failedFuture( err );
+		} catch ( URISyntaxException err ) {
+			return CompletableFuture.failedFuture( new MlnAppCallerException( "Connection to the PathLinker CyRest interface failed",
+					"Connection error to PathLinker", JOptionPane.ERROR_MESSAGE, err ) );
 		}
-		
-		//		Correct the multi-layer network
+	}
+	
+	/*
+	 * Parse the response of PathLinker.
+	 * @return the extracted network
+	 */
+	private ExtractedNetwork parsePathlinkerResponse( HttpResponse<String> response ) throws MlnAppCallerException {
+		// Test if connection was found
+		if ( response.statusCode() == 404 )
+			throw new MlnAppCallerException( "404 error. PathLinker CyRest interface was not found.\n"
+					+ "Please check that PathLinker is installed and running with the menu Help > Automation > CyRest API.",
+					"PathLinker not found", JOptionPane.ERROR_MESSAGE );
+		// Retrieve response
+		JSONObject retrievedJson = new JSONObject( response.body() );
+		//Print.out(response.body());
+		// Manage errors
+		if ( response.statusCode() != 200 ) {
+			JSONObject error = retrievedJson.getJSONArray("errors").getJSONObject(0);
+			throw new MlnAppCallerException( "HTTP status code: " + response.statusCode() + "\n"
+				+ error.get("message") + "\n" + error.get("type") + "\n" + error.get("link") + "\n\n"
+				+ "NB: PathLinker returns an error 500 when sources and targets belong to independent components of the network.",
+					"Connection error to PathLinker", JOptionPane.ERROR_MESSAGE );
+		} else if ( retrievedJson == null || retrievedJson.isEmpty() || ! retrievedJson.keySet().contains("paths") )
+			throw new MlnAppCallerException( "No data was received from Pathlinker, but connection to its CyRest interface was OK.",
+					"No data from PathLinker", JOptionPane.ERROR_MESSAGE );
+		// Return
+		JSONArray jsonData = retrievedJson.getJSONArray("paths");
+		return parsePathlinkerData( jsonData );
+	}
+	
+	
+	/*
+	 * Correct the directions and the multi-edges of the network, as PathLinker cannot process them.
+	 */
+	@Override
+	public void normalizeNetwork( CyNetwork networkToExtract, TaskMonitor taskMonitor, ExtractionMethod method )
+			throws MlnExtractionException {
 		boolean isNetworkDirected = checkNetworkIsDirected.isSelected();
 		// Have all the edges as directed
 		if ( networkHasWrongDirections && isNetworkDirected ) {
@@ -321,51 +479,8 @@ public class PathlinkerCaller implements AppCaller {
 			taskMonitor.setStatusMessage("Aggregating directed multi-edges...");
 			EdgeManagement.aggregateIdenticallyDirectedMultiEdges( networkToExtract, method );
 		}
-		
-		//		Prepare data
-		// Build the URL
-		Long suid = networkToExtract.getRow( networkToExtract ).get( CyNetwork.SUID, Long.class );
-		String url = "http://localhost:1234/pathlinker/v1/" + suid + "/run";
-		// Parse sources and targets
-		String sources = String.join(" ", querySources.keySet());
-		String targets = String.join(" ", queryTargets.keySet());
-		// Build the data to send
-		JSONObject json = new JSONObject( getParameters( sources, targets ) );
-		
-		//		Send data
-		try {
-			method.checkCancelling();
-			taskMonitor.setStatusMessage("Waiting for the PathLinker app to process data...");
-			// Send
-			HttpResponse<String> response = HttpRequestToAPI.sendJSON(url, json);
-			// Test if connection was found
-			if ( response.statusCode() == 404 )
-				throw new MlnAppCallerException( "404 error. PathLinker CyRest interface was not found.\n"
-						+ "Please check that PathLinker is installed and running with the menu Help > Automation > CyRest API.",
-						"PathLinker not found", JOptionPane.ERROR_MESSAGE );
-			// Retrieve response
-			JSONObject retrievedJson = new JSONObject( response.body() );
-			//Print.out(response.body());
-			// Manage errors
-			if ( response.statusCode() != 200 ) {
-				JSONObject error = retrievedJson.getJSONArray("errors").getJSONObject(0);
-				throw new MlnAppCallerException( "HTTP status code: " + response.statusCode() + "\n"
-					+ error.get("message") + "\n" + error.get("type") + "\n" + error.get("link") + "\n\n"
-					+ "NB: PathLinker returns an error 500 when sources and targets belong to independent components of the network.",
-						"Connection error to PathLinker", JOptionPane.ERROR_MESSAGE );
-			} else if ( retrievedJson == null || retrievedJson.isEmpty() || ! retrievedJson.keySet().contains("paths") )
-				throw new MlnAppCallerException( "No data was received from Pathlinker, but connection to its CyRest interface was OK.",
-						"No data from PathLinker", JOptionPane.ERROR_MESSAGE );
-			// Return
-			JSONArray jsonData = retrievedJson.getJSONArray("paths");
-			return parsePathlinkerData( jsonData );
-		} catch (URISyntaxException | IOException | InterruptedException err) {
-			throw new MlnAppCallerException( "Connection to the PathLinker CyRest interface failed",
-					"Connection error to PathLinker", JOptionPane.ERROR_MESSAGE, err );
-		}
 	}
 	
-	
 	/*
 	 * Get parameters from the form elements.
 	 * @return map of parameters.
@@ -393,8 +508,7 @@ public class PathlinkerCaller implements AppCaller {
 		Map<String, Object> listParameters = new HashMap<String, Object>();
 		listParameters.put( "sources", sources );
 		listParameters.put( "targets", targets );
-		listParameters.put( "k", numberK.getValue() );
-		listParameters.put( "edgePenalty", edgePenaltyField.getValue() );
+		listParameters.putAll( getSweepParameters() );
 		listParameters.put( "edgeWeightType", weightType.getSelectedItem() );
 		listParameters.put( "edgeWeightColumnName", weightColName.getSelectedItem() );
 		listParameters.put( "treatNetworkAsUndirected", ! checkNetworkIsDirected.isSelected() ); // this is the opposite of pathlinker interface
@@ -410,20 +524,44 @@ public class PathlinkerCaller implements AppCaller {
 	 * Parse the PathLinker response into an ExtractedNetwork object.
 	 */
 	private ExtractedNetwork parsePathlinkerData( JSONArray jsonData ) {
+		List<List<String>> paths = new ArrayList<List<String>>();
+		List<Double> scores = new ArrayList<Double>();
+		List<Integer> ranks = new ArrayList<Integer>();
+		for (int i = 0; i < jsonData.length(); i++) {
+			// Get data for each path
+			JSONObject path = jsonData.getJSONObject(i);
+			JSONArray nodeList = path.getJSONArray("nodeList"); // 3 keys: score, rank, nodeList
+			List<String> nodes = new ArrayList<String>();
+			for (int j = 0; j < nodeList.length(); j++) nodes.add( nodeList.getString(j) );
+			paths.add( nodes );
+			scores.add( path.getDouble("score") );
+			ranks.add( path.getInt("rank") );
+		}
+		return createExtractedNetwork( paths, scores, ranks );
+	}
+	
+	/*
+	 * Create the extracted network from the paths found by PathLinker.
+	 * Each edge has the scores and the ranks of the paths going through it.
+	 * @param paths, as lists of node names
+	 * @param score of each path
+	 * @param rank of each path
+	 * @return the extracted network
+	 */
+	protected ExtractedNetwork createExtractedNetwork( List<List<String>> paths, List<Double> pathScores, List<Integer> pathRanks ) {
 		// Get data from the extracted subnetwork
 		Set<String> nodes = new HashSet<String>();
 		Map<List<String>, List<Double>> scores = new HashMap<List<String>, List<Double>>();
 		Map<List<String>, List<Integer>> ranks = new HashMap<List<String>, List<Integer>>();
-		for (int i = 0; i < jsonData.length(); i++) {
+		for (int i = 0; i < paths.size(); i++) {
 			// Get data for each path
-			JSONObject path = jsonData.getJSONObject(i);
-			JSONArray nodeList = path.getJSONArray("nodeList"); // 3 keys: score, rank, nodeList
-			Double score = path.getDouble("score");
-			Integer rank = path.getInt("rank");
+			List<String> nodeList = paths.get(i);
+			Double score = pathScores.get(i);
+			Integer rank = pathRanks.get(i);
 			// Add data to the lists
-			for (int j = 0; j < nodeList.length() - 1; j++) {
-				String node1 = nodeList.getString(j);
-				String node2 = nodeList.getString(j+1);
+			for (int j = 0; j < nodeList.size() - 1; j++) {
+				String node1 = nodeList.get(j);
+				String node2 = nodeList.get(j+1);
 				List<String> edge1 = Arrays.asList( node1, node2 );
 				List<String> edge2 = Arrays.asList( node2, node1 );
 				// Create lists of scores and ranks for each node
@@ -0,0 +1,199 @@
+package timenexus.extraction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+
+import timenexus.apps.AppCaller;
+import timenexus.apps.ExtractedNetwork;
+import timenexus.utils.Fingerprint;
+import timenexus.utils.Print;
+
+/*
+ * Checkpoint of an extraction, so that an interrupted extraction can be resumed where it stopped.
+ *
+ * The networks extracted by the calls are appended to a file as soon as they are done.
+ * The file is named after a fingerprint of the extraction (method, app and its parameters, selected layers and query columns,
+ * content of the flattened network), so that only a run with identical inputs finds it and skips the calls which were done.
+ * The file is deleted once all the calls are done.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class ExtractionCheckpoint {
+
+	// Directory where the checkpoints are written
+	public static final File DEFAULT_DIRECTORY = new File( System.getProperty("user.home"),
+			"CytoscapeConfiguration" + File.separator + "app-data" + File.separator + "TimeNexus" + File.separator + "checkpoints" );
+	// File format
+	private static final int MAGIC = 0x544E4350; // "TNCP"
+	private static final int VERSION = 1;
+	private static final String FILE_EXTENSION = ".tnc";
+
+	private final File file;
+	// Networks extracted by the calls which were done (key: index of the call)
+	private final Map<Integer, ExtractedNetwork> extractedNetworks;
+	private DataOutputStream out;
+
+	private ExtractionCheckpoint( File file, Map<Integer, ExtractedNetwork> extractedNetworks, DataOutputStream out ) {
+		this.file = file;
+		this.extractedNetworks = extractedNetworks;
+		this.out = out;
+	}
+
+	/*
+	 * Open the checkpoint of an extraction, with the networks extracted by its previous runs.
+	 * A record which was not entirely written, because the previous run stopped, is dropped.
+	 * @param directory of the checkpoints
+	 * @param fingerprint of the extraction (see getFingerprint())
+	 * @return the checkpoint, to which the next extracted networks are appended
+	 */
+	public static ExtractionCheckpoint open( File directory, String fingerprint ) throws IOException {
+		Files.createDirectories( directory.toPath() );
+		File file = new File( directory, fingerprint + FILE_EXTENSION );
+		//		Read the records of the previous runs
+		Map<Integer, ExtractedNetwork> extractedNetworks = new TreeMap<Integer, ExtractedNetwork>();
+		if ( file.isFile() ) {
+			try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) ) ) {
+				if ( in.readInt() == MAGIC && in.readInt() == VERSION ) {
+					while ( true ) {
+						int k = in.readInt();
+						extractedNetworks.put( k, ExtractedNetwork.read( in ) );
+					}
+				}
+			} catch ( EOFException err ) {
+				// End of the file, or last record incomplete
+			} catch ( IOException | RuntimeException err ) {
+				Print.error(err);
+			}
+		}
+		//		Write the valid records again, so that the next records are appended after them
+		File tmpFile = File.createTempFile( fingerprint, ".tmp", directory );
+		try {
+			try ( DataOutputStream tmpOut = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tmpFile ) ) ) ) {
+				tmpOut.writeInt( MAGIC );
+				tmpOut.writeInt( VERSION );
+				for ( Map.Entry<Integer, ExtractedNetwork> record : extractedNetworks.entrySet() ) {
+					tmpOut.writeInt( record.getKey() );
+					record.getValue().write( tmpOut );
+				}
+			}
+			Files.move( tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		} finally {
+			tmpFile.delete();
+		}
+		DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file, true ) ) );
+		return new ExtractionCheckpoint( file, extractedNetworks, out );
+	}
+
+	/*
+	 * @return number of calls which were done by the previous runs, or since the checkpoint was opened
+	 */
+	public synchronized int size() { return extractedNetworks.size(); }
+
+	/*
+	 * @param index of the call
+	 * @return the network extracted by the call, or null if the call was not done
+	 */
+	public synchronized ExtractedNetwork get( int k ) { return extractedNetworks.get( k ); }
+
+	/*
+	 * Append the network extracted by a call to the checkpoint.
+	 * Empty networks are not kept, as the apps can return them after a failure they only reported.
+	 * @param index of the call
+	 * @param extracted network
+	 */
+	public synchronized void put( int k, ExtractedNetwork network ) {
+		if ( out == null || network == null || network.getNodeNames() == null || network.getNodeNames().isEmpty() ) return;
+		extractedNetworks.put( k, network );
+		try {
+			out.writeInt( k );
+			network.write( out );
+			out.flush();
+		} catch ( IOException | RuntimeException err ) {
+			// The checkpoint is not written anymore, but the extraction goes on
+			Print.error(err);
+			close();
+		}
+	}
+
+	/*
+	 * Close the checkpoint, which is kept to resume the extraction.
+	 */
+	public synchronized void close() {
+		if ( out == null ) return;
+		try {
+			out.close();
+		} catch ( IOException err ) {
+			Print.error(err);
+		}
+		out = null;
+	}
+
+	/*
+	 * Close and delete the checkpoint, once the extraction is done.
+	 */
+	public synchronized void delete() {
+		close();
+		file.delete();
+	}
+
+	/*
+	 * Get the fingerprint of an extraction.
+	 * @param description of the extraction method, of its layers and of its query columns
+	 * @param app to call
+	 * @param flattened network
+	 * @return SHA-256 hash of the extraction, or null if the parameters of the app are unknown (see AppCaller.getParameterValues())
+	 */
+	public static String getFingerprint( String description, AppCaller app, CyNetwork flattenedNet ) {
+		Map<String, Object> parameters = app.getParameterValues();
+		if ( parameters == null ) return null;
+		Fingerprint fingerprint = Fingerprint.create();
+		if ( fingerprint == null ) return null;
+		// Extraction and app
+		fingerprint.add( description );
+		fingerprint.add( app.toString() );
+		for ( Map.Entry<String, Object> param : new TreeMap<String, Object>( parameters ).entrySet() )
+			fingerprint.add( param.getKey() + "=" + param.getValue() );
+		// Nodes of the flattened network, with all their attributes
+		List<String> nodes = new ArrayList<String>();
+		for ( CyNode node : flattenedNet.getNodeList() ) nodes.add( getAttributes( flattenedNet, node ) );
+		fingerprint.addSorted( "nodes", nodes );
+		// Edges of the flattened network, with all their attributes
+		List<String> edges = new ArrayList<String>();
+		for ( CyEdge edge : flattenedNet.getEdgeList() )
+			edges.add( flattenedNet.getRow( edge.getSource() ).get( CyNetwork.NAME, String.class )
+					+ "\t" + flattenedNet.getRow( edge.getTarget() ).get( CyNetwork.NAME, String.class )
+					+ "\t" + edge.isDirected() + "\t" + getAttributes( flattenedNet, edge ) );
+		fingerprint.addSorted( "edges", edges );
+		// Hexadecimal fingerprint
+		return fingerprint.toHex();
+	}
+
+	/*
+	 * @return the attributes of a node or an edge, sorted by name, except for the SUID and the selection
+	 * which change between sessions
+	 */
+	private static String getAttributes( CyNetwork network, CyIdentifiable element ) {
+		Map<String, Object> values = new TreeMap<String, Object>( network.getRow( element ).getAllValues() );
+		values.remove( CyNetwork.SUID );
+		values.remove( CyNetwork.SELECTED );
+		return values.toString();
+	}
+}
@@ -1,14 +1,31 @@
 package timenexus.extraction;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
 
-import org.cytoscape.model.CyColumn;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkManager;
@@ -17,9 +34,14 @@ import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.model.subnetwork.CySubNetwork;
 import org.cytoscape.work.Task;
+import org.cytoscape.work.TaskMonitor;
 
 import timenexus.apps.AppCaller;
+import timenexus.apps.AppResultCache;
+import timenexus.apps.AppCaller.MlnAppCallerException;
 import timenexus.apps.ExtractedNetwork;
+import timenexus.temporalnetwork.FlattenedNetworkCopy;
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
 import timenexus.temporalnetwork.MlnWriter;
 import timenexus.utils.MlnException;
 import timenexus.utils.Print;
@@ -39,17 +61,47 @@ public abstract class ExtractionMethod implements Task {
 	// Contain the layer IDs to use
 	protected List<Integer> layers;
 	// Contain the list of temporary networks used by the extracting apps
-	protected List<CyNetwork> networksToExtract = new ArrayList<CyNetwork>();
+	protected List<CyNetwork> networksToExtract = Collections.synchronizedList( new ArrayList<CyNetwork>() );
 	// Enable to check the multi-layer network
 	private boolean isCheckEnabled = true;
+	// Enable to reuse the networks extracted by identical app calls (see AppResultCache)
+	private boolean isCacheEnabled = true;
+	// Enable to resume an interrupted extraction (see ExtractionCheckpoint)
+	private boolean isCheckpointEnabled = true;
+	// Checkpoint of the running extraction, or null
+	private ExtractionCheckpoint checkpoint;
+	// Enable to show the extracted multi-layer network as the extracted networks are merged (see FlattenedNetworkCopy.publish())
+	private boolean isPublishingEnabled = true;
+	// Maximal number of app calls running at the same time (1: the calls are sequential)
+	private int maxConcurrentCalls = 1;
+	// True while app calls are running concurrently, so that the cancellation is shared by all of them
+	private volatile boolean isCallingConcurrently = false;
 	// Enable to cancel the task
 	volatile boolean cancelled = false;
+	// App calls waiting for the response of the app, which are aborted if the task is cancelled
+	private final Set<CompletableFuture<ExtractedNetwork>> runningCalls = ConcurrentHashMap.newKeySet();
+	// Thread which changes the networks while app calls are running concurrently (see runOnModelThread()), or null
+	private volatile Thread modelThread;
+	// Changes of the networks waiting for the model thread
+	private final BlockingQueue<Runnable> modelTasks = new LinkedBlockingQueue<Runnable>();
+	// Query columns of the layers, read when the calls were last prepared (see readQueryColumns())
+	private Map<Integer, String> queryColumns;
 	
 	/*
-	 * Cancel the task.
+	 * Cancel the task, and abort the requests sent to the app.
 	 */
 	@Override
-	public void cancel() { cancelled = true; }
+	public void cancel() {
+		cancelled = true;
+		cancelRunningCalls();
+	}
+	
+	/*
+	 * Abort the app calls waiting for the response of the app.
+	 */
+	private void cancelRunningCalls() {
+		for ( CompletableFuture<ExtractedNetwork> call : runningCalls ) call.cancel( true );
+	}
 	
 	/*
 	 * Test if the task is cancelled.
@@ -61,18 +113,112 @@ public abstract class ExtractionMethod implements Task {
 	 */
 	public void checkCancelling() throws MlnExtractionException {
 		if ( isCancelled() ) {
-			// Reset temporary networks
-			CyNetworkManager manager = ServiceProvider.get(CyNetworkManager.class);
-			for (CyNetwork net : networksToExtract) manager.destroyNetwork(net);
-			networksToExtract = new ArrayList<CyNetwork>();
-			// Reset canceling
-			cancelled = false;
+			// While app calls are running concurrently, the other calls have to be cancelled too:
+			// the temporary networks and the cancelling are reset once all of them are stopped (see callApp())
+			if ( ! isCallingConcurrently ) {
+				// Reset temporary networks
+				destroyTemporaryNetworks();
+				// Reset canceling
+				cancelled = false;
+			}
 			// Stop the task
 			throw new MlnExtractionException("The extraction was cancelled",
 				"Extraction cancelled", JOptionPane.ERROR_MESSAGE);
 		}
 	}
 	
+	/*
+	 * Change the networks from the model thread, so that the app calls running concurrently
+	 * do not change the networks while the extracted networks are merged.
+	 * The change is done by the calling thread if app calls are not running concurrently.
+	 * @param change of the networks
+	 * @return result of the change
+	 */
+	public <T> T runOnModelThread( ModelChange<T> change ) throws MlnExtractionException {
+		FutureTask<T> task = new FutureTask<T>( change::apply );
+		if ( Thread.currentThread() == modelThread || ! submitModelTask( task ) ) return change.apply();
+		try {
+			return task.get();
+		} catch ( InterruptedException err ) {
+			task.cancel( false );
+			Thread.currentThread().interrupt();
+			throw new MlnExtractionException("The extraction was cancelled",
+					"Extraction cancelled", JOptionPane.ERROR_MESSAGE);
+		} catch ( ExecutionException err ) {
+			Throwable cause = err.getCause();
+			if ( cause instanceof MlnExtractionException ) throw (MlnExtractionException) cause;
+			else if ( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+			else if ( cause instanceof Error ) throw (Error) cause;
+			else throw new MlnExtractionException( "The network could not be changed:\n" + cause.getMessage(),
+					"Extraction failure", JOptionPane.ERROR_MESSAGE, cause );
+		}
+	}
+	
+	/*
+	 * Give a change of the networks to the model thread.
+	 * @return false if app calls are not running concurrently
+	 */
+	private boolean submitModelTask( Runnable task ) {
+		synchronized ( modelTasks ) {
+			if ( modelThread == null ) return false;
+			modelTasks.add( task );
+			return true;
+		}
+	}
+	
+	/*
+	 * Do the changes of the networks given to the model thread.
+	 */
+	private void runModelTasks() {
+		Runnable task;
+		while ( ( task = modelTasks.poll() ) != null ) task.run();
+	}
+	
+	/*
+	 * Add a temporary network which is used by the extracting app.
+	 */
+	protected void addTemporaryNetwork( CyNetwork network ) {
+		networksToExtract.add( network );
+		ServiceProvider.get(CyNetworkManager.class).addNetwork( network );
+	}
+	
+	/*
+	 * Copy a view of the flattened network into a temporary network, from the model thread.
+	 * @param view of the flattened network
+	 * @return the temporary network
+	 */
+	public CyNetwork createTemporaryNetwork( FlattenedNetworkProjection projection ) throws MlnExtractionException {
+		return runOnModelThread( () -> {
+			CyNetwork network = projection.materialize( "temporary_network" );
+			addTemporaryNetwork( network );
+			return network;
+		} );
+	}
+	
+	/*
+	 * Destroy a temporary network, if it was not already destroyed.
+	 * While app calls are running concurrently, the network is destroyed later by the model thread,
+	 * so that the thread completing an app call does not wait for the merging.
+	 */
+	public void destroyTemporaryNetwork( CyNetwork network ) {
+		if ( network == null || ! networksToExtract.contains( network ) ) return;
+		Runnable destruction = () -> {
+			if ( networksToExtract.remove( network ) ) ServiceProvider.get(CyNetworkManager.class).destroyNetwork( network );
+		};
+		if ( Thread.currentThread() == modelThread || ! submitModelTask( destruction ) ) destruction.run();
+	}
+	
+	/*
+	 * Destroy all temporary networks.
+	 */
+	protected void destroyTemporaryNetworks() {
+		List<CyNetwork> networks;
+		synchronized ( networksToExtract ) {
+			networks = new ArrayList<CyNetwork>( networksToExtract );
+		}
+		for ( CyNetwork network : networks ) destroyTemporaryNetwork( network );
+	}
+	
 	/*
 	 * @param extracting app to use
 	 */
@@ -117,40 +263,6 @@ public abstract class ExtractionMethod implements Task {
 		}
 	}
 	
-	/*
-	 * Get query nodes for a given layer of the flattened network
-	 * @param flattened network
-	 * @param layer ID
-	 * @param name of the column with query nodes
-	 * @return a map such as the keys are the query nodes and, if the column is string, the values are the target nodes of the queries, otherwise the values are empty.
-	 */
-	protected Map<String, String> getQueryNodesFromLayer( CyNetwork flattenedNet, int layerID, String queryColName ) {
-		Map<String, String> queries = new HashMap<String, String>();
-		CyColumn col = flattenedNet.getDefaultNodeTable().getColumn(queryColName);
-		// If the column doesn't exist (= the user did not select it), then return empty object
-		if ( col != null ) {
-			Class<?> colType = col.getType();
-			// Get query nodes
-			for (CyNode cyNode : flattenedNet.getNodeList()) {
-				// Get the row
-				CyRow row = flattenedNet.getRow( cyNode );
-				int id = row.get( MlnWriter.LAYER_ID, Integer.class );
-				// Add the query node and, if needed, its value to the map
-				Object queryValue = row.get(queryColName, colType);
-				if ( id == layerID && queryValue != null ) {
-					String queryNodeName = flattenedNet.getRow( cyNode ).get( CyNetwork.NAME, String.class );
-					// the column is boolean and so, no values are needed
-					if ( colType.isAssignableFrom(Boolean.class) && (Boolean) queryValue )
-						queries.put( queryNodeName, null );
-					// the column is string, so it means a link between the query node to its value
-					else if ( colType.isAssignableFrom(String.class) && (String) queryValue != "" )
-						queries.put( queryNodeName, (String) queryValue );
-				}
-			}
-		} 
-		return queries;
-	}
-	
 	/*
 	 * Create a boolean column for the node table where a cell is 'true' if the node-layer was
 	 * used as a query or 'false' otherwise.
@@ -196,15 +308,14 @@ public abstract class ExtractionMethod implements Task {
 	}*/
 	
 	/*
-	 * Add the attributes of the extracted network generated by the app, to a flattened network.
+	 * Add the attributes of the extracted network generated by the app, to the extracted flattened network.
+	 * The nodes and the edges are found from the indexes of the extracted flattened network,
+	 * and all the attributes of an edge are set at once.
 	 * 
 	 * ANCHOR node from AnatApp is not managed by the TimeNexus, as it is a de-novo node created by AnatApp
 	 */
-	protected void addAtributesToFlatNetwork( ExtractedNetwork extractedNet, CyNetwork flatNetwork ) {
-		// Get nodes from the flattened network
-		Map<String, CyNode> flatNodes = new HashMap<String, CyNode>();
-		for ( CyNode node : flatNetwork.getNodeList() )
-			flatNodes.put( flatNetwork.getRow(node).get(CyNetwork.NAME, String.class), node );
+	protected void addAtributesToFlatNetwork( ExtractedNetwork extractedNet, FlattenedNetworkCopy extractedFlatNet ) {
+		CyNetwork flatNetwork = extractedFlatNet.getNetwork();
 		// Nodes
 		CyTable nodeTable = flatNetwork.getDefaultNodeTable();
 		for( String attrName : extractedNet.getNodeAttributeNames() ) {
@@ -216,43 +327,79 @@ public abstract class ExtractionMethod implements Task {
 			int nodeID = 0;
 			for ( String nodeName : extractedNet.getNodeNames() ) {
 				// Do not add node attributes which are not within the original flattened network (such as ANCHOR node from AnatApp
-				if ( flatNodes.keySet().contains(nodeName) )
-					flatNetwork.getRow( flatNodes.get(nodeName) ).set( attrName, attrValues.get(nodeID) );
+				CyNode node = extractedFlatNet.getNode( nodeName );
+				if ( node != null )
+					flatNetwork.getRow( node ).set( attrName, attrValues.get(nodeID) );
 				nodeID++;
 			}
 		}
 		// Add attributes to edges 
+		List<String> edgeAttrNames = extractedNet.getEdgeAttributeNames();
+		if ( edgeAttrNames.isEmpty() ) return;
 		CyTable edgeTable = flatNetwork.getDefaultEdgeTable();
-		for( String attrName : extractedNet.getEdgeAttributeNames() ) {
+		List<List<?>> edgeAttrValues = new ArrayList<List<?>>();
+		for( String attrName : edgeAttrNames ) {
 			Class<?> attrType = extractedNet.getEdgeAttributeType( attrName );
 			List<?> attrValues = extractedNet.getEdgeAttributeValues( attrName );
 			// Create column
 			createAttributeColumns( edgeTable, attrType, attrName, attrValues );
-			// Add values
-			int edgeID = 0;
-			for ( List<String> edge : extractedNet.getEdges() ) {
-				String nodeName1 = edge.get(0);
-				String nodeName2 = edge.get(1);
-				// Get the nodes related to the edge of the extracted network
-				CyRow nodeRow1 = (new ArrayList<CyRow>( nodeTable.getMatchingRows( CyNetwork.NAME, nodeName1 ) ) ).get(0);
-				CyRow nodeRow2 = (new ArrayList<CyRow>( nodeTable.getMatchingRows( CyNetwork.NAME, nodeName2 ) ) ).get(0);
-				CyNode node1 = flatNetwork.getNode( nodeRow1.get(CyNetwork.SUID, Long.class ) );
-				CyNode node2 = flatNetwork.getNode( nodeRow2.get(CyNetwork.SUID, Long.class ) );
-				// Get the edge connecting the two nodes within the flattened network 
-				List<CyEdge> edges = flatNetwork.getConnectingEdgeList( node1, node2, CyEdge.Type.ANY );
-				// Set the attribute value
-				for ( CyEdge e : edges ) {
-					// Use only the edges going in the Source->Target direction (the app caller should manage the other direction if needed) 
-					if ( e.getSource() == node1 ) {
-						CyRow edgeRow = flatNetwork.getRow( e );
-						edgeRow.set( attrName, attrValues.get(edgeID) );
-						edgeID++;
-					}
-				}
+			edgeAttrValues.add( attrValues );
+		}
+		// Add values
+		int edgeID = 0;
+		for ( List<String> edge : extractedNet.getEdges() ) {
+			// Get the edges going from the source to the target of the edge of the extracted network
+			// (the app caller should manage the other direction if needed) 
+			for ( CyEdge e : extractedFlatNet.getEdges( edge.get(0), edge.get(1) ) ) {
+				// Set the attribute values
+				CyRow edgeRow = flatNetwork.getRow( e );
+				for ( int i = 0; i < edgeAttrNames.size(); i++ )
+					edgeRow.set( edgeAttrNames.get(i), edgeAttrValues.get(i).get(edgeID) );
+				edgeID++;
 			}
 		}
 	}
 	
+	/*
+	 * Merge an extracted network into the extracted flattened network:
+	 * its nodes are copied from the flattened network, then its attributes are added.
+	 */
+	protected void mergeExtractedNetwork( ExtractedNetwork extractedNet, FlattenedNetworkCopy extractedFlatNet ) {
+		extractedFlatNet.addNodes( extractedNet.getNodeNames() );
+		addAtributesToFlatNetwork( extractedNet, extractedFlatNet );
+	}
+	
+	/*
+	 * Create the extracted flattened network, which is filled as the extracted networks are merged.
+	 * If the publishing is enabled, it is registered with its layer-networks right away,
+	 * so that the layers already extracted can be inspected while the next calls are running.
+	 * If the extraction fails or is cancelled, the network has to be discarded (see FlattenedNetworkCopy.discard()),
+	 * and the multi-layer network is completed only once all the calls are merged (see createExtractedMultiLayerNetwork()).
+	 * @param name of the extracted flattened network
+	 * @return the extracted flattened network
+	 */
+	protected FlattenedNetworkCopy createExtractedFlatNetwork( String networkName ) {
+		FlattenedNetworkCopy extractedFlatNet = new FlattenedNetworkCopy( flattenedNet, layers, networkName );
+		if ( isPublishingEnabled ) extractedFlatNet.publish();
+		return extractedFlatNet;
+	}
+	
+	/*
+	 * Generate the multi-layer network of the extracted flattened network, once all the extracted networks were merged.
+	 * If the extracted flattened network was published, only its aggregated network is missing.
+	 * @param extracted flattened network
+	 * @param names of the node-layers used as queries
+	 */
+	protected void createExtractedMultiLayerNetwork( FlattenedNetworkCopy extractedFlatNet, Set<String> queryNodeLayers ) {
+		CyNetwork extractedNet = extractedFlatNet.getNetwork();
+		if ( ! extractedFlatNet.isPublished() ) ServiceProvider.get(CyNetworkManager.class).addNetwork( extractedNet );
+		// Add 'isQuery' column
+		addIsQueryColumn( queryNodeLayers, extractedNet );
+		// Create multi-layer network
+		if ( extractedFlatNet.isPublished() ) extractedFlatNet.completePublication();
+		else MlnWriter.createMLNFromFlatNetwork( extractedNet, layers );
+	}
+	
 	/*
 	 * Add columns related to attributes
 	 */
@@ -263,6 +410,426 @@ public abstract class ExtractionMethod implements Task {
 			table.createColumn( attrName, attrType, false );
 	}
 	
+	/*
+	 * Call an app on a network, unless an identical call was already done:
+	 * the network extracted by this call is then reused.
+	 * @param app to call
+	 * @param network to extract
+	 * @param query-source nodes
+	 * @param query-target nodes
+	 * @param task monitor of the extraction method
+	 * @return the extracted network
+	 */
+	protected ExtractedNetwork callApp( AppCaller caller, CyNetwork network, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor ) throws MlnExtractionException, MlnAppCallerException {
+		return AppCaller.waitForResult( callAppAsync( caller, network, querySources, queryTargets, taskMonitor ), this );
+	}
+	
+	/*
+	 * Call an app on a network without waiting for its response, unless an identical call was already done.
+	 * @see callApp( AppCaller, CyNetwork, Map, Map, TaskMonitor )
+	 * @return the extracted network, which is cancelled if the task is cancelled
+	 */
+	protected CompletableFuture<ExtractedNetwork> callAppAsync( AppCaller caller, CyNetwork network, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor ) {
+		String key = isCacheEnabled
+				? AppResultCache.getKey( caller, new FlattenedNetworkProjection( network ), querySources, queryTargets ) : null;
+		ExtractedNetwork extractedNetwork = key != null ? AppResultCache.get( key ) : null;
+		if ( extractedNetwork != null ) return CompletableFuture.completedFuture( extractedNetwork );
+		return cacheResult( key, track( caller.callAsync( network, querySources, queryTargets, taskMonitor, this ) ) );
+	}
+	
+	/*
+	 * Call an app on a view of the flattened network, unless an identical call was already done.
+	 * The view is copied into a temporary network by the app caller only if the app cannot read it directly
+	 * (see AppCaller.callAsync( FlattenedNetworkProjection, ... )), and this network is destroyed once the call is done.
+	 * @param app to call
+	 * @param view of the network to extract
+	 * @param query-source nodes
+	 * @param query-target nodes
+	 * @param task monitor of the extraction method
+	 * @return the extracted network
+	 */
+	protected ExtractedNetwork callApp( AppCaller caller, FlattenedNetworkProjection projection, Map<String, String> querySources,
+			Map<String, String> queryTargets, TaskMonitor taskMonitor ) throws MlnExtractionException, MlnAppCallerException {
+		return AppCaller.waitForResult( callAppAsync( caller, projection, querySources, queryTargets, taskMonitor ), this );
+	}
+	
+	/*
+	 * Call an app on a view of the flattened network without waiting for its response,
+	 * unless an identical call was already done.
+	 * @see callApp( AppCaller, FlattenedNetworkProjection, Map, Map, TaskMonitor )
+	 * @return the extracted network, which is cancelled if the task is cancelled
+	 */
+	protected CompletableFuture<ExtractedNetwork> callAppAsync( AppCaller caller, FlattenedNetworkProjection projection,
+			Map<String, String> querySources, Map<String, String> queryTargets, TaskMonitor taskMonitor ) {
+		String key = isCacheEnabled ? AppResultCache.getKey( caller, projection, querySources, queryTargets ) : null;
+		ExtractedNetwork extractedNetwork = key != null ? AppResultCache.get( key ) : null;
+		if ( extractedNetwork != null ) return CompletableFuture.completedFuture( extractedNetwork );
+		return cacheResult( key, track( caller.callAsync( projection, querySources, queryTargets, taskMonitor, this ) ) );
+	}
+	
+	/*
+	 * Keep an app call until it is done, so that it is aborted if the task is cancelled.
+	 * @return the app call
+	 */
+	private CompletableFuture<ExtractedNetwork> track( CompletableFuture<ExtractedNetwork> call ) {
+		if ( call.isDone() ) return call;
+		runningCalls.add( call );
+		call.whenComplete( (result, err) -> runningCalls.remove( call ) );
+		if ( isCancelled() ) call.cancel( true );
+		return call;
+	}
+	
+	/*
+	 * Keep the network extracted by an app call, so that it can be reused by the identical calls.
+	 * @param key of the call (see AppResultCache), or null if the result is not kept
+	 * @param app call
+	 * @return the extracted network, once it is kept
+	 */
+	private static CompletableFuture<ExtractedNetwork> cacheResult( String key, CompletableFuture<ExtractedNetwork> call ) {
+		if ( key == null ) return call;
+		return call.thenApply( extractedNetwork -> {
+			AppResultCache.put( key, extractedNetwork );
+			return extractedNetwork;
+		} );
+	}
+	
+	/*
+	 * Call the app for the k-th prepared call, unless the call was done by a previous run of the extraction.
+	 */
+	private ExtractedNetwork callApp( int k, PreparedCall call, TaskMonitor taskMonitor ) throws MlnExtractionException, MlnAppCallerException {
+		return AppCaller.waitForResult( callAppAsync( k, call, taskMonitor ), this );
+	}
+	
+	/*
+	 * Call the app for the k-th prepared call without waiting for its response,
+	 * unless the call was done by a previous run of the extraction.
+	 */
+	private CompletableFuture<ExtractedNetwork> callAppAsync( int k, PreparedCall call, TaskMonitor taskMonitor ) {
+		ExtractionCheckpoint checkpoint = this.checkpoint;
+		ExtractedNetwork extractedNetwork = checkpoint != null ? checkpoint.get(k) : null;
+		if ( extractedNetwork != null ) return CompletableFuture.completedFuture( extractedNetwork );
+		AppCaller caller = call.caller != null ? call.caller : app;
+		CompletableFuture<ExtractedNetwork> result = call.network != null
+				? callAppAsync( caller, call.network, call.querySources, call.queryTargets, taskMonitor )
+				: callAppAsync( caller, call.projection, call.querySources, call.queryTargets, taskMonitor );
+		if ( checkpoint == null ) return result;
+		return result.thenApply( network -> {
+			checkpoint.put( k, network );
+			return network;
+		} );
+	}
+	
+	/*
+	 * Call the app on several networks, with at most maxConcurrentCalls calls running at the same time.
+	 * The networks are prepared one after the other.
+	 * @see callApp( int, CallPreparation, boolean, ResultMerging, TaskMonitor )
+	 */
+	protected List<ExtractedNetwork> callApp( int nbCalls, CallPreparation preparation, TaskMonitor taskMonitor )
+			throws MlnExtractionException, MlnAppCallerException {
+		return callApp( nbCalls, preparation, false, null, taskMonitor );
+	}
+	
+	/*
+	 * Call the app on several networks, with at most maxConcurrentCalls calls running at the same time.
+	 * 
+	 * The calls go through a pipeline of three stages, linked by bounded queues:
+	 * 	- the preparation of the networks and of the queries, by one thread,
+	 * 	  or by as many threads as app calls (up to the number of processors) if the preparations are independent from each other;
+	 * 	- the app calls, by maxConcurrentCalls threads, or by a single thread sending all the requests
+	 * 	  if the app is called asynchronously (see AppCaller.isCallAsync());
+	 * 	- the merging of the extracted networks, by the calling thread, in the order of the calls.
+	 * So the preparation of the call k+1 and the merging of the call k-1 are done while the app runs the call k.
+	 * The number of calls within the pipeline is bounded, so that only a few temporary networks exist at the same time,
+	 * and each temporary network is destroyed as soon as its call is done.
+	 * If a stage fails or if the task is cancelled, the other calls are cancelled through checkCancelling(),
+	 * the requests waiting for the app are aborted, and the first error is thrown once all stages are stopped.
+	 * The extracted networks are kept in a checkpoint until all the calls are done, so that a new run of the same extraction
+	 * does not call the app again for the calls which were done.
+	 * @param number of calls
+	 * @param preparation of the network and the queries of each call
+	 * @param true if the preparations can run concurrently
+	 * @param merging of each extracted network, or null
+	 * @param task monitor of the extraction method
+	 * @return the extracted networks, in the order of the calls
+	 * (null if they were merged, so that they are not kept in memory until the end of the extraction)
+	 */
+	protected List<ExtractedNetwork> callApp( int nbCalls, CallPreparation preparation, boolean concurrentPreparation,
+			ResultMerging merging, TaskMonitor taskMonitor ) throws MlnExtractionException, MlnAppCallerException {
+		checkpoint = isCheckpointEnabled ? openCheckpoint( nbCalls, taskMonitor ) : null;
+		boolean isDone = false;
+		try {
+			List<ExtractedNetwork> extractedNetworks = pipelineCalls( nbCalls, preparation, concurrentPreparation, merging, taskMonitor );
+			isDone = true;
+			return extractedNetworks;
+		} finally {
+			// The checkpoint is kept to resume the extraction, unless all the calls are done
+			if ( checkpoint != null && isDone ) checkpoint.delete();
+			else if ( checkpoint != null ) checkpoint.close();
+			checkpoint = null;
+		}
+	}
+	
+	/*
+	 * Run the pipeline of the calls.
+	 * @see callApp( int, CallPreparation, boolean, ResultMerging, TaskMonitor )
+	 */
+	private List<ExtractedNetwork> pipelineCalls( int nbCalls, CallPreparation preparation, boolean concurrentPreparation,
+			ResultMerging merging, TaskMonitor taskMonitor ) throws MlnExtractionException, MlnAppCallerException {
+		ExtractedNetwork[] extractedNetworks = new ExtractedNetwork[nbCalls];
+		taskMonitor.setProgress(0);
+		//		Single call
+		if ( nbCalls <= 1 ) {
+			for (int k = 0; k < nbCalls; k++) {
+				PreparedCall call = preparation.prepare(k);
+				try {
+					extractedNetworks[k] = callApp( k, call, taskMonitor );
+				} finally {
+					// Destroy the temporary network when done
+					destroyTemporaryNetwork( call.network );
+				}
+				if ( merging != null ) {
+					merging.merge( k, extractedNetworks[k] );
+					extractedNetworks[k] = null;
+				}
+				taskMonitor.setProgress(1);
+				// Cancel the task
+				checkCancelling();
+			}
+			return Arrays.asList( extractedNetworks );
+		}
+		//		Pipeline
+		int nbWorkers = Math.min( maxConcurrentCalls, nbCalls );
+		int nbPreparers = concurrentPreparation ? Math.min( nbWorkers, Runtime.getRuntime().availableProcessors() ) : 1;
+		// The apps called asynchronously need a single thread to send all the calls,
+		// otherwise each call blocks its thread until the app responds
+		int nbCallers = app.isCallAsync() ? 1 : nbWorkers;
+		// Queues between the stages (the number of done calls is bounded by pipelineSlots)
+		BlockingQueue<PipelinedCall> preparedCalls = new ArrayBlockingQueue<PipelinedCall>( nbWorkers );
+		BlockingQueue<PipelinedCall> doneCalls = new LinkedBlockingQueue<PipelinedCall>();
+		// Number of calls which can wait for the app at the same time
+		Semaphore callSlots = new Semaphore( nbWorkers );
+		// Processing of the calls which wait for the app
+		Set<CompletableFuture<Void>> runningStages = ConcurrentHashMap.newKeySet();
+		// Number of calls which can be within the pipeline, from their preparation to their merging
+		Semaphore pipelineSlots = new Semaphore( 2 * nbWorkers + 1 );
+		AtomicInteger nextToPrepare = new AtomicInteger(0);
+		AtomicInteger nextToCall = new AtomicInteger(0);
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		ExecutorService executor = Executors.newFixedThreadPool( nbPreparers + nbCallers, runnable -> {
+			Thread thread = new Thread( runnable, "TimeNexus extraction" );
+			thread.setDaemon(true);
+			return thread;
+		} );
+		// The networks are changed only by the calling thread, which merges the extracted networks
+		modelThread = Thread.currentThread();
+		isCallingConcurrently = true;
+		try {
+			// Preparation stage
+			for ( int i = 0; i < nbPreparers; i++ ) executor.execute( () -> {
+				try {
+					while ( true ) {
+						pipelineSlots.acquire();
+						int k = nextToPrepare.getAndIncrement();
+						if ( k >= nbCalls || isCancelled() ) return;
+						preparedCalls.put( new PipelinedCall( k, preparation.prepare(k) ) );
+					}
+				} catch ( InterruptedException err ) {
+					return;
+				} catch ( Throwable err ) {
+					// Keep the first error and cancel the other calls
+					failure.compareAndSet( null, err );
+					cancelled = true;
+				}
+			} );
+			// Call stage
+			for ( int i = 0; i < nbCallers; i++ ) executor.execute( () -> {
+				try {
+					while ( nextToCall.getAndIncrement() < nbCalls ) {
+						PipelinedCall pipelinedCall = preparedCalls.take();
+						PreparedCall call = pipelinedCall.call;
+						CompletableFuture<ExtractedNetwork> result = null;
+						try {
+							if ( isCancelled() ) return;
+							callSlots.acquire();
+							try {
+								result = callAppAsync( pipelinedCall.k, call, taskMonitor );
+							} finally {
+								if ( result == null ) callSlots.release();
+							}
+						} finally {
+							// Destroy the temporary network if the call was not done
+							if ( result == null ) destroyTemporaryNetwork( call.network );
+						}
+						CompletableFuture<Void> done = result.handle( (extractedNetwork, err) -> {
+							// Destroy the temporary network when done
+							destroyTemporaryNetwork( call.network );
+							callSlots.release();
+							if ( err == null ) {
+								pipelinedCall.extractedNetwork = extractedNetwork;
+								doneCalls.add( pipelinedCall );
+							} else {
+								// The calls which were aborted by cancelling the task are not failures
+								Throwable cause = AppCaller.getFailureCause( err );
+								if ( ! ( cause instanceof CancellationException ) ) failure.compareAndSet( null, cause );
+								cancelled = true;
+							}
+							return null;
+						} );
+						runningStages.add( done );
+						done.thenRun( () -> runningStages.remove( done ) );
+					}
+				} catch ( InterruptedException err ) {
+					return;
+				} catch ( Throwable err ) {
+					failure.compareAndSet( null, err );
+					cancelled = true;
+				}
+			} );
+			// Merging stage, in the order of the calls
+			Map<Integer, PipelinedCall> waitingCalls = new HashMap<Integer, PipelinedCall>();
+			int nbMerged = 0;
+			while ( nbMerged < nbCalls && ! isCancelled() ) {
+				runModelTasks();
+				PipelinedCall pipelinedCall = doneCalls.poll( 10, TimeUnit.MILLISECONDS );
+				if ( pipelinedCall == null ) continue;
+				waitingCalls.put( pipelinedCall.k, pipelinedCall );
+				while ( ( pipelinedCall = waitingCalls.remove( nbMerged ) ) != null ) {
+					try {
+						if ( merging != null ) merging.merge( nbMerged, pipelinedCall.extractedNetwork );
+						else extractedNetworks[nbMerged] = pipelinedCall.extractedNetwork;
+					} catch ( MlnExtractionException | RuntimeException err ) {
+						failure.compareAndSet( null, err );
+						cancelled = true;
+						break;
+					}
+					nbMerged++;
+					pipelineSlots.release();
+					taskMonitor.setProgress( ((double) nbMerged) / nbCalls );
+				}
+			}
+		} catch ( InterruptedException err ) {
+			cancelled = true;
+			Thread.currentThread().interrupt();
+		} finally {
+			// Stop the stages which are waiting, and wait for the running app calls
+			executor.shutdownNow();
+			// (the stages may wait for the model thread meanwhile)
+			try {
+				while ( ! executor.awaitTermination( 10, TimeUnit.MILLISECONDS ) ) runModelTasks();
+			} catch ( InterruptedException err ) {
+				Thread.currentThread().interrupt();
+			}
+			if ( cancelled ) cancelRunningCalls();
+			CompletableFuture.allOf( runningStages.toArray( new CompletableFuture<?>[0] ) ).handle( (result, err) -> null ).join();
+			synchronized ( modelTasks ) {
+				modelThread = null;
+			}
+			runModelTasks();
+			isCallingConcurrently = false;
+		}
+		//		Throw the first error
+		Throwable err = failure.get();
+		if ( err != null ) {
+			destroyTemporaryNetworks();
+			cancelled = false;
+			if ( err instanceof MlnAppCallerException ) throw (MlnAppCallerException) err;
+			else if ( err instanceof MlnExtractionException ) throw (MlnExtractionException) err;
+			else if ( err instanceof RuntimeException ) throw (RuntimeException) err;
+			else if ( err instanceof Error ) throw (Error) err;
+			else throw new MlnExtractionException( "The extracting app failed:\n" + err.getMessage(),
+					"Extraction failure", JOptionPane.ERROR_MESSAGE, err );
+		}
+		checkCancelling();
+		return Arrays.asList( extractedNetworks );
+	}
+	
+	/*
+	 * Open the checkpoint of the extraction, which contains the calls done by its previous runs.
+	 * @return the checkpoint, or null if it cannot be used
+	 */
+	private ExtractionCheckpoint openCheckpoint( int nbCalls, TaskMonitor taskMonitor ) {
+		taskMonitor.setStatusMessage("Looking for a previous run of the extraction...");
+		String fingerprint = ExtractionCheckpoint.getFingerprint( getCheckpointDescription() + "\t" + nbCalls, app, flattenedNet );
+		if ( fingerprint == null ) return null;
+		try {
+			ExtractionCheckpoint checkpoint = ExtractionCheckpoint.open( ExtractionCheckpoint.DEFAULT_DIRECTORY, fingerprint );
+			if ( checkpoint.size() > 0 )
+				taskMonitor.setStatusMessage("Resuming the extraction: " + checkpoint.size() + " of the " + nbCalls
+						+ " calls were done by a previous run...");
+			return checkpoint;
+		} catch ( IOException | RuntimeException err ) {
+			// The extraction is done without checkpoint
+			Print.error(err);
+			return null;
+		}
+	}
+	
+	/*
+	 * Describe the inputs of the extraction which are not in the flattened network, for its checkpoint:
+	 * the method, the layers and the query columns read when the calls were prepared (see readQueryColumns()).
+	 * @return the description
+	 */
+	protected String getCheckpointDescription() {
+		StringBuilder description = new StringBuilder( toString() + "\t" + layers );
+		Map<Integer, String> queryCols = queryColumns != null ? queryColumns : readQueryColumns();
+		if ( ! queryCols.isEmpty() )
+			for ( int idLayer : layers ) description.append( "\t" + queryCols.get(idLayer) );
+		return description.toString();
+	}
+	
+	/*
+	 * Read the query columns selected for the layers.
+	 * They are read once, when the calls are prepared (see getCallPreparation()), as the preparations may run
+	 * outside of the task thread, and the checkpoint of the extraction is described with the same columns.
+	 * @return name of the query column of each layer (key: layer ID)
+	 */
+	protected Map<Integer, String> readQueryColumns() {
+		Map<Integer, String> queryCols = new HashMap<Integer, String>();
+		HashMap<Integer, JComboBox<String>> queryColNames = app.getQueryColNames();
+		if ( queryColNames != null ) {
+			for ( int idLayer : layers ) {
+				JComboBox<String> queryCol = queryColNames.get(idLayer);
+				queryCols.put( idLayer, queryCol != null ? (String) queryCol.getSelectedItem() : null );
+			}
+		}
+		queryColumns = queryCols;
+		return queryCols;
+	}
+	
+	public int getMaxConcurrentCalls() {
+		return maxConcurrentCalls;
+	}
+
+	public void setMaxConcurrentCalls( int maxConcurrentCalls ) {
+		this.maxConcurrentCalls = Math.max( 1, maxConcurrentCalls );
+	}
+	
+	public boolean isCacheEnabled() {
+		return isCacheEnabled;
+	}
+
+	public void setCacheEnabled( boolean isCacheEnabled ) {
+		this.isCacheEnabled = isCacheEnabled;
+	}
+	
+	public boolean isCheckpointEnabled() {
+		return isCheckpointEnabled;
+	}
+
+	public void setCheckpointEnabled( boolean isCheckpointEnabled ) {
+		this.isCheckpointEnabled = isCheckpointEnabled;
+	}
+	
+	public boolean isPublishingEnabled() {
+		return isPublishingEnabled;
+	}
+
+	public void setPublishingEnabled( boolean isPublishingEnabled ) {
+		this.isPublishingEnabled = isPublishingEnabled;
+	}
+	
 	public boolean isCheckEnabled() {
 		return isCheckEnabled;
 	}
@@ -271,6 +838,128 @@ public abstract class ExtractionMethod implements Task {
 		this.isCheckEnabled = isCheckEnabled;
 	}
 	
+	/*_______________________________________
+	 * 
+	 *			APP CALLS
+	 *_______________________________________
+	 */
+	
+	/*
+	 * @return number of networks on which the app is called
+	 */
+	protected abstract int getNbCalls();
+	
+	/*
+	 * Get the preparation of the networks and of the queries of the calls.
+	 * It is done once the multi-layer network is checked, by the thread of the task.
+	 * @param set to which the query nodes are added when a call is prepared
+	 * @param task monitor of the extraction method
+	 * @return the preparation of the k-th call
+	 */
+	protected abstract CallPreparation getCallPreparation( Set<String> queryNodeLayers, TaskMonitor taskMonitor );
+	
+	/*
+	 * @return true if the calls can be prepared concurrently
+	 */
+	protected boolean isPreparationConcurrent() { return false; }
+	
+	/*
+	 * Network and queries given to the app for one call.
+	 * The network is either a temporary network or a view of the flattened network.
+	 */
+	protected static class PreparedCall {
+		
+		final CyNetwork network;
+		final FlattenedNetworkProjection projection;
+		final Map<String, String> querySources;
+		final Map<String, String> queryTargets;
+		final AppCaller caller;
+		
+		/*
+		 * @param temporary network to extract
+		 * @param query-source nodes
+		 * @param query-target nodes
+		 */
+		PreparedCall( CyNetwork network, Map<String, String> querySources, Map<String, String> queryTargets ) {
+			this( network, querySources, queryTargets, null );
+		}
+		
+		/*
+		 * @param temporary network to extract
+		 * @param query-source nodes
+		 * @param query-target nodes
+		 * @param app to call instead of the app of the extraction method
+		 */
+		PreparedCall( CyNetwork network, Map<String, String> querySources, Map<String, String> queryTargets, AppCaller caller ) {
+			this( network, null, querySources, queryTargets, caller );
+		}
+		
+		/*
+		 * @param view of the flattened network to extract
+		 * @param query-source nodes
+		 * @param query-target nodes
+		 */
+		PreparedCall( FlattenedNetworkProjection projection, Map<String, String> querySources, Map<String, String> queryTargets ) {
+			this( null, projection, querySources, queryTargets, null );
+		}
+		
+		/*
+		 * @param view of the flattened network to extract
+		 * @param query-source nodes
+		 * @param query-target nodes
+		 * @param app to call instead of the app of the extraction method
+		 */
+		PreparedCall( FlattenedNetworkProjection projection, Map<String, String> querySources, Map<String, String> queryTargets,
+				AppCaller caller ) {
+			this( null, projection, querySources, queryTargets, caller );
+		}
+		
+		private PreparedCall( CyNetwork network, FlattenedNetworkProjection projection, Map<String, String> querySources,
+				Map<String, String> queryTargets, AppCaller caller ) {
+			this.network = network;
+			this.projection = projection;
+			this.querySources = querySources;
+			this.queryTargets = queryTargets;
+			this.caller = caller;
+		}
+	}
+	
+	/*
+	 * Preparation of the network and the queries of the k-th call.
+	 */
+	protected interface CallPreparation {
+		PreparedCall prepare( int k ) throws MlnExtractionException;
+	}
+	
+	/*
+	 * Change of the networks done by the model thread (see runOnModelThread()).
+	 */
+	public interface ModelChange<T> {
+		T apply() throws MlnExtractionException;
+	}
+	
+	/*
+	 * Merging of the extracted network of the k-th call.
+	 */
+	protected interface ResultMerging {
+		void merge( int k, ExtractedNetwork extractedNet ) throws MlnExtractionException;
+	}
+	
+	/*
+	 * Call going through the stages of the pipeline.
+	 */
+	private static class PipelinedCall {
+		
+		final int k;
+		final PreparedCall call;
+		ExtractedNetwork extractedNetwork;
+		
+		PipelinedCall( int k, PreparedCall call ) {
+			this.k = k;
+			this.call = call;
+		}
+	}
+	
 	/*_______________________________________
 	 * 
 	 *			EXCEPTION
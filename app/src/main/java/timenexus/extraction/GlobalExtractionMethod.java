@@ -1,21 +1,20 @@
 package timenexus.extraction;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.swing.JComboBox;
-
-import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkManager;
-import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyNode;
 import org.cytoscape.work.TaskMonitor;
 
-import timenexus.apps.ExtractedNetwork;
 import timenexus.apps.AppCaller.MlnAppCallerException;
-import timenexus.temporalnetwork.CopyFlattenedNetworkPanel;
+import timenexus.temporalnetwork.FlattenedNetworkCopy;
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
 import timenexus.temporalnetwork.MlnWriter;
 import timenexus.utils.ServiceProvider;
 
@@ -44,47 +43,21 @@ public class GlobalExtractionMethod extends ExtractionMethod {
 			checkMultiLayerNetwork();
 		}
 		
-		//		Copy the flattened network into a temporary network
-		// Get nodes of the network
-		taskMonitor.setStatusMessage("Copying the flattened network...");
-		Set<String> nodeLayers = new HashSet<String>();
-		for ( CyRow row : flattenedNet.getDefaultNodeTable().getAllRows() )
-			nodeLayers.add( row.get( CyNetwork.NAME, String.class ) );
-		// Copy the network 
-		CyNetwork networkToExtract = CopyFlattenedNetworkPanel.copyLayers( flattenedNet, layers, nodeLayers, "temporary_network" );
-		networksToExtract = new ArrayList<CyNetwork>();
-		networksToExtract.add(networkToExtract);
-		ServiceProvider.get(CyNetworkManager.class).addNetwork(networkToExtract);
+		//		Create the extracted flattened network, which is filled with the extracted network
+		FlattenedNetworkCopy extractedFlatNet = new FlattenedNetworkCopy( flattenedNet, layers, "Extracted network" );
 		
 		//		Call the app
-		int idLayer1 = layers.get(0);
-		int idLayerN = layers.get( layers.size() - 1 );
-		// Get query sources and query targets
-		HashMap<Integer, JComboBox<String>> queryColNames = app.getQueryColNames();
-		String querySourceCol = (String) queryColNames.get(idLayer1).getSelectedItem();
-		String queryTargetCol = (String) queryColNames.get(idLayerN).getSelectedItem();
-		Map<String, String> querySources = getQueryNodesFromLayer( networkToExtract, idLayer1, querySourceCol );
-		Map<String, String> queryTargets = getQueryNodesFromLayer( networkToExtract, idLayerN, queryTargetCol );
-		// Call
-		ExtractedNetwork extractedNetwork = app.call( networkToExtract, querySources, queryTargets, taskMonitor, this );
-		Set<String> extractedNetNodes = new HashSet<String>( extractedNetwork.getNodeNames() );
-		// Destroy temporary network
-		ServiceProvider.get(CyNetworkManager.class).destroyNetwork(networkToExtract);
+		Set<String> queryNodeLayers = Collections.synchronizedSet( new HashSet<String>() );
+		callApp( getNbCalls(), getCallPreparation( queryNodeLayers, taskMonitor ), false,
+				(k, extractedNet) -> mergeExtractedNetwork( extractedNet, extractedFlatNet ), taskMonitor );
 		
 		//		Generate a new multi-layer network from the list of nodes
-		checkCancelling();
 		taskMonitor.setStatusMessage("Generating sub-multi-layer network...");
-		// Create flattened network
-		CyNetwork extractedFlatNet = CopyFlattenedNetworkPanel.copyLayers( flattenedNet, layers, extractedNetNodes, "Extracted network" );
-		ServiceProvider.get(CyNetworkManager.class).addNetwork(extractedFlatNet);
-		// Add node and edge attributes to the network
-		addAtributesToFlatNetwork( extractedNetwork, extractedFlatNet );
+		ServiceProvider.get(CyNetworkManager.class).addNetwork( extractedFlatNet.getNetwork() );
 		// Add 'isQuery' column
-		Set<String> queryNodeLayers = new HashSet<String>( querySources.keySet() );
-		queryNodeLayers.addAll( queryTargets.keySet() );
-		addIsQueryColumn( queryNodeLayers, extractedFlatNet );
+		addIsQueryColumn( queryNodeLayers, extractedFlatNet.getNetwork() );
 		// Create multi-layer network
-		MlnWriter.createMLNFromFlatNetwork( extractedFlatNet, layers );
+		MlnWriter.createMLNFromFlatNetwork( extractedFlatNet.getNetwork(), layers );
 	
 		/*long sec = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime);
 		try(BufferedWriter writer = new BufferedWriter(
@@ -95,4 +68,41 @@ public class GlobalExtractionMethod extends ExtractionMethod {
 			e.printStackTrace();
 		}*/
 	}
+	
+	/*
+	 * The app is called once on the whole multi-layer network.
+	 */
+	@Override
+	protected int getNbCalls() { return 1; }
+	
+	/*
+	 * Copy the flattened network, with the query sources from the first layer
+	 * and the query targets from the last layer.
+	 */
+	@Override
+	protected CallPreparation getCallPreparation( Set<String> queryNodeLayers, TaskMonitor taskMonitor ) {
+		// Get query columns
+		int idLayer1 = layers.get(0);
+		int idLayerN = layers.get( layers.size() - 1 );
+		Map<Integer, String> queryCols = readQueryColumns();
+		String querySourceCol = queryCols.get(idLayer1);
+		String queryTargetCol = queryCols.get(idLayerN);
+		// Index the query nodes of the first and last layers
+		QueryNodeIndex queryIndex = new QueryNodeIndex( flattenedNet, Arrays.asList( querySourceCol, queryTargetCol ) );
+		
+		return k -> {
+			//		Get a view of the selected layers of the flattened network
+			taskMonitor.setStatusMessage("Selecting the layers of the flattened network...");
+			List<CyNode> nodeLayers = new ArrayList<CyNode>();
+			for ( List<CyNode> nodes : FlattenedNetworkProjection.getLayerNodes( flattenedNet, layers ).values() )
+				nodeLayers.addAll( nodes );
+			FlattenedNetworkProjection networkToExtract = new FlattenedNetworkProjection( flattenedNet, layers, nodeLayers );
+			// Get query sources and query targets
+			Map<String, String> querySources = queryIndex.get( idLayer1, querySourceCol );
+			Map<String, String> queryTargets = queryIndex.get( idLayerN, queryTargetCol );
+			queryNodeLayers.addAll( querySources.keySet() );
+			queryNodeLayers.addAll( queryTargets.keySet() );
+			return new PreparedCall( networkToExtract, querySources, queryTargets );
+		};
+	}
 }
@@ -1,24 +1,17 @@
 package timenexus.extraction;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.swing.JComboBox;
-
-import org.cytoscape.model.CyNetwork;
-import org.cytoscape.model.CyNetworkManager;
-import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyNode;
 import org.cytoscape.work.TaskMonitor;
 
-import timenexus.apps.ExtractedNetwork;
 import timenexus.apps.AppCaller.MlnAppCallerException;
-import timenexus.temporalnetwork.CopyFlattenedNetworkPanel;
-import timenexus.temporalnetwork.MlnWriter;
-import timenexus.utils.ServiceProvider;
+import timenexus.temporalnetwork.FlattenedNetworkCopy;
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
 
 /*
  * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
@@ -35,7 +28,6 @@ public class OneByOneExtractionMethod extends ExtractionMethod {
 		//long startTime = System.nanoTime();
 		
 		taskMonitor.setTitle(toString() + " with " + app);
-		CyNetworkManager networkManager = ServiceProvider.get(CyNetworkManager.class);
 		
 		//		Checking that the multi-layer network meet the app's criteria
 		if ( isCheckEnabled() ) {
@@ -46,60 +38,24 @@ public class OneByOneExtractionMethod extends ExtractionMethod {
 			checkMultiLayerNetwork();
 		}
 		
-		//		Get the names of query columns
-		HashMap<Integer, JComboBox<String>> queryColNames = app.getQueryColNames();
-		//		Get nodes of the network
-		// Create list of nodes per layer
-		Map<Integer, Set<String>> nodeNames = new HashMap<Integer, Set<String>>();
-		for ( int idLayer : layers ) nodeNames.put( idLayer,  new HashSet<String>() );
-		// Get nodes
-		for ( CyRow row : flattenedNet.getDefaultNodeTable().getAllRows() ) {
-			int idLayer = row.get( MlnWriter.LAYER_ID, Integer.class );
-			if ( layers.contains( idLayer ) ) nodeNames.get( idLayer ).add( row.get(CyNetwork.NAME, String.class) );
-		}
-		
-		//		Call the app for each subnetwork
-		networksToExtract = new ArrayList<CyNetwork>();
-		Set<String> queryNodeLayers = new HashSet<String>();
-		List<ExtractedNetwork> extractedNetworks = new ArrayList<ExtractedNetwork>();
-		Set<String> extractedNetNodes = new HashSet<String>();
-		for ( int k = 0; k < layers.size() ; k++ ) {
-			int idLayer = layers.get(k);
-			// Get subset of the multi-layer network
-			taskMonitor.setStatusMessage("Building a network for the layer " + idLayer + "...");
-			CyNetwork subLayerNet = CopyFlattenedNetworkPanel.copyLayers( flattenedNet,
-					List.of(idLayer), nodeNames.get(idLayer), "temporary_network" );
-			networksToExtract.add(subLayerNet);
-			networkManager.addNetwork(subLayerNet);
-			// Get query sources and query targets
-			String queryCol = (String) queryColNames.get(idLayer).getSelectedItem();
-			Map<String, String> queryNodes = getQueryNodesFromLayer( subLayerNet, idLayer, queryCol );
-			queryNodeLayers.addAll( queryNodes.keySet() );
-			// Call
-			ExtractedNetwork net = app.call( subLayerNet, queryNodes, queryNodes, taskMonitor, this );
-			extractedNetworks.add( net );
-			extractedNetNodes.addAll( net.getNodeNames() );
-			// Destroy 2-layer networks when done
-			networkManager.destroyNetwork(subLayerNet);
-			taskMonitor.setProgress( ((double) (k+1)) / layers.size() );
-			// Cancel the task
-			checkCancelling();
-		}
-		
-		//		Generate a new multi-layer network from the list of nodes
-		taskMonitor.setStatusMessage("Generating sub-multi-layer network...");
-		// Create flattened network
-		CyNetwork extractedFlatNet = CopyFlattenedNetworkPanel.copyLayers( flattenedNet, layers, extractedNetNodes, "Extracted network" );
-		networkManager.addNetwork(extractedFlatNet);
-		// Add node and edge attributes to the network
-		for (ExtractedNetwork extractedNet : extractedNetworks) {
-			checkCancelling();
-			addAtributesToFlatNetwork( extractedNet, extractedFlatNet );
+		//		Create the extracted flattened network, which is filled as the extracted networks are merged
+		FlattenedNetworkCopy extractedFlatNet = createExtractedFlatNetwork( "Extracted network" );
+		// (it is destroyed if the extraction stops before it is complete)
+		boolean isDone = false;
+		try {
+			//		Call the app for each subnetwork
+			// The layers are independent from each other: their networks are built by the workers
+			Set<String> queryNodeLayers = Collections.synchronizedSet( new HashSet<String>() );
+			callApp( getNbCalls(), getCallPreparation( queryNodeLayers, taskMonitor ), isPreparationConcurrent(),
+					(k, extractedNet) -> mergeExtractedNetwork( extractedNet, extractedFlatNet ), taskMonitor );
+			
+			//		Generate a new multi-layer network from the extracted nodes
+			taskMonitor.setStatusMessage("Generating sub-multi-layer network...");
+			createExtractedMultiLayerNetwork( extractedFlatNet, queryNodeLayers );
+			isDone = true;
+		} finally {
+			if ( ! isDone ) extractedFlatNet.discard();
 		}
-		// Add 'isQuery' column
-		addIsQueryColumn( queryNodeLayers, extractedFlatNet );
-		// Create multi-layer network
-		MlnWriter.createMLNFromFlatNetwork( extractedFlatNet, layers );
 		
 		/*long sec = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime);
 		try(BufferedWriter writer = new BufferedWriter(
@@ -111,4 +67,41 @@ public class OneByOneExtractionMethod extends ExtractionMethod {
 		}*/
 
 	}
+	
+	/*
+	 * The app is called for each layer.
+	 */
+	@Override
+	protected int getNbCalls() { return layers.size(); }
+	
+	/*
+	 * The layers are independent from each other.
+	 */
+	@Override
+	protected boolean isPreparationConcurrent() { return true; }
+	
+	/*
+	 * Build the network of the layer k, whose query nodes are both the query sources and the query targets.
+	 */
+	@Override
+	protected CallPreparation getCallPreparation( Set<String> queryNodeLayers, TaskMonitor taskMonitor ) {
+		//		Get nodes of the network per layer
+		Map<Integer, List<CyNode>> layerNodes = FlattenedNetworkProjection.getLayerNodes( flattenedNet, layers );
+		//		Get query columns of each layer (see readQueryColumns())
+		Map<Integer, String> queryCols = readQueryColumns();
+		//		Index the query nodes of the layers
+		QueryNodeIndex queryIndex = new QueryNodeIndex( flattenedNet, queryCols.values() );
+		
+		return k -> {
+			int idLayer = layers.get(k);
+			// Get subset of the multi-layer network
+			taskMonitor.setStatusMessage("Building a network for the layer " + idLayer + "...");
+			FlattenedNetworkProjection subLayerNet = new FlattenedNetworkProjection( flattenedNet,
+					List.of(idLayer), layerNodes.get(idLayer) );
+			// Get query sources and query targets
+			Map<String, String> queryNodes = queryIndex.get( idLayer, queryCols.get(idLayer) );
+			queryNodeLayers.addAll( queryNodes.keySet() );
+			return new PreparedCall( subLayerNet, queryNodes, queryNodes );
+		};
+	}
 }
@@ -1,24 +1,18 @@
 package timenexus.extraction;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.swing.JComboBox;
-
-import org.cytoscape.model.CyNetwork;
-import org.cytoscape.model.CyNetworkManager;
-import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyNode;
 import org.cytoscape.work.TaskMonitor;
 
-import timenexus.apps.ExtractedNetwork;
 import timenexus.apps.AppCaller.MlnAppCallerException;
-import timenexus.temporalnetwork.CopyFlattenedNetworkPanel;
-import timenexus.temporalnetwork.MlnWriter;
-import timenexus.utils.ServiceProvider;
+import timenexus.temporalnetwork.FlattenedNetworkCopy;
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
 
 /*
  * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
@@ -35,7 +29,6 @@ public class PairwiseExtractionMethod extends ExtractionMethod {
 		//long startTime = System.nanoTime();
 		
 		taskMonitor.setTitle(toString() + " with " + app);
-		CyNetworkManager networkManager = ServiceProvider.get(CyNetworkManager.class);
 		
 		//		Checking that the multi-layer network meet the app's criteria
 		if ( isCheckEnabled() ) {
@@ -46,68 +39,24 @@ public class PairwiseExtractionMethod extends ExtractionMethod {
 			checkMultiLayerNetwork();
 		}
 		
-		//		Get the names of query columns
-		HashMap<Integer, JComboBox<String>> queryColNames = app.getQueryColNames();
-		//		Get nodes of the network
-		// Create list of nodes per layer
-		Map<Integer, Set<String>> nodeNames = new HashMap<Integer, Set<String>>();
-		for ( int idLayer : layers ) nodeNames.put( idLayer,  new HashSet<String>() );
-		// Get nodes
-		for ( CyRow row : flattenedNet.getDefaultNodeTable().getAllRows() ) {
-			int idLayer = row.get( MlnWriter.LAYER_ID, Integer.class );
-			if ( layers.contains( idLayer ) ) nodeNames.get( idLayer ).add( row.get(CyNetwork.NAME, String.class) );
+		//		Create the extracted flattened network, which is filled as the extracted networks are merged
+		FlattenedNetworkCopy extractedFlatNet = createExtractedFlatNetwork( "Extracted network" );
+		// (it is destroyed if the extraction stops before it is complete)
+		boolean isDone = false;
+		try {
+			//		Call the app for each 2-layers network
+			Set<String> queryNodeLayers = Collections.synchronizedSet( new HashSet<String>() );
+			callApp( getNbCalls(), getCallPreparation( queryNodeLayers, taskMonitor ), false,
+					(k, extractedNet) -> mergeExtractedNetwork( extractedNet, extractedFlatNet ), taskMonitor );
+			
+			//		Generate a new multi-layer network from the extracted nodes
+			taskMonitor.setStatusMessage("Generating sub-multi-layer network...");
+			createExtractedMultiLayerNetwork( extractedFlatNet, queryNodeLayers );
+			isDone = true;
+		} finally {
+			if ( ! isDone ) extractedFlatNet.discard();
 		}
 
-		//		Call the app for each 2-layers network
-		networksToExtract = new ArrayList<CyNetwork>();
-		Set<String> queryNodeLayers = new HashSet<String>();
-		List<ExtractedNetwork> extractedNetworks = new ArrayList<ExtractedNetwork>();
-		Set<String> extractedNetNodes = new HashSet<String>();
-		taskMonitor.setProgress(0);
-		for ( int k = 0; k < layers.size() - 1; k++ ) {
-			int idLayer1 = layers.get(k);
-			int idLayer2 = layers.get(k+1);
-			// Get subset of the multi-layer network
-			taskMonitor.setStatusMessage("Building a 2-layer network with the layers " + idLayer1 + " and " + idLayer2 + "...");
-			Set<String> nodeLayers = new HashSet<String>( nodeNames.get(idLayer1) );
-			nodeLayers.addAll( nodeNames.get(idLayer2) );
-			CyNetwork subLayerNet = CopyFlattenedNetworkPanel.copyLayers( flattenedNet,
-					List.of(idLayer1, idLayer2), nodeLayers, "temporary_network" );
-			networksToExtract.add(subLayerNet);
-			networkManager.addNetwork(subLayerNet);
-			// Get query sources and query targets
-			String querySourceCol = (String) queryColNames.get(idLayer1).getSelectedItem();
-			String queryTargetCol = (String) queryColNames.get(idLayer2).getSelectedItem();
-			Map<String, String> querySources = getQueryNodesFromLayer( subLayerNet, idLayer1, querySourceCol );
-			Map<String, String> queryTargets = getQueryNodesFromLayer( subLayerNet, idLayer2, queryTargetCol );
-			queryNodeLayers.addAll( querySources.keySet() );
-			queryNodeLayers.addAll( queryTargets.keySet() );
-			// Call
-			ExtractedNetwork net = app.call( subLayerNet, querySources, queryTargets, taskMonitor, this );
-			extractedNetworks.add( net );
-			extractedNetNodes.addAll( net.getNodeNames() );
-			// Destroy 2-layer networks when done
-			networkManager.destroyNetwork(subLayerNet);
-			taskMonitor.setProgress( ((double) (k+1)) / ( layers.size() - 1 ) );
-			// Cancel the task
-			checkCancelling();
-		}
-		
-		//		Generate a new multi-layer network from the list of nodes
-		taskMonitor.setStatusMessage("Generating sub-multi-layer network...");
-		// Create flattened network
-		CyNetwork extractedFlatNet = CopyFlattenedNetworkPanel.copyLayers( flattenedNet, layers, extractedNetNodes, "Extracted network" );
-		networkManager.addNetwork(extractedFlatNet);
-		// Add node and edge attributes to the network
-		for (ExtractedNetwork extractedNet : extractedNetworks) {
-			checkCancelling();
-			addAtributesToFlatNetwork( extractedNet, extractedFlatNet );
-		}
-		// Add 'isQuery' column
-		addIsQueryColumn( queryNodeLayers, extractedFlatNet );
-		// Create multi-layer network
-		MlnWriter.createMLNFromFlatNetwork( extractedFlatNet, layers );
-
 		/*long sec = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime);
 		try(BufferedWriter writer = new BufferedWriter(
 				new FileWriter("/home/pierrelee/Documents/temporal_network_project/#paper/time.txt", true))){
@@ -117,4 +66,41 @@ public class PairwiseExtractionMethod extends ExtractionMethod {
 			e.printStackTrace();
 		}*/
 	}
+	
+	/*
+	 * The app is called for each pair of adjacent layers.
+	 */
+	@Override
+	protected int getNbCalls() { return layers.size() - 1; }
+	
+	/*
+	 * Build the 2-layer network of the layers k and k+1, with the query sources from the layer k
+	 * and the query targets from the layer k+1.
+	 */
+	@Override
+	protected CallPreparation getCallPreparation( Set<String> queryNodeLayers, TaskMonitor taskMonitor ) {
+		//		Get nodes of the network per layer
+		Map<Integer, List<CyNode>> layerNodes = FlattenedNetworkProjection.getLayerNodes( flattenedNet, layers );
+		//		Get query columns of each layer (see readQueryColumns())
+		Map<Integer, String> queryCols = readQueryColumns();
+		//		Index the query nodes of the layers
+		QueryNodeIndex queryIndex = new QueryNodeIndex( flattenedNet, queryCols.values() );
+		
+		return k -> {
+			int idLayer1 = layers.get(k);
+			int idLayer2 = layers.get(k+1);
+			// Get subset of the multi-layer network
+			taskMonitor.setStatusMessage("Building a 2-layer network with the layers " + idLayer1 + " and " + idLayer2 + "...");
+			List<CyNode> nodeLayers = new ArrayList<CyNode>( layerNodes.get(idLayer1) );
+			nodeLayers.addAll( layerNodes.get(idLayer2) );
+			FlattenedNetworkProjection subLayerNet = new FlattenedNetworkProjection( flattenedNet,
+					List.of(idLayer1, idLayer2), nodeLayers );
+			// Get query sources and query targets
+			Map<String, String> querySources = queryIndex.get( idLayer1, queryCols.get(idLayer1) );
+			Map<String, String> queryTargets = queryIndex.get( idLayer2, queryCols.get(idLayer2) );
+			queryNodeLayers.addAll( querySources.keySet() );
+			queryNodeLayers.addAll( queryTargets.keySet() );
+			return new PreparedCall( subLayerNet, querySources, queryTargets );
+		};
+	}
 }
@@ -0,0 +1,73 @@
+package timenexus.extraction;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+
+import timenexus.temporalnetwork.MlnWriter;
+
+/*
+ * Index of the query nodes of a flattened network, per query column and per layer.
+ *
+ * The node table is read once for all the query columns, so that getting the query nodes of a layer
+ * does not scan the network again for each layer and each call of an extraction.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class QueryNodeIndex {
+
+	// Query nodes, linked to their value if the column is string (key: query column name, then layer ID)
+	private final Map<String, Map<Integer, Map<String, String>>> queryNodes = new HashMap<String, Map<Integer, Map<String, String>>>();
+
+	/*
+	 * Index the query nodes of a flattened network.
+	 * @param flattened network
+	 * @param names of the query columns, which should be boolean or string (other columns are ignored)
+	 */
+	public QueryNodeIndex( CyNetwork flattenedNet, Collection<String> queryColNames ) {
+		CyTable nodeTable = flattenedNet.getDefaultNodeTable();
+		Map<String, Class<?>> queryCols = new HashMap<String, Class<?>>();
+		for ( String queryColName : queryColNames ) {
+			// If the column doesn't exist (= the user did not select it), then it has no query nodes
+			CyColumn col = queryColName == null ? null : nodeTable.getColumn( queryColName );
+			if ( col != null && ( col.getType() == Boolean.class || col.getType() == String.class ) ) {
+				queryCols.put( queryColName, col.getType() );
+				queryNodes.put( queryColName, new HashMap<Integer, Map<String, String>>() );
+			}
+		}
+		if ( queryCols.isEmpty() ) return;
+		for ( CyRow row : nodeTable.getAllRows() ) {
+			Integer layerID = row.get( MlnWriter.LAYER_ID, Integer.class );
+			if ( layerID == null ) continue;
+			for ( Map.Entry<String, Class<?>> queryCol : queryCols.entrySet() ) {
+				Object queryValue = row.get( queryCol.getKey(), queryCol.getValue() );
+				// the column is boolean and so, no values are needed
+				if ( queryValue instanceof Boolean && (Boolean) queryValue )
+					getLayerQueries( queryCol.getKey(), layerID ).put( row.get( CyNetwork.NAME, String.class ), null );
+				// the column is string, so it means a link between the query node to its value
+				else if ( queryValue instanceof String && ! ((String) queryValue).isEmpty() )
+					getLayerQueries( queryCol.getKey(), layerID ).put( row.get( CyNetwork.NAME, String.class ), (String) queryValue );
+			}
+		}
+	}
+
+	private Map<String, String> getLayerQueries( String queryColName, int layerID ) {
+		return queryNodes.get( queryColName ).computeIfAbsent( layerID, id -> new HashMap<String, String>() );
+	}
+
+	/*
+	 * @param layer ID
+	 * @param name of the query column
+	 * @return query nodes of the layer, linked to their value if the column is string (null if it is boolean)
+	 */
+	public Map<String, String> get( int layerID, String queryColName ) {
+		Map<Integer, Map<String, String>> layerQueries = queryNodes.get( queryColName );
+		if ( layerQueries == null || ! layerQueries.containsKey( layerID ) ) return new HashMap<String, String>();
+		return new HashMap<String, String>( layerQueries.get( layerID ) );
+	}
+}
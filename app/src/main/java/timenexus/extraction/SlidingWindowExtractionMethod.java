@@ -0,0 +1,115 @@
+package timenexus.extraction;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.JOptionPane;
+
+import org.cytoscape.work.TaskMonitor;
+
+import timenexus.apps.AppCaller.MlnAppCallerException;
+import timenexus.temporalnetwork.FlattenedNetworkCopy;
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
+import timenexus.temporalnetwork.LayerWindow;
+
+/*
+ * Extraction over windows of consecutive layers: the N-th window contains the layers N to N+w-1,
+ * with the source nodes from its first layer and the target nodes from its last layer.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class SlidingWindowExtractionMethod extends ExtractionMethod {
+
+	// Number of layers within each window
+	private int windowSize = 3;
+
+	public SlidingWindowExtractionMethod() {}
+
+	@Override
+	public String toString() { return "TimeNexus sliding-window extraction"; }
+
+	@Override
+	public void run(TaskMonitor taskMonitor) throws MlnExtractionException, MlnAppCallerException {
+		taskMonitor.setTitle(toString() + " with " + app);
+
+		//		Checking that the multi-layer network meet the app's criteria
+		if ( windowSize > layers.size() )
+			throw new MlnExtractionException( "The window of " + windowSize + " layers is larger than the "
+					+ layers.size() + " selected layers.", "Extraction failure", JOptionPane.ERROR_MESSAGE );
+		if ( isCheckEnabled() ) {
+			taskMonitor.setStatusMessage("Checking the input data...");
+			// Check that list of layers has adjacent layers without gaps
+			checkListOfLayers(layers);
+			// Check that the multi-layer network fit the app's criteria
+			checkMultiLayerNetwork();
+		}
+
+		//		Create the extracted flattened network, which is filled as the extracted networks are merged
+		FlattenedNetworkCopy extractedFlatNet = createExtractedFlatNetwork( "Extracted network" );
+		// (it is destroyed if the extraction stops before it is complete)
+		boolean isDone = false;
+		try {
+			//		Call the app for each window
+			Set<String> queryNodeLayers = Collections.synchronizedSet( new HashSet<String>() );
+			callApp( getNbCalls(), getCallPreparation( queryNodeLayers, taskMonitor ), isPreparationConcurrent(),
+					(k, extractedNet) -> mergeExtractedNetwork( extractedNet, extractedFlatNet ), taskMonitor );
+
+			//		Generate a new multi-layer network from the extracted nodes
+			taskMonitor.setStatusMessage("Generating sub-multi-layer network...");
+			createExtractedMultiLayerNetwork( extractedFlatNet, queryNodeLayers );
+			isDone = true;
+		} finally {
+			if ( ! isDone ) extractedFlatNet.discard();
+		}
+	}
+
+	/*
+	 * The app is called for each position of the window.
+	 */
+	@Override
+	protected int getNbCalls() { return layers.size() - windowSize + 1; }
+
+	/*
+	 * Build the network of the window k, with the query sources from its first layer
+	 * and the query targets from its last layer.
+	 * The window slides from the previous call to the next one, so the calls have to be prepared in order
+	 * (isPreparationConcurrent() is false).
+	 */
+	@Override
+	protected CallPreparation getCallPreparation( Set<String> queryNodeLayers, TaskMonitor taskMonitor ) {
+		//		Get query columns of each layer (see readQueryColumns())
+		Map<Integer, String> queryCols = readQueryColumns();
+		//		Index the query nodes of the layers
+		QueryNodeIndex queryIndex = new QueryNodeIndex( flattenedNet, queryCols.values() );
+		//		Get nodes of the network
+		LayerWindow window = new LayerWindow( flattenedNet, layers, windowSize );
+
+		return k -> {
+			// Move the window to the next layer
+			List<Integer> windowLayers = window.next();
+			int idLayer1 = windowLayers.get(0);
+			int idLayer2 = windowLayers.get( windowLayers.size() - 1 );
+			// Get subset of the multi-layer network
+			taskMonitor.setStatusMessage("Building a " + windowLayers.size() + "-layer network with the layers "
+					+ idLayer1 + " to " + idLayer2 + "...");
+			FlattenedNetworkProjection subLayerNet = window.getProjection();
+			// Get query sources and query targets
+			Map<String, String> querySources = queryIndex.get( idLayer1, queryCols.get(idLayer1) );
+			Map<String, String> queryTargets = queryIndex.get( idLayer2, queryCols.get(idLayer2) );
+			queryNodeLayers.addAll( querySources.keySet() );
+			queryNodeLayers.addAll( queryTargets.keySet() );
+			return new PreparedCall( subLayerNet, querySources, queryTargets );
+		};
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	public void setWindowSize( int windowSize ) {
+		this.windowSize = Math.max( 1, windowSize );
+	}
+}
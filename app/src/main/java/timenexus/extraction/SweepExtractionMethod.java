@@ -0,0 +1,253 @@
+package timenexus.extraction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.JOptionPane;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.CyTableFactory;
+import org.cytoscape.model.CyTableManager;
+import org.cytoscape.work.TaskMonitor;
+
+import timenexus.apps.AppCaller;
+import timenexus.apps.AppCaller.MlnAppCallerException;
+import timenexus.temporalnetwork.FlattenedNetworkCopy;
+import timenexus.temporalnetwork.MlnWriter;
+import timenexus.utils.ServiceProvider;
+
+/*
+ * Run an extraction method for each point of a grid of app parameters.
+ *
+ * The networks to extract are prepared and corrected for the app only once, then they are shared by all the grid points,
+ * and the calls of all the grid points go through the same pipeline (see ExtractionMethod.callApp()).
+ * One multi-layer network is extracted for each grid point, and their sizes are summarized into a table.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class SweepExtractionMethod extends ExtractionMethod {
+
+	// Extraction method run for each grid point
+	private ExtractionMethod method;
+	// Values of the swept parameters for each grid point
+	private List<Map<String, Object>> grid;
+	// Copies of the app with the parameter values of each grid point
+	private List<AppCaller> callers;
+
+	/*
+	 * @param extraction method, whose attributes are already set
+	 * @param values of the swept parameters for each grid point (see parseGrid())
+	 */
+	public SweepExtractionMethod( ExtractionMethod method, List<Map<String, Object>> grid ) {
+		this.method = method;
+		this.grid = grid;
+		setApp( method.app );
+		setFlattenedNet( method.flattenedNet );
+		setLayers( method.layers );
+		setCheckEnabled( method.isCheckEnabled() );
+		setCacheEnabled( method.isCacheEnabled() );
+		setCheckpointEnabled( method.isCheckpointEnabled() );
+		setMaxConcurrentCalls( method.getMaxConcurrentCalls() );
+	}
+
+	@Override
+	public String toString() { return "TimeNexus parameter sweep of the " + method; }
+
+	@Override
+	public void run(TaskMonitor taskMonitor) throws MlnExtractionException, MlnAppCallerException {
+		taskMonitor.setTitle(toString() + " with " + app);
+		CyNetworkManager networkManager = ServiceProvider.get(CyNetworkManager.class);
+
+		//		Checking that the multi-layer network meet the app's criteria
+		if ( isCheckEnabled() ) {
+			taskMonitor.setStatusMessage("Checking the input data...");
+			// Check that list of layers has adjacent layers without gaps
+			checkListOfLayers(layers);
+			// Check that the multi-layer network fit the app's criteria
+			checkMultiLayerNetwork();
+		}
+
+		//		Copy the app for each grid point, once the app knows the corrections needed by the network
+		if ( app.getSweepParameters().isEmpty() )
+			throw new MlnExtractionException( "The parameters of " + app + " cannot be swept.",
+					"Parameter sweep", JOptionPane.ERROR_MESSAGE );
+		callers = new ArrayList<AppCaller>();
+		for ( Map<String, Object> point : grid ) callers.add( app.withParameterValues( point ) );
+
+		//		Call the app for each grid point and each network
+		// Networks extracted for each grid point, created when their first extracted network is merged
+		int nbNetworks = method.getNbCalls();
+		List<FlattenedNetworkCopy> extractedFlatNets = new ArrayList<FlattenedNetworkCopy>();
+		List<Object[]> summary = new ArrayList<Object[]>();
+		Set<String> queryNodeLayers = Collections.synchronizedSet( new HashSet<String>() );
+		try {
+			callApp( getNbCalls(), getCallPreparation( queryNodeLayers, taskMonitor ), false, (k, extractedNet) -> {
+				int idPoint = k / nbNetworks;
+				if ( k % nbNetworks == 0 )
+					extractedFlatNets.add( new FlattenedNetworkCopy( flattenedNet, layers, "Extracted network (" + getPointName( idPoint ) + ")" ) );
+				mergeExtractedNetwork( extractedNet, extractedFlatNets.get( idPoint ) );
+				//		Generate the multi-layer network of the grid point, once all its networks are merged
+				if ( k % nbNetworks == nbNetworks - 1 ) {
+					taskMonitor.setStatusMessage("Generating sub-multi-layer network for " + getPointName( idPoint ) + "...");
+					CyNetwork extractedFlatNet = extractedFlatNets.get( idPoint ).getNetwork();
+					networkManager.addNetwork( extractedFlatNet );
+					addIsQueryColumn( queryNodeLayers, extractedFlatNet );
+					MlnWriter.createMLNFromFlatNetwork( extractedFlatNet, layers );
+					summary.add( new Object[] {
+							extractedFlatNet.getRow( extractedFlatNet ).get( CyNetwork.NAME, String.class ),
+							extractedFlatNet.getNodeCount(), extractedFlatNet.getEdgeCount() } );
+				}
+			}, taskMonitor );
+		} finally {
+			// Destroy the networks shared by the grid points
+			method.destroyTemporaryNetworks();
+		}
+
+		//		Summarize the extracted networks
+		createSummaryTable( summary );
+	}
+
+	/*
+	 * The app is called on each network of the extraction method, for each grid point.
+	 */
+	@Override
+	protected int getNbCalls() { return grid.size() * method.getNbCalls(); }
+
+	/*
+	 * The networks of the extraction method are prepared and corrected for the app when they are needed by the first grid point,
+	 * then they are given to the copies of the app of the other grid points.
+	 * The networks copied for the app are not destroyed after each call as they are temporary networks of the extraction method.
+	 */
+	@Override
+	protected CallPreparation getCallPreparation( Set<String> queryNodeLayers, TaskMonitor taskMonitor ) {
+		int nbNetworks = method.getNbCalls();
+		CallPreparation preparation = method.getCallPreparation( queryNodeLayers, taskMonitor );
+		PreparedCall[] preparedCalls = new PreparedCall[nbNetworks];
+		return k -> {
+			int idPoint = k / nbNetworks;
+			int idNetwork = k % nbNetworks;
+			if ( preparedCalls[idNetwork] == null ) {
+				PreparedCall preparedCall = preparation.prepare( idNetwork );
+				// Copy the view of the flattened network only if the app needs to correct it,
+				// from the thread merging the extracted networks
+				preparedCalls[idNetwork] = runOnModelThread( () -> {
+					PreparedCall call = preparedCall;
+					if ( call.network == null && ! app.isProjectionSupported( call.projection ) )
+						call = new PreparedCall( method.createTemporaryNetwork( call.projection ), call.querySources, call.queryTargets );
+					if ( call.network != null ) app.normalizeNetwork( call.network, taskMonitor, this );
+					return call;
+				} );
+			}
+			PreparedCall call = preparedCalls[idNetwork];
+			return call.network != null
+					? new PreparedCall( call.network, call.querySources, call.queryTargets, callers.get( idPoint ) )
+					: new PreparedCall( call.projection, call.querySources, call.queryTargets, callers.get( idPoint ) );
+		};
+	}
+
+	/*
+	 * The checkpoint depends on the values of the grid and on the extraction method.
+	 */
+	@Override
+	protected String getCheckpointDescription() { return method.getCheckpointDescription() + "\t" + grid; }
+
+	@Override
+	public void cancel() {
+		super.cancel();
+		method.cancel();
+	}
+
+	/*
+	 * @return name of a grid point, from the values of its parameters
+	 */
+	private String getPointName( int idPoint ) {
+		List<String> values = new ArrayList<String>();
+		for ( Map.Entry<String, Object> param : callers.get( idPoint ).getSweepParameters().entrySet() )
+			values.add( param.getKey() + "=" + param.getValue() );
+		return String.join( ", ", values );
+	}
+
+	/*
+	 * Create a table with the parameter values and the size of the network extracted for each grid point.
+	 * @param name, number of nodes and number of edges of each extracted network
+	 */
+	private void createSummaryTable( List<Object[]> summary ) {
+		CyTable table = ServiceProvider.get(CyTableFactory.class).createTable(
+				"TimeNexus parameter sweep with " + app, "Grid point", Integer.class, true, true );
+		Map<String, Object> params = app.getSweepParameters();
+		for ( Map.Entry<String, Object> param : params.entrySet() )
+			table.createColumn( param.getKey(), param.getValue().getClass(), false );
+		table.createColumn( "Extracted network", String.class, false );
+		table.createColumn( "Number of nodes", Integer.class, false );
+		table.createColumn( "Number of edges", Integer.class, false );
+		for ( int idPoint = 0; idPoint < summary.size(); idPoint++ ) {
+			CyRow row = table.getRow( idPoint + 1 );
+			for ( Map.Entry<String, Object> param : callers.get( idPoint ).getSweepParameters().entrySet() )
+				row.set( param.getKey(), param.getValue() );
+			row.set( "Extracted network", summary.get( idPoint )[0] );
+			row.set( "Number of nodes", summary.get( idPoint )[1] );
+			row.set( "Number of edges", summary.get( idPoint )[2] );
+		}
+		ServiceProvider.get(CyTableManager.class).addTable( table );
+	}
+
+	/*
+	 * Parse a grid of parameter values, such as "k=10,50,100; edgePenalty=0,1".
+	 * The grid contains all the combinations of the values. The parameters which are not given keep their current value.
+	 * @param text of the grid
+	 * @param parameters which can be swept, with their current value (see AppCaller.getSweepParameters())
+	 * @return values of the parameters for each grid point
+	 * @throws MlnExtractionException if the text cannot be parsed
+	 */
+	public static List<Map<String, Object>> parseGrid( String text, Map<String, Object> sweepParameters ) throws MlnExtractionException {
+		if ( sweepParameters.isEmpty() )
+			throw new MlnExtractionException( "The parameters of this app cannot be swept.",
+					"Parameter sweep", JOptionPane.ERROR_MESSAGE );
+		List<Map<String, Object>> grid = new ArrayList<Map<String, Object>>();
+		grid.add( new LinkedHashMap<String, Object>() );
+		for ( String paramText : text.split(";") ) {
+			if ( paramText.isBlank() ) continue;
+			String[] nameValues = paramText.split( "=", 2 );
+			String name = nameValues[0].strip();
+			if ( nameValues.length != 2 || ! sweepParameters.containsKey( name ) )
+				throw new MlnExtractionException( "The parameter values \"" + paramText.strip() + "\" cannot be swept.\n"
+						+ "Expected: name=value1,value2,... with one of the names " + sweepParameters.keySet(),
+						"Parameter sweep", JOptionPane.ERROR_MESSAGE );
+			// Parse the values with the type of the current value
+			Class<?> type = sweepParameters.get( name ).getClass();
+			List<Object> values = new ArrayList<Object>();
+			for ( String value : nameValues[1].split(",") ) {
+				try {
+					if ( type == Integer.class ) values.add( Integer.valueOf( value.strip() ) );
+					else if ( type == Double.class ) values.add( Double.valueOf( value.strip() ) );
+					else values.add( value.strip() );
+				} catch ( NumberFormatException err ) {
+					throw new MlnExtractionException( "The value \"" + value.strip() + "\" of the parameter " + name
+							+ " is not a " + type.getSimpleName() + ".", "Parameter sweep", JOptionPane.ERROR_MESSAGE, err );
+				}
+			}
+			// Combine the values with the previous grid points
+			List<Map<String, Object>> newGrid = new ArrayList<Map<String, Object>>();
+			for ( Map<String, Object> point : grid ) {
+				for ( Object value : values ) {
+					Map<String, Object> newPoint = new LinkedHashMap<String, Object>( point );
+					newPoint.put( name, value );
+					newGrid.add( newPoint );
+				}
+			}
+			grid = newGrid;
+		}
+		if ( grid.get(0).isEmpty() )
+			throw new MlnExtractionException( "No parameter values were given to sweep.",
+					"Parameter sweep", JOptionPane.ERROR_MESSAGE );
+		return grid;
+	}
+}
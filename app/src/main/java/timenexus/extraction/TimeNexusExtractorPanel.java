@@ -26,8 +26,10 @@ import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
+import javax.swing.SpinnerNumberModel;
 
 import org.cytoscape.application.swing.CytoPanelComponent;
 import org.cytoscape.application.swing.CytoPanelName;
@@ -39,7 +41,10 @@ import org.cytoscape.work.TaskManager;
 
 import timenexus.apps.AnatCaller;
 import timenexus.apps.AppCaller;
+import timenexus.apps.AppResultCache;
+import timenexus.apps.KShortestPathsCaller;
 import timenexus.apps.PathlinkerCaller;
+import timenexus.extraction.ExtractionMethod.MlnExtractionException;
 import timenexus.temporalnetwork.MlnReader;
 import timenexus.temporalnetwork.MlnWriter;
 import timenexus.temporalnetwork.MlnReader.MlnReaderException;
@@ -106,6 +111,69 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 			enableCheckMLNBox.add( Box.createHorizontalGlue() );
 			enableCheckMLNBox.setToolTipText( "If uncheck, speed up the job byt TimeNexus will not verify whether "
 					+ "the multi-layer network has a valid format for the extracting app." );
+		// Number of app calls running at the same time
+		JSpinner concurrentCallsSpinner = new JSpinner( new SpinnerNumberModel( 1, 1, 64, 1 ) );
+			setComponentSize( concurrentCallsSpinner, 50, concurrentCallsSpinner.getMinimumSize().height );
+		Box concurrentCallsBox = Box.createHorizontalBox();
+			concurrentCallsBox.add( new JLabel( "Parallel app calls: " ) );
+			concurrentCallsBox.add( concurrentCallsSpinner );
+			concurrentCallsBox.add( Box.createHorizontalGlue() );
+			concurrentCallsBox.setToolTipText( "Number of subnetworks extracted at the same time by the app "
+					+ "with the pairwise, one-by-one and sliding-window methods. If 1, the subnetworks are extracted one after the other. "
+					+ "The apps called through requests (PathLinker, Anat) wait for many calls from a few threads." );
+		// Reuse the results of identical app calls
+		JCheckBox reuseResultsCheck = new JCheckBox();
+			reuseResultsCheck.setSelected(true);
+		Box reuseResultsBox = Box.createHorizontalBox();
+			reuseResultsBox.add( new JLabel( "Reuse results of identical calls: " ) );
+			reuseResultsBox.add( reuseResultsCheck );
+			reuseResultsBox.add( Box.createHorizontalGlue() );
+			reuseResultsBox.setToolTipText( "If checked, the app is not called again for a subnetwork which was already extracted "
+					+ "with the same queries and the same parameters." );
+		JCheckBox keepResultsOnDiskCheck = new JCheckBox();
+			keepResultsOnDiskCheck.setSelected(false);
+		Box keepResultsOnDiskBox = Box.createHorizontalBox();
+			keepResultsOnDiskBox.add( new JLabel( "Keep results on disk: " ) );
+			keepResultsOnDiskBox.add( keepResultsOnDiskCheck );
+			keepResultsOnDiskBox.add( Box.createHorizontalGlue() );
+			keepResultsOnDiskBox.setToolTipText( "If checked, the reused results are also written into "
+					+ AppResultCache.DEFAULT_DIRECTORY + ", so that they are kept between sessions." );
+			reuseResultsCheck.addActionListener( e -> keepResultsOnDiskCheck.setEnabled( reuseResultsCheck.isSelected() ) );
+		// Resume the interrupted extractions
+		JCheckBox resumeCheck = new JCheckBox();
+			resumeCheck.setSelected(true);
+		Box resumeBox = Box.createHorizontalBox();
+			resumeBox.add( new JLabel( "Resume interrupted extractions: " ) );
+			resumeBox.add( resumeCheck );
+			resumeBox.add( Box.createHorizontalGlue() );
+			resumeBox.setToolTipText( "If checked, the subnetworks extracted by the app are written into "
+					+ ExtractionCheckpoint.DEFAULT_DIRECTORY + " until the extraction is done, so that an extraction "
+					+ "which failed or was cancelled restarts where it stopped if it is run again with the same inputs." );
+		// Show the results as they are extracted
+		JCheckBox publishCheck = new JCheckBox();
+			publishCheck.setSelected(true);
+		Box publishBox = Box.createHorizontalBox();
+			publishBox.add( new JLabel( "Show results while extracting: " ) );
+			publishBox.add( publishCheck );
+			publishBox.add( Box.createHorizontalGlue() );
+			publishBox.setToolTipText( "If checked, the extracted multi-layer network and its layer-networks are created "
+					+ "at the start of the pairwise, one-by-one and sliding-window methods, and filled as the subnetworks are extracted. "
+					+ "The aggregated network is created at the end." );
+		// Sweep the app parameters
+		JCheckBox sweepCheck = new JCheckBox();
+			sweepCheck.setSelected(false);
+		JTextField sweepText = new JTextField();
+			sweepText.setEnabled(false);
+			setComponentSize( sweepText, 200, sweepText.getMinimumSize().height );
+		Box sweepBox = Box.createHorizontalBox();
+			sweepBox.add( new JLabel( "Parameter sweep: " ) );
+			sweepBox.add( sweepCheck );
+			sweepBox.add( sweepText );
+			sweepBox.add( Box.createHorizontalGlue() );
+			sweepBox.setToolTipText( "If checked, one multi-layer network is extracted for each combination of the parameter values, "
+					+ "such as \"k=10,50,100; edgePenalty=0,1\" for PathLinker or \"alpha=0.1,0.25; margin=0,1\" for ANAT. "
+					+ "The parameters which are not given keep the value of the form." );
+			sweepCheck.addActionListener( e -> sweepText.setEnabled( sweepCheck.isSelected() ) );
 		// Select method to use
 		JRadioButton globalMethod = new JRadioButton( "Global" );
 			globalMethod.setActionCommand( globalMethod.getText() );
@@ -119,14 +187,25 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 			oneByOneMethod.setActionCommand( oneByOneMethod.getText() );
 			oneByOneMethod.setToolTipText("Extraction is independently performed on each layer. "
 					+ "The source nodes will be the same as the target nodes.");
+		JRadioButton slidingWindowMethod = new JRadioButton( "Sliding Window" );
+			slidingWindowMethod.setActionCommand( slidingWindowMethod.getText() );
+			slidingWindowMethod.setToolTipText("Extraction is performed on each window of successive layers. "
+					+ "For N-th extraction, the source and target nodes will come from the layer N and N+w-1, respectively.");
+		JSpinner windowSizeSpinner = new JSpinner( new SpinnerNumberModel( 3, 1, 100, 1 ) );
+			setComponentSize( windowSizeSpinner, 50, windowSizeSpinner.getMinimumSize().height );
+			windowSizeSpinner.setToolTipText( "Number of layers w within each window of the sliding-window method." );
 		ButtonGroup methodRadioGroup = new ButtonGroup();
 			methodRadioGroup.add(globalMethod);
 			methodRadioGroup.add(pairwiseMethod);
 			methodRadioGroup.add(oneByOneMethod);
+			methodRadioGroup.add(slidingWindowMethod);
 			setEnabled(methodRadioGroup, false);
 		// Select app to use
 		JRadioButton pathlinkerApp = new JRadioButton( "PathLinker" );
 			pathlinkerApp.setActionCommand( pathlinkerApp.getText() );
+		JRadioButton kShortestPathsApp = new JRadioButton( "k-shortest paths" );
+			kShortestPathsApp.setActionCommand( kShortestPathsApp.getText() );
+			kShortestPathsApp.setToolTipText( "Same paths as PathLinker, searched within TimeNexus without calling the PathLinker app." );
 		/*JRadioButton viperApp = new JRadioButton( "viPEr" );
 			viperApp.setActionCommand( viperApp.getText() );*/
 		JRadioButton anatApp = new JRadioButton( "AnatApp" );
@@ -134,6 +213,7 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 		ButtonGroup appRadioGroup = new ButtonGroup();
 			appRadioGroup.add(anatApp);	
 			appRadioGroup.add(pathlinkerApp);
+			appRadioGroup.add(kShortestPathsApp);
 			//appRadioGroup.add(viperApp);
 			setEnabled(appRadioGroup, false);
 		// Extract
@@ -154,6 +234,12 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 			selectNetworks.add(selectLayersLabel);
 			selectNetworks.add(selectLayersPane);
 			selectNetworks.add(enableCheckMLNBox);
+			selectNetworks.add(concurrentCallsBox);
+			selectNetworks.add(reuseResultsBox);
+			selectNetworks.add(keepResultsOnDiskBox);
+			selectNetworks.add(resumeBox);
+			selectNetworks.add(publishBox);
+			selectNetworks.add(sweepBox);
 			selectNetworks.add( Box.createHorizontalGlue() );
 			selectNetworks.setAlignmentX( Component.LEFT_ALIGNMENT );
 		// Select extracting method
@@ -166,6 +252,9 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 			selectMethod.add( Box.createHorizontalGlue() );
 			selectMethod.add(oneByOneMethod);
 			selectMethod.add( Box.createHorizontalGlue() );
+			selectMethod.add(slidingWindowMethod);
+			selectMethod.add(windowSizeSpinner);
+			selectMethod.add( Box.createHorizontalGlue() );
 			selectMethod.setAlignmentX( Component.LEFT_ALIGNMENT );
 		// Select extracting app to call
 		Box selectApp = Box.createHorizontalBox();
@@ -173,6 +262,8 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 			selectApp.add( Box.createHorizontalGlue() );
 			selectApp.add( pathlinkerApp );
 			selectApp.add( Box.createHorizontalGlue() );
+			selectApp.add( kShortestPathsApp );
+			selectApp.add( Box.createHorizontalGlue() );
 			//selectApp.add( viperApp );
 			//selectApp.add( Box.createHorizontalGlue() );
 			selectApp.add( anatApp );
@@ -199,13 +290,18 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 			globalMethod.addActionListener( new SetExtractionMethod( methodRadioGroup, appRadioGroup ) );
 			pairwiseMethod.addActionListener( new SetExtractionMethod( methodRadioGroup, appRadioGroup ) );;
 			oneByOneMethod.addActionListener( new SetExtractionMethod( methodRadioGroup, appRadioGroup ) );
+			slidingWindowMethod.addActionListener( new SetExtractionMethod( methodRadioGroup, appRadioGroup ) );
 			selectMlnCombo.addItemListener( new UpdateFlattenNetwork( selectFlatNetText,
 					selectLayersModel, selectLayersList, selectLayersPane ) );
 			pathlinkerApp.addActionListener( new AddParamToFormListener( paramGroup, selectLayersList, extractButton,
 					PathlinkerCaller.class ) );
+			kShortestPathsApp.addActionListener( new AddParamToFormListener( paramGroup, selectLayersList, extractButton,
+					KShortestPathsCaller.class ) );
 			anatApp.addActionListener( new AddParamToFormListener( paramGroup, selectLayersList, extractButton,
 					AnatCaller.class ) );
-			extractButton.addActionListener( new RunExtractionListener( selectLayersList, enableCheckMLNCheck ) );
+			extractButton.addActionListener( new RunExtractionListener( selectLayersList, enableCheckMLNCheck, concurrentCallsSpinner,
+					reuseResultsCheck, keepResultsOnDiskCheck, resumeCheck, publishCheck, sweepCheck, sweepText,
+					windowSizeSpinner ) );
 			
 		/**** Display ****/
 		
@@ -344,6 +440,7 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 			if ( methodName.equals("Global") ) method = new GlobalExtractionMethod();
 			else if ( methodName.equals("Pairwise") ) method = new PairwiseExtractionMethod();
 			else if ( methodName.equals("One By One") ) method = new OneByOneExtractionMethod();
+			else if ( methodName.equals("Sliding Window") ) method = new SlidingWindowExtractionMethod();
 		}
 		
 		
@@ -469,10 +566,28 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 
 		JList<Integer> selectLayersList;
 		JCheckBox enableCheckMLNCheck;
+		JSpinner concurrentCallsSpinner;
+		JCheckBox reuseResultsCheck;
+		JCheckBox keepResultsOnDiskCheck;
+		JCheckBox resumeCheck;
+		JCheckBox publishCheck;
+		JCheckBox sweepCheck;
+		JTextField sweepText;
+		JSpinner windowSizeSpinner;
 		
-		public RunExtractionListener( JList<Integer> selectLayersList, JCheckBox enableCheckMLNCheck ) {
+		public RunExtractionListener( JList<Integer> selectLayersList, JCheckBox enableCheckMLNCheck, JSpinner concurrentCallsSpinner,
+				JCheckBox reuseResultsCheck, JCheckBox keepResultsOnDiskCheck, JCheckBox resumeCheck, JCheckBox publishCheck,
+				JCheckBox sweepCheck, JTextField sweepText, JSpinner windowSizeSpinner ) {
 			this.selectLayersList = selectLayersList;
 			this.enableCheckMLNCheck = enableCheckMLNCheck;
+			this.concurrentCallsSpinner = concurrentCallsSpinner;
+			this.reuseResultsCheck = reuseResultsCheck;
+			this.keepResultsOnDiskCheck = keepResultsOnDiskCheck;
+			this.resumeCheck = resumeCheck;
+			this.publishCheck = publishCheck;
+			this.sweepCheck = sweepCheck;
+			this.sweepText = sweepText;
+			this.windowSizeSpinner = windowSizeSpinner;
 		}
 		
 		/*
@@ -483,13 +598,22 @@ public class TimeNexusExtractorPanel extends JScrollPane implements CytoPanelCom
 			try {
 				// Set attributes of the extraction method
 				method.setCheckEnabled( enableCheckMLNCheck.isSelected() );
+				method.setMaxConcurrentCalls( (int) concurrentCallsSpinner.getValue() );
+				method.setCacheEnabled( reuseResultsCheck.isSelected() );
+				AppResultCache.setDirectory( keepResultsOnDiskCheck.isSelected() ? AppResultCache.DEFAULT_DIRECTORY : null );
+				method.setCheckpointEnabled( resumeCheck.isSelected() );
+				method.setPublishingEnabled( publishCheck.isSelected() );
 				method.setFlattenedNet( getFlattenedNetwork() );
 				method.setApp( app );
 				method.setLayers( selectLayersList.getSelectedValuesList() );
-				// Run extraction
+				if ( method instanceof SlidingWindowExtractionMethod )
+					( (SlidingWindowExtractionMethod) method ).setWindowSize( (int) windowSizeSpinner.getValue() );
+				// Run extraction, for each grid point if the parameters are swept
 				TaskIterator extractor = new TaskIterator( method );
+				if ( sweepCheck.isSelected() ) extractor = new TaskIterator( new SweepExtractionMethod( method,
+						SweepExtractionMethod.parseGrid( sweepText.getText(), app.getSweepParameters() ) ) );
 				ServiceProvider.get(TaskManager.class).execute( extractor );
-			} catch (MlnReaderException err) {
+			} catch (MlnReaderException | MlnExtractionException err) {
 				Print.error(err);
 				Print.messageDialog( err.getMessageTitle(), err.getMessage(), err.getMessageType() );
 			}
@@ -0,0 +1,47 @@
+package timenexus.listeners;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkTableManager;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.events.AddedNodesEvent;
+import org.cytoscape.model.events.AddedNodesListener;
+import org.cytoscape.model.events.NetworkAboutToBeDestroyedEvent;
+import org.cytoscape.model.events.NetworkAboutToBeDestroyedListener;
+import org.cytoscape.model.events.RemovedNodesEvent;
+import org.cytoscape.model.events.RemovedNodesListener;
+import org.cytoscape.model.events.RowsSetEvent;
+import org.cytoscape.model.events.RowsSetListener;
+
+import timenexus.temporalnetwork.MlnNodeLayerIndex;
+import timenexus.temporalnetwork.MlnWriter;
+import timenexus.utils.ServiceProvider;
+
+/*
+ * Invalidate the node-layer index of a flattened network when nodes are added or removed,
+ * or when node-layers are renamed or moved to another layer, and drop it when the network is destroyed.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class MlnNodeLayerIndexListener implements AddedNodesListener, RemovedNodesListener, NetworkAboutToBeDestroyedListener,
+		RowsSetListener {
+
+	public MlnNodeLayerIndexListener() {}
+
+	public void handleEvent(AddedNodesEvent e) { MlnNodeLayerIndex.invalidate( e.getSource() ); }
+
+	public void handleEvent(RemovedNodesEvent e) { MlnNodeLayerIndex.invalidate( e.getSource() ); }
+
+	public void handleEvent(NetworkAboutToBeDestroyedEvent e) { MlnNodeLayerIndex.invalidate( e.getNetwork() ); }
+
+	public void handleEvent(RowsSetEvent e) {
+		// consider only the columns of the index
+		if ( ! e.containsColumn( CyNetwork.NAME ) && ! e.containsColumn( MlnWriter.LAYER_ID ) ) return;
+		// the event comes from a node table
+		CyTable firingTable = e.getSource();
+		CyNetworkTableManager networkTableManager = ServiceProvider.get(CyNetworkTableManager.class);
+		if ( firingTable == null || networkTableManager.getTableType( firingTable ) != CyNode.class ) return;
+		MlnNodeLayerIndex.invalidate( networkTableManager.getNetworkForTable( firingTable ) );
+	}
+
+}
@@ -228,30 +228,11 @@ public class CopyFlattenedNetworkPanel extends AbstractTask {
 	public static CyNetwork copyLayers( CySubNetwork flattenedNet,
 			List<Integer> selectedLayers, Set<String> nodesToCopy, String networkName ) {
 		//		Create the network
-		CyNetworkFactory networkFactory = ServiceProvider.get(CyNetworkFactory.class);
-		CyNetwork copiedNet = networkFactory.createNetwork();
-		// Set name of the network
-		CyNetworkNaming serviceNetworkNaming = ServiceProvider.get(CyNetworkNaming.class);
-		String rootName = serviceNetworkNaming.getSuggestedNetworkTitle( networkName );
-		CyTable netTable = copiedNet.getDefaultNetworkTable();
-		netTable.getRow ( copiedNet.getSUID() ).set( "name", rootName );
-		// Add MLN and flattened network columns to the network table
-		netTable.createColumn( MlnWriter.IS_MLN, Boolean.class, false );
-		netTable.getRow( copiedNet.getSUID() ).set( MlnWriter.IS_MLN, true );
-		CyTable localNetTable = copiedNet.getTable(CyNetwork.class, CyNetwork.LOCAL_ATTRS);
-		localNetTable.createColumn( MlnWriter.FLAT_NETWORK, Boolean.class, false );
-		localNetTable.getRow( copiedNet.getSUID() ).set( MlnWriter.FLAT_NETWORK, true );
-		
-		//		Copy the columns
+		CyNetwork copiedNet = createCopiedNetwork( flattenedNet, networkName );
 		CyTable flatNodeTable = flattenedNet.getDefaultNodeTable();
 		CyTable flatEdgeTable = flattenedNet.getDefaultEdgeTable();
 		CyTable copiedNodeTable = copiedNet.getDefaultNodeTable();
 		CyTable copiedEdgeTable = copiedNet.getDefaultEdgeTable();
-		copyColumns( flatNodeTable, copiedNodeTable );
-		copyColumns( flatEdgeTable, copiedEdgeTable );
-		copiedNet.getTable(CyNode.class, CyNetwork.LOCAL_ATTRS).createColumn(MlnWriter.LAYER_ID, Integer.class, false);
-		copiedNet.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS).createColumn(MlnWriter.LAYER_ID, Integer.class, false);
-		copiedNet.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS).createColumn(MlnWriter.EDGE_LABEL, String.class, false);
 		
 		//		Copy the elements
 		// Nodes
@@ -298,6 +279,37 @@ public class CopyFlattenedNetworkPanel extends AbstractTask {
 		return copiedNet;
 	}
 	
+	/*
+	 * Create an empty network with the columns of the flattened network.
+	 * @param flattened network to copy
+	 * @param name of the copied network
+	 * @return the empty copied network
+	 */
+	static CyNetwork createCopiedNetwork( CyNetwork flattenedNet, String networkName ) {
+		CyNetworkFactory networkFactory = ServiceProvider.get(CyNetworkFactory.class);
+		CyNetwork copiedNet = networkFactory.createNetwork();
+		// Set name of the network
+		CyNetworkNaming serviceNetworkNaming = ServiceProvider.get(CyNetworkNaming.class);
+		String rootName = serviceNetworkNaming.getSuggestedNetworkTitle( networkName );
+		CyTable netTable = copiedNet.getDefaultNetworkTable();
+		netTable.getRow ( copiedNet.getSUID() ).set( "name", rootName );
+		// Add MLN and flattened network columns to the network table
+		netTable.createColumn( MlnWriter.IS_MLN, Boolean.class, false );
+		netTable.getRow( copiedNet.getSUID() ).set( MlnWriter.IS_MLN, true );
+		CyTable localNetTable = copiedNet.getTable(CyNetwork.class, CyNetwork.LOCAL_ATTRS);
+		localNetTable.createColumn( MlnWriter.FLAT_NETWORK, Boolean.class, false );
+		localNetTable.getRow( copiedNet.getSUID() ).set( MlnWriter.FLAT_NETWORK, true );
+		
+		//		Copy the columns
+		copyColumns( flattenedNet.getDefaultNodeTable(), copiedNet.getDefaultNodeTable() );
+		copyColumns( flattenedNet.getDefaultEdgeTable(), copiedNet.getDefaultEdgeTable() );
+		copiedNet.getTable(CyNode.class, CyNetwork.LOCAL_ATTRS).createColumn(MlnWriter.LAYER_ID, Integer.class, false);
+		copiedNet.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS).createColumn(MlnWriter.LAYER_ID, Integer.class, false);
+		copiedNet.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS).createColumn(MlnWriter.EDGE_LABEL, String.class, false);
+		
+		return copiedNet;
+	}
+	
 	/*
 	 * Copy columns of the CyTable tableFrom to the CyTable tableTo.
 	 */
@@ -322,7 +334,7 @@ public class CopyFlattenedNetworkPanel extends AbstractTask {
 	/*
 	 * Copy cells of the CyRow rowFrom to the CyRow rowTo.
 	 */
-	private static void copyCells( CyRow rowFrom, CyRow rowTo, CyTable tableFrom, CyTable tableTo ) {
+	static void copyCells( CyRow rowFrom, CyRow rowTo, CyTable tableFrom, CyTable tableTo ) {
 		for ( CyColumn col : tableTo.getColumns() ) {
 			String colName = col.getName();
 			Class<?> colType = col.getType();
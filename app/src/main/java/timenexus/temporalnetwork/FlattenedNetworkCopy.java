@@ -0,0 +1,202 @@
+package timenexus.temporalnetwork;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+
+import timenexus.utils.ServiceProvider;
+
+/*
+ * Copy of a set of layers from a flattened network, which is filled step by step.
+ *
+ * Nodes are added by batches: the edges of the flattened network are copied as soon as both of their nodes were added,
+ * so that the copy is the same as the one of CopyFlattenedNetworkPanel.copyLayers() with all the added nodes.
+ * It enables to write the results of an extraction into the copy while other results are still being computed.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class FlattenedNetworkCopy {
+
+	private final CySubNetwork flattenedNet;
+	private final List<Integer> layers;
+	private final Set<Integer> selectedLayers;
+	private final CyNetwork copiedNet;
+	// Nodes of the flattened network within the selected layers (key: node name)
+	private final Map<String, CyNode> flatNodes = new HashMap<String, CyNode>();
+	// Nodes of the copied network (key: node name)
+	private final Map<String, CyNode> copiedNodes = new HashMap<String, CyNode>();
+	// SUIDs of the edges of the flattened network which were copied
+	private final Set<Long> copiedEdges = new HashSet<Long>();
+	// Edges of the copied network (key: names of the source and of the target)
+	private final Map<List<String>, List<CyEdge>> copiedEdgesByNodes = new HashMap<List<String>, List<CyEdge>>();
+	// Layer-networks and inter-layer edge tables of the copy, once it is published (see publish())
+	private CyNetwork[] layerNetworks;
+	private CyTable[] interEdgeTables;
+
+	/*
+	 * Create an empty copy of the flattened network.
+	 * @param flattened network to copy
+	 * @param selectedLayers: list of the layer IDs to copy
+	 * @param name of the copied network
+	 */
+	public FlattenedNetworkCopy( CySubNetwork flattenedNet, List<Integer> selectedLayers, String networkName ) {
+		this.flattenedNet = flattenedNet;
+		this.layers = selectedLayers;
+		this.selectedLayers = new HashSet<Integer>( selectedLayers );
+		this.copiedNet = CopyFlattenedNetworkPanel.createCopiedNetwork( flattenedNet, networkName );
+		for ( CyNode node : flattenedNet.getNodeList() ) {
+			CyRow row = flattenedNet.getRow( node );
+			Integer layerID = row.get( MlnWriter.LAYER_ID, Integer.class );
+			if ( layerID != null && this.selectedLayers.contains( layerID ) )
+				flatNodes.put( row.get( CyNetwork.NAME, String.class ), node );
+		}
+	}
+
+	/*
+	 * Copy nodes from the flattened network, with the edges connecting them to the nodes already copied.
+	 * Nodes which are not within the selected layers, or which were already copied, are ignored.
+	 * @param names of the node-layers to copy
+	 */
+	public void addNodes( Collection<String> nodeNames ) {
+		CyTable flatNodeTable = flattenedNet.getDefaultNodeTable();
+		CyTable flatEdgeTable = flattenedNet.getDefaultEdgeTable();
+		CyTable copiedNodeTable = copiedNet.getDefaultNodeTable();
+		CyTable copiedEdgeTable = copiedNet.getDefaultEdgeTable();
+		// Nodes
+		List<CyNode> addedFlatNodes = new ArrayList<CyNode>();
+		for ( String nodeName : nodeNames ) {
+			CyNode flatNode = flatNodes.get( nodeName );
+			if ( flatNode == null || copiedNodes.containsKey( nodeName ) ) continue;
+			CyNode copiedNode = copiedNet.addNode();
+			CopyFlattenedNetworkPanel.copyCells( flatNodeTable.getRow( flatNode.getSUID() ),
+					copiedNodeTable.getRow( copiedNode.getSUID() ), flatNodeTable, copiedNodeTable );
+			copiedNodes.put( nodeName, copiedNode );
+			addedFlatNodes.add( flatNode );
+			// Add the node to its layer-network
+			if ( isPublished() )
+				( (CySubNetwork) layerNetworks[ layers.indexOf( copiedNodeTable.getRow( copiedNode.getSUID() )
+						.get( MlnWriter.LAYER_ID, Integer.class ) ) ] ).addNode( copiedNode );
+		}
+		// Edges
+		for ( CyNode flatNode : addedFlatNodes ) {
+			for ( CyEdge flatEdge : flattenedNet.getAdjacentEdgeList( flatNode, CyEdge.Type.ANY ) ) {
+				if ( copiedEdges.contains( flatEdge.getSUID() ) ) continue;
+				CyRow flatRow = flatEdgeTable.getRow( flatEdge.getSUID() );
+				String edgeType = flatRow.get(MlnWriter.EDGE_LABEL, String.class);
+				Integer layerID = flatRow.get(MlnWriter.LAYER_ID, Integer.class);
+				// Ignore the edges without layer, which are not part of the multi-layer network
+				if ( layerID == null ) continue;
+				if (
+						// for intra-layer edges, the edge should be part of one of the selected layers
+						( "intra-layer".equals( edgeType ) && selectedLayers.contains( layerID ) )
+						// for inter-layer edges, both source and target nodes should be coming from the selected layers
+						|| ( "inter-layer".equals( edgeType ) && selectedLayers.contains( layerID ) && selectedLayers.contains( layerID + 1 ) )
+						) {
+					// Create edge if sources and targets where copied
+					String sourceName = flattenedNet.getRow( flatEdge.getSource() ).get( CyNetwork.NAME, String.class );
+					String targetName = flattenedNet.getRow( flatEdge.getTarget() ).get( CyNetwork.NAME, String.class );
+					CyNode copiedSource = copiedNodes.get( sourceName );
+					CyNode copiedTarget = copiedNodes.get( targetName );
+					if ( copiedSource != null && copiedTarget != null ) {
+						CyEdge copiedEdge = copiedNet.addEdge( copiedSource, copiedTarget, flatEdge.isDirected() );
+						CopyFlattenedNetworkPanel.copyCells( flatRow, copiedEdgeTable.getRow( copiedEdge.getSUID() ),
+								flatEdgeTable, copiedEdgeTable );
+						copiedEdges.add( flatEdge.getSUID() );
+						copiedEdgesByNodes.computeIfAbsent( List.of( sourceName, targetName ), nodes -> new ArrayList<CyEdge>() )
+								.add( copiedEdge );
+						// Add the edge to its layer-network, or to its inter-layer edge table
+						if ( isPublished() ) {
+							if ( edgeType.equals("intra-layer") )
+								( (CySubNetwork) layerNetworks[ layers.indexOf( layerID ) ] ).addEdge( copiedEdge );
+							else
+								interEdgeTables[ layers.indexOf( layerID ) ].getRow( copiedEdge.getSUID() );
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * @param name of a node-layer
+	 * @return the node of the copied network, or null if it was not copied
+	 */
+	public CyNode getNode( String nodeName ) {
+		return copiedNodes.get( nodeName );
+	}
+
+	/*
+	 * @param name of the source node-layer
+	 * @param name of the target node-layer
+	 * @return the edges of the copied network going from the source to the target
+	 */
+	public List<CyEdge> getEdges( String sourceName, String targetName ) {
+		return copiedEdgesByNodes.getOrDefault( List.of( sourceName, targetName ), Collections.emptyList() );
+	}
+
+	/*
+	 * Register the copy with its layer-networks, so that the nodes and edges which are copied next
+	 * appear in the layer-networks as soon as they are added.
+	 * The aggregated network is created only once the copy is complete (see completePublication()).
+	 */
+	public void publish() {
+		if ( isPublished() ) return;
+		MlnWriter.LayerPartition partition = MlnWriter.partitionFlatNetwork( copiedNet, layers );
+		layerNetworks = MlnWriter.createLayerNetworksFromFlat( copiedNet, layers, partition );
+		interEdgeTables = MlnWriter.createInterEdgeTablesFromFlat( copiedNet, layers, partition );
+		ServiceProvider.get(CyNetworkManager.class).addNetwork( copiedNet );
+		MlnWriter.addLayerNetworks( layerNetworks, interEdgeTables, layers );
+	}
+
+	/*
+	 * Complete the multi-layer network of a published copy, once all the nodes were added:
+	 * the inter-layer edge tables get the columns added since the publication, and the aggregated network is created.
+	 */
+	public void completePublication() {
+		if ( ! isPublished() ) return;
+		for ( int i = 0; i < layers.size() - 1; i++ ) MlnWriter.addInterEdgeColumns( interEdgeTables[i], copiedNet );
+		ServiceProvider.get(CyNetworkManager.class).addNetwork( MlnWriter.createAggregatedNetwork( copiedNet ) );
+	}
+
+	/*
+	 * Destroy a published copy with its layer-networks, when the extraction stops before the copy is complete,
+	 * so that no partial multi-layer network is left in the session.
+	 */
+	public void discard() {
+		if ( ! isPublished() ) return;
+		CyNetworkManager networkManager = ServiceProvider.get(CyNetworkManager.class);
+		for ( CyNetwork layerNetwork : layerNetworks )
+			if ( networkManager.networkExists( layerNetwork.getSUID() ) ) networkManager.destroyNetwork( layerNetwork );
+		if ( networkManager.networkExists( copiedNet.getSUID() ) ) networkManager.destroyNetwork( copiedNet );
+		layerNetworks = null;
+		interEdgeTables = null;
+	}
+
+	/*
+	 * @return true if the copy is registered with its layer-networks
+	 */
+	public boolean isPublished() {
+		return layerNetworks != null;
+	}
+
+	/*
+	 * @return the copied network
+	 */
+	public CyNetwork getNetwork() {
+		return copiedNet;
+	}
+
+}
@@ -0,0 +1,156 @@
+package timenexus.temporalnetwork;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+
+/*
+ * Read-only view of a subset of a flattened network, filtered by layers and by nodes.
+ *
+ * The nodes and edges are those which CopyFlattenedNetworkPanel.copyLayers() would copy,
+ * but they are read from the flattened network: nothing is copied until a Cytoscape network is really needed,
+ * such as for an app which gets the network from its SUID (see materialize()).
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class FlattenedNetworkProjection {
+
+	private final CyNetwork network;
+	private final List<CyNode> nodes;
+	private final List<CyEdge> edges;
+
+	/*
+	 * View of a whole network.
+	 * @param network
+	 */
+	public FlattenedNetworkProjection( CyNetwork network ) {
+		this.network = network;
+		this.nodes = network.getNodeList();
+		this.edges = network.getEdgeList();
+	}
+
+	/*
+	 * View of some nodes of some layers, with the edges connecting them within the layers.
+	 * @param flattened network
+	 * @param selectedLayers: list of the layer IDs of the view
+	 * @param nodes of the flattened network, within the selected layers
+	 */
+	public FlattenedNetworkProjection( CySubNetwork flattenedNet, List<Integer> selectedLayers, Collection<CyNode> nodes ) {
+		this.network = flattenedNet;
+		this.nodes = new ArrayList<CyNode>( nodes );
+		Set<Integer> layers = new HashSet<Integer>( selectedLayers );
+		Set<CyNode> nodeSet = new HashSet<CyNode>( nodes );
+		Set<CyEdge> edgeSet = new LinkedHashSet<CyEdge>();
+		for ( CyNode node : nodes ) {
+			for ( CyEdge edge : flattenedNet.getAdjacentEdgeList( node, CyEdge.Type.ANY ) ) {
+				if ( edgeSet.contains( edge ) || ! nodeSet.contains( edge.getSource() ) || ! nodeSet.contains( edge.getTarget() ) )
+					continue;
+				CyRow row = flattenedNet.getRow( edge );
+				String edgeType = row.get(MlnWriter.EDGE_LABEL, String.class);
+				Integer layerID = row.get(MlnWriter.LAYER_ID, Integer.class);
+				// Ignore the edges without layer, which are not part of the multi-layer network
+				if ( layerID == null ) continue;
+				if (
+						// for intra-layer edges, the edge should be part of one of the selected layers
+						( "intra-layer".equals( edgeType ) && layers.contains( layerID ) )
+						// for inter-layer edges, both source and target nodes should be coming from the selected layers
+						|| ( "inter-layer".equals( edgeType ) && layers.contains( layerID ) && layers.contains( layerID + 1 ) )
+						)
+					edgeSet.add( edge );
+			}
+		}
+		this.edges = new ArrayList<CyEdge>( edgeSet );
+	}
+
+	/*
+	 * View of nodes and edges which were already selected (see LayerWindow).
+	 */
+	FlattenedNetworkProjection( CyNetwork network, List<CyNode> nodes, List<CyEdge> edges ) {
+		this.network = network;
+		this.nodes = nodes;
+		this.edges = edges;
+	}
+
+	/*
+	 * Get the nodes of each layer of a flattened network.
+	 * @param flattened network
+	 * @param list of layer IDs
+	 * @return the nodes (key: layer ID)
+	 */
+	public static Map<Integer, List<CyNode>> getLayerNodes( CyNetwork flattenedNet, Collection<Integer> layers ) {
+		Map<Integer, List<CyNode>> layerNodes = new HashMap<Integer, List<CyNode>>();
+		for ( int layerID : layers ) layerNodes.put( layerID, new ArrayList<CyNode>() );
+		for ( CyRow row : flattenedNet.getDefaultNodeTable().getAllRows() ) {
+			List<CyNode> nodes = layerNodes.get( row.get( MlnWriter.LAYER_ID, Integer.class ) );
+			if ( nodes != null ) nodes.add( flattenedNet.getNode( row.get( CyNetwork.SUID, Long.class ) ) );
+		}
+		return layerNodes;
+	}
+
+	/*
+	 * @return the network which is viewed
+	 */
+	public CyNetwork getNetwork() { return network; }
+
+	/*
+	 * @return nodes of the view
+	 */
+	public List<CyNode> getNodeList() { return nodes; }
+
+	/*
+	 * @return edges of the view
+	 */
+	public List<CyEdge> getEdgeList() { return edges; }
+
+	public int getNodeCount() { return nodes.size(); }
+
+	public int getEdgeCount() { return edges.size(); }
+
+	/*
+	 * @return row of a node or an edge, from the network which is viewed
+	 */
+	public CyRow getRow( CyIdentifiable element ) { return network.getRow( element ); }
+
+	/*
+	 * Copy the view into a new network, which is not registered.
+	 * @param name of the copied network
+	 * @return the copied network
+	 */
+	public CyNetwork materialize( String networkName ) {
+		CyNetwork copiedNet = CopyFlattenedNetworkPanel.createCopiedNetwork( network, networkName );
+		CyTable nodeTable = network.getDefaultNodeTable();
+		CyTable edgeTable = network.getDefaultEdgeTable();
+		CyTable copiedNodeTable = copiedNet.getDefaultNodeTable();
+		CyTable copiedEdgeTable = copiedNet.getDefaultEdgeTable();
+		// Nodes
+		Map<CyNode, CyNode> copiedNodes = new HashMap<CyNode, CyNode>();
+		for ( CyNode node : nodes ) {
+			CyNode copiedNode = copiedNet.addNode();
+			CopyFlattenedNetworkPanel.copyCells( nodeTable.getRow( node.getSUID() ),
+					copiedNodeTable.getRow( copiedNode.getSUID() ), nodeTable, copiedNodeTable );
+			copiedNodes.put( node, copiedNode );
+		}
+		// Edges
+		for ( CyEdge edge : edges ) {
+			CyEdge copiedEdge = copiedNet.addEdge( copiedNodes.get( edge.getSource() ), copiedNodes.get( edge.getTarget() ),
+					edge.isDirected() );
+			CopyFlattenedNetworkPanel.copyCells( edgeTable.getRow( edge.getSUID() ),
+					copiedEdgeTable.getRow( copiedEdge.getSUID() ), edgeTable, copiedEdgeTable );
+		}
+		return copiedNet;
+	}
+
+}
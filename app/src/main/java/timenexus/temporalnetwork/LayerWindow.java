@@ -0,0 +1,126 @@
+package timenexus.temporalnetwork;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+
+/*
+ * Window of consecutive layers, which slides over the layers of a flattened network.
+ *
+ * The nodes and edges of each layer are gathered once, when the layer enters the window,
+ * from the adjacent edges of its nodes. Moving the window drops the oldest layer and adds the next one,
+ * so that the flattened network is not scanned again for each position of the window.
+ * The view of the window has the same elements as CopyFlattenedNetworkPanel.copyLayers() with the layers of the window.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class LayerWindow {
+
+	private final CySubNetwork flattenedNet;
+	private final List<Integer> layers;
+	private final int windowSize;
+	// Nodes of the flattened network for each layer (key: layer ID)
+	private final Map<Integer, List<CyNode>> layerNodes;
+	// Layers within the window, from the oldest to the newest
+	private final Deque<WindowLayer> windowLayers = new ArrayDeque<WindowLayer>();
+	// Position of the next layer to add to the window
+	private int nextLayer = 0;
+
+	/*
+	 * Create a window before the first layer.
+	 * @param flattened network
+	 * @param list of the layer IDs over which the window slides
+	 * @param number of layers within the window
+	 */
+	public LayerWindow( CySubNetwork flattenedNet, List<Integer> layers, int windowSize ) {
+		this.flattenedNet = flattenedNet;
+		this.layers = layers;
+		this.windowSize = windowSize;
+		this.layerNodes = FlattenedNetworkProjection.getLayerNodes( flattenedNet, layers );
+	}
+
+	/*
+	 * @return true if the window can move to a next position
+	 */
+	public boolean hasNext() { return nextLayer < layers.size(); }
+
+	/*
+	 * Move the window to its next position: the oldest layer is dropped and the next layer is added.
+	 * At the first position, the window is filled with the first layers.
+	 * @return layer IDs within the window
+	 */
+	public List<Integer> next() {
+		if ( ! hasNext() ) throw new NoSuchElementException( "The window is already on the last layer." );
+		do {
+			if ( windowLayers.size() == windowSize ) windowLayers.removeFirst();
+			windowLayers.addLast( new WindowLayer( layers.get( nextLayer++ ) ) );
+		} while ( windowLayers.size() < windowSize && hasNext() );
+		return getLayers();
+	}
+
+	/*
+	 * @return layer IDs within the window, from the oldest to the newest
+	 */
+	public List<Integer> getLayers() {
+		List<Integer> layerIDs = new ArrayList<Integer>();
+		for ( WindowLayer layer : windowLayers ) layerIDs.add( layer.layerID );
+		return layerIDs;
+	}
+
+	/*
+	 * Get a view of the layers within the window, without copying them.
+	 * @return the view of the flattened network
+	 */
+	public FlattenedNetworkProjection getProjection() {
+		List<Integer> layerIDs = getLayers();
+		List<CyNode> nodes = new ArrayList<CyNode>();
+		List<CyEdge> edges = new ArrayList<CyEdge>();
+		for ( WindowLayer layer : windowLayers ) {
+			nodes.addAll( layer.nodes );
+			edges.addAll( layer.intraLayerEdges );
+			// inter-layer edges coming from the previous layer, if it is within the window
+			if ( layerIDs.contains( layer.layerID - 1 ) ) edges.addAll( layer.interLayerEdges );
+		}
+		return new FlattenedNetworkProjection( flattenedNet, nodes, edges );
+	}
+
+	/*
+	 * Nodes and edges of a layer within the window.
+	 */
+	private class WindowLayer {
+
+		private final int layerID;
+		private final List<CyNode> nodes;
+		// Edges within the layer
+		private final Set<CyEdge> intraLayerEdges = new LinkedHashSet<CyEdge>();
+		// Edges from the previous layer to the layer
+		private final Set<CyEdge> interLayerEdges = new LinkedHashSet<CyEdge>();
+
+		public WindowLayer( int layerID ) {
+			this.layerID = layerID;
+			this.nodes = layerNodes.get( layerID );
+			for ( CyNode node : nodes ) {
+				for ( CyEdge edge : flattenedNet.getAdjacentEdgeList( node, CyEdge.Type.ANY ) ) {
+					CyRow row = flattenedNet.getRow( edge );
+					String edgeType = row.get( MlnWriter.EDGE_LABEL, String.class );
+					Integer edgeLayerID = row.get( MlnWriter.LAYER_ID, Integer.class );
+					// Ignore the edges without layer, which are not part of the multi-layer network
+					if ( edgeLayerID == null ) continue;
+					if ( "intra-layer".equals( edgeType ) && edgeLayerID == layerID ) intraLayerEdges.add( edge );
+					else if ( "inter-layer".equals( edgeType ) && edgeLayerID == layerID - 1 ) interLayerEdges.add( edge );
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,344 @@
+package timenexus.temporalnetwork;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.swing.JOptionPane;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+
+import timenexus.temporalnetwork.MlnBuilder.EdgeLayer;
+import timenexus.temporalnetwork.MlnBuilder.MlnBuilderException;
+import timenexus.temporalnetwork.MlnBuilder.NodeLayer;
+
+/*
+ * Read-only adjacency index of a multi-layer network, in the compressed sparse row (CSR) format.
+ *
+ * Node-layers are numbered from 0 to getNodeCount() - 1. Intra-layer and inter-layer edges are stored
+ * in two blocks sharing this numbering. Each block keeps parallel arrays for the source, target, weight and direction of its edges.
+ * Within a block, the edges adjacent to a node-layer are listed whatever their direction:
+ * isOutgoing() tells if the edge can be followed from the node-layer.
+ *
+ * The index is a snapshot of the network: it is not updated if the network is modified.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public final class MlnAdjacencyIndex {
+
+	// layer ID of each node-layer (starting from 1)
+	private final int[] nodeLayers;
+	// name of each node-layer, such as "name_layerID"
+	private final String[] nodeNames;
+	// SUID of each node-layer (null if the index was not built from a Cytoscape network)
+	private final long[] nodeSuids;
+	private final HashMap<String, Integer> nodesByName;
+	private final HashMap<Long, Integer> nodesBySuid;
+	private final Block intraLayerEdges;
+	private final Block interLayerEdges;
+
+	private MlnAdjacencyIndex( int[] nodeLayers, String[] nodeNames, long[] nodeSuids, EdgeList intraEdges, EdgeList interEdges ) {
+		this.nodeLayers = nodeLayers;
+		this.nodeNames = nodeNames;
+		this.nodeSuids = nodeSuids;
+		nodesByName = new HashMap<String, Integer>( nodeNames.length * 2 );
+		for (int i = 0; i < nodeNames.length; i++) nodesByName.put( nodeNames[i], i );
+		if ( nodeSuids != null ) {
+			nodesBySuid = new HashMap<Long, Integer>( nodeSuids.length * 2 );
+			for (int i = 0; i < nodeSuids.length; i++) nodesBySuid.put( nodeSuids[i], i );
+		} else nodesBySuid = null;
+		intraLayerEdges = new Block( nodeNames.length, intraEdges );
+		interLayerEdges = new Block( nodeNames.length, interEdges );
+	}
+
+	/*
+	 * Build the index from a flattened network.
+	 *
+	 * The direction of an edge is given by the column "Direction", or by the edge itself if the column is empty.
+	 * Missing weights are stored as NaN.
+	 * @param flattened network
+	 */
+	public static MlnAdjacencyIndex fromFlattenedNetwork( CyNetwork flattenedNet ) {
+		//		Node-layers
+		List<CyNode> nodes = flattenedNet.getNodeList();
+		int[] nodeLayers = new int[ nodes.size() ];
+		String[] nodeNames = new String[ nodes.size() ];
+		long[] nodeSuids = new long[ nodes.size() ];
+		HashMap<Long, Integer> nodeIndexes = new HashMap<Long, Integer>( nodes.size() * 2 );
+		for (int i = 0; i < nodes.size(); i++) {
+			CyRow row = flattenedNet.getRow( nodes.get(i) );
+			Integer layerID = row.get( MlnWriter.LAYER_ID, Integer.class );
+			nodeLayers[i] = layerID == null ? 0 : layerID;
+			nodeNames[i] = row.get( CyNetwork.NAME, String.class );
+			nodeSuids[i] = nodes.get(i).getSUID();
+			nodeIndexes.put( nodeSuids[i], i );
+		}
+		//		Edges
+		EdgeList intraEdges = new EdgeList( true );
+		EdgeList interEdges = new EdgeList( true );
+		for ( CyEdge edge : flattenedNet.getEdgeList() ) {
+			CyRow row = flattenedNet.getRow( edge );
+			Double weight = row.get( MlnBuilder.WEIGHT, Double.class );
+			Boolean direction = row.get( MlnBuilder.DIRECTION, Boolean.class );
+			String label = row.get( MlnWriter.EDGE_LABEL, String.class );
+			EdgeList edges = "inter-layer".equals( label ) ? interEdges : intraEdges;
+			edges.add( nodeIndexes.get( edge.getSource().getSUID() ), nodeIndexes.get( edge.getTarget().getSUID() ),
+					weight == null ? Double.NaN : weight, direction == null ? edge.isDirected() : direction, edge.getSUID() );
+		}
+		return new MlnAdjacencyIndex( nodeLayers, nodeNames, nodeSuids, intraEdges, interEdges );
+	}
+
+	/*
+	 * Build the index from a MlnBuilder object.
+	 *
+	 * Node-layers are numbered layer after layer, following the rows of the node tables.
+	 * @param the multi-layer network
+	 */
+	public static MlnAdjacencyIndex fromMlnBuilder( MlnBuilder mlnData ) throws MlnBuilderException {
+		int nbLayers = mlnData.getNumberLayers();
+		//		Node-layers
+		int[] firstNodes = new int[ nbLayers + 1 ];
+		for (int i = 0; i < nbLayers; i++) firstNodes[i+1] = firstNodes[i] + mlnData.getNodeLayerCount(i);
+		int[] nodeLayers = new int[ firstNodes[nbLayers] ];
+		String[] nodeNames = new String[ firstNodes[nbLayers] ];
+		int[][] nodeRows = new int[nbLayers][];
+		for (int i = 0; i < nbLayers; i++) {
+			NodeLayer nodeLayer = mlnData.getNodeLayerTables(i);
+			for (int j = 0; j < nodeLayer.getNodes().size(); j++) {
+				nodeLayers[ firstNodes[i] + j ] = i + 1;
+				nodeNames[ firstNodes[i] + j ] = nodeLayer.getNode(j) + "_" + ( i + 1 );
+			}
+			nodeRows[i] = mlnData.getNodeRowsOfLayer(i);
+		}
+		//		Edges
+		EdgeList intraEdges = new EdgeList( false );
+		EdgeList interEdges = new EdgeList( false );
+		for (int i = 0; i < nbLayers; i++) {
+			EdgeLayer intraEdgeLayer = mlnData.getIntraEdgeLayerTables(i);
+			for (int j = 0; j < intraEdgeLayer.getSources().size(); j++)
+				intraEdges.add( getNodeIndex( firstNodes, nodeRows, i, intraEdgeLayer.getSources().getCode(j) ),
+						getNodeIndex( firstNodes, nodeRows, i, intraEdgeLayer.getTargets().getCode(j) ),
+						intraEdgeLayer.getWeight(j), intraEdgeLayer.getDirection(j), -1 );
+			if ( i < nbLayers - 1 ) {
+				EdgeLayer interEdgeLayer = mlnData.getInterEdgeLayerTables(i);
+				for (int j = 0; j < interEdgeLayer.getSources().size(); j++)
+					interEdges.add( getNodeIndex( firstNodes, nodeRows, i, interEdgeLayer.getSources().getCode(j) ),
+							getNodeIndex( firstNodes, nodeRows, i + 1, interEdgeLayer.getTargets().getCode(j) ),
+							interEdgeLayer.getWeight(j), interEdgeLayer.getDirection(j), -1 );
+			}
+		}
+		return new MlnAdjacencyIndex( nodeLayers, nodeNames, null, intraEdges, interEdges );
+	}
+
+	/*
+	 * @return index of the node-layer within the index
+	 */
+	private static int getNodeIndex( int[] firstNodes, int[][] nodeRows, int layer, int nodeId ) throws MlnBuilderException {
+		if ( nodeId == -1 || nodeId >= nodeRows[layer].length || nodeRows[layer][nodeId] == -1 )
+			throw new MlnBuilderException( "Node name is not contained by the layer " + ( layer + 1 ),
+					"Node name not found", JOptionPane.ERROR_MESSAGE );
+		return firstNodes[layer] + nodeRows[layer][nodeId];
+	}
+
+	/*_______________________________________
+	 *
+	 *			GETTERS
+	 *_______________________________________
+	 */
+
+	public int getNodeCount() {
+		return nodeNames.length;
+	}
+
+	/*
+	 * @return layer ID of the node-layer (starting from 1)
+	 */
+	public int getLayerID( int node ) {
+		return nodeLayers[node];
+	}
+
+	/*
+	 * @return name of the node-layer, such as "name_layerID"
+	 */
+	public String getNodeName( int node ) {
+		return nodeNames[node];
+	}
+
+	/*
+	 * @return SUID of the node-layer, or -1 if the index was not built from a Cytoscape network
+	 */
+	public long getNodeSuid( int node ) {
+		return nodeSuids == null ? -1 : nodeSuids[node];
+	}
+
+	/*
+	 * @return index of the node-layer from its name, or -1 if the name is unknown
+	 */
+	public int getNodeIndex( String nodeName ) {
+		Integer node = nodesByName.get( nodeName );
+		return node == null ? -1 : node;
+	}
+
+	/*
+	 * @return index of the node-layer from its SUID, or -1 if the SUID is unknown
+	 */
+	public int getNodeIndex( long suid ) {
+		Integer node = nodesBySuid == null ? null : nodesBySuid.get( suid );
+		return node == null ? -1 : node;
+	}
+
+	/*
+	 * @return block of intra-layer edges
+	 */
+	public Block getIntraLayerEdges() {
+		return intraLayerEdges;
+	}
+
+	/*
+	 * @return block of inter-layer edges
+	 */
+	public Block getInterLayerEdges() {
+		return interLayerEdges;
+	}
+
+	/*_______________________________________
+	 *
+	 *			DATA MODEL
+	 *_______________________________________
+	 */
+
+	/*
+	 * Edges of one type, with their adjacency lists in the CSR format.
+	 *
+	 * The edges adjacent to the node-layer n are getAdjacentEdge(n, k) for k from 0 to getDegree(n) - 1.
+	 */
+	public static final class Block {
+
+		private final int[] sources;
+		private final int[] targets;
+		private final double[] weights;
+		private final BitSet directions;
+		private final long[] edgeSuids;
+		// adjacency lists: edges adjacent to the node n are adjacentEdges[ offsets[n] ] to adjacentEdges[ offsets[n+1] - 1 ]
+		private final int[] offsets;
+		private final int[] adjacentEdges;
+
+		private Block( int nodeCount, EdgeList edges ) {
+			int edgeCount = edges.size;
+			sources = Arrays.copyOf( edges.sources, edgeCount );
+			targets = Arrays.copyOf( edges.targets, edgeCount );
+			weights = Arrays.copyOf( edges.weights, edgeCount );
+			directions = edges.directions;
+			edgeSuids = edges.edgeSuids == null ? null : Arrays.copyOf( edges.edgeSuids, edgeCount );
+			// Count the adjacent edges of each node-layer (self-loops are counted once)
+			offsets = new int[ nodeCount + 1 ];
+			for (int e = 0; e < edgeCount; e++) {
+				offsets[ sources[e] + 1 ]++;
+				if ( targets[e] != sources[e] ) offsets[ targets[e] + 1 ]++;
+			}
+			for (int n = 0; n < nodeCount; n++) offsets[n+1] += offsets[n];
+			// Fill the adjacency lists
+			adjacentEdges = new int[ offsets[nodeCount] ];
+			int[] next = Arrays.copyOf( offsets, nodeCount );
+			for (int e = 0; e < edgeCount; e++) {
+				adjacentEdges[ next[ sources[e] ]++ ] = e;
+				if ( targets[e] != sources[e] ) adjacentEdges[ next[ targets[e] ]++ ] = e;
+			}
+		}
+
+		public int getEdgeCount() {
+			return sources.length;
+		}
+
+		public int getSource( int edge ) {
+			return sources[edge];
+		}
+
+		public int getTarget( int edge ) {
+			return targets[edge];
+		}
+
+		public double getWeight( int edge ) {
+			return weights[edge];
+		}
+
+		public boolean isDirected( int edge ) {
+			return directions.get(edge);
+		}
+
+		/*
+		 * @return SUID of the edge, or -1 if the index was not built from a Cytoscape network
+		 */
+		public long getEdgeSuid( int edge ) {
+			return edgeSuids == null ? -1 : edgeSuids[edge];
+		}
+
+		/*
+		 * @return number of edges adjacent to the node-layer
+		 */
+		public int getDegree( int node ) {
+			return offsets[node+1] - offsets[node];
+		}
+
+		/*
+		 * @return the k-th edge adjacent to the node-layer
+		 */
+		public int getAdjacentEdge( int node, int k ) {
+			return adjacentEdges[ offsets[node] + k ];
+		}
+
+		/*
+		 * @return the node-layer at the other end of the k-th edge adjacent to the node-layer
+		 */
+		public int getNeighbor( int node, int k ) {
+			int edge = getAdjacentEdge( node, k );
+			return sources[edge] == node ? targets[edge] : sources[edge];
+		}
+
+		/*
+		 * @return true if the k-th edge adjacent to the node-layer can be followed from it,
+		 * i.e. the edge is undirected or the node-layer is its source
+		 */
+		public boolean isOutgoing( int node, int k ) {
+			int edge = getAdjacentEdge( node, k );
+			return ! directions.get(edge) || sources[edge] == node;
+		}
+	}
+
+	/*
+	 * Growing list of edges used to build a block.
+	 */
+	private static final class EdgeList {
+
+		private int[] sources = new int[16];
+		private int[] targets = new int[16];
+		private double[] weights = new double[16];
+		private BitSet directions = new BitSet();
+		private long[] edgeSuids;
+		private int size = 0;
+
+		private EdgeList( boolean hasSuids ) {
+			if ( hasSuids ) edgeSuids = new long[16];
+		}
+
+		private void add( int source, int target, double weight, boolean isDirected, long suid ) {
+			if ( size == sources.length ) {
+				int capacity = size * 2;
+				sources = Arrays.copyOf( sources, capacity );
+				targets = Arrays.copyOf( targets, capacity );
+				weights = Arrays.copyOf( weights, capacity );
+				if ( edgeSuids != null ) edgeSuids = Arrays.copyOf( edgeSuids, capacity );
+			}
+			sources[size] = source;
+			targets[size] = target;
+			weights[size] = weight;
+			directions.set( size, isDirected );
+			if ( edgeSuids != null ) edgeSuids[size] = suid;
+			size++;
+		}
+	}
+}
@@ -1,8 +1,14 @@
 package timenexus.temporalnetwork;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
 
 import javax.swing.JOptionPane;
 
@@ -25,6 +31,8 @@ public class MlnBuilder {
 	
 	
 	private final int numberLayers;
+	// names of the nodes, shared by all layers
+	private final StringDictionary nodeDictionary = new StringDictionary();
 	private NodeLayer[] nodeTables;
 	private EdgeLayer[] intraEdgeTables;
 	private EdgeLayer[] interEdgeTables;
@@ -48,40 +56,53 @@ public class MlnBuilder {
 	 *_______________________________________
 	 */
 	
-	public void addOtherColum( int tableType, int layer, String columnName, Class<?> columnType, Collection<Object> rows ) throws MlnBuilderException{
-		getTables(tableType)[layer].addOtherColumn( new MlnColumn<Object>( columnName, columnType, rows ) );
+	/*
+	 * Add a column which is neither a node, a source, a target, a weight nor a direction column.
+	 * Strings, doubles, integers, longs and booleans are kept in columns of primitive values,
+	 * the other types (such as lists) in a column of objects.
+	 */
+	@SuppressWarnings("unchecked")
+	public void addOtherColum( int tableType, int layer, String columnName, Class<?> columnType, Collection<?> rows ) throws MlnBuilderException{
+		MlnColumn<?> col;
+		if ( columnType == String.class ) col = new StringColumn( columnName, (Collection<String>) rows );
+		else if ( columnType == Double.class ) col = new DoubleColumn( columnName, (Collection<Double>) rows );
+		else if ( columnType == Integer.class ) col = new IntegerColumn( columnName, (Collection<Integer>) rows );
+		else if ( columnType == Long.class ) col = new LongColumn( columnName, (Collection<Long>) rows );
+		else if ( columnType == Boolean.class ) col = new BooleanColumn( columnName, (Collection<Boolean>) rows );
+		else col = new ObjectColumn<Object>( columnName, columnType, (Collection<Object>) rows );
+		getTables(tableType)[layer].addOtherColumn( col );
 	}
 	
 	public void addNodeColumn( int tableType, int layer, Collection<String> rows ) throws MlnBuilderException {
 		if ( tableType == NODE )
-			nodeTables[layer].setNodes( new MlnColumn<String>( NAME, String.class, rows ) );
+			nodeTables[layer].setNodes( new StringColumn( NAME, rows, nodeDictionary ) );
 		else
 			throw new MlnBuilderException("Add node column is possible only for node tables.");
 	}
 	
 	public void addSourceColumn( int tableType, int layer, Collection<String> rows ) throws MlnBuilderException {
 		if ( getEdgeLayerTables(tableType) instanceof EdgeLayer[] )
-			getEdgeLayerTables(tableType)[layer].setSources( new MlnColumn<String>( SOURCE, String.class, rows ) );
+			getEdgeLayerTables(tableType)[layer].setSources( new StringColumn( SOURCE, rows, nodeDictionary ) );
 		else
 			throw new MlnBuilderException("Add source-node column is possible only for edge tables.");
 	}
 	
 	public void addTargetColumn( int tableType, int layer, Collection<String> rows ) throws MlnBuilderException {
 		if ( getEdgeLayerTables(tableType) instanceof EdgeLayer[] )
-			getEdgeLayerTables(tableType)[layer].setTargets( new MlnColumn<String>( TARGET, String.class, rows ) );
+			getEdgeLayerTables(tableType)[layer].setTargets( new StringColumn( TARGET, rows, nodeDictionary ) );
 		else
 			throw new MlnBuilderException("Add target-node column is possible only for edge tables.");
 	}
 	
 	public void addDirection( int tableType, int layer, Collection<Boolean> rows ) throws MlnBuilderException {
 		if ( getEdgeLayerTables(tableType) instanceof EdgeLayer[] )
-			getEdgeLayerTables(tableType)[layer].setDirections( new MlnColumn<Boolean>( DIRECTION, Boolean.class, rows ) );
+			getEdgeLayerTables(tableType)[layer].setDirections( new BooleanColumn( DIRECTION, rows ) );
 		else
 			throw new MlnBuilderException("Add direction is possible only for edge tables.");
 	}	
 	
 	public void addWeight( int tableType, int layer, Collection<Double> rows ) throws MlnBuilderException {
-		getTables(tableType)[layer].setWeights( new MlnColumn<Double>( WEIGHT, Double.class, rows ) );
+		getTables(tableType)[layer].setWeights( new DoubleColumn( WEIGHT, rows ) );
 	}
 	
 	public Layer[] getTables( int tableType ) throws MlnBuilderException {
@@ -129,6 +150,34 @@ public class MlnBuilder {
 		return interEdgeTables[i];
 	}
 	
+	/*
+	 * @return dictionary of the node names, shared by the node, source and target columns of all layers
+	 */
+	public StringDictionary getNodeDictionary() {
+		return nodeDictionary;
+	}
+	
+	/*
+	 * @return ID of the node name, or -1 if the name is unknown
+	 */
+	public int getNodeId( String nodeName ) {
+		return nodeDictionary.getCode( nodeName );
+	}
+	
+	/*
+	 * @return name of the node ID
+	 */
+	public String getNodeName( int nodeId ) {
+		return nodeDictionary.decode( nodeId );
+	}
+	
+	/*
+	 * @return number of node IDs across all layers
+	 */
+	public int getNodeIdCount() {
+		return nodeDictionary.size();
+	}
+	
 	
 	/*_______________________________________
 	 * 
@@ -139,8 +188,8 @@ public class MlnBuilder {
 	/*
 	 * @return: list of node-layers
 	 */
-	public ArrayList<ArrayList<String>> getNodeLayers() {
-		ArrayList<ArrayList<String>> nodeLayers = new ArrayList<ArrayList<String>>();
+	public ArrayList<List<String>> getNodeLayers() {
+		ArrayList<List<String>> nodeLayers = new ArrayList<List<String>>();
 		for (int layer = 0; layer < numberLayers; layer++)
 			nodeLayers.add( nodeTables[layer].getNodes() );
 		return nodeLayers;
@@ -149,8 +198,8 @@ public class MlnBuilder {
 	/*
 	 * @return: list of source-layers for intra-layer edges
 	 */
-	public ArrayList<ArrayList<String>> getIntraSourceLayers() {
-		ArrayList<ArrayList<String>> sources = new ArrayList<ArrayList<String>>();
+	public ArrayList<List<String>> getIntraSourceLayers() {
+		ArrayList<List<String>> sources = new ArrayList<List<String>>();
 		for (int layer = 0; layer < numberLayers; layer++)
 			sources.add( intraEdgeTables[layer].getSources() );
 		return sources;
@@ -159,8 +208,8 @@ public class MlnBuilder {
 	/*
 	 * @return: list of target-layers for intra-layer edges
 	 */
-	public ArrayList<ArrayList<String>> getIntraTargetLayers() {
-		ArrayList<ArrayList<String>> targets = new ArrayList<ArrayList<String>>();
+	public ArrayList<List<String>> getIntraTargetLayers() {
+		ArrayList<List<String>> targets = new ArrayList<List<String>>();
 		for (int layer = 0; layer < numberLayers; layer++)
 			targets.add( intraEdgeTables[layer].getTargets() );
 		return targets;
@@ -169,8 +218,8 @@ public class MlnBuilder {
 	/*
 	 * @return: list of source-layers for inter-layer edges
 	 */
-	public ArrayList<ArrayList<String>> getInterSourceLayers() {
-		ArrayList<ArrayList<String>> sources = new ArrayList<ArrayList<String>>();
+	public ArrayList<List<String>> getInterSourceLayers() {
+		ArrayList<List<String>> sources = new ArrayList<List<String>>();
 		for (int layer = 0; layer < numberLayers - 1; layer++)
 			sources.add( interEdgeTables[layer].getSources() );
 		return sources;
@@ -179,19 +228,73 @@ public class MlnBuilder {
 	/*
 	 * @return: list of target-layers for inter-layer edges
 	 */
-	public ArrayList<ArrayList<String>> getInterTargetLayers() {
-		ArrayList<ArrayList<String>> targets = new ArrayList<ArrayList<String>>();
+	public ArrayList<List<String>> getInterTargetLayers() {
+		ArrayList<List<String>> targets = new ArrayList<List<String>>();
 		for (int layer = 0; layer < numberLayers - 1; layer++)
 			targets.add( interEdgeTables[layer].getTargets() );
 		return targets;
 	}
 	
+	/*
+	 * @return: IDs of the nodes which are within the node table of the layer
+	 */
+	public BitSet getNodeIdsOfLayer( int layer ) {
+		StringColumn nodes = nodeTables[layer].getNodes();
+		BitSet nodeIds = new BitSet( nodeDictionary.size() );
+		for (int j = 0; j < nodes.size(); j++)
+			if ( nodes.getCode(j) != -1 ) nodeIds.set( nodes.getCode(j) );
+		return nodeIds;
+	}
+	
+	/*
+	 * @return: for each node ID, the row of the node within the node table of the layer (-1 if the node is not in the layer)
+	 */
+	public int[] getNodeRowsOfLayer( int layer ) {
+		StringColumn nodes = nodeTables[layer].getNodes();
+		int[] rows = new int[ nodeDictionary.size() ];
+		Arrays.fill( rows, -1 );
+		for (int j = 0; j < nodes.size(); j++)
+			if ( nodes.getCode(j) != -1 ) rows[ nodes.getCode(j) ] = j;
+		return rows;
+	}
+	
+	/*
+	 * @return: true if all the nodes of the column are within the set of node IDs
+	 */
+	public static boolean containsAllNodes( BitSet nodeIds, StringColumn nodes ) {
+		for (int j = 0; j < nodes.size(); j++)
+			if ( nodes.getCode(j) == -1 || ! nodeIds.get( nodes.getCode(j) ) ) return false;
+		return true;
+	}
+	
+	/*
+	 * Node-layers are addressed by the pair (node ID, layer index), which is packed into a long.
+	 * @return: key of the node-layer
+	 */
+	public static long getNodeLayerKey( int nodeId, int layer ) {
+		return ( (long) layer << 32 ) | ( nodeId & 0xFFFFFFFFL );
+	}
+	
+	/*
+	 * @return: node ID of the node-layer key
+	 */
+	public static int getNodeIdFromKey( long nodeLayerKey ) {
+		return (int) nodeLayerKey;
+	}
+	
+	/*
+	 * @return: layer index of the node-layer key
+	 */
+	public static int getLayerFromKey( long nodeLayerKey ) {
+		return (int) ( nodeLayerKey >>> 32 );
+	}
+	
 	/*
 	 * @return: list of nodes across all layers, without duplicates
 	 */
-	public HashSet<String> getNodesAcrossLayers( ArrayList<ArrayList<String>> listOfNodes ) {
+	public HashSet<String> getNodesAcrossLayers( List<List<String>> listOfNodes ) {
 		HashSet<String> nodeList = new HashSet<String>();
-		for (ArrayList<String> list : listOfNodes) {
+		for (List<String> list : listOfNodes) {
 			HashSet<String> nodes = new HashSet<String>(list);
 			nodeList.addAll(nodes);
 		}
@@ -205,23 +308,20 @@ public class MlnBuilder {
 	 */
 	
 	/*
-	 * Create a column of a layer 
+	 * Create a column of a layer.
+	 * 
+	 * The storage of the rows is left to the subclasses, such as weights, directions and names
+	 * are kept as primitive values rather than as boxed objects.
 	 */
-	public static class MlnColumn<E> extends ArrayList<E>{
+	public static abstract class MlnColumn<E> extends AbstractList<E> implements RandomAccess {
 
-		private static final long serialVersionUID = 1L;
 		private String colName;
 		private Class<?> colType;
 		
-		public MlnColumn( String colName, Class<?> colType, Collection<E> rows ) {
-			super(rows);
+		protected MlnColumn( String colName, Class<?> colType ) {
 			this.setName(colName);
 			this.setType(colType);
 		}
-		
-		public MlnColumn() {
-			super();
-		}
 
 		public Class<?> getType() {
 			return colType;
@@ -243,10 +343,558 @@ public class MlnBuilder {
 			boolean identical = true;
 			if ( ! colName.equals( comparedCol.getName() ) ) identical = false;
 			else if ( ! colType.equals( comparedCol.getType() ) ) identical = false;
-			else if ( ! this.equals( comparedCol ) ) identical = false;
+			else if ( ! super.equals( comparedCol ) ) identical = false;
 			return identical;
 		}
 		
+		/*
+		 * Check that the index is within the rows of the column.
+		 */
+		protected void checkIndex( int index, int size ) {
+			if ( index < 0 || index >= size )
+				throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+		}
+		
+		/*
+		 * @return new capacity of an array which has to contain at least minCapacity rows
+		 */
+		protected static int grow( int capacity, int minCapacity ) {
+			int newCapacity = capacity + ( capacity >> 1 ) + 1;
+			return newCapacity < minCapacity ? minCapacity : newCapacity;
+		}
+		
+	}
+	
+	/*
+	 * Column of any type, stored as a list of objects.
+	 */
+	public static class ObjectColumn<E> extends MlnColumn<E> {
+		
+		private ArrayList<E> rows;
+		
+		public ObjectColumn( String colName, Class<?> colType, Collection<E> rows ) {
+			super( colName, colType );
+			this.rows = new ArrayList<E>(rows);
+		}
+		
+		public E get( int index ) { return rows.get(index); }
+		
+		public E set( int index, E element ) { return rows.set(index, element); }
+		
+		public void add( int index, E element ) {
+			rows.add(index, element);
+			modCount++;
+		}
+		
+		public E remove( int index ) {
+			modCount++;
+			return rows.remove(index);
+		}
+		
+		public int size() { return rows.size(); }
+	}
+	
+	/*
+	 * Column of primitive values, whose null rows are kept apart in a BitSet.
+	 */
+	public static abstract class PrimitiveColumn<E> extends MlnColumn<E> {
+		
+		protected int size = 0;
+		private BitSet nulls = new BitSet();
+		
+		protected PrimitiveColumn( String colName, Class<?> colType ) {
+			super( colName, colType );
+		}
+		
+		/*
+		 * @return true if the row is null
+		 */
+		public boolean isNull( int index ) {
+			checkIndex( index, size );
+			return nulls.get(index);
+		}
+		
+		/*
+		 * Set whether a row is null.
+		 */
+		protected void setNull( int index, boolean isNull ) {
+			nulls.set( index, isNull );
+		}
+		
+		/*
+		 * Insert a row into the null rows, shifting the following rows by one position.
+		 */
+		protected void insertNull( int index, boolean isNull ) {
+			for (int i = size; i > index; i--) nulls.set( i, nulls.get(i - 1) );
+			nulls.set( index, isNull );
+		}
+		
+		/*
+		 * @param null rows, which are not copied
+		 */
+		protected void setNulls( BitSet nulls ) {
+			this.nulls = nulls;
+		}
+		
+		public int size() { return size; }
+		
+		/*
+		 * @return copy of the null rows as a BitSet
+		 */
+		public BitSet toNullBitSet() { return (BitSet) nulls.clone(); }
+	}
+	
+	/*
+	 * Column of doubles, stored as a double[].
+	 * 
+	 * Null rows are stored as NaN.
+	 */
+	public static class DoubleColumn extends PrimitiveColumn<Double> {
+		
+		private double[] values;
+		
+		public DoubleColumn( String colName ) {
+			super( colName, Double.class );
+			values = new double[10];
+		}
+		
+		public DoubleColumn( String colName, Collection<Double> rows ) {
+			super( colName, Double.class );
+			values = new double[ rows.size() ];
+			for ( Double row : rows ) {
+				setNull( size, row == null );
+				values[size++] = row == null ? Double.NaN : row;
+			}
+		}
+		
+		/*
+		 * @param name of the column
+		 * @param rows of the column, which are not copied
+		 */
+		public DoubleColumn( String colName, double[] rows ) {
+			super( colName, Double.class );
+			values = rows;
+			size = rows.length;
+		}
+		
+		/*
+		 * @param name of the column
+		 * @param rows of the column, which are not copied
+		 * @param null rows, which are not copied
+		 */
+		public DoubleColumn( String colName, double[] rows, BitSet nulls ) {
+			this( colName, rows );
+			setNulls( nulls );
+		}
+		
+		public Double get( int index ) { return isNull(index) ? null : values[index]; }
+		
+		public double getDouble( int index ) {
+			checkIndex( index, size );
+			return values[index];
+		}
+		
+		public Double set( int index, Double element ) {
+			Double previous = get(index);
+			values[index] = element == null ? Double.NaN : element;
+			setNull( index, element == null );
+			return previous;
+		}
+		
+		public void setDouble( int index, double element ) {
+			checkIndex( index, size );
+			values[index] = element;
+			setNull( index, false );
+		}
+		
+		public void add( int index, Double element ) {
+			if ( index < 0 || index > size ) throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+			if ( size == values.length ) values = Arrays.copyOf( values, grow( values.length, size + 1 ) );
+			System.arraycopy( values, index, values, index + 1, size - index );
+			values[index] = element == null ? Double.NaN : element;
+			insertNull( index, element == null );
+			size++;
+			modCount++;
+		}
+		
+		/*
+		 * Add a row at the end of the column, without boxing it.
+		 */
+		public void addDouble( double element ) {
+			if ( size == values.length ) values = Arrays.copyOf( values, grow( values.length, size + 1 ) );
+			values[size++] = element;
+			modCount++;
+		}
+		
+		/*
+		 * @return copy of the rows as primitive values
+		 */
+		public double[] toDoubleArray() { return Arrays.copyOf( values, size ); }
+	}
+	
+	/*
+	 * Column of integers, stored as an int[].
+	 * 
+	 * Null rows are stored as 0.
+	 */
+	public static class IntegerColumn extends PrimitiveColumn<Integer> {
+		
+		private int[] values;
+		
+		public IntegerColumn( String colName ) {
+			super( colName, Integer.class );
+			values = new int[10];
+		}
+		
+		public IntegerColumn( String colName, Collection<Integer> rows ) {
+			super( colName, Integer.class );
+			values = new int[ rows.size() ];
+			for ( Integer row : rows ) {
+				setNull( size, row == null );
+				values[size++] = row == null ? 0 : row;
+			}
+		}
+		
+		/*
+		 * @param name of the column
+		 * @param rows of the column, which are not copied
+		 * @param null rows, which are not copied
+		 */
+		public IntegerColumn( String colName, int[] rows, BitSet nulls ) {
+			super( colName, Integer.class );
+			values = rows;
+			size = rows.length;
+			setNulls( nulls );
+		}
+		
+		public Integer get( int index ) { return isNull(index) ? null : values[index]; }
+		
+		public int getInt( int index ) {
+			checkIndex( index, size );
+			return values[index];
+		}
+		
+		public Integer set( int index, Integer element ) {
+			Integer previous = get(index);
+			values[index] = element == null ? 0 : element;
+			setNull( index, element == null );
+			return previous;
+		}
+		
+		public void add( int index, Integer element ) {
+			if ( index < 0 || index > size ) throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+			if ( size == values.length ) values = Arrays.copyOf( values, grow( values.length, size + 1 ) );
+			System.arraycopy( values, index, values, index + 1, size - index );
+			values[index] = element == null ? 0 : element;
+			insertNull( index, element == null );
+			size++;
+			modCount++;
+		}
+		
+		/*
+		 * Add a row at the end of the column, without boxing it.
+		 */
+		public void addInt( int element ) {
+			if ( size == values.length ) values = Arrays.copyOf( values, grow( values.length, size + 1 ) );
+			values[size++] = element;
+			modCount++;
+		}
+		
+		/*
+		 * @return copy of the rows as primitive values
+		 */
+		public int[] toIntArray() { return Arrays.copyOf( values, size ); }
+	}
+	
+	/*
+	 * Column of longs, stored as a long[].
+	 * 
+	 * Null rows are stored as 0.
+	 */
+	public static class LongColumn extends PrimitiveColumn<Long> {
+		
+		private long[] values;
+		
+		public LongColumn( String colName ) {
+			super( colName, Long.class );
+			values = new long[10];
+		}
+		
+		public LongColumn( String colName, Collection<Long> rows ) {
+			super( colName, Long.class );
+			values = new long[ rows.size() ];
+			for ( Long row : rows ) {
+				setNull( size, row == null );
+				values[size++] = row == null ? 0 : row;
+			}
+		}
+		
+		/*
+		 * @param name of the column
+		 * @param rows of the column, which are not copied
+		 * @param null rows, which are not copied
+		 */
+		public LongColumn( String colName, long[] rows, BitSet nulls ) {
+			super( colName, Long.class );
+			values = rows;
+			size = rows.length;
+			setNulls( nulls );
+		}
+		
+		public Long get( int index ) { return isNull(index) ? null : values[index]; }
+		
+		public long getLong( int index ) {
+			checkIndex( index, size );
+			return values[index];
+		}
+		
+		public Long set( int index, Long element ) {
+			Long previous = get(index);
+			values[index] = element == null ? 0 : element;
+			setNull( index, element == null );
+			return previous;
+		}
+		
+		public void add( int index, Long element ) {
+			if ( index < 0 || index > size ) throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+			if ( size == values.length ) values = Arrays.copyOf( values, grow( values.length, size + 1 ) );
+			System.arraycopy( values, index, values, index + 1, size - index );
+			values[index] = element == null ? 0 : element;
+			insertNull( index, element == null );
+			size++;
+			modCount++;
+		}
+		
+		/*
+		 * Add a row at the end of the column, without boxing it.
+		 */
+		public void addLong( long element ) {
+			if ( size == values.length ) values = Arrays.copyOf( values, grow( values.length, size + 1 ) );
+			values[size++] = element;
+			modCount++;
+		}
+		
+		/*
+		 * @return copy of the rows as primitive values
+		 */
+		public long[] toLongArray() { return Arrays.copyOf( values, size ); }
+	}
+	
+	/*
+	 * Column of booleans, stored as a BitSet.
+	 * 
+	 * Null rows are stored as false.
+	 */
+	public static class BooleanColumn extends PrimitiveColumn<Boolean> {
+		
+		private BitSet values = new BitSet();
+		
+		public BooleanColumn( String colName ) {
+			super( colName, Boolean.class );
+		}
+		
+		public BooleanColumn( String colName, Collection<Boolean> rows ) {
+			super( colName, Boolean.class );
+			for ( Boolean row : rows ) {
+				setNull( size, row == null );
+				values.set( size++, row != null && row );
+			}
+		}
+		
+		/*
+		 * @param name of the column
+		 * @param rows of the column, which are not copied
+		 * @param number of rows
+		 */
+		public BooleanColumn( String colName, BitSet rows, int size ) {
+			super( colName, Boolean.class );
+			values = rows;
+			this.size = size;
+		}
+		
+		/*
+		 * @param name of the column
+		 * @param rows of the column, which are not copied
+		 * @param null rows, which are not copied
+		 * @param number of rows
+		 */
+		public BooleanColumn( String colName, BitSet rows, BitSet nulls, int size ) {
+			this( colName, rows, size );
+			setNulls( nulls );
+		}
+		
+		public Boolean get( int index ) { return isNull(index) ? null : values.get(index); }
+		
+		public boolean getBoolean( int index ) {
+			checkIndex( index, size );
+			return values.get(index);
+		}
+		
+		public Boolean set( int index, Boolean element ) {
+			Boolean previous = get(index);
+			values.set( index, element != null && element );
+			setNull( index, element == null );
+			return previous;
+		}
+		
+		public void setBoolean( int index, boolean element ) {
+			checkIndex( index, size );
+			values.set( index, element );
+			setNull( index, false );
+		}
+		
+		public void add( int index, Boolean element ) {
+			if ( index < 0 || index > size ) throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+			// shift the following bits by one position
+			for (int i = size; i > index; i--) values.set( i, values.get(i - 1) );
+			values.set( index, element != null && element );
+			insertNull( index, element == null );
+			size++;
+			modCount++;
+		}
+		
+		/*
+		 * Add a row at the end of the column, without boxing it.
+		 */
+		public void addBoolean( boolean element ) {
+			values.set( size++, element );
+			modCount++;
+		}
+		
+		/*
+		 * @return copy of the rows as a BitSet
+		 */
+		public BitSet toBitSet() { return (BitSet) values.clone(); }
+	}
+	
+	/*
+	 * Column of strings, stored as codes of a dictionary.
+	 * 
+	 * Each distinct string is stored once in the dictionary, while the rows only keep an int code.
+	 * Null rows are stored with the code -1.
+	 */
+	public static class StringColumn extends MlnColumn<String> {
+		
+		private StringDictionary dictionary;
+		private int[] codes;
+		private int size = 0;
+		
+		public StringColumn( String colName ) {
+			this( colName, new StringDictionary() );
+		}
+		
+		public StringColumn( String colName, Collection<String> rows ) {
+			this( colName, rows, new StringDictionary() );
+		}
+		
+		/*
+		 * @param name of the column
+		 * @param dictionary which can be shared with other columns
+		 */
+		public StringColumn( String colName, StringDictionary dictionary ) {
+			super( colName, String.class );
+			this.dictionary = dictionary;
+			codes = new int[10];
+		}
+		
+		/*
+		 * @param name of the column
+		 * @param rows of the column
+		 * @param dictionary which can be shared with other columns
+		 */
+		public StringColumn( String colName, Collection<String> rows, StringDictionary dictionary ) {
+			super( colName, String.class );
+			this.dictionary = dictionary;
+			codes = new int[ rows.size() ];
+			for ( String row : rows ) codes[size++] = dictionary.encode(row);
+		}
+		
+		/*
+		 * @param name of the column
+		 * @param rows of the column as codes of the dictionary, which are not copied
+		 * @param dictionary of the codes
+		 */
+		public StringColumn( String colName, int[] codes, StringDictionary dictionary ) {
+			super( colName, String.class );
+			this.dictionary = dictionary;
+			this.codes = codes;
+			size = codes.length;
+		}
+		
+		public String get( int index ) { return dictionary.decode( getCode(index) ); }
+		
+		/*
+		 * @return code of the row within the dictionary of the column
+		 * (for the node, source and target columns, this is the node ID)
+		 */
+		public int getCode( int index ) {
+			checkIndex( index, size );
+			return codes[index];
+		}
+		
+		public String set( int index, String element ) {
+			String previous = get(index);
+			codes[index] = dictionary.encode(element);
+			return previous;
+		}
+		
+		public void add( int index, String element ) {
+			if ( index < 0 || index > size ) throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+			if ( size == codes.length ) codes = Arrays.copyOf( codes, grow( codes.length, size + 1 ) );
+			System.arraycopy( codes, index, codes, index + 1, size - index );
+			codes[index] = dictionary.encode(element);
+			size++;
+			modCount++;
+		}
+		
+		public int size() { return size; }
+		
+		public StringDictionary getDictionary() { return dictionary; }
+		
+		/*
+		 * @return copy of the rows as codes of the dictionary
+		 */
+		public int[] toCodeArray() { return Arrays.copyOf( codes, size ); }
+	}
+	
+	/*
+	 * Dictionary giving an int code to each distinct string.
+	 */
+	public static class StringDictionary {
+		
+		private ArrayList<String> strings = new ArrayList<String>();
+		private HashMap<String, Integer> codes = new HashMap<String, Integer>();
+		
+		/*
+		 * @return code of the string, which is added to the dictionary if it is unknown (-1 if the string is null)
+		 */
+		public int encode( String string ) {
+			if ( string == null ) return -1;
+			Integer code = codes.get(string);
+			if ( code == null ) {
+				code = strings.size();
+				strings.add(string);
+				codes.put(string, code);
+			}
+			return code;
+		}
+		
+		/*
+		 * @return code of the string, or -1 if it is not within the dictionary
+		 */
+		public int getCode( String string ) {
+			Integer code = string == null ? null : codes.get(string);
+			return code == null ? -1 : code;
+		}
+		
+		/*
+		 * @return string of the code (null if the code is -1)
+		 */
+		public String decode( int code ) {
+			return code == -1 ? null : strings.get(code);
+		}
+		
+		public int size() { return strings.size(); }
 	}
 
 	/*
@@ -254,22 +902,23 @@ public class MlnBuilder {
 	 */
 	public abstract class Layer{
 		
-		private MlnColumn<Double> weightColumn = new MlnColumn<Double>();
+		private DoubleColumn weightColumn = new DoubleColumn( WEIGHT );
 		private ArrayList<MlnColumn<?>> otherColumns = new ArrayList<MlnColumn<?>>();
 		
-		public MlnColumn<Double> getWeights() {
+		public DoubleColumn getWeights() {
 			return weightColumn;
 		}
 		
 		public double getWeight(int index) {
-			return weightColumn.get(index);
+			return weightColumn.getDouble(index);
 		}
 		
 		public void setWeights(MlnColumn<Double> weightColumn) {
-			this.weightColumn = weightColumn;
+			if ( weightColumn instanceof DoubleColumn ) this.weightColumn = (DoubleColumn) weightColumn;
+			else this.weightColumn = new DoubleColumn( weightColumn.getName(), weightColumn );
 		}
 		public void setWeight(int index, double element) {
-			this.weightColumn.set(index, element);
+			this.weightColumn.setDouble(index, element);
 		}
 
 		public ArrayList<MlnColumn<?>> getOtherColumns() {
@@ -291,11 +940,11 @@ public class MlnBuilder {
 	 */
 	public class NodeLayer extends Layer {
 		
-		private MlnColumn<String> nodeColumn = new MlnColumn<String>();
+		private StringColumn nodeColumn = new StringColumn( NAME, nodeDictionary );
 		
 		public NodeLayer() {}
 
-		public MlnColumn<String> getNodes() {
+		public StringColumn getNodes() {
 			return nodeColumn;
 		}
 
@@ -304,7 +953,9 @@ public class MlnBuilder {
 		}
 		
 		public void setNodes(MlnColumn<String> nodeColumn) {
-			this.nodeColumn = nodeColumn;
+			if ( nodeColumn instanceof StringColumn && ( (StringColumn) nodeColumn ).getDictionary() == nodeDictionary )
+				this.nodeColumn = (StringColumn) nodeColumn;
+			else this.nodeColumn = new StringColumn( nodeColumn.getName(), nodeColumn, nodeDictionary );
 		}
 
 		public void setNode(int index, String element) {
@@ -317,13 +968,13 @@ public class MlnBuilder {
 	 */
 	public class EdgeLayer extends Layer {
 		
-		private MlnColumn<String> sourceColumn = new MlnColumn<String>();
-		private MlnColumn<String> targetColumn = new MlnColumn<String>();
-		private MlnColumn<Boolean> directionColumn = new MlnColumn<Boolean>();
+		private StringColumn sourceColumn = new StringColumn( SOURCE, nodeDictionary );
+		private StringColumn targetColumn = new StringColumn( TARGET, nodeDictionary );
+		private BooleanColumn directionColumn = new BooleanColumn( DIRECTION );
 		
 		public EdgeLayer() {}
 
-		public MlnColumn<String> getSources() {
+		public StringColumn getSources() {
 			return sourceColumn;
 		}
 
@@ -332,14 +983,16 @@ public class MlnBuilder {
 		}
 		
 		public void setSources(MlnColumn<String> sourceColumn) {
-			this.sourceColumn = sourceColumn;
+			if ( sourceColumn instanceof StringColumn && ( (StringColumn) sourceColumn ).getDictionary() == nodeDictionary )
+				this.sourceColumn = (StringColumn) sourceColumn;
+			else this.sourceColumn = new StringColumn( sourceColumn.getName(), sourceColumn, nodeDictionary );
 		}
 
 		public void setSource(int index, String element) {
 			this.sourceColumn.set(index, element);
 		}
 		
-		public MlnColumn<String> getTargets() {
+		public StringColumn getTargets() {
 			return targetColumn;
 		}
 
@@ -348,27 +1001,30 @@ public class MlnBuilder {
 		}
 		
 		public void setTargets(MlnColumn<String> targetColumn) {
-			this.targetColumn = targetColumn;
+			if ( targetColumn instanceof StringColumn && ( (StringColumn) targetColumn ).getDictionary() == nodeDictionary )
+				this.targetColumn = (StringColumn) targetColumn;
+			else this.targetColumn = new StringColumn( targetColumn.getName(), targetColumn, nodeDictionary );
 		}
 
 		public void setTarget(int index, String element) {
 			this.targetColumn.set(index, element);
 		}
 		
-		public MlnColumn<Boolean> getDirections() {
+		public BooleanColumn getDirections() {
 			return directionColumn;
 		}
 
 		public boolean getDirection(int index) {
-			return this.directionColumn.get(index);
+			return this.directionColumn.getBoolean(index);
 		}
 		
 		public void setDirections(MlnColumn<Boolean> directionColumn) {
-			this.directionColumn = directionColumn;
+			if ( directionColumn instanceof BooleanColumn ) this.directionColumn = (BooleanColumn) directionColumn;
+			else this.directionColumn = new BooleanColumn( directionColumn.getName(), directionColumn );
 		}
 		
 		public void setDirection(int index, boolean element) {
-			this.directionColumn.set(index, element);
+			this.directionColumn.setBoolean(index, element);
 		}
 	}
 	
@@ -1,9 +1,10 @@
 package timenexus.temporalnetwork;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Objects;
@@ -19,18 +20,35 @@ import org.cytoscape.model.CyTable;
 import org.cytoscape.work.AbstractTask;
 import org.cytoscape.work.TaskMonitor;
 
+import timenexus.temporalnetwork.MlnBuilder.EdgeLayer;
 import timenexus.temporalnetwork.MlnBuilder.MlnBuilderException;
+import timenexus.temporalnetwork.MlnBuilder.StringColumn;
 import timenexus.temporalnetwork.MlnReader.MlnReaderException;
+import timenexus.temporalnetwork.MlnTsvImporter.MlnTsvImporterException;
 import timenexus.temporalnetwork.TimeNexusConverterPanel.ListTableLayerTabs;
 import timenexus.utils.MlnException;
 
 /*
+ * Convert the tables selected within the TimeNexus converter into a multi-layer network.
+ * 
+ * The tables are either Cytoscape tables with the column types set by the user,
+ * or the tab-separated files of a directory (nodeTable.tsv, intraLayerEdgeTable.tsv
+ * and interLayerEdgeTable.tsv), which are read by MlnTsvImporter.java without being
+ * imported into Cytoscape. Each file defines all layers and its column types are
+ * guessed from its header.
+ * 
  * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
  */
 public class MlnConverterTask extends AbstractTask {
 	
+	public static final String NODE_TABLE_FILE = "nodeTable.tsv";
+	public static final String INTRA_EDGE_TABLE_FILE = "intraLayerEdgeTable.tsv";
+	public static final String INTER_EDGE_TABLE_FILE = "interLayerEdgeTable.tsv";
+	
 	private JFormattedTextField defaultNodeWeightField, defaultIntraEdgeWeightField, defaultInterEdgeWeightField;
 	private ListTableLayerTabs nodeTabs, intraEdgeTabs, interEdgeTabs;
+	// Directory of the tab-separated files, if the tables are not Cytoscape tables
+	private Path tsvDirectory;
 	private String[] typeOfTable = {"node", "intra-layer edges", "inter-layer edges"};
 	private SpinnerModel numberLayers;
 	private JCheckBox isNodeAlignedCheck, isEdgeAlignedCheck, isEquivalentCouplingCheck, autoDiagonalCouplingCheck,
@@ -62,6 +80,23 @@ public class MlnConverterTask extends AbstractTask {
 		this.allNodesAreQueriesCheck = allNodesAreQueriesCheck;
 	}
 	
+	/*
+	 * Convert the tab-separated files of a directory rather than Cytoscape tables.
+	 */
+	public MlnConverterTask(JFormattedTextField defaultNodeWeightField,
+			JFormattedTextField defaultIntraEdgeWeightField, JFormattedTextField defaultInterEdgeWeightField,
+			Path tsvDirectory,
+			SpinnerModel numberLayers,
+			JCheckBox isNodeAlignedCheck, JCheckBox isEdgeAlignedCheck, JCheckBox isEquivalentCouplingCheck,
+			JCheckBox autoDiagonalCouplingCheck, JCheckBox areIntraEdgeDirectedCheck,
+			JCheckBox areInterEdgeDirectedCheck, JCheckBox allNodesAreQueriesCheck
+			) {
+		this( defaultNodeWeightField, defaultIntraEdgeWeightField, defaultInterEdgeWeightField, null, null, null,
+				numberLayers, isNodeAlignedCheck, isEdgeAlignedCheck, isEquivalentCouplingCheck, autoDiagonalCouplingCheck,
+				areIntraEdgeDirectedCheck, areInterEdgeDirectedCheck, allNodesAreQueriesCheck );
+		this.tsvDirectory = tsvDirectory;
+	}
+	
 	/*
 	 * Cancel the task.
 	 */
@@ -83,52 +118,63 @@ public class MlnConverterTask extends AbstractTask {
 			boolean areIntraEdgeDirected = areIntraEdgeDirectedCheck.isSelected();
 			boolean areInterEdgeDirected = areInterEdgeDirectedCheck.isSelected();
 			boolean allNodesAreQueries = allNodesAreQueriesCheck.isSelected();
-			//		Get column-type tables
-			ArrayList<DefaultTableModel> nodeColTableModels = nodeTabs.getListTableModels();
-			ArrayList<DefaultTableModel> intraEdgeColTableModels = intraEdgeTabs.getListTableModels();
-			ArrayList<DefaultTableModel> interEdgeColTableModels = interEdgeTabs.getListTableModels();
-			//		Get column types from each column-type table
-			ArrayList<Hashtable<String, String>> nodeColTypes = new ArrayList<Hashtable<String, String>>();
-			ArrayList<Hashtable<String, String>> intraEdgeColTypes = new ArrayList<Hashtable<String, String>>();
-			ArrayList<Hashtable<String, String>> interEdgeColTypes = new ArrayList<Hashtable<String, String>>();
-			nodeColTypes = getColumnTypes( nodeColTableModels, "nodes", isNodeAligned, nbLayers );
-			intraEdgeColTypes = getColumnTypes( intraEdgeColTableModels, "intra-layer edges", isEdgeAligned, nbLayers );
-			if ( ! autoDiagonalCouplingCheck.isSelected() ) // in this case, the inter-layer edges are not defined by the user
-				interEdgeColTypes = getColumnTypes( interEdgeColTableModels, "inter-layer edges", isEquivalentCoupling, nbLayers - 1 );
+			boolean isAutoDiagonalCoupling = autoDiagonalCouplingCheck.isSelected();
 			
 			//		Convert data to multi-layer network format
-			taskMonitor.setStatusMessage("Getting the input data...");
 			MlnBuilder mlnNetwork = new MlnBuilder( nbLayers );
-			// Add nodes
-			convertTable( mlnNetwork, MlnBuilder.NODE, nbLayers,
-					nodeTabs, nodeColTypes, defaultNodeWeight, false );
+			if ( tsvDirectory != null ) {
+				taskMonitor.setStatusMessage("Reading the input files...");
+				// Add nodes
+				importTsvFile( mlnNetwork, MlnBuilder.NODE, nbLayers, NODE_TABLE_FILE, defaultNodeWeight, false );
+				// Add intra-layer edges
+				importTsvFile( mlnNetwork, MlnBuilder.INTRA_EDGE, nbLayers, INTRA_EDGE_TABLE_FILE,
+						defaultIntraEdgeWeight, areIntraEdgeDirected );
+				// Add inter-layer edges
+				if ( ! isAutoDiagonalCoupling )
+					importTsvFile( mlnNetwork, MlnBuilder.INTER_EDGE, nbLayers - 1, INTER_EDGE_TABLE_FILE,
+							defaultInterEdgeWeight, areInterEdgeDirected );
+			} else {
+				//		Get column-type tables
+				ArrayList<DefaultTableModel> nodeColTableModels = nodeTabs.getListTableModels();
+				ArrayList<DefaultTableModel> intraEdgeColTableModels = intraEdgeTabs.getListTableModels();
+				ArrayList<DefaultTableModel> interEdgeColTableModels = interEdgeTabs.getListTableModels();
+				//		Get column types from each column-type table
+				ArrayList<Hashtable<String, String>> nodeColTypes = new ArrayList<Hashtable<String, String>>();
+				ArrayList<Hashtable<String, String>> intraEdgeColTypes = new ArrayList<Hashtable<String, String>>();
+				ArrayList<Hashtable<String, String>> interEdgeColTypes = new ArrayList<Hashtable<String, String>>();
+				nodeColTypes = getColumnTypes( nodeColTableModels, "nodes", isNodeAligned, nbLayers );
+				intraEdgeColTypes = getColumnTypes( intraEdgeColTableModels, "intra-layer edges", isEdgeAligned, nbLayers );
+				if ( ! isAutoDiagonalCoupling ) // in this case, the inter-layer edges are not defined by the user
+					interEdgeColTypes = getColumnTypes( interEdgeColTableModels, "inter-layer edges", isEquivalentCoupling, nbLayers - 1 );
+				
+				taskMonitor.setStatusMessage("Getting the input data...");
+				// Add nodes
+				convertTable( mlnNetwork, MlnBuilder.NODE, nbLayers,
+						nodeTabs, nodeColTypes, defaultNodeWeight, false );
+				// Add intra-layer edges
+				convertTable( mlnNetwork, MlnBuilder.INTRA_EDGE, nbLayers,
+						intraEdgeTabs, intraEdgeColTypes, defaultIntraEdgeWeight, areIntraEdgeDirected );
+				// Add inter-layer edges
+				if ( ! isAutoDiagonalCoupling )
+					convertTable( mlnNetwork, MlnBuilder.INTER_EDGE, nbLayers - 1,
+							interEdgeTabs, interEdgeColTypes, defaultInterEdgeWeight, areInterEdgeDirected );
+			}
 			// Set all nodes as queries if asked by the user
 			if ( allNodesAreQueries ) setAllNodesAsQueries( mlnNetwork );
-			// Add intra-layer edges
-			convertTable( mlnNetwork, MlnBuilder.INTRA_EDGE, nbLayers,
-					intraEdgeTabs, intraEdgeColTypes, defaultIntraEdgeWeight, areIntraEdgeDirected );
-			// Add inter-layer edges
-			if ( !autoDiagonalCouplingCheck.isSelected() )
-				convertTable( mlnNetwork, MlnBuilder.INTER_EDGE, nbLayers - 1,
-						interEdgeTabs, interEdgeColTypes, defaultInterEdgeWeight, areInterEdgeDirected );
-			else // If inter-layer edges are not defined by the user
-				createInterEdgeTable( mlnNetwork, nbLayers - 1,
-						interEdgeTabs, interEdgeColTypes, defaultInterEdgeWeight, areInterEdgeDirected );
+			// If inter-layer edges are not defined by the user
+			if ( isAutoDiagonalCoupling )
+				createInterEdgeTable( mlnNetwork, nbLayers - 1, defaultInterEdgeWeight, areInterEdgeDirected );
 	
 			//		Check if the new multilayer network is consistent
 			taskMonitor.setStatusMessage("Checking consistency of the input data...");
 			// Check for each layer whether nodes from intra-edge tables are within node-layer tables
 			for (int i = 0; i < mlnNetwork.getNumberLayers(); i++) {
 				// Get node-layers
-				HashSet<Object> nodeLayers = new HashSet<Object>( mlnNetwork.getNodeLayers().get(i) );
-				// Combine sources and targets
-				HashSet<Object> intraEdgeNodes = new HashSet<Object>( mlnNetwork.getIntraSourceLayers().get(i) );
-				intraEdgeNodes.addAll( mlnNetwork.getIntraTargetLayers().get(i) );
-				// Remove sources and targets which are not in the node-layer list
-				int nodeNumber = intraEdgeNodes.size();
-				intraEdgeNodes.retainAll(nodeLayers);
-				// The number of sources and targets should not have changed
-				if( intraEdgeNodes.size() != nodeNumber ) {
+				BitSet nodeLayers = mlnNetwork.getNodeIdsOfLayer(i);
+				// Sources and targets should be within the node-layer list
+				EdgeLayer intraEdgeLayer = mlnNetwork.getIntraEdgeLayerTables(i);
+				if( ! MlnBuilder.containsAllNodes( nodeLayers, intraEdgeLayer.getSources() )
+						|| ! MlnBuilder.containsAllNodes( nodeLayers, intraEdgeLayer.getTargets() ) ) {
 					int j = i+1;
 					throw new MlnConverterException(
 							"Some nodes from intra-layer edges are not within the node table for the layer "+j+".",
@@ -139,24 +185,18 @@ public class MlnConverterTask extends AbstractTask {
 			// Same for inter-layer edges
 			for (int i = 0; i < mlnNetwork.getNumberLayers() - 1; i++) {
 				// Get node-layers
-				HashSet<Object> nodeLayers1 = new HashSet<Object>( mlnNetwork.getNodeLayers().get(i) );
-				HashSet<Object> nodeLayers2 = new HashSet<Object>( mlnNetwork.getNodeLayers().get(i+1) );
-				// Get sources and targets
-				HashSet<Object> interEdgeNodeLayers1 = new HashSet<Object>( mlnNetwork.getInterSourceLayers().get(i) );
-				HashSet<Object> interEdgeNodeLayers2 = new HashSet<Object>( mlnNetwork.getInterTargetLayers().get(i) );
-				// Remove sources and targets which are not in the node-layer lists
-				int nodeNumber1 = interEdgeNodeLayers1.size(), nodeNumber2 = interEdgeNodeLayers2.size();
-				interEdgeNodeLayers1.retainAll(nodeLayers1);
-				interEdgeNodeLayers2.retainAll(nodeLayers2);
-				// The number of sources and targets should not have changed
+				BitSet nodeLayers1 = mlnNetwork.getNodeIdsOfLayer(i);
+				BitSet nodeLayers2 = mlnNetwork.getNodeIdsOfLayer(i+1);
+				// Sources and targets should be within the node-layer lists
+				EdgeLayer interEdgeLayer = mlnNetwork.getInterEdgeLayerTables(i);
 				int j = i+1;
 				int k = j+1;
-				if( interEdgeNodeLayers1.size() != nodeNumber1 ) {
+				if( ! MlnBuilder.containsAllNodes( nodeLayers1, interEdgeLayer.getSources() ) ) {
 					throw new MlnConverterException(
 							"Some sources from "+ j +"->"+ k +" inter-layer edges are not within "
 									+ "the node table of the layer "+j+".",
 							"Conversion error: inconsistent tables ", JOptionPane.ERROR_MESSAGE);
-				} else if( interEdgeNodeLayers2.size() != nodeNumber2 ) {
+				} else if( ! MlnBuilder.containsAllNodes( nodeLayers2, interEdgeLayer.getTargets() ) ) {
 					throw new MlnConverterException(
 							"Some targets from "+ j +"->"+ k +" inter-layer edges are not within "
 									+ "the node table of the layer "+k+".",
@@ -166,7 +206,7 @@ public class MlnConverterTask extends AbstractTask {
 	
 			//		Create the multi-layer network
 			taskMonitor.setStatusMessage("Building the multi-layer network...");
-			MlnWriter.createMultiLayerNetwork( mlnNetwork, "Multi-layer network" );
+			MlnWriter.createMultiLayerNetwork( mlnNetwork, "Multi-layer network", taskMonitor );
 			
 		} catch (MlnException err) {
 			throw new MlnConverterException( err.getMessageTitle() + "\n\n" + err.getMessage(),
@@ -439,17 +479,16 @@ public class MlnConverterTask extends AbstractTask {
 	 * An inter-layer edge is created for a node if this node is present in the two layers.
 	 * If a node is in the layer N but not in the layer N+1, 
 	 */
-	private void createInterEdgeTable(MlnBuilder mlnNetwork, int nbLayers, ListTableLayerTabs interEdgeTabs,
-			ArrayList<Hashtable<String, String>> interEdgeColTypes, double defaultInterEdgeWeight, boolean areInterEdgeDirected
+	private void createInterEdgeTable(MlnBuilder mlnNetwork, int nbLayers, double defaultInterEdgeWeight, boolean areInterEdgeDirected
 			) throws MlnConverterException {
-			// Get list list of nodes for each layer
-			ArrayList<ArrayList<String>> nodeLayers = mlnNetwork.getNodeLayers();
 			// Create inter-layer edges
 			for (int coupling = 0; coupling < nbLayers; coupling++) {
 				// Search nodes which are shared by pairwise layers
-				ArrayList<String> intersection = new ArrayList<String>( nodeLayers.get(coupling) );
-				ArrayList<String> nodesLayer2 = nodeLayers.get(coupling+1);
-				intersection.retainAll(nodesLayer2);
+				StringColumn nodesLayer1 = mlnNetwork.getNodeLayerTables(coupling).getNodes();
+				BitSet nodesLayer2 = mlnNetwork.getNodeIdsOfLayer(coupling+1);
+				ArrayList<String> intersection = new ArrayList<String>();
+				for (int j = 0; j < nodesLayer1.size(); j++)
+					if ( nodesLayer1.getCode(j) != -1 && nodesLayer2.get( nodesLayer1.getCode(j) ) ) intersection.add( nodesLayer1.get(j) );
 				// Create columns of directions and weights
 				Collection<Boolean> directions = new ArrayList<Boolean>();
 				Collection<Double> weights = new ArrayList<Double>();
@@ -469,6 +508,16 @@ public class MlnConverterTask extends AbstractTask {
 			}
 	}
 	
+	/*
+	 * Add the tables of a type into the MLN from a tab-separated file of the directory, defining all layers.
+	 */
+	private void importTsvFile( MlnBuilder mlnNetwork, int tableType, int nbTables, String fileName,
+			double defaultWeight, boolean areEdgeDirected ) throws MlnTsvImporterException {
+		Path file = tsvDirectory.resolve( fileName );
+		MlnTsvImporter.importTables( mlnNetwork, tableType, nbTables, Collections.singletonList( file ), null,
+				defaultWeight, areEdgeDirected );
+	}
+	
 	/*
 	 * Add a column into the MLN from a CyTable
 	 */
@@ -0,0 +1,88 @@
+package timenexus.temporalnetwork;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+
+import timenexus.temporalnetwork.MlnWriter.MlnWriterException;
+
+/*
+ * Index of the node-layers of a flattened network, from their layer ID and their name to their CyNode.
+ *
+ * One index is kept for each flattened network and is built in one pass over the node table.
+ * It is invalidated when nodes are added to or removed from the network, and when the name or the layer ID
+ * of a node is set (see MlnNodeLayerIndexListener), and it is rebuilt at the next request. As events can be received after the network was modified,
+ * the index is also rebuilt if the number of nodes changed, and each returned CyNode is checked against its row.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public final class MlnNodeLayerIndex {
+
+	// indexes of the flattened networks (key: SUID of the network)
+	private static final Map<Long, MlnNodeLayerIndex> indexes = new ConcurrentHashMap<Long, MlnNodeLayerIndex>();
+
+	private final CyNetwork flattenedNetwork;
+	// node-layers (key: layer ID, value: map with node names -> CyNode)
+	private final Map<Integer, Map<String, CyNode>> nodeLayers;
+	// number of nodes when the index was built
+	private final int nodeCount;
+
+	private MlnNodeLayerIndex( CyNetwork flattenedNetwork ) throws MlnWriterException {
+		this.flattenedNetwork = flattenedNetwork;
+		this.nodeCount = flattenedNetwork.getNodeCount();
+		this.nodeLayers = MlnWriter.getAllNodeLayers( flattenedNetwork );
+	}
+
+	/*
+	 * Get the index of a flattened network, which is built if needed.
+	 * @param flattened network
+	 * @return the index
+	 * @throws MlnWriterException if node names are not unique within a layer
+	 */
+	public static MlnNodeLayerIndex get( CyNetwork flattenedNetwork ) throws MlnWriterException {
+		MlnNodeLayerIndex index = indexes.get( flattenedNetwork.getSUID() );
+		if ( index == null || index.flattenedNetwork != flattenedNetwork || index.nodeCount != flattenedNetwork.getNodeCount() ) {
+			index = new MlnNodeLayerIndex( flattenedNetwork );
+			indexes.put( flattenedNetwork.getSUID(), index );
+		}
+		return index;
+	}
+
+	/*
+	 * Remove the index of a network.
+	 * @param the network
+	 */
+	public static void invalidate( CyNetwork network ) {
+		if ( network != null ) indexes.remove( network.getSUID() );
+	}
+
+	/*
+	 * Get the CyNode of a node-layer.
+	 * @param layerID: rank of the layer (start from 1) within the column LAYER_ID
+	 * @param nodeName: name of the node-layer, such as "name_layerID"
+	 * @return CyNode corresponding to the node-layer, or null if it is not within the layer
+	 */
+	public CyNode getNode( int layerID, String nodeName ) {
+		Map<String, CyNode> nodes = nodeLayers.get( layerID );
+		CyNode node = nodes == null ? null : nodes.get( nodeName );
+		if ( node == null ) return null;
+		// Check the node was not removed or renamed since the index was built
+		if ( ! flattenedNetwork.containsNode( node ) ) return null;
+		CyRow row = flattenedNetwork.getRow( node );
+		Integer rowLayerID = row.get( MlnWriter.LAYER_ID, Integer.class );
+		if ( rowLayerID == null || rowLayerID != layerID || ! nodeName.equals( row.get( CyNetwork.NAME, String.class ) ) )
+			return null;
+		return node;
+	}
+
+	/*
+	 * @return true if the layer contains the node-layer
+	 */
+	public boolean containsNode( int layerID, String nodeName ) {
+		return getNode( layerID, nodeName ) != null;
+	}
+
+}
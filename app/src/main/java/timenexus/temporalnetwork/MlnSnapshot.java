@@ -0,0 +1,475 @@
+package timenexus.temporalnetwork;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.swing.JOptionPane;
+
+import timenexus.temporalnetwork.MlnBuilder.BooleanColumn;
+import timenexus.temporalnetwork.MlnBuilder.DoubleColumn;
+import timenexus.temporalnetwork.MlnBuilder.EdgeLayer;
+import timenexus.temporalnetwork.MlnBuilder.IntegerColumn;
+import timenexus.temporalnetwork.MlnBuilder.Layer;
+import timenexus.temporalnetwork.MlnBuilder.LongColumn;
+import timenexus.temporalnetwork.MlnBuilder.MlnColumn;
+import timenexus.temporalnetwork.MlnBuilder.NodeLayer;
+import timenexus.temporalnetwork.MlnBuilder.ObjectColumn;
+import timenexus.temporalnetwork.MlnBuilder.PrimitiveColumn;
+import timenexus.temporalnetwork.MlnBuilder.StringColumn;
+import timenexus.temporalnetwork.MlnBuilder.StringDictionary;
+import timenexus.utils.MlnException;
+
+/*
+ * This singleton class saves an object from MlnBuilder.java into a binary file, and loads it back.
+ *
+ * The file is read at once into a buffer, so that a large multi-layer network is
+ * reloaded without parsing any table: names are stored as codes of dictionaries and
+ * weights, directions and other columns as arrays of primitive values.
+ * The buffer is on the heap rather than mapped, so that the file is released as soon as it is read
+ * (a mapped file stays locked until the buffer is garbage-collected, which prevents to overwrite it on Windows).
+ * Every length read from the file is checked against the remaining bytes before allocating its array.
+ *
+ * Layout of the file (big-endian):
+ * - header: magic number, version of the format, number of layers.
+ * - dictionary of the node names.
+ * - node tables, intra-layer edge tables and inter-layer edge tables, in the order of the layers.
+ * Each table contains its node codes (or source and target codes), its weights with their null rows, its directions
+ * for edge tables, then its other columns with their name, their kind and their rows.
+ * Strings, doubles, integers, longs and booleans are reloaded into columns of primitive values,
+ * the other columns (such as lists) into columns of objects whose type is given by a tag.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public final class MlnSnapshot {
+
+	private final static int MAGIC = 0x544E5853; // "TNXS"
+	private final static int VERSION = 1;
+
+	// kinds of other columns
+	private final static byte STRING_COLUMN = 1;
+	private final static byte DOUBLE_COLUMN = 2;
+	private final static byte INTEGER_COLUMN = 3;
+	private final static byte LONG_COLUMN = 4;
+	private final static byte BOOLEAN_COLUMN = 5;
+	private final static byte OBJECT_COLUMN = 6;
+
+	// types of object columns and of their values
+	private final static byte NULL_VALUE = 0;
+	private final static byte STRING_VALUE = 1;
+	private final static byte INTEGER_VALUE = 2;
+	private final static byte LONG_VALUE = 3;
+	private final static byte DOUBLE_VALUE = 4;
+	private final static byte BOOLEAN_VALUE = 5;
+	private final static byte LIST_VALUE = 6;
+
+	private MlnSnapshot(){ throw new RuntimeException(); }
+
+	/*
+	 * Save a multi-layer network into a file.
+	 * @param multi-layer network
+	 * @param file to write
+	 * @throws MlnSnapshotException if the file cannot be written or a column cannot be saved
+	 */
+	public static void write( MlnBuilder mlnData, File file ) throws MlnSnapshotException {
+		try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream(file), 1 << 16 ) ) ) {
+			int nbLayers = mlnData.getNumberLayers();
+			//		Header
+			out.writeInt( MAGIC );
+			out.writeInt( VERSION );
+			out.writeInt( nbLayers );
+			//		Node names
+			writeDictionary( out, mlnData.getNodeDictionary() );
+			//		Tables
+			for ( NodeLayer nodeLayer : mlnData.getNodeLayerTables() ) {
+				writeInts( out, nodeLayer.getNodes().toCodeArray() );
+				writeLayer( out, nodeLayer );
+			}
+			for ( EdgeLayer intraEdgeLayer : mlnData.getIntraEdgeLayerTables() ) writeEdgeLayer( out, intraEdgeLayer );
+			for ( EdgeLayer interEdgeLayer : mlnData.getInterEdgeLayerTables() ) writeEdgeLayer( out, interEdgeLayer );
+		} catch ( IOException e ) {
+			throw new MlnSnapshotException( "The multi-layer network cannot be saved into " + file + ":\n" + e.getMessage(),
+					"Saving error", JOptionPane.ERROR_MESSAGE, e );
+		}
+	}
+
+	/*
+	 * Load a multi-layer network from a file.
+	 * @param file to read
+	 * @return the multi-layer network
+	 * @throws MlnSnapshotException if the file cannot be read or has not the expected format
+	 */
+	public static MlnBuilder read( File file ) throws MlnSnapshotException {
+		try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) ) {
+			if ( channel.size() > Integer.MAX_VALUE )
+				throw new MlnSnapshotException( "The file " + file + " is too large to be loaded.",
+						"Loading error", JOptionPane.ERROR_MESSAGE );
+			ByteBuffer in = ByteBuffer.allocate( (int) channel.size() );
+			while ( in.hasRemaining() && channel.read(in) != -1 );
+			in.flip();
+			//		Header
+			if ( in.remaining() < 12 || in.getInt() != MAGIC )
+				throw new MlnSnapshotException( "The file " + file + " is not a multi-layer network snapshot.",
+						"Loading error", JOptionPane.ERROR_MESSAGE );
+			int version = in.getInt();
+			if ( version != VERSION )
+				throw new MlnSnapshotException( "The version " + version + " of the snapshot " + file + " is not supported.",
+						"Loading error", JOptionPane.ERROR_MESSAGE );
+			int nbLayers = readLength( in, 1 );
+			MlnBuilder mlnData = new MlnBuilder( nbLayers );
+			//		Node names (the codes are given in the same order as they were saved)
+			StringDictionary nodeDictionary = mlnData.getNodeDictionary();
+			for ( String name : readStrings(in) ) nodeDictionary.encode( name );
+			//		Tables
+			for ( NodeLayer nodeLayer : mlnData.getNodeLayerTables() ) {
+				nodeLayer.setNodes( new StringColumn( MlnBuilder.NAME, readInts(in), nodeDictionary ) );
+				readLayer( in, nodeLayer );
+			}
+			for ( EdgeLayer intraEdgeLayer : mlnData.getIntraEdgeLayerTables() ) readEdgeLayer( in, intraEdgeLayer, nodeDictionary );
+			for ( EdgeLayer interEdgeLayer : mlnData.getInterEdgeLayerTables() ) readEdgeLayer( in, interEdgeLayer, nodeDictionary );
+			return mlnData;
+		} catch ( IOException | RuntimeException e ) { // such as a buffer underflow
+			throw new MlnSnapshotException( "The multi-layer network cannot be loaded from " + file + ":\n" + e,
+					"Loading error", JOptionPane.ERROR_MESSAGE, e );
+		}
+	}
+
+	/*_______________________________________
+	 *
+	 *			WRITING
+	 *_______________________________________
+	 */
+
+	/*
+	 * Write the columns of an edge layer.
+	 */
+	private static void writeEdgeLayer( DataOutputStream out, EdgeLayer edgeLayer ) throws IOException, MlnSnapshotException {
+		writeInts( out, edgeLayer.getSources().toCodeArray() );
+		writeInts( out, edgeLayer.getTargets().toCodeArray() );
+		writeLayer( out, edgeLayer );
+		BooleanColumn directions = edgeLayer.getDirections();
+		writeBits( out, directions.toBitSet(), directions.size() );
+	}
+
+	/*
+	 * Write the weights and the other columns of a layer.
+	 */
+	private static void writeLayer( DataOutputStream out, Layer layer ) throws IOException, MlnSnapshotException {
+		writeDoubles( out, layer.getWeights().toDoubleArray() );
+		writeNulls( out, layer.getWeights() );
+		out.writeInt( layer.getOtherColumns().size() );
+		for ( MlnColumn<?> col : layer.getOtherColumns() ) writeColumn( out, col );
+	}
+
+	/*
+	 * Write a column with its name, its kind and its rows.
+	 */
+	@SuppressWarnings("unchecked")
+	private static void writeColumn( DataOutputStream out, MlnColumn<?> col ) throws IOException, MlnSnapshotException {
+		writeString( out, col.getName() );
+		Class<?> colType = col.getType();
+		if ( colType == String.class ) {
+			StringColumn strings = col instanceof StringColumn ? (StringColumn) col : new StringColumn( col.getName(), (MlnColumn<String>) col );
+			out.writeByte( STRING_COLUMN );
+			writeDictionary( out, strings.getDictionary() );
+			writeInts( out, strings.toCodeArray() );
+		} else if ( colType == Double.class ) {
+			DoubleColumn doubles = col instanceof DoubleColumn ? (DoubleColumn) col : new DoubleColumn( col.getName(), (MlnColumn<Double>) col );
+			out.writeByte( DOUBLE_COLUMN );
+			writeDoubles( out, doubles.toDoubleArray() );
+			writeNulls( out, doubles );
+		} else if ( colType == Integer.class ) {
+			IntegerColumn ints = col instanceof IntegerColumn ? (IntegerColumn) col : new IntegerColumn( col.getName(), (MlnColumn<Integer>) col );
+			out.writeByte( INTEGER_COLUMN );
+			writeInts( out, ints.toIntArray() );
+			writeNulls( out, ints );
+		} else if ( colType == Long.class ) {
+			LongColumn longs = col instanceof LongColumn ? (LongColumn) col : new LongColumn( col.getName(), (MlnColumn<Long>) col );
+			out.writeByte( LONG_COLUMN );
+			writeLongs( out, longs.toLongArray() );
+			writeNulls( out, longs );
+		} else if ( colType == Boolean.class ) {
+			BooleanColumn booleans = col instanceof BooleanColumn ? (BooleanColumn) col : new BooleanColumn( col.getName(), (MlnColumn<Boolean>) col );
+			out.writeByte( BOOLEAN_COLUMN );
+			writeBits( out, booleans.toBitSet(), booleans.size() );
+			writeNulls( out, booleans );
+		} else {
+			out.writeByte( OBJECT_COLUMN );
+			out.writeByte( getTag( colType, col.getName() ) );
+			out.writeInt( col.size() );
+			for ( Object value : col ) writeValue( out, value, col.getName() );
+		}
+	}
+
+	/*
+	 * Write the null rows of a column of primitive values.
+	 */
+	private static void writeNulls( DataOutputStream out, PrimitiveColumn<?> col ) throws IOException {
+		writeBits( out, col.toNullBitSet(), col.size() );
+	}
+
+	/*
+	 * Write a value of an object column with its type.
+	 */
+	private static void writeValue( DataOutputStream out, Object value, String colName ) throws IOException, MlnSnapshotException {
+		if ( value == null ) out.writeByte( NULL_VALUE );
+		else if ( value instanceof String ) {
+			out.writeByte( STRING_VALUE );
+			writeString( out, (String) value );
+		} else if ( value instanceof Integer ) {
+			out.writeByte( INTEGER_VALUE );
+			out.writeInt( (Integer) value );
+		} else if ( value instanceof Long ) {
+			out.writeByte( LONG_VALUE );
+			out.writeLong( (Long) value );
+		} else if ( value instanceof Double ) {
+			out.writeByte( DOUBLE_VALUE );
+			out.writeDouble( (Double) value );
+		} else if ( value instanceof Boolean ) {
+			out.writeByte( BOOLEAN_VALUE );
+			out.writeBoolean( (Boolean) value );
+		} else if ( value instanceof List ) {
+			out.writeByte( LIST_VALUE );
+			out.writeInt( ( (List<?>) value ).size() );
+			for ( Object element : (List<?>) value ) writeValue( out, element, colName );
+		} else
+			throw new MlnSnapshotException( "The values of the column \"" + colName + "\" cannot be saved: "
+					+ value.getClass().getName() + " is not supported.", "Saving error", JOptionPane.ERROR_MESSAGE );
+	}
+
+	private static void writeDictionary( DataOutputStream out, StringDictionary dictionary ) throws IOException {
+		out.writeInt( dictionary.size() );
+		for (int i = 0; i < dictionary.size(); i++) writeString( out, dictionary.decode(i) );
+	}
+
+	private static void writeString( DataOutputStream out, String string ) throws IOException {
+		byte[] bytes = string.getBytes( StandardCharsets.UTF_8 );
+		out.writeInt( bytes.length );
+		out.write( bytes );
+	}
+
+	private static void writeInts( DataOutputStream out, int[] values ) throws IOException {
+		out.writeInt( values.length );
+		for ( int value : values ) out.writeInt( value );
+	}
+
+	private static void writeLongs( DataOutputStream out, long[] values ) throws IOException {
+		out.writeInt( values.length );
+		for ( long value : values ) out.writeLong( value );
+	}
+
+	private static void writeDoubles( DataOutputStream out, double[] values ) throws IOException {
+		out.writeInt( values.length );
+		for ( double value : values ) out.writeDouble( value );
+	}
+
+	private static void writeBits( DataOutputStream out, BitSet bits, int size ) throws IOException {
+		out.writeInt( size );
+		writeLongs( out, bits.toLongArray() );
+	}
+
+	/*_______________________________________
+	 *
+	 *			READING
+	 *_______________________________________
+	 */
+
+	/*
+	 * Read the columns of an edge layer.
+	 */
+	private static void readEdgeLayer( ByteBuffer in, EdgeLayer edgeLayer, StringDictionary nodeDictionary )
+			throws MlnSnapshotException {
+		edgeLayer.setSources( new StringColumn( MlnBuilder.SOURCE, readInts(in), nodeDictionary ) );
+		edgeLayer.setTargets( new StringColumn( MlnBuilder.TARGET, readInts(in), nodeDictionary ) );
+		readLayer( in, edgeLayer );
+		int size = readLength( in, 0 );
+		edgeLayer.setDirections( new BooleanColumn( MlnBuilder.DIRECTION, BitSet.valueOf( readLongs(in) ), size ) );
+	}
+
+	/*
+	 * Read the weights and the other columns of a layer.
+	 */
+	private static void readLayer( ByteBuffer in, Layer layer ) throws MlnSnapshotException {
+		layer.setWeights( new DoubleColumn( MlnBuilder.WEIGHT, readDoubles(in), readNulls(in) ) );
+		int nbColumns = readLength( in, 1 );
+		for (int i = 0; i < nbColumns; i++) layer.addOtherColumn( readColumn(in) );
+	}
+
+	/*
+	 * Read a column with its name, its kind and its rows.
+	 */
+	private static MlnColumn<?> readColumn( ByteBuffer in ) throws MlnSnapshotException {
+		String colName = readString(in);
+		byte kind = in.get();
+		switch ( kind ) {
+			case STRING_COLUMN:
+				StringDictionary dictionary = new StringDictionary();
+				for ( String string : readStrings(in) ) dictionary.encode( string );
+				return new StringColumn( colName, readInts(in), dictionary );
+			case DOUBLE_COLUMN:
+				return new DoubleColumn( colName, readDoubles(in), readNulls(in) );
+			case INTEGER_COLUMN:
+				return new IntegerColumn( colName, readInts(in), readNulls(in) );
+			case LONG_COLUMN:
+				return new LongColumn( colName, readLongs(in), readNulls(in) );
+			case BOOLEAN_COLUMN:
+				int size = readLength( in, 0 );
+				BitSet values = BitSet.valueOf( readLongs(in) );
+				return new BooleanColumn( colName, values, readNulls(in), size );
+			case OBJECT_COLUMN:
+				Class<?> colType = getType( in.get() );
+				int nbRows = readLength( in, 1 );
+				List<Object> rows = new ArrayList<Object>( nbRows );
+				for (int i = 0; i < nbRows; i++) rows.add( readValue(in) );
+				return new ObjectColumn<Object>( colName, colType, rows );
+			default:
+				throw new MlnSnapshotException( "Unknown kind of column: " + kind, "Loading error", JOptionPane.ERROR_MESSAGE );
+		}
+	}
+
+	/*
+	 * Read the null rows of a column of primitive values.
+	 */
+	private static BitSet readNulls( ByteBuffer in ) throws MlnSnapshotException {
+		in.getInt();
+		return BitSet.valueOf( readLongs(in) );
+	}
+
+	/*
+	 * Read a value of an object column.
+	 */
+	private static Object readValue( ByteBuffer in ) throws MlnSnapshotException {
+		byte type = in.get();
+		switch ( type ) {
+			case NULL_VALUE: return null;
+			case STRING_VALUE: return readString(in);
+			case INTEGER_VALUE: return in.getInt();
+			case LONG_VALUE: return in.getLong();
+			case DOUBLE_VALUE: return in.getDouble();
+			case BOOLEAN_VALUE: return in.get() != 0;
+			case LIST_VALUE:
+				int size = readLength( in, 1 );
+				List<Object> list = new ArrayList<Object>( size );
+				for (int i = 0; i < size; i++) list.add( readValue(in) );
+				return list;
+			default:
+				throw new MlnSnapshotException( "Unknown type of value: " + type, "Loading error", JOptionPane.ERROR_MESSAGE );
+		}
+	}
+
+	private static List<String> readStrings( ByteBuffer in ) throws MlnSnapshotException {
+		int size = readLength( in, Integer.BYTES );
+		List<String> strings = new ArrayList<String>( size );
+		for (int i = 0; i < size; i++) strings.add( readString(in) );
+		return strings;
+	}
+
+	private static String readString( ByteBuffer in ) throws MlnSnapshotException {
+		byte[] bytes = new byte[ readLength( in, 1 ) ];
+		in.get( bytes );
+		return new String( bytes, StandardCharsets.UTF_8 );
+	}
+
+	private static int[] readInts( ByteBuffer in ) throws MlnSnapshotException {
+		int[] values = new int[ readLength( in, Integer.BYTES ) ];
+		in.asIntBuffer().get( values );
+		in.position( in.position() + Integer.BYTES * values.length );
+		return values;
+	}
+
+	private static long[] readLongs( ByteBuffer in ) throws MlnSnapshotException {
+		long[] values = new long[ readLength( in, Long.BYTES ) ];
+		in.asLongBuffer().get( values );
+		in.position( in.position() + Long.BYTES * values.length );
+		return values;
+	}
+
+	private static double[] readDoubles( ByteBuffer in ) throws MlnSnapshotException {
+		double[] values = new double[ readLength( in, Double.BYTES ) ];
+		in.asDoubleBuffer().get( values );
+		in.position( in.position() + Double.BYTES * values.length );
+		return values;
+	}
+
+	/*
+	 * Read a number of elements, such as the size of an array, and check it against the remaining bytes.
+	 * @param buffer
+	 * @param minimum number of bytes of an element in the file (0 if the number does not match stored elements)
+	 * @return the number of elements
+	 * @throws MlnSnapshotException if the number is negative or the elements cannot fit into the remaining bytes
+	 */
+	private static int readLength( ByteBuffer in, int elementBytes ) throws MlnSnapshotException {
+		int length = in.getInt();
+		if ( length < 0 || (long) length * elementBytes > in.remaining() )
+			throw new MlnSnapshotException( "Invalid length in the snapshot: " + length + " (" + in.remaining() + " bytes remaining)",
+					"Loading error", JOptionPane.ERROR_MESSAGE );
+		return length;
+	}
+
+	/*_______________________________________
+	 *
+	 *			TYPES
+	 *_______________________________________
+	 */
+
+	/*
+	 * @return tag of the type of an object column
+	 * @throws MlnSnapshotException if the type cannot be saved
+	 */
+	private static byte getTag( Class<?> type, String colName ) throws MlnSnapshotException {
+		if ( type == String.class ) return STRING_VALUE;
+		else if ( type == Integer.class ) return INTEGER_VALUE;
+		else if ( type == Long.class ) return LONG_VALUE;
+		else if ( type == Double.class ) return DOUBLE_VALUE;
+		else if ( type == Boolean.class ) return BOOLEAN_VALUE;
+		else if ( List.class.isAssignableFrom( type ) ) return LIST_VALUE;
+		else throw new MlnSnapshotException( "The column \"" + colName + "\" cannot be saved: "
+				+ type.getName() + " is not supported.", "Saving error", JOptionPane.ERROR_MESSAGE );
+	}
+
+	/*
+	 * @return type of an object column from its tag
+	 * @throws MlnSnapshotException if the tag is unknown
+	 */
+	private static Class<?> getType( byte tag ) throws MlnSnapshotException {
+		switch ( tag ) {
+			case STRING_VALUE: return String.class;
+			case INTEGER_VALUE: return Integer.class;
+			case LONG_VALUE: return Long.class;
+			case DOUBLE_VALUE: return Double.class;
+			case BOOLEAN_VALUE: return Boolean.class;
+			case LIST_VALUE: return List.class;
+			default: throw new MlnSnapshotException( "Unknown type of column: " + tag, "Loading error", JOptionPane.ERROR_MESSAGE );
+		}
+	}
+
+	/*_______________________________________
+	 *
+	 *			EXCEPTION
+	 *_______________________________________
+	 */
+
+	public static class MlnSnapshotException extends MlnException {
+
+		private static final long serialVersionUID = 1L;
+
+		public MlnSnapshotException(String message, String messageTitle, int messageType) {
+			super(message, messageTitle, messageType);
+		}
+
+		public MlnSnapshotException(String message, String messageTitle, int messageType, Throwable cause) {
+			super(message, messageTitle, messageType, cause);
+		}
+
+	}
+
+}
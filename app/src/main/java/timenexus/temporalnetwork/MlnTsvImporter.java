@@ -0,0 +1,517 @@
+package timenexus.temporalnetwork;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.JOptionPane;
+
+import timenexus.temporalnetwork.MlnBuilder.BooleanColumn;
+import timenexus.temporalnetwork.MlnBuilder.DoubleColumn;
+import timenexus.temporalnetwork.MlnBuilder.EdgeLayer;
+import timenexus.temporalnetwork.MlnBuilder.IntegerColumn;
+import timenexus.temporalnetwork.MlnBuilder.Layer;
+import timenexus.temporalnetwork.MlnBuilder.LongColumn;
+import timenexus.temporalnetwork.MlnBuilder.MlnBuilderException;
+import timenexus.temporalnetwork.MlnBuilder.MlnColumn;
+import timenexus.temporalnetwork.MlnBuilder.NodeLayer;
+import timenexus.temporalnetwork.MlnBuilder.StringColumn;
+import timenexus.temporalnetwork.MlnBuilder.StringDictionary;
+import timenexus.temporalnetwork.MlnReader.MlnReaderException;
+import timenexus.utils.MlnException;
+
+/*
+ * This singleton class reads tab-separated files and fills the columns of an object from MlnBuilder.java,
+ * without importing the files as tables into Cytoscape.
+ *
+ * Each file is read once, line by line, and each value is pushed into the column of the multi-layer network,
+ * thus only the multi-layer network is kept in memory. The column types are the ones of the TimeNexus converter
+ * (such as "Node", "Source node", "Edge weight", "Node-weight layer_1" or "Other column layer_2"),
+ * given as a table from the column type to the column name (see MlnConverterTask.getColumnTypes()),
+ * or guessed from the header of the file (see guessColumnTypes()).
+ *
+ * When one file defines all layers, the node, source, target, weight and direction columns
+ * which are not specific to a layer are shared by all layers.
+ * Values of the other columns are typed as booleans, integers, longs, doubles or strings, according to their content,
+ * and kept as primitive values.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public final class MlnTsvImporter {
+
+	private static final Pattern LAYER_WEIGHT = Pattern.compile( "Weight_(\\d+)" );
+	private static final Pattern LAYERS_WEIGHT = Pattern.compile( "Weight_(\\d+)\\s*-?>\\s*(\\d+)" );
+	private static final Pattern LAYER_DIRECTION = Pattern.compile( "Direction_(\\d+)" );
+	private static final Pattern LAYERS_DIRECTION = Pattern.compile( "Direction_(\\d+)\\s*-?>\\s*(\\d+)" );
+	private static final Pattern LAYER_COLUMN = Pattern.compile( ".+_(\\d+)" );
+	private static final Pattern LAYERS_COLUMN = Pattern.compile( ".+_(\\d+)\\s*-?>\\s*(\\d+)" );
+
+	private MlnTsvImporter(){ throw new RuntimeException(); }
+
+	/*
+	 * Import tab-separated files into the tables of a multi-layer network.
+	 * @param multi-layer network
+	 * @param type of the tables (MlnBuilder.NODE, .INTRA_EDGE or .INTER_EDGE)
+	 * @param number of tables of this type (number of layers, or number of layers - 1 for inter-layer edges)
+	 * @param files to read: one file defining all tables, or one file for each table
+	 * @param column types of each file (key: column type, value: column name), in the order of the other columns,
+	 * or null to guess them from the header of each file
+	 * @param default weight if no weight column is defined for a table, or if a weight is missing
+	 * @param default direction if no direction column is defined for a table, or if a direction is missing
+	 * @throws MlnTsvImporterException if a file cannot be read or if its values do not match their column type
+	 */
+	public static void importTables( MlnBuilder mlnNetwork, int tableType, int nbTables, List<Path> files,
+			List<? extends Map<String, String>> columnTypes, double defaultWeight, boolean defaultDirection ) throws MlnTsvImporterException {
+		if ( files.size() != 1 && files.size() != nbTables )
+			throw new MlnTsvImporterException( "There should be one file for all layers or one file for each layer, not " + files.size() + ".",
+					"Import error: number of files", JOptionPane.ERROR_MESSAGE );
+		boolean[] hasWeight = new boolean[nbTables];
+		boolean[] hasDirection = new boolean[nbTables];
+		int[] rowCounts = new int[nbTables];
+		try {
+			for (int f = 0; f < files.size(); f++) {
+				Path file = files.get(f);
+				// Layers defined by the file
+				int[] fileLayers;
+				if ( files.size() > 1 ) fileLayers = new int[] { f };
+				else {
+					fileLayers = new int[nbTables];
+					for (int i = 0; i < nbTables; i++) fileLayers[i] = i;
+				}
+				//		Read the file
+				Map<String, String> fileColumnTypes = columnTypes == null ? null : columnTypes.get(f);
+				List<ColumnSink> sinks = new ArrayList<ColumnSink>();
+				try ( BufferedReader reader = Files.newBufferedReader( file, StandardCharsets.UTF_8 ) ) {
+					//		Define a sink for each column with a type
+					String line = reader.readLine();
+					if ( line == null )
+						throw new MlnTsvImporterException( "The file " + file + " is empty.", "Import error: empty file", JOptionPane.ERROR_MESSAGE );
+					List<String> header = Arrays.asList( splitLine( line ) );
+					if ( fileColumnTypes == null ) fileColumnTypes = guessColumnTypes( header, tableType, nbTables );
+					for ( Map.Entry<String, String> entry : fileColumnTypes.entrySet() ) {
+						String type = entry.getKey();
+						String name = entry.getValue();
+						int index = header.indexOf( name );
+						if ( index == -1 )
+							throw new MlnTsvImporterException( "The column \"" + name + "\" is not within the file " + file + ".",
+									"Import error: missing column", JOptionPane.ERROR_MESSAGE );
+						// Layers of the column
+						int[] colLayers = fileLayers;
+						if ( files.size() == 1 && type.contains("layer") ) {
+							int layer;
+							if ( tableType != MlnBuilder.INTER_EDGE ) layer = Integer.parseInt( type.split("_")[1] ) - 1;
+							else layer = Integer.parseInt( type.split("->")[1] ) - 2;
+							colLayers = new int[] { layer };
+						}
+						ColumnSink sink = createSink( mlnNetwork, tableType, type, name, index, colLayers, defaultWeight, defaultDirection );
+						if ( sink == null ) continue;
+						sinks.add( sink );
+						for ( int layer : colLayers ) {
+							if ( sink instanceof WeightSink ) hasWeight[layer] = true;
+							else if ( sink instanceof DirectionSink ) hasDirection[layer] = true;
+						}
+					}
+					//		Read the rows
+					int rowCount = readRows( reader, file, sinks );
+					for ( int layer : fileLayers ) rowCounts[layer] = rowCount;
+				} catch ( IOException e ) {
+					throw new MlnTsvImporterException( "The file " + file + " cannot be read:\n" + e.getMessage(),
+							"Import error", JOptionPane.ERROR_MESSAGE, e );
+				}
+				//		Add the columns to the layers
+				Layer[] tables = mlnNetwork.getTables( tableType );
+				for ( ColumnSink sink : sinks )
+					for ( int layer : sink.layers ) sink.addTo( tables[layer] );
+			}
+			//		Create the columns according to the default parameters
+			Layer[] tables = mlnNetwork.getTables( tableType );
+			for (int layer = 0; layer < nbTables; layer++) {
+				if ( ! hasWeight[layer] ) {
+					double[] weights = new double[ rowCounts[layer] ];
+					Arrays.fill( weights, defaultWeight );
+					tables[layer].setWeights( new DoubleColumn( MlnBuilder.WEIGHT, weights ) );
+				}
+				if ( ! hasDirection[layer] && tableType != MlnBuilder.NODE ) {
+					BooleanColumn directions = new BooleanColumn( MlnBuilder.DIRECTION );
+					for (int j = 0; j < rowCounts[layer]; j++) directions.addBoolean( defaultDirection );
+					( (EdgeLayer) tables[layer] ).setDirections( directions );
+				}
+			}
+		} catch ( MlnBuilderException e ) {
+			throw new MlnTsvImporterException( e.getMessage(), e.getMessageTitle(), e.getMessageType(), e );
+		}
+	}
+
+	/*
+	 * Guess the column types of a file from the names of its columns, for a file defining all layers.
+	 *
+	 * "Node" (or "name"), "source", "target", "interaction", "Weight" and "Direction" are the basic types.
+	 * "Weight_i" or "Weight_i>j" are the weights of a layer, as "Direction_i" or "Direction_i>j" for directions,
+	 * and other names ending with "_i" or "_i>j" are other columns of a layer (such as "Query_1").
+	 * The remaining columns, including those whose "i" is not a layer (such as "score_2018"), are shared by all layers.
+	 * @param names of the columns
+	 * @param type of the table (MlnBuilder.NODE, .INTRA_EDGE or .INTER_EDGE)
+	 * @param number of tables of this type (number of layers, or number of layers - 1 for inter-layer edges)
+	 * @return column types (key: column type, value: column name), in the order of the columns
+	 */
+	public static LinkedHashMap<String, String> guessColumnTypes( List<String> header, int tableType, int nbTables ) {
+		LinkedHashMap<String, String> columnTypes = new LinkedHashMap<String, String>();
+		String elementType = tableType == MlnBuilder.NODE ? "Node" : "Edge";
+		for (int i = 0; i < header.size(); i++) {
+			String name = header.get(i);
+			String lowerName = name.toLowerCase();
+			Matcher m;
+			if ( tableType == MlnBuilder.NODE && ( lowerName.equals("node") || lowerName.equals( MlnBuilder.NAME ) ) )
+				columnTypes.put( "Node", name );
+			else if ( tableType != MlnBuilder.NODE && lowerName.equals("source") )
+				columnTypes.put( "Source node", name );
+			else if ( tableType != MlnBuilder.NODE && lowerName.equals("target") )
+				columnTypes.put( "Target node", name );
+			else if ( tableType != MlnBuilder.NODE && ( lowerName.equals("interaction") || lowerName.equals("interacts with") ) )
+				columnTypes.put( "\"Interacts with\" column", name );
+			else if ( lowerName.equals("weight") )
+				columnTypes.put( elementType + " weight", name );
+			else if ( tableType != MlnBuilder.NODE && lowerName.equals("direction") )
+				columnTypes.put( "Edge direction", name );
+			else if ( tableType == MlnBuilder.INTER_EDGE && ( m = LAYERS_WEIGHT.matcher(name) ).matches() && isLayerPair( m, nbTables ) )
+				columnTypes.put( "Edge-weight layers_" + m.group(1) + "->" + m.group(2), name );
+			else if ( tableType == MlnBuilder.INTER_EDGE && ( m = LAYERS_DIRECTION.matcher(name) ).matches() && isLayerPair( m, nbTables ) )
+				columnTypes.put( "Edge-direction layers_" + m.group(1) + "->" + m.group(2), name );
+			else if ( tableType == MlnBuilder.INTER_EDGE && ( m = LAYERS_COLUMN.matcher(name) ).matches() && isLayerPair( m, nbTables ) )
+				columnTypes.put( i + "Other column layers_" + m.group(1) + "->" + m.group(2), name );
+			else if ( tableType != MlnBuilder.INTER_EDGE && ( m = LAYER_WEIGHT.matcher(name) ).matches() && isLayer( m.group(1), nbTables ) )
+				columnTypes.put( elementType + "-weight layer_" + m.group(1), name );
+			else if ( tableType == MlnBuilder.INTRA_EDGE && ( m = LAYER_DIRECTION.matcher(name) ).matches() && isLayer( m.group(1), nbTables ) )
+				columnTypes.put( "Edge-direction layer_" + m.group(1), name );
+			else if ( tableType != MlnBuilder.INTER_EDGE && ( m = LAYER_COLUMN.matcher(name) ).matches() && isLayer( m.group(1), nbTables ) )
+				columnTypes.put( i + "Other column layer_" + m.group(1), name );
+			else
+				columnTypes.put( i + "Shared column", name ); // as MlnConverterTask, to enable multiple shared columns
+		}
+		return columnTypes;
+	}
+
+	/*
+	 * @param index parsed from a column name
+	 * @param number of layers
+	 * @return true if the index is a layer, between 1 and the number of layers
+	 */
+	private static boolean isLayer( String index, int nbLayers ) {
+		try {
+			int layer = Integer.parseInt( index );
+			return layer >= 1 && layer <= nbLayers;
+		} catch ( NumberFormatException e ) {
+			return false; // index too large for an integer
+		}
+	}
+
+	/*
+	 * @param matcher of a column name ending with "_i>j"
+	 * @param number of inter-layer edge tables (number of layers - 1)
+	 * @return true if "i>j" are two consecutive layers
+	 */
+	private static boolean isLayerPair( Matcher m, int nbTables ) {
+		return isLayer( m.group(1), nbTables ) && isLayer( m.group(2), nbTables + 1 )
+				&& Integer.parseInt( m.group(2) ) == Integer.parseInt( m.group(1) ) + 1;
+	}
+
+	/*_______________________________________
+	 *
+	 *			READING
+	 *_______________________________________
+	 */
+
+	/*
+	 * Read the rows of a file, whose header has been read, and push their values into the sinks.
+	 * @return number of rows
+	 */
+	private static int readRows( BufferedReader reader, Path file, List<ColumnSink> sinks ) throws IOException, MlnTsvImporterException {
+		int row = 0;
+		String line;
+		while ( ( line = reader.readLine() ) != null ) {
+			if ( line.isEmpty() ) continue;
+			String[] values = splitLine( line );
+			for ( ColumnSink sink : sinks ) {
+				String value = sink.index < values.length ? values[sink.index] : null;
+				try {
+					sink.accept( value == null || value.isEmpty() ? null : value );
+				} catch ( IllegalArgumentException | MlnReaderException e ) {
+					throw new MlnTsvImporterException( "The value \"" + value + "\" of the column \"" + sink.name
+							+ "\" cannot be read at the line " + ( row + 2 ) + " of the file " + file + ":\n" + e.getMessage(),
+							"Import error: invalid value", JOptionPane.ERROR_MESSAGE, e );
+				}
+			}
+			row++;
+		}
+		return row;
+	}
+
+	/*
+	 * Split a line into its values, without their surrounding quotes.
+	 */
+	private static String[] splitLine( String line ) {
+		String[] values = line.split( "\t", -1 );
+		for (int i = 0; i < values.length; i++) {
+			String value = values[i];
+			if ( value.length() >= 2 && value.charAt(0) == '"' && value.charAt( value.length() - 1 ) == '"' )
+				values[i] = value.substring( 1, value.length() - 1 );
+		}
+		return values;
+	}
+
+	/*
+	 * Create the sink of a column according to its type.
+	 * @return the sink, or null if the type is ignored
+	 */
+	private static ColumnSink createSink( MlnBuilder mlnNetwork, int tableType, String type, String name, int index, int[] layers,
+			double defaultWeight, boolean defaultDirection ) {
+		StringDictionary nodeDictionary = mlnNetwork.getNodeDictionary();
+		if ( type.equals("Node") )
+			return new NodeSink( name, index, layers, new StringColumn( MlnBuilder.NAME, nodeDictionary ), NodeSink.NODE );
+		else if ( type.contains("Source") )
+			return new NodeSink( name, index, layers, new StringColumn( MlnBuilder.SOURCE, nodeDictionary ), NodeSink.SOURCE );
+		else if ( type.contains("Target") )
+			return new NodeSink( name, index, layers, new StringColumn( MlnBuilder.TARGET, nodeDictionary ), NodeSink.TARGET );
+		else if ( type.contains("Interact") )
+			return new InteractSink( name, index, layers, nodeDictionary );
+		else if ( type.contains("weight") )
+			return new WeightSink( name, index, layers, defaultWeight );
+		else if ( type.contains("direction") && tableType != MlnBuilder.NODE )
+			return new DirectionSink( name, index, layers, defaultDirection );
+		else if ( type.contains("Shared column") || type.contains("Other column") )
+			return new OtherSink( name, index, layers );
+		return null;
+	}
+
+	/*_______________________________________
+	 *
+	 *			SINKS
+	 *_______________________________________
+	 */
+
+	/*
+	 * Receive the values of a column of a file, and add them to the tables of the multi-layer network.
+	 */
+	private static abstract class ColumnSink {
+
+		final String name;
+		final int index;
+		final int[] layers;
+
+		ColumnSink( String name, int index, int[] layers ) {
+			this.name = name;
+			this.index = index;
+			this.layers = layers;
+		}
+
+		/*
+		 * Add the value of the next row (null if the value is missing).
+		 */
+		abstract void accept( String value ) throws MlnReaderException;
+
+		/*
+		 * Add the column to a table.
+		 */
+		abstract void addTo( Layer table );
+	}
+
+	/*
+	 * Node, source or target column, encoded with the node names of the multi-layer network.
+	 */
+	private static class NodeSink extends ColumnSink {
+
+		static final int NODE = 0;
+		static final int SOURCE = 1;
+		static final int TARGET = 2;
+
+		private final StringColumn col;
+		private final int role;
+
+		NodeSink( String name, int index, int[] layers, StringColumn col, int role ) {
+			super( name, index, layers );
+			this.col = col;
+			this.role = role;
+		}
+
+		void accept( String value ) { col.add( value ); }
+
+		void addTo( Layer table ) {
+			if ( role == NODE && table instanceof NodeLayer ) ( (NodeLayer) table ).setNodes( col );
+			else if ( role == SOURCE && table instanceof EdgeLayer ) ( (EdgeLayer) table ).setSources( col );
+			else if ( role == TARGET && table instanceof EdgeLayer ) ( (EdgeLayer) table ).setTargets( col );
+		}
+	}
+
+	/*
+	 * "Interacts with" column, split into source and target columns.
+	 */
+	private static class InteractSink extends ColumnSink {
+
+		private final StringColumn sources;
+		private final StringColumn targets;
+
+		InteractSink( String name, int index, int[] layers, StringDictionary nodeDictionary ) {
+			super( name, index, layers );
+			sources = new StringColumn( MlnBuilder.SOURCE, nodeDictionary );
+			targets = new StringColumn( MlnBuilder.TARGET, nodeDictionary );
+		}
+
+		void accept( String value ) throws MlnReaderException {
+			if ( value == null ) {
+				sources.add( null );
+				targets.add( null );
+			} else {
+				String[] elmts = MlnReader.parseInteractValue( value );
+				sources.add( elmts[0] );
+				targets.add( elmts[1] );
+			}
+		}
+
+		void addTo( Layer table ) {
+			if ( table instanceof EdgeLayer ) {
+				( (EdgeLayer) table ).setSources( sources );
+				( (EdgeLayer) table ).setTargets( targets );
+			}
+		}
+	}
+
+	/*
+	 * Weight column, parsed as doubles.
+	 */
+	private static class WeightSink extends ColumnSink {
+
+		private final DoubleColumn col = new DoubleColumn( MlnBuilder.WEIGHT );
+		private final double defaultWeight;
+
+		WeightSink( String name, int index, int[] layers, double defaultWeight ) {
+			super( name, index, layers );
+			this.defaultWeight = defaultWeight;
+		}
+
+		void accept( String value ) { col.addDouble( value == null ? defaultWeight : Double.parseDouble( value ) ); }
+
+		void addTo( Layer table ) { table.setWeights( col ); }
+	}
+
+	/*
+	 * Direction column, parsed as booleans.
+	 */
+	private static class DirectionSink extends ColumnSink {
+
+		private final BooleanColumn col = new BooleanColumn( MlnBuilder.DIRECTION );
+		private final boolean defaultDirection;
+
+		DirectionSink( String name, int index, int[] layers, boolean defaultDirection ) {
+			super( name, index, layers );
+			this.defaultDirection = defaultDirection;
+		}
+
+		void accept( String value ) { col.addBoolean( value == null ? defaultDirection : parseBoolean( value ) ); }
+
+		void addTo( Layer table ) {
+			if ( table instanceof EdgeLayer ) ( (EdgeLayer) table ).setDirections( col );
+		}
+	}
+
+	/*
+	 * Other column, whose values are kept as codes of a dictionary while the file is read,
+	 * then typed according to the distinct values.
+	 */
+	private static class OtherSink extends ColumnSink {
+
+		private final StringColumn col;
+		private MlnColumn<?> typedCol;
+
+		OtherSink( String name, int index, int[] layers ) {
+			super( name, index, layers );
+			col = new StringColumn( name );
+		}
+
+		void accept( String value ) { col.add( value ); }
+
+		void addTo( Layer table ) {
+			if ( typedCol == null ) typedCol = toTypedColumn( col );
+			table.addOtherColumn( typedCol );
+		}
+	}
+
+	/*
+	 * Convert a column of strings into a column of booleans, integers, longs or doubles
+	 * if all its values can be parsed as such. Each distinct value is parsed once.
+	 * @return the typed column, or the column of strings
+	 */
+	private static MlnColumn<?> toTypedColumn( StringColumn col ) {
+		StringDictionary dictionary = col.getDictionary();
+		if ( dictionary.size() == 0 ) return col;
+		String name = col.getName();
+		int size = col.size();
+		BitSet nulls = new BitSet( size );
+		for (int i = 0; i < size; i++) if ( col.getCode(i) == -1 ) nulls.set(i);
+		try {
+			boolean[] values = new boolean[ dictionary.size() ];
+			for (int code = 0; code < values.length; code++) values[code] = parseBoolean( dictionary.decode(code) );
+			BitSet rows = new BitSet( size );
+			for (int i = 0; i < size; i++) if ( ! nulls.get(i) && values[ col.getCode(i) ] ) rows.set(i);
+			return new BooleanColumn( name, rows, nulls, size );
+		} catch ( IllegalArgumentException e ) {}
+		try {
+			int[] values = new int[ dictionary.size() ];
+			for (int code = 0; code < values.length; code++) values[code] = Integer.parseInt( dictionary.decode(code) );
+			int[] rows = new int[size];
+			for (int i = 0; i < size; i++) if ( ! nulls.get(i) ) rows[i] = values[ col.getCode(i) ];
+			return new IntegerColumn( name, rows, nulls );
+		} catch ( IllegalArgumentException e ) {}
+		try {
+			long[] values = new long[ dictionary.size() ];
+			for (int code = 0; code < values.length; code++) values[code] = Long.parseLong( dictionary.decode(code) );
+			long[] rows = new long[size];
+			for (int i = 0; i < size; i++) if ( ! nulls.get(i) ) rows[i] = values[ col.getCode(i) ];
+			return new LongColumn( name, rows, nulls );
+		} catch ( IllegalArgumentException e ) {}
+		try {
+			double[] values = new double[ dictionary.size() ];
+			for (int code = 0; code < values.length; code++) values[code] = Double.parseDouble( dictionary.decode(code) );
+			double[] rows = new double[size];
+			for (int i = 0; i < size; i++) rows[i] = nulls.get(i) ? Double.NaN : values[ col.getCode(i) ];
+			return new DoubleColumn( name, rows, nulls );
+		} catch ( IllegalArgumentException e ) {}
+		return col;
+	}
+
+	private static boolean parseBoolean( String value ) {
+		if ( value.equalsIgnoreCase("true") ) return true;
+		else if ( value.equalsIgnoreCase("false") ) return false;
+		else throw new IllegalArgumentException( "\"" + value + "\" is not a boolean." );
+	}
+
+	/*_______________________________________
+	 *
+	 *			EXCEPTION
+	 *_______________________________________
+	 */
+
+	public static class MlnTsvImporterException extends MlnException {
+
+		private static final long serialVersionUID = 1L;
+
+		public MlnTsvImporterException(String message, String messageTitle, int messageType) {
+			super(message, messageTitle, messageType);
+		}
+
+		public MlnTsvImporterException(String message, String messageTitle, int messageType, Throwable cause) {
+			super(message, messageTitle, messageType, cause);
+		}
+
+	}
+
+}
@@ -6,13 +6,18 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import javax.swing.JOptionPane;
 
 import org.cytoscape.model.CyColumn;
+import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNetworkManager;
@@ -21,13 +26,22 @@ import org.cytoscape.model.CyNode;
 import org.cytoscape.model.CyRow;
 import org.cytoscape.model.CyTable;
 import org.cytoscape.model.CyTableFactory;
+import org.cytoscape.model.events.AddedEdgesEvent;
+import org.cytoscape.model.events.AddedNodesEvent;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
 import org.cytoscape.model.subnetwork.CyRootNetwork;
 import org.cytoscape.model.subnetwork.CySubNetwork;
 import org.cytoscape.session.CyNetworkNaming;
+import org.cytoscape.work.TaskMonitor;
 
+import timenexus.temporalnetwork.MlnAdjacencyIndex.Block;
+import timenexus.temporalnetwork.MlnBuilder.BooleanColumn;
 import timenexus.temporalnetwork.MlnBuilder.EdgeLayer;
 import timenexus.temporalnetwork.MlnBuilder.MlnColumn;
 import timenexus.temporalnetwork.MlnBuilder.NodeLayer;
+import timenexus.temporalnetwork.MlnBuilder.StringColumn;
+import timenexus.temporalnetwork.MlnBuilder.StringDictionary;
 import timenexus.utils.MlnException;
 import timenexus.utils.ServiceProvider;
 
@@ -66,6 +80,7 @@ public final class MlnWriter {
 	private static CyNetworkManager serviceNetworkManager = ServiceProvider.get(CyNetworkManager.class);
 	private static CyNetworkNaming serviceNetworkNaming = ServiceProvider.get(CyNetworkNaming.class);
 	private static CyNetworkFactory serviceNetworkFactory = ServiceProvider.get(CyNetworkFactory.class); 
+	private static CyEventHelper serviceEventHelper = ServiceProvider.get(CyEventHelper.class);
 
 	private MlnWriter(){ throw new RuntimeException(); }
 	
@@ -73,9 +88,9 @@ public final class MlnWriter {
 	 * Check uniqueness of node-layers within each layer.
 	 */
 	public static void checkNodeLayerUniqueness( MlnBuilder mlnData ) throws MlnWriterException {
-		ArrayList<ArrayList<String>> nodeLayers = mlnData.getNodeLayers();
+		ArrayList<List<String>> nodeLayers = mlnData.getNodeLayers();
 		for (int i = 0; i < nodeLayers.size(); i++) {
-			ArrayList<String> nodes = nodeLayers.get(i);
+			List<String> nodes = nodeLayers.get(i);
 			HashSet<String> uniqueNodes = new HashSet<String>(nodes);
 			int j =  i + 1;
 			if ( uniqueNodes.size() != nodes.size() ) throw new MlnWriterException("Node names are not unique within the layer " + j,
@@ -85,8 +100,11 @@ public final class MlnWriter {
 	
 	/*
 	 * Create a multi-layer network within Cytoscape.
+	 * @param multi-layer network
+	 * @param name of the network collection
+	 * @param task monitor reporting the progress
 	 */
-	public static void createMultiLayerNetwork( MlnBuilder mlnData, String mlnName ) throws MlnWriterException {
+	public static void createMultiLayerNetwork( MlnBuilder mlnData, String mlnName, TaskMonitor taskMonitor ) throws MlnWriterException {
 		checkNodeLayerUniqueness( mlnData ); // check
 		
 		CyNetwork cyMlnNetwork = serviceNetworkFactory.createNetwork();
@@ -102,10 +120,12 @@ public final class MlnWriter {
 		rootNetworkTable.createColumn( IS_MLN, Boolean.class, false );
 		
 		//		Create flattened network
-		CySubNetwork flattenedNet = createFlattenedNetwork( mlnData, rootNetwork, nbLayers );
+		taskMonitor.setStatusMessage("Building the flattened network...");
+		CySubNetwork flattenedNet = createFlattenedNetwork( mlnData, rootNetwork, nbLayers, taskMonitor );
 		serviceNetworkManager.addNetwork(flattenedNet);
 		
 		//		Create aggregated network and layer-networks
+		taskMonitor.setStatusMessage("Building the aggregated network and the layer-networks...");
 		List<Integer> layers = new ArrayList<Integer>();
 		for (int i = 0; i < nbLayers; i++) layers.add( i + 1 );
 		createMLNFromFlatNetwork( flattenedNet, layers );
@@ -115,8 +135,18 @@ public final class MlnWriter {
 	
 	/*
 	 * Create a flattened network from the MlnBuilder object.
+	 * 
+	 * The network is built in bulk (see BulkConstruction): the events of the network and of its tables are silenced
+	 * while the nodes and edges are added, and the rows of each layer are filled one column after the other.
+	 * Once the network is complete, the added nodes, the added edges and the values set into each table
+	 * are notified by a single event of each kind.
+	 * @param multi-layer network
+	 * @param root network of the collection
+	 * @param number of layers
+	 * @param task monitor reporting the progress
+	 * @return the flattened network
 	 */
-	public static CySubNetwork createFlattenedNetwork( MlnBuilder mlnData, CyRootNetwork rootNetwork, int nbLayers ) throws MlnWriterException {
+	public static CySubNetwork createFlattenedNetwork( MlnBuilder mlnData, CyRootNetwork rootNetwork, int nbLayers, TaskMonitor taskMonitor ) throws MlnWriterException {
 		//		Add flattened network
 		CySubNetwork flattenedNet = rootNetwork.addSubNetwork();
 		CyTable flatNetworkTable = flattenedNet.getTable(CyNetwork.class, CyNetwork.LOCAL_ATTRS);
@@ -149,85 +179,303 @@ public final class MlnWriter {
 			for ( MlnColumn<?> col : intraEdgeLayer.getOtherColumns() ) addColFromMlnToCy( sharedEdgeTable, col );
 			// Inter-layer edge
 			if ( layerID < nbLayers - 1 ) {
-				EdgeLayer interEdgeLayer = mlnData.getIntraEdgeLayerTables(layerID);
+				EdgeLayer interEdgeLayer = mlnData.getInterEdgeLayerTables(layerID);
 				for ( MlnColumn<?> col : interEdgeLayer.getOtherColumns() ) addColFromMlnToCy( sharedEdgeTable, col );
 			}
 		}
 		
-		//		Fill node and intra-layer edges of the flattened network
+		//		Count the node-layers and edges to report the progress
+		int nbNodes = 0;
+		int nbEdges = 0;
 		for (int i = 0; i < nbLayers; i++) {
-			int layerID = i + 1;
-			Hashtable<String, CyNode> addedNodes = new Hashtable<String, CyNode>();
-			// Node table
-			NodeLayer nodeLayer = mlnData.getNodeLayerTables(i);
-			for (int j = 0; j < nodeLayer.getNodes().size(); j++) {
-				// Create row
-				CyNode node = flattenedNet.addNode();
-				CyRow nodeRow = flattenedNet.getRow( node );
-				addedNodes.put( nodeLayer.getNode(j), node );
-				// Add layer ID to node name
-				String nodeNameWithID =  nodeLayer.getNode(j) + "_" + layerID;
-				// Fill columns of the row
-				nodeRow.set( CyNetwork.NAME, nodeNameWithID );
-				nodeRow.set( MlnBuilder.WEIGHT, nodeLayer.getWeight(j) );
-				for ( MlnColumn<?> col : nodeLayer.getOtherColumns() ) nodeRow.set( col.getName(), col.get(j) );
+			nbNodes += mlnData.getNodeLayerTables(i).getNodes().size();
+			nbEdges += mlnData.getIntraEdgeLayerTables(i).getSources().size();
+			if ( i < nbLayers - 1 ) nbEdges += mlnData.getInterEdgeLayerTables(i).getSources().size();
+		}
+		double progressStep = 1. / Math.max( 1, nbNodes + nbEdges );
+		int nbDone = 0;
+		taskMonitor.setProgress(0);
+		
+		//		Silence the events of the network and its tables during the construction
+		BulkConstruction construction = new BulkConstruction( flattenedNet, nbNodes, nbEdges );
+		try {
+			//		Fill node and intra-layer edges of the flattened network
+			// node-layers of each layer, indexed by node ID, and their names with the layer ID
+			CyNode[][] nodeLayers = new CyNode[nbLayers][];
+			String[][] nodeLayerNames = new String[nbLayers][];
+			for (int i = 0; i < nbLayers; i++) {
+				int layerID = i + 1;
+				nodeLayers[i] = new CyNode[ mlnData.getNodeIdCount() ];
+				nodeLayerNames[i] = new String[ mlnData.getNodeIdCount() ];
+				// Node table
+				NodeLayer nodeLayer = mlnData.getNodeLayerTables(i);
+				StringColumn nodes = nodeLayer.getNodes();
+				CyRow[] nodeRows = new CyRow[ nodes.size() ];
+				String[] nodeNames = new String[ nodes.size() ];
+				for (int j = 0; j < nodes.size(); j++) {
+					int nodeId = nodes.getCode(j);
+					// Create row
+					CyNode node = construction.addNode();
+					nodeRows[j] = flattenedNet.getRow( node );
+					nodeLayers[i][nodeId] = node;
+					// Add layer ID to node name
+					nodeNames[j] = nodes.get(j) + "_" + layerID;
+					nodeLayerNames[i][nodeId] = nodeNames[j];
+				}
+				// Fill columns of the rows
+				construction.setNodeNames( nodeRows, Arrays.asList( nodeNames ) );
+				construction.setNodeColumn( nodeRows, MlnBuilder.WEIGHT, nodeLayer.getWeights() );
+				for ( MlnColumn<?> col : nodeLayer.getOtherColumns() ) construction.setNodeColumn( nodeRows, col.getName(), col );
 				// Identify origin of the node-layer
-				nodeRow.set( LAYER_ID, layerID );
+				construction.setNodeColumn( nodeRows, LAYER_ID, Collections.nCopies( nodeRows.length, layerID ) );
+				nbDone += nodeRows.length;
+				taskMonitor.setProgress( nbDone * progressStep );
+				
+				// Edge table
+				EdgeLayer intraEdgeLayer = mlnData.getIntraEdgeLayerTables(i);
+				CyRow[] edgeRows = addEdges( construction, intraEdgeLayer, nodeLayers[i], nodeLayers[i],
+						nodeLayerNames[i], nodeLayerNames[i] );
+				// Identify origin of the edges
+				construction.setEdgeColumn( edgeRows, LAYER_ID, Collections.nCopies( edgeRows.length, layerID ) );
+				construction.setEdgeColumn( edgeRows, EDGE_LABEL, Collections.nCopies( edgeRows.length, "intra-layer" ) );
+				nbDone += edgeRows.length;
+				taskMonitor.setProgress( nbDone * progressStep );
 			}
-			// Edge table
-			EdgeLayer intraEdgeLayer = mlnData.getIntraEdgeLayerTables(i);
-			for (int j = 0; j < intraEdgeLayer.getSources().size(); j++) {
-				// Create row
-				CyNode source = addedNodes.get( intraEdgeLayer.getSource(j) );
-				CyNode target = addedNodes.get( intraEdgeLayer.getTarget(j) );
-				CyRow edgeRow = flattenedNet.getRow( flattenedNet.addEdge( source, target, intraEdgeLayer.getDirection(j) ) );
-				// Add layer ID to node names
-				String sourceNameWithID =  intraEdgeLayer.getSource(j) + "_" + layerID;
-				String targetNameWithID =  intraEdgeLayer.getTarget(j) + "_" + layerID;
-				// Fill columns of the row
-				edgeRow.set( CyNetwork.NAME, createInteractionValue(sourceNameWithID, targetNameWithID) );
-				edgeRow.set( MlnBuilder.WEIGHT, intraEdgeLayer.getWeight(j) );
-				edgeRow.set( MlnBuilder.DIRECTION, intraEdgeLayer.getDirection(j) );
-				for ( MlnColumn<?> col : intraEdgeLayer.getOtherColumns() ) edgeRow.set( col.getName(), col.get(j) );
-				// Identify origin of the edge
-				edgeRow.set( LAYER_ID, layerID );
-				edgeRow.set( EDGE_LABEL, "intra-layer" );
+			
+			//		Fill inter-layer edges
+			for (int i = 0; i < nbLayers - 1; i++) {
+				int layerID_1 = i + 1;
+				EdgeLayer interEdgeLayer = mlnData.getInterEdgeLayerTables(i);
+				// Check the nodes exist within both layers
+				for (int j = 0; j < interEdgeLayer.getSources().size(); j++) {
+					CyNode source = nodeLayers[i][ interEdgeLayer.getSources().getCode(j) ];
+					CyNode target = nodeLayers[i+1][ interEdgeLayer.getTargets().getCode(j) ];
+					if ( source == null || target == null )
+						throw new MlnWriterException( "Node name is not contained by the layer " + ( source == null ? layerID_1 : layerID_1 + 1 ),
+								"Node name not found", JOptionPane.ERROR_MESSAGE );
+				}
+				CyRow[] edgeRows = addEdges( construction, interEdgeLayer, nodeLayers[i], nodeLayers[i+1],
+						nodeLayerNames[i], nodeLayerNames[i+1] );
+				// Identify origin of the edges
+				construction.setEdgeColumn( edgeRows, LAYER_ID, Collections.nCopies( edgeRows.length, layerID_1 ) );
+				construction.setEdgeColumn( edgeRows, EDGE_LABEL, Collections.nCopies( edgeRows.length, "inter-layer" ) );
+				nbDone += edgeRows.length;
+				taskMonitor.setProgress( nbDone * progressStep );
 			}
+			
+			//		Notify the added nodes and edges, then the values set into each column
+			construction.complete();
+		} finally {
+			construction.close();
 		}
+		taskMonitor.setProgress(1);
 		
-		//		Fill inter-layer edges
-		for (int i = 0; i < nbLayers - 1; i++) {
-			int layerID_1 = i + 1;
-			int layerID_2 = i + 2;
-			EdgeLayer interEdgeLayer = mlnData.getInterEdgeLayerTables(i);
-			for (int j = 0; j < interEdgeLayer.getSources().size(); j++) {
-				// Add layer ID to node names
-				String sourceNameWithID =  interEdgeLayer.getSource(j) + "_" + layerID_1;
-				String targetNameWithID =  interEdgeLayer.getTarget(j) + "_" + layerID_2;
-				// Create row
-				CyNode source = getNodeLayer( flattenedNet, layerID_1, sourceNameWithID );
-				CyNode target = getNodeLayer( flattenedNet, layerID_2, targetNameWithID );
-				CyRow edgeRow = flattenedNet.getRow( flattenedNet.addEdge( source, target, interEdgeLayer.getDirection(j) ) );
-				// Fill columns of the row
-				edgeRow.set( CyNetwork.NAME, createInteractionValue(sourceNameWithID, targetNameWithID) );
-				edgeRow.set( MlnBuilder.WEIGHT, interEdgeLayer.getWeight(j) );
-				edgeRow.set( MlnBuilder.DIRECTION, interEdgeLayer.getDirection(j) );
-				for ( MlnColumn<?> col : interEdgeLayer.getOtherColumns() ) edgeRow.set( col.getName(), col.get(j) );
-				// Identify origin of the edge
-				edgeRow.set( LAYER_ID, layerID_1 );
-				edgeRow.set( EDGE_LABEL, "inter-layer" );
-			}
+		return flattenedNet;
+	}
+	
+	/*
+	 * Add the edges of an edge layer to the flattened network and fill their columns, one after the other.
+	 * @param construction of the flattened network
+	 * @param edge layer
+	 * @param node-layers of the sources and of the targets, indexed by node ID
+	 * @param names of the source and target node-layers, indexed by node ID
+	 * @return rows of the new edges
+	 */
+	private static CyRow[] addEdges( BulkConstruction construction, EdgeLayer edgeLayer, CyNode[] sourceNodes, CyNode[] targetNodes,
+			String[] sourceNames, String[] targetNames ) {
+		StringColumn sources = edgeLayer.getSources();
+		StringColumn targets = edgeLayer.getTargets();
+		BooleanColumn directions = edgeLayer.getDirections();
+		CyRow[] edgeRows = new CyRow[ sources.size() ];
+		String[] edgeNames = new String[ sources.size() ];
+		for (int j = 0; j < sources.size(); j++) {
+			int sourceId = sources.getCode(j);
+			int targetId = targets.getCode(j);
+			// Create row
+			CyEdge edge = construction.addEdge( sourceNodes[sourceId], targetNodes[targetId], directions.getBoolean(j) );
+			edgeRows[j] = construction.getNetwork().getRow( edge );
+			edgeNames[j] = createInteractionValue( sourceNames[sourceId], targetNames[targetId] );
 		}
+		// Fill columns of the rows
+		construction.setEdgeNames( edgeRows, Arrays.asList( edgeNames ) );
+		construction.setEdgeColumn( edgeRows, MlnBuilder.WEIGHT, edgeLayer.getWeights() );
+		construction.setEdgeColumn( edgeRows, MlnBuilder.DIRECTION, directions );
+		for ( MlnColumn<?> col : edgeLayer.getOtherColumns() ) construction.setEdgeColumn( edgeRows, col.getName(), col );
+		return edgeRows;
+	}
+	
+	/*
+	 * Construction of a network in bulk.
+	 * 
+	 * The events of the network, of its root network and of their node and edge tables are silenced while the network is filled.
+	 * Once it is complete, the added nodes and edges are notified by one event of each kind, and the values set into
+	 * the node and edge tables by one RowsSetEvent per filled column, so that the listeners of Cytoscape and TimeNexus
+	 * see the same changes as if the network was built row by row.
+	 * Only the filled rows and their values are kept until then: the records of each event are created when it is fired,
+	 * so that they can be freed before the next one instead of holding a record for every cell of the network.
+	 * As the listener keeping "shared name" in step with "name" would only be called after the construction,
+	 * the shared names are set with the names.
+	 */
+	private static class BulkConstruction implements AutoCloseable {
 		
-		return flattenedNet;
+		private final CySubNetwork network;
+		private final Set<Object> eventSources;
+		private final List<CyNode> addedNodes;
+		private final List<CyEdge> addedEdges;
+		private final List<ColumnSet> nodeColumns = new ArrayList<ColumnSet>();
+		private final List<ColumnSet> edgeColumns = new ArrayList<ColumnSet>();
+		private boolean isSilenced = true;
+		
+		/*
+		 * Silence the events of the network.
+		 * @param network to fill
+		 * @param expected number of nodes and edges
+		 */
+		private BulkConstruction( CySubNetwork network, int nbNodes, int nbEdges ) {
+			this.network = network;
+			addedNodes = new ArrayList<CyNode>( nbNodes );
+			addedEdges = new ArrayList<CyEdge>( nbEdges );
+			eventSources = getEventSources( network );
+			for ( Object source : eventSources ) serviceEventHelper.silenceEventSource( source );
+		}
+		
+		private CySubNetwork getNetwork() { return network; }
+		
+		private CyNode addNode() {
+			CyNode node = network.addNode();
+			addedNodes.add( node );
+			return node;
+		}
+		
+		private CyEdge addEdge( CyNode source, CyNode target, boolean isDirected ) {
+			CyEdge edge = network.addEdge( source, target, isDirected );
+			addedEdges.add( edge );
+			return edge;
+		}
+		
+		/*
+		 * Set the names and the shared names of node rows.
+		 */
+		private void setNodeNames( CyRow[] rows, List<String> names ) {
+			setNodeColumn( rows, CyNetwork.NAME, names );
+			setNodeColumn( rows, CyRootNetwork.SHARED_NAME, names );
+		}
+		
+		/*
+		 * Set the names and the shared names of edge rows.
+		 */
+		private void setEdgeNames( CyRow[] rows, List<String> names ) {
+			setEdgeColumn( rows, CyNetwork.NAME, names );
+			setEdgeColumn( rows, CyRootNetwork.SHARED_NAME, names );
+		}
+		
+		/*
+		 * Set a column of node rows.
+		 * @param rows to fill
+		 * @param column name
+		 * @param values of the column, in the same order as the rows
+		 */
+		private void setNodeColumn( CyRow[] rows, String colName, List<?> values ) {
+			setColumn( rows, colName, values, nodeColumns );
+		}
+		
+		/*
+		 * Set a column of edge rows.
+		 * @see setNodeColumn()
+		 */
+		private void setEdgeColumn( CyRow[] rows, String colName, List<?> values ) {
+			setColumn( rows, colName, values, edgeColumns );
+		}
+		
+		private static void setColumn( CyRow[] rows, String colName, List<?> values, List<ColumnSet> columns ) {
+			for (int j = 0; j < rows.length; j++) rows[j].set( colName, values.get(j) );
+			if ( rows.length > 0 ) columns.add( new ColumnSet( rows, colName, values ) );
+		}
+		
+		/*
+		 * Notify the added nodes and edges and the set values, once the network is complete.
+		 */
+		private void complete() {
+			close();
+			for ( CyNode node : addedNodes ) serviceEventHelper.addEventPayload( (CyNetwork) network, node, AddedNodesEvent.class );
+			for ( CyEdge edge : addedEdges ) serviceEventHelper.addEventPayload( (CyNetwork) network, edge, AddedEdgesEvent.class );
+			serviceEventHelper.flushPayloadEvents();
+			for ( ColumnSet column : nodeColumns ) serviceEventHelper.fireEvent( column.toEvent( network.getDefaultNodeTable() ) );
+			for ( ColumnSet column : edgeColumns ) serviceEventHelper.fireEvent( column.toEvent( network.getDefaultEdgeTable() ) );
+		}
+		
+		/*
+		 * Unsilence the events of the network, even if the construction failed.
+		 */
+		@Override
+		public void close() {
+			if ( ! isSilenced ) return;
+			for ( Object source : eventSources ) serviceEventHelper.unsilenceEventSource( source );
+			isSilenced = false;
+		}
+		
+		/*
+		 * Values set into a column of rows, to be notified once the network is complete.
+		 */
+		private static class ColumnSet {
+			
+			private final CyRow[] rows;
+			private final String colName;
+			private final List<?> values;
+			
+			private ColumnSet( CyRow[] rows, String colName, List<?> values ) {
+				this.rows = rows;
+				this.colName = colName;
+				this.values = values;
+			}
+			
+			/*
+			 * @return event notifying the values set into the column
+			 */
+			private RowsSetEvent toEvent( CyTable table ) {
+				List<RowSetRecord> records = new ArrayList<RowSetRecord>( rows.length );
+				for (int j = 0; j < rows.length; j++) {
+					Object value = values.get(j);
+					records.add( new RowSetRecord( rows[j], colName, value, value ) );
+				}
+				return new RowsSetEvent( table, records );
+			}
+		}
+	}
+	
+	/*
+	 * Get the objects firing events while a network is built: the network, its root network and their node and edge tables.
+	 * @param subnetwork
+	 * @return the event sources
+	 */
+	private static Set<Object> getEventSources( CySubNetwork network ) {
+		CyRootNetwork rootNetwork = network.getRootNetwork();
+		Set<Object> eventSources = new LinkedHashSet<Object>();
+		eventSources.add( network );
+		eventSources.add( rootNetwork );
+		for ( Class<? extends CyIdentifiable> type : Arrays.asList( CyNode.class, CyEdge.class ) ) {
+			eventSources.add( network.getTable( type, CyNetwork.DEFAULT_ATTRS ) );
+			eventSources.add( network.getTable( type, CyNetwork.LOCAL_ATTRS ) );
+			eventSources.add( network.getTable( type, CyNetwork.HIDDEN_ATTRS ) );
+			eventSources.add( rootNetwork.getTable( type, CyNetwork.DEFAULT_ATTRS ) );
+			eventSources.add( rootNetwork.getTable( type, CyRootNetwork.SHARED_ATTRS ) );
+			eventSources.add( rootNetwork.getTable( type, CyRootNetwork.SHARED_DEFAULT_ATTRS ) );
+		}
+		eventSources.remove( null );
+		return eventSources;
 	}
 	
 	/*
 	 * Create layer-networks from a flattened network.
 	 */
 	public static CyNetwork[] createLayerNetworksFromFlat( CyNetwork flattenedNet, List<Integer> selectedLayers ) {
-		CyTable flatNodeTable = flattenedNet.getTable(CyNode.class, CyNetwork.DEFAULT_ATTRS);
-		CyTable flatEdgeTable = flattenedNet.getTable(CyEdge.class, CyNetwork.DEFAULT_ATTRS);
+		return createLayerNetworksFromFlat( flattenedNet, selectedLayers, partitionFlatNetwork( flattenedNet, selectedLayers ) );
+	}
+	
+	/*
+	 * Create layer-networks from a flattened network, whose nodes and edges were already partitioned by layer.
+	 */
+	public static CyNetwork[] createLayerNetworksFromFlat( CyNetwork flattenedNet, List<Integer> selectedLayers, LayerPartition partition ) {
 		CyRootNetwork root = ( (CySubNetwork) flattenedNet ).getRootNetwork();
 		
 		int nbLayers = selectedLayers.size();
@@ -235,8 +483,8 @@ public final class MlnWriter {
 		for (int i = 0; i < nbLayers; i++) {
 			int layerID = selectedLayers.get(i);
 			//		Create layer-network
-			// Create layer-network
-			CySubNetwork layerNet = root.addSubNetwork();
+			// Create layer-network with its nodes and intra-layer edges
+			CySubNetwork layerNet = root.addSubNetwork( partition.getNodes(i), partition.getIntraEdges(i) );
 			layerNetworks[i] = layerNet;
 			// Name the layer
 			String layerName = serviceNetworkNaming.getSuggestedNetworkTitle( formatNumberLayer(layerID, nbLayers) + "_Layer" );
@@ -247,19 +495,6 @@ public final class MlnWriter {
 				layerNetTable.createColumn( LAYER_ID, Integer.class, false );
 			layerNetTable.getRow( layerNet.getSUID() ).set( LAYER_ID, layerID );
 			layerNetTable.getRow( layerNet.getSUID() ).set( IS_MLN, true );
-
-			//		Fill the layer-network
-			// Add nodes
-			for ( CyNode node : flattenedNet.getNodeList() ) {
-				int nodeLayerID = flatNodeTable.getRow( node.getSUID() ).get(LAYER_ID, Integer.class);
-				if ( nodeLayerID == layerID ) layerNet.addNode( node );
-			}
-			// Add intra-layer edges
-			for ( CyEdge edge : flattenedNet.getEdgeList() ) {
-				CyRow row = flatEdgeTable.getRow( edge.getSUID() );
-				if ( row.get(LAYER_ID, Integer.class) == layerID && row.get(EDGE_LABEL, String.class).equals("intra-layer") )
-					layerNet.addEdge( edge );
-			}
 		}
 		return layerNetworks;
 	}
@@ -268,9 +503,13 @@ public final class MlnWriter {
 	 * Create inter-layer edge tables from a flattened network
 	 */
 	public static CyTable[] createInterEdgeTablesFromFlat( CyNetwork flattenedNet, List<Integer> selectedLayers ) {
-		CyRootNetwork rootNetwork = ((CySubNetwork)flattenedNet).getRootNetwork(); 
-		CyTable rootEdgeTable = rootNetwork.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS);
-		
+		return createInterEdgeTablesFromFlat( flattenedNet, selectedLayers, partitionFlatNetwork( flattenedNet, selectedLayers ) );
+	}
+	
+	/*
+	 * Create inter-layer edge tables from a flattened network, whose edges were already partitioned by layer.
+	 */
+	public static CyTable[] createInterEdgeTablesFromFlat( CyNetwork flattenedNet, List<Integer> selectedLayers, LayerPartition partition ) {
 		int nbLayers = selectedLayers.size();
 		CyTable[] interEdgeTables = new CyTable[nbLayers];
 		for (int i = 0; i < nbLayers - 1; i++) {
@@ -280,25 +519,60 @@ public final class MlnWriter {
 					CyNetwork.SUID, Long.class, true, true );
 			interEdgeTables[i] = table;
 			// Add virtual columns
-			for ( CyColumn col : rootEdgeTable.getColumns() ) {
-				String colName = col.getName();
-				if ( table.getColumn( colName ) == null ) 
-					table.addVirtualColumn( colName, colName, rootEdgeTable, CyNetwork.SUID, false );
-			}
+			addInterEdgeColumns( table, flattenedNet );
 			// Fill the table
-			for ( CyEdge edge : flattenedNet.getEdgeList() ) {
-				CyRow flatRow = flattenedNet.getRow( edge );
-				if ( flatRow.get(LAYER_ID, Integer.class) == layerID && flatRow.get(EDGE_LABEL, String.class).equals("inter-layer") )
-					table.getRow( edge.getSUID() );
-			}
+			for ( CyEdge edge : partition.getInterEdges(i) ) table.getRow( edge.getSUID() );
 		}
 		return interEdgeTables;
 	}
+	
+	/*
+	 * Add to an inter-layer edge table the columns of the edges of the flattened network which it does not have yet.
+	 * @param inter-layer edge table
+	 * @param flattened network
+	 */
+	public static void addInterEdgeColumns( CyTable interEdgeTable, CyNetwork flattenedNet ) {
+		CyRootNetwork rootNetwork = ((CySubNetwork)flattenedNet).getRootNetwork(); 
+		CyTable rootEdgeTable = rootNetwork.getTable(CyEdge.class, CyNetwork.LOCAL_ATTRS);
+		for ( CyColumn col : rootEdgeTable.getColumns() ) {
+			String colName = col.getName();
+			if ( interEdgeTable.getColumn( colName ) == null ) 
+				interEdgeTable.addVirtualColumn( colName, colName, rootEdgeTable, CyNetwork.SUID, false );
+		}
+	}
+	
+	/*
+	 * Partition the nodes and edges of a flattened network by layer, in a single pass over the network.
+	 * @param flattened network
+	 * @param list of layer IDs to keep
+	 */
+	public static LayerPartition partitionFlatNetwork( CyNetwork flattenedNet, List<Integer> selectedLayers ) {
+		CyTable flatNodeTable = flattenedNet.getTable(CyNode.class, CyNetwork.DEFAULT_ATTRS);
+		CyTable flatEdgeTable = flattenedNet.getTable(CyEdge.class, CyNetwork.DEFAULT_ATTRS);
+		LayerPartition partition = new LayerPartition( selectedLayers );
+		// Nodes
+		for ( CyNode node : flattenedNet.getNodeList() ) {
+			int i = partition.getLayerIndex( flatNodeTable.getRow( node.getSUID() ).get(LAYER_ID, Integer.class) );
+			if ( i != -1 ) partition.nodes.get(i).add( node );
+		}
+		// Edges
+		for ( CyEdge edge : flattenedNet.getEdgeList() ) {
+			CyRow row = flatEdgeTable.getRow( edge.getSUID() );
+			int i = partition.getLayerIndex( row.get(LAYER_ID, Integer.class) );
+			String label = row.get(EDGE_LABEL, String.class);
+			if ( i == -1 || label == null ) continue;
+			if ( label.equals("intra-layer") ) partition.intraEdges.get(i).add( edge );
+			else if ( label.equals("inter-layer") ) partition.interEdges.get(i).add( edge );
+		}
+		return partition;
+	}
 
 	/*
 	 * Create aggregated network from a flattened network.
 	 * 
-	 * Aggregated network are undirected.
+	 * Aggregated network are undirected. Each node and edge lists the IDs of the layers where it is found,
+	 * without duplicates and in ascending order.
+	 * The network is built in bulk, as the flattened network (see BulkConstruction).
 	 */
 	public static CyNetwork createAggregatedNetwork( CyNetwork flattenedNet ) {
 		CyRootNetwork root = ( (CySubNetwork) flattenedNet ).getRootNetwork();
@@ -319,55 +593,129 @@ public final class MlnWriter {
 		edgeTable.createListColumn( LAYER_ID, Integer.class, false );
 		
 		//		Aggregate layers
-		// Create lists of unique elements
-		Map<String, List<Integer>> nodesPerLayer = new HashMap<String, List<Integer>>();
-		Map<List<String>, List<Integer>> intraEdgesPerLayer = new HashMap<List<String>, List<Integer>>();
-		// Get node data
-		for ( CyRow rowNode : flattenedNet.getDefaultNodeTable().getAllRows() ) {
-			int layerID = rowNode.get( LAYER_ID, Integer.class);
-			String nodeName = getNameFromNodeName( rowNode.get( CyNetwork.NAME, String.class ) );
-			if ( ! nodesPerLayer.containsKey(nodeName) ) nodesPerLayer.put( nodeName, new ArrayList<Integer>() );
-			nodesPerLayer.get( nodeName ).add( layerID );
-		}
-		// Get intra-layer edge data
-		for ( CyEdge cyEdge : flattenedNet.getEdgeList() ) {
-			CyRow rowEdge = flattenedNet.getRow(cyEdge);
-			if( rowEdge.get(EDGE_LABEL, String.class).equals("intra-layer") ) {
-				int layerID = rowEdge.get( LAYER_ID, Integer.class);
-				String sourceName = flattenedNet.getRow( cyEdge.getSource() ).get( CyNetwork.NAME, String.class );
-				String targetName = flattenedNet.getRow( cyEdge.getTarget() ).get( CyNetwork.NAME, String.class );
-				List<String> edge = Arrays.asList( getNameFromNodeName(sourceName), getNameFromNodeName(targetName) );
-				Collections.sort( edge );
-				if ( ! intraEdgesPerLayer.containsKey(edge) ) intraEdgesPerLayer.put( edge, new ArrayList<Integer>() );
-				intraEdgesPerLayer.get( edge ).add( layerID );
-			}
+		// Read the flattened network once
+		MlnAdjacencyIndex index = MlnAdjacencyIndex.fromFlattenedNetwork( flattenedNet );
+		int nbNodeLayers = index.getNodeCount();
+		// Give an ID to each node name, such as the node-layers of a node share the same ID
+		StringDictionary nodeNames = new StringDictionary();
+		int[] aggNodes = new int[nbNodeLayers];
+		for (int n = 0; n < nbNodeLayers; n++) aggNodes[n] = nodeNames.encode( getNameFromNodeName( index.getNodeName(n) ) );
+		// Sorted layer IDs, and the layer index of each node-layer
+		int[] layerIDs = new int[nbNodeLayers];
+		for (int n = 0; n < nbNodeLayers; n++) layerIDs[n] = index.getLayerID(n);
+		layerIDs = IntStream.of( layerIDs ).distinct().sorted().toArray();
+		int nbLayers = layerIDs.length;
+		int[] nodeLayerIndexes = new int[nbNodeLayers];
+		for (int n = 0; n < nbNodeLayers; n++) nodeLayerIndexes[n] = Arrays.binarySearch( layerIDs, index.getLayerID(n) );
+		
+		// Get node data: sort the pairs (node ID, layer index) to group the layers of each node
+		long[] nodeKeys = new long[nbNodeLayers];
+		for (int n = 0; n < nbNodeLayers; n++) nodeKeys[n] = ( (long) aggNodes[n] << 32 ) | nodeLayerIndexes[n];
+		Arrays.parallelSort( nodeKeys );
+		List<List<Integer>> nodesPerLayer = new ArrayList<List<Integer>>();
+		for (int i = 0; i < nodeNames.size(); i++) nodesPerLayer.add( new ArrayList<Integer>() );
+		for (int k = 0; k < nbNodeLayers; k++) {
+			if ( k > 0 && nodeKeys[k] == nodeKeys[k-1] ) continue;
+			nodesPerLayer.get( (int) ( nodeKeys[k] >>> 32 ) ).add( layerIDs[ (int) nodeKeys[k] ] );
 		}
 		
-		//		Fill the network
-		// Add nodes
-		Map<String, CyNode> addedNodes = new HashMap<String, CyNode>();
-		for ( String nodeName : nodesPerLayer.keySet() ) {
-			CyNode node = aggNetwork.addNode();
-			addedNodes.put(nodeName, node);
-			aggNetwork.getRow(node).set( CyNetwork.NAME, nodeName );
-			aggNetwork.getRow(node).set( LAYER_ID, nodesPerLayer.get(nodeName) );
-		}
-		// Add intra-layer edges
-		for (List<String> edgeLayers : intraEdgesPerLayer.keySet() ) {
-			// Get nodes
-			String sourceName =  edgeLayers.get(0);
-			String targetName = edgeLayers.get(1);
-			CyNode source = addedNodes.get(sourceName);
-			CyNode target = addedNodes.get(targetName);
-			// Add edge
-			CyEdge edge = aggNetwork.addEdge(source, target, false);
-			aggNetwork.getRow(edge).set( CyNetwork.NAME, createInteractionValue(sourceName, targetName) );
-			aggNetwork.getRow(edge).set( LAYER_ID, intraEdgesPerLayer.get(edgeLayers) );
+		// Get intra-layer edge data: group the edges by layer, with a key (min node ID, max node ID) for each edge
+		Block intraEdges = index.getIntraLayerEdges();
+		int[] layerOffsets = new int[nbLayers + 1];
+		for (int e = 0; e < intraEdges.getEdgeCount(); e++) layerOffsets[ nodeLayerIndexes[ intraEdges.getSource(e) ] + 1 ]++;
+		for (int i = 0; i < nbLayers; i++) layerOffsets[i+1] += layerOffsets[i];
+		long[] edgeKeys = new long[ layerOffsets[nbLayers] ];
+		int[] next = Arrays.copyOf( layerOffsets, nbLayers );
+		for (int e = 0; e < intraEdges.getEdgeCount(); e++) {
+			int source = aggNodes[ intraEdges.getSource(e) ];
+			int target = aggNodes[ intraEdges.getTarget(e) ];
+			edgeKeys[ next[ nodeLayerIndexes[ intraEdges.getSource(e) ] ]++ ] = getAggregatedEdgeKey( source, target );
+		}
+		// Reduce each layer in parallel to its sorted set of edge keys
+		int[] layerSizes = new int[nbLayers];
+		IntStream.range( 0, nbLayers ).parallel().forEach( i -> {
+			Arrays.sort( edgeKeys, layerOffsets[i], layerOffsets[i+1] );
+			int size = 0;
+			for (int k = layerOffsets[i]; k < layerOffsets[i+1]; k++)
+				if ( size == 0 || edgeKeys[ layerOffsets[i] + size - 1 ] != edgeKeys[k] ) edgeKeys[ layerOffsets[i] + size++ ] = edgeKeys[k];
+			layerSizes[i] = size;
+		} );
+		// Merge the layers into the sorted set of aggregated edges
+		long[] aggEdges = IntStream.range( 0, nbLayers )
+				.mapToObj( i -> Arrays.stream( edgeKeys, layerOffsets[i], layerOffsets[i] + layerSizes[i] ) )
+				.flatMapToLong( keys -> keys ).parallel().distinct().sorted().toArray();
+		// List the layers of each aggregated edge, in the order of the layer IDs
+		int[] edgeLayerOffsets = new int[ aggEdges.length + 1 ];
+		int[][] edgeIndexes = new int[nbLayers][];
+		IntStream.range( 0, nbLayers ).parallel().forEach( i -> {
+			edgeIndexes[i] = new int[ layerSizes[i] ];
+			for (int k = 0; k < layerSizes[i]; k++)
+				edgeIndexes[i][k] = Arrays.binarySearch( aggEdges, edgeKeys[ layerOffsets[i] + k ] );
+		} );
+		for (int i = 0; i < nbLayers; i++)
+			for ( int edge : edgeIndexes[i] ) edgeLayerOffsets[ edge + 1 ]++;
+		for (int edge = 0; edge < aggEdges.length; edge++) edgeLayerOffsets[edge+1] += edgeLayerOffsets[edge];
+		int[] edgeLayers = new int[ edgeLayerOffsets[ aggEdges.length ] ];
+		int[] nextLayer = Arrays.copyOf( edgeLayerOffsets, aggEdges.length );
+		for (int i = 0; i < nbLayers; i++)
+			for ( int edge : edgeIndexes[i] ) edgeLayers[ nextLayer[edge]++ ] = layerIDs[i];
+		
+		//		Fill the network in bulk, one column after the other
+		BulkConstruction construction = new BulkConstruction( aggNetwork, nodeNames.size(), aggEdges.length );
+		try {
+			// Add nodes
+			CyNode[] addedNodes = new CyNode[ nodeNames.size() ];
+			CyRow[] nodeRows = new CyRow[ nodeNames.size() ];
+			String[] nodeNameValues = new String[ nodeNames.size() ];
+			for (int i = 0; i < nodeNames.size(); i++) {
+				addedNodes[i] = construction.addNode();
+				nodeRows[i] = aggNetwork.getRow( addedNodes[i] );
+				nodeNameValues[i] = nodeNames.decode(i);
+			}
+			construction.setNodeNames( nodeRows, Arrays.asList( nodeNameValues ) );
+			construction.setNodeColumn( nodeRows, LAYER_ID, nodesPerLayer );
+			// Add intra-layer edges
+			CyRow[] edgeRows = new CyRow[ aggEdges.length ];
+			String[] edgeNames = new String[ aggEdges.length ];
+			List<List<Integer>> edgesPerLayer = new ArrayList<List<Integer>>( aggEdges.length );
+			for (int edge = 0; edge < aggEdges.length; edge++) {
+				// Get nodes, sorted by name
+				String sourceName = nodeNames.decode( (int) ( aggEdges[edge] >>> 32 ) );
+				String targetName = nodeNames.decode( (int) aggEdges[edge] );
+				if ( sourceName.compareTo( targetName ) > 0 ) {
+					String name = sourceName;
+					sourceName = targetName;
+					targetName = name;
+				}
+				CyNode source = addedNodes[ nodeNames.getCode(sourceName) ];
+				CyNode target = addedNodes[ nodeNames.getCode(targetName) ];
+				// Get layers
+				List<Integer> layers = new ArrayList<Integer>( edgeLayerOffsets[edge+1] - edgeLayerOffsets[edge] );
+				for (int k = edgeLayerOffsets[edge]; k < edgeLayerOffsets[edge+1]; k++) layers.add( edgeLayers[k] );
+				edgesPerLayer.add( layers );
+				// Add edge
+				edgeRows[edge] = aggNetwork.getRow( construction.addEdge( source, target, false ) );
+				edgeNames[edge] = createInteractionValue( sourceName, targetName );
+			}
+			construction.setEdgeNames( edgeRows, Arrays.asList( edgeNames ) );
+			construction.setEdgeColumn( edgeRows, LAYER_ID, edgesPerLayer );
+			
+			//		Notify the added nodes and edges, then the values set into each column
+			construction.complete();
+		} finally {
+			construction.close();
 		}
 		
 		return aggNetwork;
 	}
 	
+	/*
+	 * @return key of an undirected edge of the aggregated network, packing the lowest node ID and then the highest one
+	 */
+	private static long getAggregatedEdgeKey( int source, int target ) {
+		return ( (long) Math.min( source, target ) << 32 ) | Math.max( source, target );
+	}
+	
 	/*
 	 * Create multi-layer network collection from a flattened network.
 	 * @param flattened network used to generate the MLN
@@ -378,15 +726,26 @@ public final class MlnWriter {
 		CyNetwork extractedAggNetwork = MlnWriter.createAggregatedNetwork( flattenedNetwork );
 		serviceNetworkManager.addNetwork(extractedAggNetwork);
 		// Create layer-networks
-		CyNetwork[] extractedLayerNetworks = MlnWriter.createLayerNetworksFromFlat( flattenedNetwork, selectedLayers );
-		CyTable[] interEdgeTables = MlnWriter.createInterEdgeTablesFromFlat( flattenedNetwork, selectedLayers );
+		LayerPartition partition = partitionFlatNetwork( flattenedNetwork, selectedLayers );
+		CyNetwork[] extractedLayerNetworks = MlnWriter.createLayerNetworksFromFlat( flattenedNetwork, selectedLayers, partition );
+		CyTable[] interEdgeTables = MlnWriter.createInterEdgeTablesFromFlat( flattenedNetwork, selectedLayers, partition );
+		addLayerNetworks( extractedLayerNetworks, interEdgeTables, selectedLayers );
+	}
+	
+	/*
+	 * Register layer-networks, with the inter-layer edge tables linking each layer to the next one.
+	 * @param layer-networks
+	 * @param inter-layer edge tables
+	 * @param list of layer IDs of the MLN
+	 */
+	public static void addLayerNetworks( CyNetwork[] layerNetworks, CyTable[] interEdgeTables, List<Integer> selectedLayers ) {
 		for (int i = 0; i < selectedLayers.size(); i++) {
 			int layerID = selectedLayers.get(i);
-			serviceNetworkManager.addNetwork( extractedLayerNetworks[i] );
+			serviceNetworkManager.addNetwork( layerNetworks[i] );
 			String tableName = MlnWriter.getInterEdgeTableName(layerID, layerID+1);
 			if ( i < selectedLayers.size() - 1 ) {
-				serviceNetTableManager.setTable( extractedLayerNetworks[i], CyEdge.class, tableName, interEdgeTables[i]  );
-				serviceNetTableManager.setTable( extractedLayerNetworks[i+1], CyEdge.class, tableName, interEdgeTables[i] );
+				serviceNetTableManager.setTable( layerNetworks[i], CyEdge.class, tableName, interEdgeTables[i]  );
+				serviceNetTableManager.setTable( layerNetworks[i+1], CyEdge.class, tableName, interEdgeTables[i] );
 			}
 		}
 	}
@@ -431,33 +790,6 @@ public final class MlnWriter {
 		return String.join("_", name);
 	}
 	
-	/*
-	 * Get the CyNode object related to the name of a node-layer.
-	 * @param flattenedNetwork: network where the node should be
-	 * @param layerID: rank of the layer (start from 1) within the column LAYER_ID
-	 * @param nodeName: name of the node to retrieve
-	 * @return CyNode corresponding to the given node name
-	 */
-	public static CyNode getNodeLayer( CyNetwork flattenedNetwork, int layerID, String nodeName ) throws MlnWriterException {
-		// Get node table
-		CyTable nodeTable = flattenedNetwork.getDefaultNodeTable();
-		String primaryKeyColname = nodeTable.getPrimaryKey().getName();
-		// Get rows matching with the nodeName
-		ArrayList<CyRow> matchingRows = new ArrayList<CyRow>( nodeTable.getMatchingRows( MlnBuilder.NAME, nodeName ) );
-		// Get the row corresponding to the layer ID
-		ArrayList<CyRow> layerNodeRows = new ArrayList<CyRow>();
-		for (CyRow cyRow : matchingRows)
-			if ( cyRow.get(LAYER_ID, Integer.class) == layerID ) layerNodeRows.add(cyRow);
-		// Return error if there is not exactly one node within the table
-		if ( layerNodeRows.size() > 1 ) throw new MlnWriterException( "Node names not unique",
-				"Duplicated node names", JOptionPane.ERROR_MESSAGE );
-		if ( layerNodeRows.size() == 0 ) throw new MlnWriterException( "Node name is not contained by the layer " + layerID,
-				"Node name not found", JOptionPane.ERROR_MESSAGE );
-		// Return the node
-		Long nodeId = layerNodeRows.get(0).get(primaryKeyColname, Long.class);
-		return flattenedNetwork.getNode( nodeId );
-	}
-	
 	/*
 	 * Return all CyNode objects related to the name of node-layer, grouped by layer.
 	 * @param flattened network
@@ -484,6 +816,51 @@ public final class MlnWriter {
 		return sourceName + " (interacts with) " + targetName;
 	}
 
+	/*
+	 * Nodes, intra-layer edges and inter-layer edges of a flattened network, for each selected layer.
+	 * 
+	 * Inter-layer edges are stored with the layer of their source.
+	 */
+	public static class LayerPartition {
+		
+		private final Map<Integer, Integer> layerIndexes = new HashMap<Integer, Integer>();
+		private final List<List<CyNode>> nodes = new ArrayList<List<CyNode>>();
+		private final List<List<CyEdge>> intraEdges = new ArrayList<List<CyEdge>>();
+		private final List<List<CyEdge>> interEdges = new ArrayList<List<CyEdge>>();
+		
+		private LayerPartition( List<Integer> selectedLayers ) {
+			for (int i = 0; i < selectedLayers.size(); i++) {
+				layerIndexes.put( selectedLayers.get(i), i );
+				nodes.add( new ArrayList<CyNode>() );
+				intraEdges.add( new ArrayList<CyEdge>() );
+				interEdges.add( new ArrayList<CyEdge>() );
+			}
+		}
+		
+		/*
+		 * @return index of the layer ID within the selected layers, or -1 if it was not selected
+		 */
+		private int getLayerIndex( Integer layerID ) {
+			Integer i = layerID == null ? null : layerIndexes.get( layerID );
+			return i == null ? -1 : i;
+		}
+		
+		/*
+		 * @param index of the layer within the selected layers
+		 */
+		public List<CyNode> getNodes( int i ) { return nodes.get(i); }
+		
+		/*
+		 * @param index of the layer within the selected layers
+		 */
+		public List<CyEdge> getIntraEdges( int i ) { return intraEdges.get(i); }
+		
+		/*
+		 * @param index of the layer within the selected layers
+		 */
+		public List<CyEdge> getInterEdges( int i ) { return interEdges.get(i); }
+	}
+	
 	/*_______________________________________
 	 * 
 	 *			EXCEPTION
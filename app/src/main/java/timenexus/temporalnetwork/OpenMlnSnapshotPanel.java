@@ -0,0 +1,38 @@
+package timenexus.temporalnetwork;
+
+import java.io.File;
+
+import javax.swing.JOptionPane;
+
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+
+import timenexus.utils.MlnException;
+
+/*
+ * Open a multi-layer network saved as a snapshot file (see MlnSnapshot.java).
+ * 
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class OpenMlnSnapshotPanel extends AbstractTask {
+	
+	@Tunable(description="Snapshot file:", params="input=true",
+			tooltip="File where a multi-layer network has been saved by TimeNexus.")
+	public File snapshotFile;
+	
+	@Override
+	public void run(TaskMonitor taskMonitor) throws MlnException {
+		taskMonitor.setTitle("TimeNexus - Open MLN snapshot");
+		if ( snapshotFile == null )
+			throw new MlnException("No file was selected.", "Empty file selection", JOptionPane.ERROR_MESSAGE);
+		// Load the multi-layer network
+		taskMonitor.setStatusMessage("Loading the multi-layer network...");
+		MlnBuilder mlnData = MlnSnapshot.read( snapshotFile );
+		if ( cancelled ) return;
+		// Create it into Cytoscape
+		taskMonitor.setStatusMessage("Building the multi-layer network...");
+		MlnWriter.createMultiLayerNetwork( mlnData, snapshotFile.getName(), taskMonitor );
+	}
+	
+}
@@ -0,0 +1,52 @@
+package timenexus.temporalnetwork;
+
+import java.io.File;
+import java.util.TreeMap;
+
+import javax.swing.JOptionPane;
+
+import org.cytoscape.model.subnetwork.CyRootNetwork;
+import org.cytoscape.model.subnetwork.CySubNetwork;
+import org.cytoscape.work.AbstractTask;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.util.ListSingleSelection;
+
+import timenexus.utils.MlnException;
+
+/*
+ * Save a multi-layer network into a snapshot file (see MlnSnapshot.java),
+ * which is reopened without going through the Cytoscape tables.
+ * 
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class SaveMlnSnapshotPanel extends AbstractTask {
+	
+	@Tunable(description="Select the multi-layer network to save:",
+			tooltip="The layer-networks of the multi-layer network are saved into the snapshot.")
+	public ListSingleSelection<CyRootNetwork> availableNetworks = new ListSingleSelection<CyRootNetwork>();
+	
+	@Tunable(description="Snapshot file:", params="input=false",
+			tooltip="File where the multi-layer network is saved.")
+	public File snapshotFile;
+	
+	public SaveMlnSnapshotPanel() {
+		availableNetworks.setPossibleValues( MlnReader.getMultiLayerNetworks() );
+	}
+	
+	@Override
+	public void run(TaskMonitor taskMonitor) throws Exception {
+		taskMonitor.setTitle("TimeNexus - Save MLN snapshot");
+		if ( snapshotFile == null )
+			throw new MlnException("No file was selected.", "Empty file selection", JOptionPane.ERROR_MESSAGE);
+		// Read the multi-layer network from its layer-networks
+		taskMonitor.setStatusMessage("Reading the multi-layer network...");
+		TreeMap<Integer, CySubNetwork> mlnLayers = MlnReader.getLayersFromMultiLayerNetwork( availableNetworks.getSelectedValue() );
+		MlnBuilder mlnData = MlnReader.buildMultiLayerNetwork( mlnLayers );
+		if ( cancelled ) return;
+		// Save it
+		taskMonitor.setStatusMessage("Saving the multi-layer network...");
+		MlnSnapshot.write( mlnData, snapshotFile );
+	}
+	
+}
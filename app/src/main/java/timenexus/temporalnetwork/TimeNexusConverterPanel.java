@@ -19,6 +19,7 @@ import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JFileChooser;
 import javax.swing.JFormattedTextField;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -162,6 +163,10 @@ public class TimeNexusConverterPanel extends AbstractTask {
 		allNodesAreQueriesCheck = new JCheckBox("All nodes are query nodes.");
 		//		Submit
 		JButton submit = new JButton( "Convert to multi-layer network" );
+		JButton submitTsvFiles = new JButton( "Convert TSV files of a directory" );
+		submitTsvFiles.setToolTipText( "Convert the files " + MlnConverterTask.NODE_TABLE_FILE + ", "
+				+ MlnConverterTask.INTRA_EDGE_TABLE_FILE + " and " + MlnConverterTask.INTER_EDGE_TABLE_FILE
+				+ " of a directory without importing them into Cytoscape. Each file defines all layers." );
 	    
 	    /**** Define rows of the form ****/
 		//		Number of layers
@@ -188,6 +193,7 @@ public class TimeNexusConverterPanel extends AbstractTask {
 		Box submitBox = Box.createHorizontalBox();
 		submitBox.add( Box.createGlue() );
 		submitBox.add( submit );
+		submitBox.add( submitTsvFiles );
 		submitBox.add( Box.createGlue() );
 		
 	    /***** Define groups of the form ****/
@@ -229,6 +235,9 @@ public class TimeNexusConverterPanel extends AbstractTask {
 				defaultNodeWeightField, defaultIntraEdgeWeightField, defaultInterEdgeWeightField,
 				nodeTabs, intraEdgeTabs, interEdgeTabs
 				) );
+		submitTsvFiles.addActionListener( new SubmitTsvFiles( frame,
+				defaultNodeWeightField, defaultIntraEdgeWeightField, defaultInterEdgeWeightField
+				) );
 		
 		/**** Set default checked boxes ****/
 		isNodeAlignedCheck.setSelected(true);
@@ -747,7 +756,7 @@ public class TimeNexusConverterPanel extends AbstractTask {
 
 		public void actionPerformed(ActionEvent e) {
 			// Run extraction
-			TaskIterator converter = new TaskIterator( new MlnConverterTask(
+			execute( new MlnConverterTask(
 					defaultNodeWeightField,
 					defaultIntraEdgeWeightField, defaultInterEdgeWeightField,
 					nodeTabs, intraEdgeTabs, interEdgeTabs,
@@ -755,7 +764,13 @@ public class TimeNexusConverterPanel extends AbstractTask {
 					isNodeAlignedCheck, isEdgeAlignedCheck, isEquivalentCouplingCheck, autoDiagonalCouplingCheck,
 					areIntraEdgeDirectedCheck, areInterEdgeDirectedCheck, allNodesAreQueriesCheck
 					) );
-			ServiceProvider.get(TaskManager.class).execute( converter, new ConverterObserver() );
+		}
+		
+		/*
+		 * Run the converter.
+		 */
+		protected void execute( MlnConverterTask converterTask ) {
+			ServiceProvider.get(TaskManager.class).execute( new TaskIterator( converterTask ), new ConverterObserver() );
 		}
 		
 		/*
@@ -785,6 +800,32 @@ public class TimeNexusConverterPanel extends AbstractTask {
 		
 	}
 	
-	
+	/*
+	 * Submit the tab-separated files of a directory
+	 */
+	private class SubmitTsvFiles extends Submit {
+
+		public SubmitTsvFiles(JFrame frame, JFormattedTextField defaultNodeWeightField,
+				JFormattedTextField defaultIntraEdgeWeightField, JFormattedTextField defaultInterEdgeWeightField) {
+			super( frame, defaultNodeWeightField, defaultIntraEdgeWeightField, defaultInterEdgeWeightField, null, null, null );
+		}
+
+		public void actionPerformed(ActionEvent e) {
+			// Select the directory
+			JFileChooser chooser = new JFileChooser();
+			chooser.setDialogTitle( "Select the directory of the TSV files" );
+			chooser.setFileSelectionMode( JFileChooser.DIRECTORIES_ONLY );
+			if ( chooser.showOpenDialog( super.frame ) != JFileChooser.APPROVE_OPTION ) return;
+			// Run extraction
+			execute( new MlnConverterTask(
+					super.defaultNodeWeightField,
+					super.defaultIntraEdgeWeightField, super.defaultInterEdgeWeightField,
+					chooser.getSelectedFile().toPath(),
+					numberLayers,
+					isNodeAlignedCheck, isEdgeAlignedCheck, isEquivalentCouplingCheck, autoDiagonalCouplingCheck,
+					areIntraEdgeDirectedCheck, areInterEdgeDirectedCheck, allNodesAreQueriesCheck
+					) );
+		}
+	}
 	
 }
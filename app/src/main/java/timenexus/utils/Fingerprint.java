@@ -0,0 +1,69 @@
+package timenexus.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * SHA-256 hash of a sequence of strings, such as the key of an app call (see AppResultCache)
+ * or the fingerprint of an extraction (see ExtractionCheckpoint).
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public final class Fingerprint {
+
+	private final MessageDigest digest;
+
+	private Fingerprint( MessageDigest digest ) {
+		this.digest = digest;
+	}
+
+	/*
+	 * @return an empty hash, or null if SHA-256 is not available
+	 */
+	public static Fingerprint create() {
+		try {
+			return new Fingerprint( MessageDigest.getInstance("SHA-256") );
+		} catch (NoSuchAlgorithmException err) {
+			Print.error(err);
+			return null;
+		}
+	}
+
+	/*
+	 * Add a string to the hash, preceded by its length so that consecutive strings cannot be confused.
+	 */
+	public Fingerprint add( String value ) {
+		byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+		int n = bytes.length;
+		digest.update( new byte[] { (byte) (n >>> 24), (byte) (n >>> 16), (byte) (n >>> 8), (byte) n } );
+		digest.update( bytes );
+		return this;
+	}
+
+	/*
+	 * Add a label then the sorted values to the hash, so that the hash does not depend on the order of the values.
+	 * @param label of the values
+	 * @param values, such as the nodes or the edges of a network
+	 */
+	public Fingerprint addSorted( String label, Collection<String> values ) {
+		List<String> sortedValues = new ArrayList<String>( values );
+		Collections.sort( sortedValues );
+		add( label );
+		for ( String value : sortedValues ) add( value );
+		return this;
+	}
+
+	/*
+	 * @return the hexadecimal hash of the added strings
+	 */
+	public String toHex() {
+		StringBuilder hex = new StringBuilder();
+		for ( byte b : digest.digest() ) hex.append( String.format( "%02x", b ) );
+		return hex.toString();
+	}
+}
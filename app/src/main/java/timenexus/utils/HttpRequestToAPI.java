@@ -1,5 +1,6 @@
 package timenexus.utils;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.ProxySelector;
 import java.net.URI;
@@ -7,36 +8,76 @@ import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.net.http.HttpRequest.BodyPublisher;
 import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandler;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import org.json.JSONObject;
 
 /*
  * Manage HTTP requests.
- * 
+ *
+ * All the requests go through a single HTTP client, so that the connections to the apps are reused between the requests
+ * (with HTTP/2 if the server supports it, HTTP/1.1 otherwise).
+ * The number of requests running at the same time to a host is limited. The idempotent requests, such as the polls
+ * for the results of a job, are sent again if they failed because the server was unavailable (HTTP status 502, 503 or 504)
+ * or because the connection was lost, after a random delay which grows with the number of attempts.
+ * The other requests are not sent again, as the server may have processed them before the failure.
+ *
  * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
  */
 public class HttpRequestToAPI {
-	
+
+	// Client shared by all the requests, created on the first request
+	private static HttpClient client;
+	// Maximal time to connect to a server
+	private static Duration connectTimeout = Duration.ofSeconds(10);
+	// Maximal time to wait for a response (null: no limit, as the apps may take long to process large networks)
+	private static volatile Duration requestTimeout = null;
+	// Maximal number of requests running at the same time to a host
+	private static int maxRequestsPerHost = 4;
+	// Requests running and waiting for each host (key: host and port)
+	private static final Map<String, Host> hosts = new ConcurrentHashMap<String, Host>();
+	// Number of times a failed idempotent request is sent again
+	private static int maxRetries = 3;
+	// Delay before the first retry, doubled for each next retry
+	private static Duration retryDelay = Duration.ofMillis(500);
+	// Longest delay before a retry
+	private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(30);
+
 	private HttpRequestToAPI() {}
-	
+
 	/*
 	 * Send a json object to a simple REST interface.
 	 * @param URL of the REST interface
 	 * @param json object to send
 	 */
 	public static HttpResponse<String> sendJSON( String url, JSONObject json )
-			throws URISyntaxException, IOException, InterruptedException {		
-		HttpRequest request = HttpRequest.newBuilder()
-				.uri(new URI( url ))
-				.headers( "Content-Type", "application/json", "Accept", "application/json" )
-				.POST( BodyPublishers.ofString( json.toString() ) )
-				.build();
-		
-		return sendRequest(request);
+			throws URISyntaxException, IOException, InterruptedException {
+		return sendRequest( createJSONRequest( url, json ) );
 	}
-	
+
+	/*
+	 * Send a json object to a simple REST interface, without waiting for the response.
+	 * @see sendJSON( String, JSONObject )
+	 * @return the response, which can be cancelled to abort the request
+	 */
+	public static CompletableFuture<HttpResponse<String>> sendJSONAsync( String url, JSONObject json ) throws URISyntaxException {
+		return sendRequestAsync( createJSONRequest( url, json ), BodyHandlers.ofString(), false );
+	}
+
 	/*
 	 * Create and send a SOAP request.
 	 * @param URL of the SOAP service
@@ -44,27 +85,286 @@ public class HttpRequestToAPI {
 	 * @param name of the SOAPAction
 	 */
 	public static HttpResponse<String> sendSOAP( String url, String xml, String SOAPAction )
-			throws URISyntaxException, IOException, InterruptedException { 		
-		HttpRequest request = HttpRequest.newBuilder()
-				.uri(new URI( url ))
+			throws URISyntaxException, IOException, InterruptedException {
+		return sendRequest( createSOAPRequest( url, BodyPublishers.ofString( xml ), SOAPAction ) );
+	}
+
+	/*
+	 * Create and send a SOAP request, without waiting for the response.
+	 * @see sendSOAP( String, String, String )
+	 * @return the response, which can be cancelled to abort the request
+	 */
+	public static CompletableFuture<HttpResponse<String>> sendSOAPAsync( String url, String xml, String SOAPAction )
+			throws URISyntaxException {
+		return sendRequestAsync( createSOAPRequest( url, BodyPublishers.ofString( xml ), SOAPAction ), BodyHandlers.ofString(), false );
+	}
+
+	/*
+	 * Send a SOAP request whose XML data is written as it is sent, without waiting for the response.
+	 * @param URL of the SOAP service
+	 * @param XML data (e.g. BodyPublishers.ofInputStream(), which is read again if the request is sent again)
+	 * @param name of the SOAPAction
+	 * @param reading of the response (e.g. BodyHandlers.ofInputStream() to parse the response as it is received)
+	 * @return the response, which can be cancelled to abort the request
+	 */
+	public static <T> CompletableFuture<HttpResponse<T>> sendSOAPAsync( String url, BodyPublisher xml, String SOAPAction,
+			BodyHandler<T> responseHandler ) throws URISyntaxException {
+		return sendSOAPAsync( url, xml, SOAPAction, responseHandler, false );
+	}
+
+	/*
+	 * Send a SOAP request whose XML data is written as it is sent, without waiting for the response.
+	 * @see sendSOAPAsync( String, BodyPublisher, String, BodyHandler )
+	 * @param true if the request can be sent again after a failure, as sending it twice has the same effect as once
+	 * (e.g. a poll for the results of a job)
+	 */
+	public static <T> CompletableFuture<HttpResponse<T>> sendSOAPAsync( String url, BodyPublisher xml, String SOAPAction,
+			BodyHandler<T> responseHandler, boolean isIdempotent ) throws URISyntaxException {
+		return sendRequestAsync( createSOAPRequest( url, xml, SOAPAction ), responseHandler, isIdempotent );
+	}
+
+	private static HttpRequest createJSONRequest( String url, JSONObject json ) throws URISyntaxException {
+		return newRequestBuilder( url )
+				.headers( "Content-Type", "application/json", "Accept", "application/json" )
+				.POST( BodyPublishers.ofString( json.toString() ) )
+				.build();
+	}
+
+	private static HttpRequest createSOAPRequest( String url, BodyPublisher xml, String SOAPAction ) throws URISyntaxException {
+		return newRequestBuilder( url )
 				.headers( "Accept", "text/xml, multipart/related",
 						"Content-Type", "text/xml; charset=utf-8",
 						"SOAPAction", SOAPAction )
-				.POST( BodyPublishers.ofString( xml ) )
+				.POST( xml )
 				.build();
-		
-		return sendRequest(request);
 	}
-	
+
+	/*
+	 * @return builder of a request to a URL, with the request timeout if there is one
+	 */
+	private static HttpRequest.Builder newRequestBuilder( String url ) throws URISyntaxException {
+		HttpRequest.Builder builder = HttpRequest.newBuilder().uri(new URI( url ));
+		Duration timeout = requestTimeout;
+		if ( timeout != null ) builder.timeout( timeout );
+		return builder;
+	}
+
 	/*
-	 * Send HttpRequest.
+	 * Send HttpRequest and wait for the response.
 	 */
 	private static HttpResponse<String> sendRequest( HttpRequest request ) throws IOException, InterruptedException {
-		return HttpClient
-				  .newBuilder()
-				  .proxy(ProxySelector.getDefault())
-				  .build()
-				  .send( request, BodyHandlers.ofString() );
+		CompletableFuture<HttpResponse<String>> response = sendRequestAsync( request, BodyHandlers.ofString(), false );
+		try {
+			return response.get();
+		} catch ( InterruptedException err ) {
+			response.cancel( true );
+			throw err;
+		} catch ( ExecutionException err ) {
+			Throwable cause = err.getCause();
+			if ( cause instanceof IOException ) throw (IOException) cause;
+			else if ( cause instanceof RuntimeException ) throw (RuntimeException) cause;
+			else if ( cause instanceof Error ) throw (Error) cause;
+			else throw new IOException( cause );
+		}
+	}
+
+	/*
+	 * Send HttpRequest, and send it again if it is idempotent and if the server was unavailable or the connection was lost.
+	 * 500 errors are not sent again, as the apps use them to report errors about the request itself
+	 * (SOAP faults from Anat, invalid queries for PathLinker).
+	 * @param request
+	 * @param reading of the response
+	 * @param true if the request can be sent again after a failure
+	 * @return the response, which can be cancelled to abort the request
+	 */
+	private static <T> CompletableFuture<HttpResponse<T>> sendRequestAsync( HttpRequest request, BodyHandler<T> responseHandler,
+			boolean isIdempotent ) {
+		CompletableFuture<HttpResponse<T>> response = new CompletableFuture<HttpResponse<T>>();
+		sendAttempt( request, responseHandler, getHost( request.uri() ), isIdempotent ? maxRetries : 0, 0, response );
+		return response;
+	}
+
+	/*
+	 * Send HttpRequest once a request to its host can start.
+	 * @param request
+	 * @param reading of the response
+	 * @param host of the request
+	 * @param number of times the request can be sent again
+	 * @param number of the previous attempts
+	 * @param response to complete
+	 */
+	private static <T> void sendAttempt( HttpRequest request, BodyHandler<T> responseHandler, Host host, int retries, int attempt,
+			CompletableFuture<HttpResponse<T>> response ) {
+		host.acquire().thenRun( () -> {
+			// The request was cancelled while waiting
+			if ( response.isDone() ) {
+				host.release();
+				return;
+			}
+			CompletableFuture<HttpResponse<T>> exchange;
+			try {
+				exchange = getClient().sendAsync( request, responseHandler );
+			} catch ( Throwable err ) {
+				// e.g. the client cannot be created: the slot is given to the next request, and the request fails
+				host.release();
+				response.completeExceptionally( err );
+				return;
+			}
+			// Abort the exchange if the request is cancelled
+			response.whenComplete( (r, err) -> exchange.cancel( true ) );
+			exchange.whenComplete( (r, err) -> {
+				host.release();
+				if ( response.isDone() ) {
+					discard( r );
+					return;
+				}
+				Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+				boolean isRetried = attempt < retries && ( cause == null
+						? r.statusCode() == 502 || r.statusCode() == 503 || r.statusCode() == 504
+						// e.g. connection reset or refused, but a server which is reachable and too slow would not answer faster
+						: cause instanceof IOException && ! ( cause instanceof HttpTimeoutException ) );
+				if ( isRetried ) {
+					discard( r );
+					CompletableFuture.delayedExecutor( getRetryDelay( attempt ), TimeUnit.MILLISECONDS )
+							.execute( () -> sendAttempt( request, responseHandler, host, retries, attempt + 1, response ) );
+				}
+				else if ( cause == null ) response.complete( r );
+				else response.completeExceptionally( cause );
+			} );
+		} );
+	}
+
+	/*
+	 * Close the body of a response which is not used, if it is read as a stream, so that its connection is released.
+	 */
+	private static void discard( HttpResponse<?> response ) {
+		if ( response == null || ! ( response.body() instanceof Closeable ) ) return;
+		try {
+			( (Closeable) response.body() ).close();
+		} catch ( IOException err ) {
+			// The connection is closed
+		}
+	}
+
+	/*
+	 * Get a random time between 0 and the retry delay doubled for each attempt ("full jitter"),
+	 * so that the requests which failed at the same time are not sent again at the same time.
+	 * @return time to wait before the next attempt, in milliseconds
+	 */
+	static long getRetryDelay( int attempt ) {
+		long maxDelay = Math.min( MAX_RETRY_DELAY.toMillis(), retryDelay.toMillis() << Math.min( attempt, 20 ) );
+		return ThreadLocalRandom.current().nextLong( maxDelay + 1 );
+	}
+
+	/*
+	 * @return the client shared by all the requests
+	 */
+	private static synchronized HttpClient getClient() {
+		if ( client == null )
+			client = HttpClient
+					  .newBuilder()
+					  .version( HttpClient.Version.HTTP_2 )
+					  .connectTimeout( connectTimeout )
+					  .proxy(ProxySelector.getDefault())
+					  .build();
+		return client;
+	}
+
+	/*
+	 * @return the host of a URI
+	 */
+	private static Host getHost( URI uri ) {
+		return hosts.computeIfAbsent( uri.getHost() + ":" + uri.getPort(), host -> new Host( maxRequestsPerHost ) );
+	}
+
+	public static synchronized Duration getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/*
+	 * Set the maximal time to connect to a server. The connections which are open are kept.
+	 */
+	public static synchronized void setConnectTimeout( Duration connectTimeout ) {
+		HttpRequestToAPI.connectTimeout = connectTimeout;
+		client = null;
+	}
+
+	public static Duration getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	/*
+	 * Set the maximal time to wait for the response of the next requests (null: no limit).
+	 */
+	public static void setRequestTimeout( Duration requestTimeout ) {
+		HttpRequestToAPI.requestTimeout = requestTimeout;
+	}
+
+	public static int getMaxRequestsPerHost() {
+		return maxRequestsPerHost;
+	}
+
+	/*
+	 * Set the maximal number of requests running at the same time to a host, for the hosts which were not requested yet.
+	 */
+	public static void setMaxRequestsPerHost( int maxRequestsPerHost ) {
+		HttpRequestToAPI.maxRequestsPerHost = Math.max( 1, maxRequestsPerHost );
+		hosts.clear();
+	}
+
+	public static int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public static void setMaxRetries( int maxRetries ) {
+		HttpRequestToAPI.maxRetries = Math.max( 0, maxRetries );
+	}
+
+	public static Duration getRetryDelay() {
+		return retryDelay;
+	}
+
+	public static void setRetryDelay( Duration retryDelay ) {
+		HttpRequestToAPI.retryDelay = retryDelay;
+	}
+
+	/*
+	 * Requests to a host: at most maxRequestsPerHost requests run at the same time, and the next ones wait in a queue,
+	 * without blocking any thread.
+	 */
+	private static class Host {
+
+		private int nbFreeSlots;
+		private final Queue<CompletableFuture<Void>> waitingRequests = new ArrayDeque<CompletableFuture<Void>>();
+
+		private Host( int nbSlots ) {
+			nbFreeSlots = nbSlots;
+		}
+
+		/*
+		 * @return completed when the request can start
+		 */
+		private synchronized CompletableFuture<Void> acquire() {
+			if ( nbFreeSlots > 0 ) {
+				nbFreeSlots--;
+				return CompletableFuture.completedFuture( null );
+			}
+			CompletableFuture<Void> slot = new CompletableFuture<Void>();
+			waitingRequests.add( slot );
+			return slot;
+		}
+
+		/*
+		 * Start the next waiting request, once a request is done.
+		 */
+		private void release() {
+			CompletableFuture<Void> slot;
+			synchronized ( this ) {
+				slot = waitingRequests.poll();
+				if ( slot == null ) nbFreeSlots++;
+			}
+			if ( slot != null ) slot.complete( null );
+		}
 	}
 
 }
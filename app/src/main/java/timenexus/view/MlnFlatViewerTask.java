@@ -2,7 +2,6 @@ package timenexus.view;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.JOptionPane;
 
@@ -26,6 +25,7 @@ import org.cytoscape.work.TaskManager;
 import org.cytoscape.work.TaskMonitor;
 import org.cytoscape.work.TaskObserver;
 
+import timenexus.temporalnetwork.MlnNodeLayerIndex;
 import timenexus.temporalnetwork.MlnWriter;
 import timenexus.utils.MlnException;
 import timenexus.utils.Print;
@@ -120,7 +120,7 @@ public class MlnFlatViewerTask extends AbstractTask {
 		// Create new view
 		CyNetworkView viewFlatNet = networkViewFactory.createNetworkView(flattenedNet);
 		// Set location of nodes
-		Map<Integer, Map<String, CyNode>> flatNodeLayers = MlnWriter.getAllNodeLayers(flattenedNet);
+		MlnNodeLayerIndex flatNodeLayers = MlnNodeLayerIndex.get(flattenedNet);
 		for ( CyNode aggNode : aggregatedNet.getNodeList() ) {
 			// Get node of the agg network
 			CyRow aggNodeRow = aggregatedNet.getRow(aggNode);
@@ -133,8 +133,8 @@ public class MlnFlatViewerTask extends AbstractTask {
 			// Set location of the node-layer
 			for ( int layerID : nodeLayerIDs ) {
 				String flatNodeName = aggNodeName + "_" + layerID;
-				if ( flatNodeLayers.get(layerID) != null && flatNodeLayers.get(layerID).containsKey(flatNodeName) ) {
-					CyNode flatNode = flatNodeLayers.get(layerID).get(flatNodeName);
+				CyNode flatNode = flatNodeLayers.getNode(layerID, flatNodeName);
+				if ( flatNode != null ) {
 					View<CyNode> flatNodeView = viewFlatNet.getNodeView(flatNode);
 					if ( layersToShow.contains(layerID) ) {
 						double[] nodeLoc = computeNodeLayerLocation( aggNodeX, aggNodeY, width, layerID );
@@ -0,0 +1,26 @@
+package timenexus.apps;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/*
+ * Delays between the polls of the Anat Server jobs.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class AnatPollingSchedulerTest {
+
+	/*
+	 * The delay should grow by 50% each time the results are not ready, up to 10s.
+	 */
+	@Test
+	public void delayGrowsUpToTenSeconds() {
+		long[] expectedDelays = { 1500, 2250, 3375, 5062, 7593, 10000, 10000 };
+		long delay = 1000;
+		for ( long expectedDelay : expectedDelays ) {
+			delay = AnatPollingScheduler.getNextDelay( delay );
+			assertEquals( expectedDelay, delay );
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package timenexus.apps;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Test;
+
+/*
+ * Reading of the SOAP responses of the Anat Server.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class AnatSoapTest {
+
+	// Response with a subnetwork, whose elements have prefixes and namespaces
+	private static final String RESPONSE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<S:Envelope xmlns:S=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+			+ "<S:Body>"
+			+ "<ns2:networkGraph xmlns:ns2=\"http://anat.cs.tau.ac.il/\">"
+			+ "<edges><id1>a</id1><id2>b</id2><probability>0.5</probability></edges>"
+			+ "<nodes xmlns=\"http://anat.cs.tau.ac.il/nodes\"><id>a</id></nodes>"
+			+ "</ns2:networkGraph>"
+			+ "</S:Body>"
+			+ "</S:Envelope>";
+
+	/*
+	 * The elements should be read by their local name, without prefix or namespace, and their text should be kept.
+	 */
+	@Test
+	public void namespacesAreIgnored() throws Exception {
+		XMLStreamReader reader = AnatSoap.createResponseReader( new ByteArrayInputStream( RESPONSE.getBytes( StandardCharsets.UTF_8 ) ) );
+		List<QName> names = new ArrayList<QName>();
+		List<String> texts = new ArrayList<String>();
+		while ( reader.hasNext() ) {
+			int event = reader.next();
+			if ( event == XMLStreamConstants.START_ELEMENT ) {
+				assertEquals( "", reader.getNamespaceURI() );
+				assertEquals( "", reader.getPrefix() );
+				names.add( reader.getName() );
+			} else if ( event == XMLStreamConstants.CHARACTERS ) texts.add( reader.getText() );
+		}
+		reader.close();
+
+		assertEquals( Arrays.asList( new QName("Envelope"), new QName("Body"), new QName("networkGraph"), new QName("edges"),
+				new QName("id1"), new QName("id2"), new QName("probability"), new QName("nodes"), new QName("id") ), names );
+		assertEquals( Arrays.asList( "a", "b", "0.5", "a" ), texts );
+	}
+}
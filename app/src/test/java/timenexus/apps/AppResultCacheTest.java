@@ -0,0 +1,210 @@
+package timenexus.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.model.CyRow;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import timenexus.temporalnetwork.FlattenedNetworkProjection;
+import timenexus.temporalnetwork.MlnBuilder;
+
+/*
+ * Keys of the app calls and eviction of the extracted networks kept in memory.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class AppResultCacheTest {
+
+	private long maxMemorySize;
+
+	@Before
+	public void clearCache() {
+		maxMemorySize = AppResultCache.getMaxMemorySize();
+		AppResultCache.setDirectory( null );
+		AppResultCache.clear();
+	}
+
+	@After
+	public void restoreCache() {
+		AppResultCache.clear();
+		AppResultCache.setMaxMemorySize( maxMemorySize );
+	}
+
+	/*
+	 * The key should not depend on the SUIDs or on the order of the nodes, edges and queries,
+	 * but it should depend on the weights.
+	 */
+	@Test
+	public void keyIgnoresSuidsAndOrder() {
+		AppCaller app = createApp( Collections.singletonMap( "k", 10 ) );
+		Map<String, String> sources = new LinkedHashMap<String, String>();
+		sources.put( "a", "source" );
+		sources.put( "b", "source" );
+		Map<String, String> reversedSources = new LinkedHashMap<String, String>();
+		reversedSources.put( "b", "source" );
+		reversedSources.put( "a", "source" );
+		Map<String, String> targets = Collections.singletonMap( "c", "target" );
+
+		TestNetwork network = new TestNetwork( 1 );
+		network.addNode( "a", 1. ).addNode( "b", 0.5 ).addNode( "c", 0.2 );
+		network.addEdge( "a", "b", 0.1 ).addEdge( "b", "c", 0.3 );
+		TestNetwork sameNetwork = new TestNetwork( 100 );
+		sameNetwork.addNode( "c", 0.2 ).addNode( "b", 0.5 ).addNode( "a", 1. );
+		sameNetwork.addEdge( "b", "c", 0.3 ).addEdge( "a", "b", 0.1 );
+		TestNetwork otherNetwork = new TestNetwork( 1 );
+		otherNetwork.addNode( "a", 1. ).addNode( "b", 0.5 ).addNode( "c", 0.2 );
+		otherNetwork.addEdge( "a", "b", 0.1 ).addEdge( "b", "c", 0.4 );
+
+		String key = AppResultCache.getKey( app, network.toProjection(), sources, targets );
+		assertNotNull( key );
+		assertEquals( key, AppResultCache.getKey( app, sameNetwork.toProjection(), reversedSources, targets ) );
+		assertFalse( key.equals( AppResultCache.getKey( app, otherNetwork.toProjection(), sources, targets ) ) );
+		assertFalse( key.equals( AppResultCache.getKey( createApp( Collections.singletonMap( "k", 20 ) ),
+				network.toProjection(), sources, targets ) ) );
+		// Without parameter values, the results of the app are not reused
+		assertNull( AppResultCache.getKey( createApp( null ), network.toProjection(), sources, targets ) );
+	}
+
+	/*
+	 * Beyond the maximal size, the least recently used networks should be removed from the memory.
+	 */
+	@Test
+	public void leastRecentlyUsedNetworksAreEvicted() {
+		// The size of a network is mostly its node name, so that two networks fit within the memory, but not three
+		char[] name = new char[1000];
+		Arrays.fill( name, 'n' );
+		AppResultCache.setMaxMemorySize( 5000 );
+
+		AppResultCache.put( "first", createNetwork( new String( name ) ) );
+		AppResultCache.put( "second", createNetwork( new String( name ) ) );
+		assertNotNull( AppResultCache.get( "first" ) );
+		AppResultCache.put( "third", createNetwork( new String( name ) ) );
+
+		assertNotNull( AppResultCache.get( "first" ) );
+		assertNull( AppResultCache.get( "second" ) );
+		assertNotNull( AppResultCache.get( "third" ) );
+
+		// A lower maximal size evicts the networks which do not fit anymore
+		AppResultCache.setMaxMemorySize( 3000 );
+		assertNull( AppResultCache.get( "first" ) );
+		assertNotNull( AppResultCache.get( "third" ) );
+	}
+
+	private static ExtractedNetwork createNetwork( String nodeName ) {
+		return new ExtractedNetwork( new ArrayList<String>( Arrays.asList( nodeName ) ), new ArrayList<List<String>>() );
+	}
+
+	/*
+	 * @return app with the given parameter values
+	 */
+	private static AppCaller createApp( Map<String, Object> parameterValues ) {
+		return (AppCaller) Proxy.newProxyInstance( AppCaller.class.getClassLoader(), new Class<?>[] { AppCaller.class },
+				( proxy, method, args ) -> {
+					switch ( method.getName() ) {
+						case "getParameterValues": return parameterValues;
+						case "toString": return "test app";
+						case "hashCode": return System.identityHashCode( proxy );
+						case "equals": return proxy == args[0];
+						default: throw new UnsupportedOperationException( method.getName() );
+					}
+				} );
+	}
+
+	/*
+	 * Network whose nodes and edges have names, weights and SUIDs, without any Cytoscape model.
+	 */
+	private static class TestNetwork {
+
+		private long nextSuid;
+		private final List<CyNode> nodes = new ArrayList<CyNode>();
+		private final List<CyEdge> edges = new ArrayList<CyEdge>();
+		private final Map<String, CyNode> nodesByName = new HashMap<String, CyNode>();
+		private final Map<CyIdentifiable, Map<String, Object>> rows = new HashMap<CyIdentifiable, Map<String, Object>>();
+
+		TestNetwork( long firstSuid ) {
+			nextSuid = firstSuid;
+		}
+
+		TestNetwork addNode( String name, double weight ) {
+			CyNode node = createElement( CyNode.class, null, null );
+			nodes.add( node );
+			nodesByName.put( name, node );
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put( CyNetwork.NAME, name );
+			row.put( MlnBuilder.WEIGHT, weight );
+			rows.put( node, row );
+			return this;
+		}
+
+		TestNetwork addEdge( String source, String target, double weight ) {
+			CyEdge edge = createElement( CyEdge.class, nodesByName.get( source ), nodesByName.get( target ) );
+			edges.add( edge );
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put( MlnBuilder.WEIGHT, weight );
+			row.put( MlnBuilder.DIRECTION, false );
+			rows.put( edge, row );
+			return this;
+		}
+
+		FlattenedNetworkProjection toProjection() {
+			CyNetwork network = (CyNetwork) Proxy.newProxyInstance( CyNetwork.class.getClassLoader(), new Class<?>[] { CyNetwork.class },
+					( proxy, method, args ) -> {
+						switch ( method.getName() ) {
+							case "getNodeList": return nodes;
+							case "getEdgeList": return edges;
+							case "getRow": return createRow( rows.get( args[0] ) );
+							case "hashCode": return System.identityHashCode( proxy );
+							case "equals": return proxy == args[0];
+							default: throw new UnsupportedOperationException( method.getName() );
+						}
+					} );
+			return new FlattenedNetworkProjection( network );
+		}
+
+		/*
+		 * @return node or edge with the next SUID
+		 */
+		private <T extends CyIdentifiable> T createElement( Class<T> type, CyNode source, CyNode target ) {
+			long suid = nextSuid++;
+			return type.cast( Proxy.newProxyInstance( type.getClassLoader(), new Class<?>[] { type },
+					( proxy, method, args ) -> {
+						switch ( method.getName() ) {
+							case "getSUID": return suid;
+							case "getSource": return source;
+							case "getTarget": return target;
+							case "isDirected": return false;
+							case "hashCode": return Long.hashCode( suid );
+							case "equals": return proxy == args[0];
+							case "toString": return type.getSimpleName() + suid;
+							default: throw new UnsupportedOperationException( method.getName() );
+						}
+					} ) );
+		}
+
+		private static CyRow createRow( Map<String, Object> values ) {
+			return (CyRow) Proxy.newProxyInstance( CyRow.class.getClassLoader(), new Class<?>[] { CyRow.class },
+					( proxy, method, args ) -> {
+						if ( method.getName().equals("get") ) return ( (Class<?>) args[1] ).cast( values.get( args[0] ) );
+						throw new UnsupportedOperationException( method.getName() );
+					} );
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package timenexus.apps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cytoscape.work.TaskMonitor;
+import org.junit.Test;
+
+import timenexus.apps.KShortestPaths.Path;
+import timenexus.extraction.ExtractionMethod;
+
+/*
+ * k shortest paths from the query-source nodes to the query-target nodes.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class KShortestPathsTest {
+
+	// Extraction method which is never cancelled
+	private static final ExtractionMethod METHOD = new ExtractionMethod() {
+		@Override
+		public void run( TaskMonitor taskMonitor ) {}
+		@Override
+		protected int getNbCalls() { return 0; }
+		@Override
+		protected CallPreparation getCallPreparation( Set<String> queryNodeLayers, TaskMonitor taskMonitor ) { return null; }
+	};
+
+	/*
+	 * The paths should be returned from the shortest to the longest, with the sum of their arc costs.
+	 */
+	@Test
+	public void pathsAreSortedByCost() throws Exception {
+		KShortestPaths graph = new KShortestPaths( 4,
+				new int[] { 0, 1, 0, 2, 0, 1 },
+				new int[] { 1, 3, 2, 3, 3, 2 },
+				new double[] { 1, 1, 1, 2, 5, 0.5 } );
+		List<Path> paths = graph.find( new int[] { 0 }, new int[] { 3 }, 10, false, true, METHOD );
+
+		assertEquals( 4, paths.size() );
+		assertPath( paths.get(0), 2, 0, 1, 3 );
+		assertPath( paths.get(1), 3, 0, 2, 3 );
+		assertPath( paths.get(2), 3.5, 0, 1, 2, 3 );
+		assertPath( paths.get(3), 5, 0, 3 );
+		// Only the k first paths are returned
+		assertEquals( 2, graph.find( new int[] { 0 }, new int[] { 3 }, 2, false, true, METHOD ).size() );
+	}
+
+	/*
+	 * The paths having the same cost as the k-th path should be returned only if the tied paths are included.
+	 */
+	@Test
+	public void tiedPathsAreIncluded() throws Exception {
+		KShortestPaths graph = new KShortestPaths( 4,
+				new int[] { 0, 1, 0, 2, 0 },
+				new int[] { 1, 3, 2, 3, 3 },
+				new double[] { 1, 1, 1, 1, 3 } );
+
+		List<Path> paths = graph.find( new int[] { 0 }, new int[] { 3 }, 1, false, true, METHOD );
+		assertEquals( 1, paths.size() );
+		assertEquals( 2, paths.get(0).getCost(), 1e-9 );
+
+		paths = graph.find( new int[] { 0 }, new int[] { 3 }, 1, true, true, METHOD );
+		assertEquals( 2, paths.size() );
+		assertEquals( new HashSet<List<Integer>>( Arrays.asList( Arrays.asList( 0, 1, 3 ), Arrays.asList( 0, 2, 3 ) ) ),
+				new HashSet<List<Integer>>( Arrays.asList( toList( paths.get(0) ), toList( paths.get(1) ) ) ) );
+		assertEquals( 2, paths.get(1).getCost(), 1e-9 );
+	}
+
+	/*
+	 * If the sources and targets are not allowed within the paths, a path cannot go through another source.
+	 */
+	@Test
+	public void sourcesAreNotWithinPaths() throws Exception {
+		KShortestPaths graph = new KShortestPaths( 4,
+				new int[] { 0, 1, 0, 2 },
+				new int[] { 1, 3, 2, 3 },
+				new double[] { 1, 1, 1, 2 } );
+		int[] sources = new int[] { 0, 1 };
+		int[] targets = new int[] { 3 };
+
+		List<Path> paths = graph.find( sources, targets, 10, false, true, METHOD );
+		assertEquals( 3, paths.size() );
+		assertPath( paths.get(0), 1, 1, 3 );
+		assertPath( paths.get(1), 2, 0, 1, 3 );
+		assertPath( paths.get(2), 3, 0, 2, 3 );
+
+		paths = graph.find( sources, targets, 10, false, false, METHOD );
+		assertEquals( 2, paths.size() );
+		assertPath( paths.get(0), 1, 1, 3 );
+		assertPath( paths.get(1), 3, 0, 2, 3 );
+	}
+
+	/*
+	 * A node which is both a source and a target should start and end paths, but a path should have at least one arc.
+	 */
+	@Test
+	public void nodeIsSourceAndTarget() throws Exception {
+		KShortestPaths graph = new KShortestPaths( 3,
+				new int[] { 0, 1 },
+				new int[] { 1, 2 },
+				new double[] { 1, 1 } );
+		List<Path> paths = graph.find( new int[] { 0, 1 }, new int[] { 1, 2 }, 10, false, true, METHOD );
+
+		assertEquals( 3, paths.size() );
+		assertEquals( new HashSet<List<Integer>>( Arrays.asList( Arrays.asList( 0, 1 ), Arrays.asList( 1, 2 ) ) ),
+				new HashSet<List<Integer>>( Arrays.asList( toList( paths.get(0) ), toList( paths.get(1) ) ) ) );
+		assertEquals( 1, paths.get(0).getCost(), 1e-9 );
+		assertEquals( 1, paths.get(1).getCost(), 1e-9 );
+		assertPath( paths.get(2), 2, 0, 1, 2 );
+	}
+
+	private static void assertPath( Path path, double cost, int... nodes ) {
+		assertArrayEquals( nodes, path.getNodes() );
+		assertEquals( cost, path.getCost(), 1e-9 );
+	}
+
+	private static List<Integer> toList( Path path ) {
+		List<Integer> nodes = new ArrayList<Integer>();
+		for ( int node : path.getNodes() ) nodes.add( node );
+		return nodes;
+	}
+}
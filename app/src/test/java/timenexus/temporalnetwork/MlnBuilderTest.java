@@ -0,0 +1,143 @@
+package timenexus.temporalnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import timenexus.temporalnetwork.MlnBuilder.EdgeLayer;
+import timenexus.temporalnetwork.MlnBuilder.MlnBuilderException;
+import timenexus.temporalnetwork.MlnBuilder.NodeLayer;
+
+/*
+ * Values and heap usage of the layer columns of MlnBuilder, compared to the former boxed lists.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class MlnBuilderTest {
+
+	private static final int NB_LAYERS = 30;
+	private static final int NB_NODES = 20000;
+	private static final int NB_EDGES = 20000;
+
+	/*
+	 * The layer columns should keep the values of the boxed lists they are filled from.
+	 */
+	@Test
+	public void layerColumnsKeepTheValuesOfBoxedLists() throws MlnBuilderException {
+		String[] names = createNames();
+		MlnBuilder builder = new MlnBuilder( NB_LAYERS );
+		Random random = new Random(1);
+		List<List<List<?>>> boxedLayers = new ArrayList<List<List<?>>>();
+		for ( int layer = 0; layer < NB_LAYERS; layer++ ) {
+			boxedLayers.add( createBoxedLayer( names, random ) );
+			fillBuilderLayer( builder, layer, boxedLayers.get( layer ) );
+		}
+
+		assertEquals( NB_NODES, builder.getNodeIdCount() );
+		for ( int layer = 0; layer < NB_LAYERS; layer++ ) {
+			List<List<?>> columns = boxedLayers.get( layer );
+			NodeLayer nodes = builder.getNodeLayerTables( layer );
+			EdgeLayer edges = builder.getIntraEdgeLayerTables( layer );
+			assertEquals( columns.get(0).size(), builder.getNodeLayerCount( layer ) );
+			assertEquals( columns.get(0), nodes.getNodes() );
+			assertEquals( columns.get(1), nodes.getWeights() );
+			assertEquals( columns.get(2), edges.getSources() );
+			assertEquals( columns.get(3), edges.getTargets() );
+			assertEquals( columns.get(4), edges.getWeights() );
+			assertEquals( columns.get(5), edges.getDirections() );
+		}
+	}
+
+	/*
+	 * The columns of a multi-layer network as large as a transcriptomics network (20k genes x 30 layers)
+	 * should use less than 3/4 of the heap used by the same columns stored as boxed lists.
+	 * The used heap is measured after System.gc(), which the JVM is free to ignore, so this benchmark is run on demand only.
+	 */
+	@Ignore( "Benchmark: the measure of the used heap depends on the garbage collector" )
+	@Test
+	public void layerColumnsUseLessHeapThanBoxedLists() throws MlnBuilderException {
+		String[] names = createNames();
+
+		// Columns stored as boxed lists, as done before the primitive columns
+		long before = getUsedHeap();
+		List<List<List<?>>> boxedLayers = new ArrayList<List<List<?>>>();
+		Random random = new Random(1);
+		for ( int layer = 0; layer < NB_LAYERS; layer++ ) boxedLayers.add( createBoxedLayer( names, random ) );
+		long boxedHeap = getUsedHeap() - before;
+		boxedLayers = null;
+
+		// Columns of MlnBuilder, from the same values
+		before = getUsedHeap();
+		MlnBuilder builder = new MlnBuilder( NB_LAYERS );
+		random = new Random(1);
+		for ( int layer = 0; layer < NB_LAYERS; layer++ ) {
+			List<List<?>> columns = createBoxedLayer( names, random );
+			fillBuilderLayer( builder, layer, columns );
+		}
+		long builderHeap = getUsedHeap() - before;
+
+		assertTrue( "MlnBuilder uses " + builderHeap + " bytes, boxed lists use " + boxedHeap + " bytes",
+				builderHeap < boxedHeap * 3 / 4 );
+	}
+
+	private static String[] createNames() {
+		String[] names = new String[NB_NODES];
+		for ( int n = 0; n < NB_NODES; n++ ) names[n] = "gene" + n;
+		return names;
+	}
+
+	/*
+	 * @return columns of a layer: node names, node weights, edge sources, edge targets, edge weights and edge directions
+	 */
+	private static List<List<?>> createBoxedLayer( String[] names, Random random ) {
+		List<String> nodes = new ArrayList<String>( NB_NODES );
+		List<Double> nodeWeights = new ArrayList<Double>( NB_NODES );
+		for ( int n = 0; n < NB_NODES; n++ ) {
+			nodes.add( names[n] );
+			nodeWeights.add( Double.valueOf( random.nextDouble() ) );
+		}
+		List<String> sources = new ArrayList<String>( NB_EDGES );
+		List<String> targets = new ArrayList<String>( NB_EDGES );
+		List<Double> edgeWeights = new ArrayList<Double>( NB_EDGES );
+		List<Boolean> directions = new ArrayList<Boolean>( NB_EDGES );
+		for ( int e = 0; e < NB_EDGES; e++ ) {
+			sources.add( names[ random.nextInt( NB_NODES ) ] );
+			targets.add( names[ random.nextInt( NB_NODES ) ] );
+			edgeWeights.add( Double.valueOf( random.nextDouble() ) );
+			directions.add( random.nextBoolean() );
+		}
+		return List.of( nodes, nodeWeights, sources, targets, edgeWeights, directions );
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void fillBuilderLayer( MlnBuilder builder, int layer, List<List<?>> columns ) throws MlnBuilderException {
+		builder.addNodeColumn( MlnBuilder.NODE, layer, (List<String>) columns.get(0) );
+		builder.addWeight( MlnBuilder.NODE, layer, (List<Double>) columns.get(1) );
+		builder.addSourceColumn( MlnBuilder.INTRA_EDGE, layer, (List<String>) columns.get(2) );
+		builder.addTargetColumn( MlnBuilder.INTRA_EDGE, layer, (List<String>) columns.get(3) );
+		builder.addWeight( MlnBuilder.INTRA_EDGE, layer, (List<Double>) columns.get(4) );
+		builder.addDirection( MlnBuilder.INTRA_EDGE, layer, (List<Boolean>) columns.get(5) );
+	}
+
+	/*
+	 * @return heap used by the reachable objects
+	 */
+	private static long getUsedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		// Several collections, until the used heap does not decrease anymore
+		for ( int i = 0; i < 10; i++ ) {
+			System.gc();
+			long newUsed = runtime.totalMemory() - runtime.freeMemory();
+			if ( newUsed >= used ) break;
+			used = newUsed;
+		}
+		return used;
+	}
+}
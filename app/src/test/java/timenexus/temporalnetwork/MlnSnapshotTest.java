@@ -0,0 +1,187 @@
+package timenexus.temporalnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import timenexus.temporalnetwork.MlnBuilder.BooleanColumn;
+import timenexus.temporalnetwork.MlnBuilder.DoubleColumn;
+import timenexus.temporalnetwork.MlnBuilder.EdgeLayer;
+import timenexus.temporalnetwork.MlnBuilder.IntegerColumn;
+import timenexus.temporalnetwork.MlnBuilder.Layer;
+import timenexus.temporalnetwork.MlnBuilder.LongColumn;
+import timenexus.temporalnetwork.MlnBuilder.MlnColumn;
+import timenexus.temporalnetwork.MlnBuilder.NodeLayer;
+import timenexus.temporalnetwork.MlnBuilder.StringColumn;
+import timenexus.temporalnetwork.MlnSnapshot.MlnSnapshotException;
+
+/*
+ * Round trip of a multi-layer network through a snapshot file.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class MlnSnapshotTest {
+
+	private static final Path SAMPLE = Paths.get( "..", "sample", "mouse_multiLayerNetwork" );
+	private static final int NB_LAYERS = 3;
+
+	private File snapshotFile;
+
+	@Before
+	public void createSnapshotFile() throws IOException {
+		snapshotFile = File.createTempFile( "timenexus", ".snapshot" );
+	}
+
+	@After
+	public void deleteSnapshotFile() {
+		snapshotFile.delete();
+	}
+
+	/*
+	 * The sample network should be reloaded with the same names, weights, directions and other columns.
+	 */
+	@Test
+	public void sampleNetworkIsReloaded() throws Exception {
+		MlnBuilder mlnData = importSample();
+		MlnSnapshot.write( mlnData, snapshotFile );
+		MlnBuilder loadedData = MlnSnapshot.read( snapshotFile );
+
+		assertEquals( NB_LAYERS, loadedData.getNumberLayers() );
+		assertEquals( mlnData.getNodeIdCount(), loadedData.getNodeIdCount() );
+		for (int id = 0; id < mlnData.getNodeIdCount(); id++) assertEquals( mlnData.getNodeName(id), loadedData.getNodeName(id) );
+		for (int i = 0; i < NB_LAYERS; i++) {
+			NodeLayer nodeLayer = mlnData.getNodeLayerTables(i);
+			NodeLayer loadedNodeLayer = loadedData.getNodeLayerTables(i);
+			assertEquals( nodeLayer.getNodes(), loadedNodeLayer.getNodes() );
+			assertLayerEquals( nodeLayer, loadedNodeLayer );
+			assertEdgeLayerEquals( mlnData.getIntraEdgeLayerTables(i), loadedData.getIntraEdgeLayerTables(i) );
+			if ( i < NB_LAYERS - 1 )
+				assertEdgeLayerEquals( mlnData.getInterEdgeLayerTables(i), loadedData.getInterEdgeLayerTables(i) );
+		}
+		// The other columns keep the order of the header
+		assertEquals( "score", loadedData.getIntraEdgeLayerTables(0).getOtherColumns().get(0).getName() );
+		assertEquals( "edge type", loadedData.getIntraEdgeLayerTables(0).getOtherColumns().get(1).getName() );
+		// The queries are reloaded as booleans, the scores as doubles and the edge types as strings
+		assertTrue( getColumn( loadedData.getNodeLayerTables(0), "Query_1" ) instanceof BooleanColumn );
+		assertTrue( getColumn( loadedData.getIntraEdgeLayerTables(0), "score" ) instanceof DoubleColumn );
+		assertTrue( getColumn( loadedData.getIntraEdgeLayerTables(0), "edge type" ) instanceof StringColumn );
+	}
+
+	/*
+	 * Other columns of primitive values should be reloaded as such, with their null rows,
+	 * and list columns should keep their type.
+	 */
+	@Test
+	public void otherColumnsKeepTheirTypeAndNullRows() throws Exception {
+		MlnBuilder mlnData = new MlnBuilder( 2 );
+		for (int i = 0; i < 2; i++) {
+			mlnData.addNodeColumn( MlnBuilder.NODE, i, Arrays.asList( "a", "b", "c" ) );
+			mlnData.addWeight( MlnBuilder.NODE, i, Arrays.asList( 0.5, null, 1.0 ) );
+			mlnData.addOtherColum( MlnBuilder.NODE, i, "Double", Double.class, Arrays.asList( 1.5, null, -2.0 ) );
+			mlnData.addOtherColum( MlnBuilder.NODE, i, "Integer", Integer.class, Arrays.asList( null, 2, -3 ) );
+			mlnData.addOtherColum( MlnBuilder.NODE, i, "Long", Long.class, Arrays.asList( 1L << 40, null, 0L ) );
+			mlnData.addOtherColum( MlnBuilder.NODE, i, "Boolean", Boolean.class, Arrays.asList( true, false, null ) );
+			mlnData.addOtherColum( MlnBuilder.NODE, i, "List", List.class,
+					Arrays.asList( Arrays.asList( 1, 2 ), null, Collections.emptyList() ) );
+			mlnData.addSourceColumn( MlnBuilder.INTRA_EDGE, i, Arrays.asList( "a" ) );
+			mlnData.addTargetColumn( MlnBuilder.INTRA_EDGE, i, Arrays.asList( "b" ) );
+			mlnData.addWeight( MlnBuilder.INTRA_EDGE, i, Arrays.asList( 1.0 ) );
+			mlnData.addDirection( MlnBuilder.INTRA_EDGE, i, Arrays.asList( true ) );
+		}
+		mlnData.addSourceColumn( MlnBuilder.INTER_EDGE, 0, Arrays.asList( "c" ) );
+		mlnData.addTargetColumn( MlnBuilder.INTER_EDGE, 0, Arrays.asList( "c" ) );
+		mlnData.addWeight( MlnBuilder.INTER_EDGE, 0, Arrays.asList( 1.0 ) );
+		mlnData.addDirection( MlnBuilder.INTER_EDGE, 0, Arrays.asList( false ) );
+		MlnSnapshot.write( mlnData, snapshotFile );
+		MlnBuilder loadedData = MlnSnapshot.read( snapshotFile );
+
+		Layer loadedLayer = loadedData.getNodeLayerTables(1);
+		assertLayerEquals( mlnData.getNodeLayerTables(1), loadedLayer );
+		assertNull( loadedLayer.getWeights().get(1) );
+		List<MlnColumn<?>> columns = loadedLayer.getOtherColumns();
+		assertTrue( columns.get(0) instanceof DoubleColumn );
+		assertTrue( columns.get(1) instanceof IntegerColumn );
+		assertTrue( columns.get(2) instanceof LongColumn );
+		assertTrue( columns.get(3) instanceof BooleanColumn );
+		assertEquals( List.class, columns.get(4).getType() );
+	}
+
+	/*
+	 * A negative or too large length in the file should be reported as a snapshot error, before allocating any array.
+	 */
+	@Test
+	public void invalidLengthsAreRejected() throws Exception {
+		for ( int nbNodes : new int[] { -1, Integer.MAX_VALUE } ) {
+			try ( DataOutputStream out = new DataOutputStream( new FileOutputStream( snapshotFile ) ) ) {
+				out.writeInt( 0x544E5853 ); // magic number
+				out.writeInt( 1 ); // version
+				out.writeInt( 1 ); // number of layers
+				out.writeInt( nbNodes ); // size of the dictionary of the node names
+			}
+			try {
+				MlnSnapshot.read( snapshotFile );
+				fail( "The length " + nbNodes + " should be rejected." );
+			} catch ( MlnSnapshotException e ) {
+				assertTrue( e.getMessage().contains( "Invalid length" ) );
+			}
+		}
+	}
+
+	/*
+	 * @return the sample multi-layer network, imported from its tab-separated files
+	 */
+	private static MlnBuilder importSample() throws Exception {
+		MlnBuilder mlnData = new MlnBuilder( NB_LAYERS );
+		importTable( mlnData, MlnBuilder.NODE, NB_LAYERS, "nodeTable.tsv" );
+		importTable( mlnData, MlnBuilder.INTRA_EDGE, NB_LAYERS, "intraLayerEdgeTable.tsv" );
+		importTable( mlnData, MlnBuilder.INTER_EDGE, NB_LAYERS - 1, "interLayerEdgeTable.tsv" );
+		return mlnData;
+	}
+
+	private static void importTable( MlnBuilder mlnData, int tableType, int nbTables, String fileName ) throws Exception {
+		Path file = SAMPLE.resolve( fileName );
+		MlnTsvImporter.importTables( mlnData, tableType, nbTables, Arrays.asList( file ), null, 1, false );
+	}
+
+	/*
+	 * @return other column of a layer with the given name, or null
+	 */
+	private static MlnColumn<?> getColumn( Layer layer, String colName ) {
+		for ( MlnColumn<?> col : layer.getOtherColumns() ) if ( col.getName().equals( colName ) ) return col;
+		return null;
+	}
+
+	private static void assertEdgeLayerEquals( EdgeLayer expected, EdgeLayer actual ) {
+		assertEquals( expected.getSources(), actual.getSources() );
+		assertEquals( expected.getTargets(), actual.getTargets() );
+		assertEquals( expected.getDirections(), actual.getDirections() );
+		assertLayerEquals( expected, actual );
+	}
+
+	private static void assertLayerEquals( Layer expected, Layer actual ) {
+		assertEquals( expected.getWeights(), actual.getWeights() );
+		assertEquals( expected.getOtherColumns().size(), actual.getOtherColumns().size() );
+		for (int c = 0; c < expected.getOtherColumns().size(); c++) {
+			MlnColumn<?> expectedCol = expected.getOtherColumns().get(c);
+			MlnColumn<?> actualCol = actual.getOtherColumns().get(c);
+			assertEquals( expectedCol.getName(), actualCol.getName() );
+			assertEquals( expectedCol.getType(), actualCol.getType() );
+			assertEquals( expectedCol, (List<?>) actualCol );
+		}
+	}
+}
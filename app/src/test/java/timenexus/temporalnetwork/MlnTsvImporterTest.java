@@ -0,0 +1,98 @@
+package timenexus.temporalnetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import timenexus.temporalnetwork.MlnBuilder.Layer;
+import timenexus.temporalnetwork.MlnBuilder.MlnColumn;
+
+/*
+ * Guess of the column types of a tab-separated file defining all layers, and import of the file.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class MlnTsvImporterTest {
+
+	private static final List<String> HEADER = Arrays.asList( "Node", "Query_1", "Score_1", "Query_2", "Score_2", "score_2018" );
+	private static final int NB_LAYERS = 2;
+
+	private File tsvFile;
+
+	@Before
+	public void createTsvFile() throws IOException {
+		tsvFile = File.createTempFile( "timenexus", ".tsv" );
+		Files.write( tsvFile.toPath(), Arrays.asList(
+				String.join( "\t", HEADER ),
+				"a\ttrue\t0.5\tfalse\t1.5\t10",
+				"b\tfalse\t0.25\ttrue\t2.5\t20" ), StandardCharsets.UTF_8 );
+	}
+
+	@After
+	public void deleteTsvFile() {
+		tsvFile.delete();
+	}
+
+	/*
+	 * Each per-layer column should have its own type, and a column ending with a year should be shared.
+	 */
+	@Test
+	public void everyPerLayerColumnIsGuessed() {
+		Map<String, String> columnTypes = MlnTsvImporter.guessColumnTypes( HEADER, MlnBuilder.NODE, NB_LAYERS );
+
+		assertEquals( HEADER.size(), columnTypes.size() );
+		assertEquals( "Node", columnTypes.get( "Node" ) );
+		assertEquals( "Query_1", columnTypes.get( "1Other column layer_1" ) );
+		assertEquals( "Score_1", columnTypes.get( "2Other column layer_1" ) );
+		assertEquals( "Query_2", columnTypes.get( "3Other column layer_2" ) );
+		assertEquals( "Score_2", columnTypes.get( "4Other column layer_2" ) );
+		assertEquals( "score_2018", columnTypes.get( "5Shared column" ) );
+	}
+
+	/*
+	 * The per-layer columns should be imported into their layer, and the shared column into all layers.
+	 */
+	@Test
+	public void perLayerAndSharedColumnsAreImported() throws Exception {
+		MlnBuilder mlnData = new MlnBuilder( NB_LAYERS );
+		MlnTsvImporter.importTables( mlnData, MlnBuilder.NODE, NB_LAYERS, Arrays.asList( tsvFile.toPath() ), null, 1, false );
+
+		Layer layer1 = mlnData.getNodeLayerTables(0);
+		assertEquals( Arrays.asList( "Query_1", "Score_1", "score_2018" ), getColumnNames( layer1 ) );
+		assertEquals( 0.25, (Double) getColumn( layer1, "Score_1" ).get(1), 0 );
+		assertEquals( 20, getColumn( layer1, "score_2018" ).get(1) );
+
+		Layer layer2 = mlnData.getNodeLayerTables(1);
+		assertEquals( Arrays.asList( "Query_2", "Score_2", "score_2018" ), getColumnNames( layer2 ) );
+		assertEquals( true, getColumn( layer2, "Query_2" ).get(1) );
+		assertNull( getColumn( layer2, "Score_1" ) );
+		assertNotNull( getColumn( layer2, "score_2018" ) );
+	}
+
+	private static List<String> getColumnNames( Layer layer ) {
+		List<String> names = new ArrayList<String>();
+		for ( MlnColumn<?> col : layer.getOtherColumns() ) names.add( col.getName() );
+		return names;
+	}
+
+	/*
+	 * @return other column of a layer with the given name, or null
+	 */
+	private static MlnColumn<?> getColumn( Layer layer, String colName ) {
+		for ( MlnColumn<?> col : layer.getOtherColumns() ) if ( col.getName().equals( colName ) ) return col;
+		return null;
+	}
+}
@@ -0,0 +1,145 @@
+package timenexus.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Retries and cancellation of the requests sent to the apps, against a local HTTP server.
+ *
+ * @author Michaël Pierrelée, michael.pierrelee@univ-amu.fr
+ */
+public class HttpRequestToAPITest {
+
+	private HttpServer server;
+	private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+	private String url;
+	// Number of requests received by the server
+	private final AtomicInteger nbRequests = new AtomicInteger();
+	// Released to answer the requests to the slow server
+	private final CountDownLatch slowResponse = new CountDownLatch(1);
+	private int maxRetries;
+	private Duration retryDelay;
+	private int maxRequestsPerHost;
+
+	@Before
+	public void startServer() throws IOException {
+		maxRetries = HttpRequestToAPI.getMaxRetries();
+		retryDelay = HttpRequestToAPI.getRetryDelay();
+		maxRequestsPerHost = HttpRequestToAPI.getMaxRequestsPerHost();
+		server = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ), 0 );
+		server.setExecutor( serverThreads );
+		// The server is always unavailable
+		server.createContext( "/unavailable", exchange -> {
+			nbRequests.incrementAndGet();
+			exchange.getRequestBody().readAllBytes();
+			exchange.sendResponseHeaders( 503, -1 );
+			exchange.close();
+		} );
+		// The server answers once the latch is released
+		server.createContext( "/slow", exchange -> {
+			nbRequests.incrementAndGet();
+			exchange.getRequestBody().readAllBytes();
+			try {
+				slowResponse.await( 10, TimeUnit.SECONDS );
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders( 200, -1 );
+			exchange.close();
+		} );
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void stopServer() {
+		slowResponse.countDown();
+		server.stop(0);
+		serverThreads.shutdownNow();
+		HttpRequestToAPI.setMaxRetries( maxRetries );
+		HttpRequestToAPI.setRetryDelay( retryDelay );
+		HttpRequestToAPI.setMaxRequestsPerHost( maxRequestsPerHost );
+	}
+
+	/*
+	 * The delay before a retry should be between 0 and the retry delay doubled for each attempt, up to 30s.
+	 */
+	@Test
+	public void retryDelayIsBounded() {
+		long delay = HttpRequestToAPI.getRetryDelay().toMillis();
+		for ( int attempt = 0; attempt < 100; attempt++ ) {
+			long maxDelay = Math.min( 30000, delay << Math.min( attempt, 20 ) );
+			for ( int i = 0; i < 100; i++ ) {
+				long attemptDelay = HttpRequestToAPI.getRetryDelay( attempt );
+				assertTrue( "Delay of the attempt " + attempt + ": " + attemptDelay, attemptDelay >= 0 && attemptDelay <= maxDelay );
+			}
+		}
+	}
+
+	/*
+	 * An idempotent request should be sent again while the server is unavailable, up to the maximal number of retries.
+	 */
+	@Test
+	public void idempotentRequestIsRetried() throws Exception {
+		HttpRequestToAPI.setMaxRetries(2);
+		HttpRequestToAPI.setRetryDelay( Duration.ofMillis(1) );
+		HttpResponse<String> response = HttpRequestToAPI.sendSOAPAsync( url + "/unavailable", BodyPublishers.ofString( "<poll/>" ),
+				"getResult", BodyHandlers.ofString(), true ).get( 10, TimeUnit.SECONDS );
+
+		assertEquals( 503, response.statusCode() );
+		assertEquals( 3, nbRequests.get() );
+	}
+
+	/*
+	 * A request which is not idempotent should be sent once, as the server may have processed it.
+	 */
+	@Test
+	public void otherRequestIsNotRetried() throws Exception {
+		HttpRequestToAPI.setMaxRetries(2);
+		HttpRequestToAPI.setRetryDelay( Duration.ofMillis(1) );
+		HttpResponse<String> response = HttpRequestToAPI.sendSOAPAsync( url + "/unavailable", "<network/>", "process" )
+				.get( 10, TimeUnit.SECONDS );
+
+		assertEquals( 503, response.statusCode() );
+		assertEquals( 1, nbRequests.get() );
+	}
+
+	/*
+	 * A request cancelled while it waits for a request to the same host should not be sent,
+	 * and the next requests should still be sent once the running one is done.
+	 */
+	@Test
+	public void cancelledRequestIsNotSent() throws Exception {
+		HttpRequestToAPI.setMaxRequestsPerHost(1);
+		CompletableFuture<HttpResponse<String>> running = HttpRequestToAPI.sendSOAPAsync( url + "/slow", "<network/>", "process" );
+		CompletableFuture<HttpResponse<String>> cancelled = HttpRequestToAPI.sendSOAPAsync( url + "/slow", "<network/>", "process" );
+		cancelled.cancel( true );
+		slowResponse.countDown();
+
+		assertEquals( 200, running.get( 10, TimeUnit.SECONDS ).statusCode() );
+		assertEquals( 200, HttpRequestToAPI.sendSOAPAsync( url + "/slow", "<network/>", "process" )
+				.get( 10, TimeUnit.SECONDS ).statusCode() );
+		assertTrue( cancelled.isCancelled() );
+		assertEquals( 2, nbRequests.get() );
+	}
+}